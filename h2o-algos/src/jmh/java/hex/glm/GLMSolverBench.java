@@ -0,0 +1,80 @@
+package hex.glm;
+
+import hex.glm.GLMModel.GLMParameters;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import water.Key;
+import water.fvec.Frame;
+
+import java.util.concurrent.TimeUnit;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * Time to fit a binomial GLM on generated data (many rows, many chunks, see {@link GLMTest#makeLogisticFrame}) with the
+ * L-BFGS and the mini-batch SVRG solver. The training deviance of the last fit is printed so the quality of the solutions can be compared.
+ */
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GLMSolverBench {
+
+  @Param({"L_BFGS", "SVRG"})
+  private GLMParameters.Solver solver;
+
+  @Param({"1000000"})
+  private long rows;
+
+  @Param({"50"})
+  private int cols;
+
+  private Frame _fr;
+  private GLMModel _model;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(GLMSolverBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    stall_till_cloudsize(1);
+    _fr = GLMTest.makeLogisticFrame(Key.<Frame>make("GLMSolverBench"), rows, cols, 2, 0);
+  }
+
+  @TearDown(Level.Iteration)
+  public void removeModel() {
+    if (_model != null) {
+      System.out.println(solver + ": " + _model._output._training_metrics);
+      _model.delete();
+      _model = null;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    _fr.delete();
+  }
+
+  @Benchmark
+  public GLMModel fit() {
+    GLMParameters params = new GLMParameters(GLMParameters.Family.binomial);
+    params._train = _fr._key;
+    params._response_column = "y";
+    params._alpha = new double[]{.5};
+    params._lambda = new double[]{1e-4};
+    params._solver = solver;
+    params._seed = 42;
+    return _model = new GLM(params).trainModel().get();
+  }
+}
@@ -0,0 +1,91 @@
+package hex.gram;
+
+import hex.DataInfo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * Gram accumulation micro-benchmark on wide dense data: adding the rows one by one vs. the tiled (blocked)
+ * accumulation of the dense block.
+ */
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GramAccumulationBench {
+
+  @Param({"128", "1000", "3000"})
+  private int cols;
+
+  private static final int ROWS = 1000;
+
+  private DataInfo.Row[] _rows;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(GramAccumulationBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    stall_till_cloudsize(1);
+    Random rnd = new Random(42);
+    Vec.VectorGroup vg = Vec.VectorGroup.VG_LEN1;
+    Vec[] vecs = new Vec[cols];
+    for (int c = 0; c < cols; c++) {
+      double[] vals = new double[ROWS];
+      for (int r = 0; r < ROWS; r++)
+        vals[r] = rnd.nextGaussian();
+      vecs[c] = Vec.makeVec(vals, vg.addVec());
+    }
+    Frame fr = new Frame(vecs);
+    DataInfo dinfo = new DataInfo(fr, null, 0, true, DataInfo.TransformType.NONE, DataInfo.TransformType.NONE,
+            false, false, false, false, false, false);
+    try {
+      Chunk[] chks = new Chunk[cols];
+      for (int c = 0; c < cols; c++)
+        chks[c] = dinfo._adaptedFrame.vec(c).chunkForChunkIdx(0);
+      _rows = new DataInfo.Row[ROWS];
+      for (int r = 0; r < ROWS; r++)
+        _rows[r] = dinfo.extractDenseRow(chks, r, dinfo.newDenseRow());
+    } finally {
+      dinfo.remove();
+      fr.remove();
+    }
+  }
+
+  @Benchmark
+  public Gram rowByRow() {
+    Gram gram = new Gram(cols, 0, cols, 0, true);
+    for (DataInfo.Row row : _rows)
+      gram.addRow(row, row.weight);
+    return gram;
+  }
+
+  @Benchmark
+  public Gram tiled() {
+    Gram gram = new Gram(cols, 0, cols, 0, true).tileDenseRows();
+    for (DataInfo.Row row : _rows)
+      gram.addRow(row, row.weight);
+    gram.flushTile();
+    return gram;
+  }
+
+}
@@ -0,0 +1,124 @@
+package hex.tree;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+/**
+ * Histogram accumulation micro-benchmark: all threads updating one shared histogram with atomic (CAS)
+ * updates vs. each thread filling a private copy of the histogram followed by a pairwise merge of the copies.
+ */
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DHistogramAccumulationBench {
+
+  @Param({"1", "2", "4", "8", "16"})
+  private int threads;
+
+  @Param({"20", "256"})
+  private int nbins;
+
+  private static final int ROWS = 1000000;
+
+  private ExecutorService _pool;
+  private DHistogram _template;
+  private double[] _ws;
+  private double[] _cs;
+  private double[] _ys;
+  private int[] _rows;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(DHistogramAccumulationBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    _pool = Executors.newFixedThreadPool(threads);
+    _template = new DHistogram("x", nbins, nbins, (byte) 0, 0, 1, 0,
+            SharedTreeModel.SharedTreeParameters.HistogramType.UniformAdaptive, 42, null, Double.NaN, Double.NaN);
+    Random rnd = new Random(42);
+    _ws = new double[ROWS];
+    _cs = new double[ROWS];
+    _ys = new double[ROWS];
+    _rows = new int[ROWS];
+    for (int i = 0; i < ROWS; i++) {
+      _ws[i] = 1;
+      _cs[i] = rnd.nextDouble();
+      _ys[i] = rnd.nextGaussian();
+      _rows[i] = i;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    _pool.shutdown();
+  }
+
+  @Benchmark
+  public double sharedAtomic() throws Exception {
+    final DHistogram h = (DHistogram) _template.clone();
+    h.init();
+    List<Callable<Void>> tasks = new ArrayList<>(threads);
+    for (int t = 0; t < threads; t++) {
+      final int lo = slice(t), hi = slice(t + 1);
+      tasks.add(new Callable<Void>() {
+        @Override
+        public Void call() {
+          for (int r = lo; r < hi; r++)
+            h.incr(_cs[r], _ys[r], _ws[r]);
+          return null;
+        }
+      });
+    }
+    for (Future<Void> f : _pool.invokeAll(tasks))
+      f.get();
+    return h.w(0);
+  }
+
+  @Benchmark
+  public double privateThenMerge() throws Exception {
+    List<Callable<DHistogram>> tasks = new ArrayList<>(threads);
+    for (int t = 0; t < threads; t++) {
+      final int lo = slice(t), hi = slice(t + 1);
+      tasks.add(new Callable<DHistogram>() {
+        @Override
+        public DHistogram call() {
+          DHistogram h = (DHistogram) _template.clone();
+          h.init();
+          h.updateHisto(_ws, _cs, _ys, _rows, hi, lo);
+          return h;
+        }
+      });
+    }
+    List<Future<DHistogram>> results = _pool.invokeAll(tasks);
+    DHistogram[] hs = new DHistogram[threads];
+    for (int t = 0; t < threads; t++)
+      hs[t] = results.get(t).get();
+    // pairwise merge, same shape as the reduce of a LocalMR tree
+    for (int step = 1; step < threads; step <<= 1)
+      for (int t = 0; t + step < threads; t += step << 1)
+        hs[t].add(hs[t + step]);
+    return hs[0].w(0);
+  }
+
+  private int slice(int t) {
+    return (int) ((long) ROWS * t / threads);
+  }
+
+}
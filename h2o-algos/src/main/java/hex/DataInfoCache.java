@@ -0,0 +1,145 @@
+package hex;
+
+import water.IcedUtils;
+import water.Key;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.util.Log;
+
+import java.util.*;
+
+/**
+ * Node-local cache of DataInfos, so that the models built on the same frame with the same options (e.g. by a grid
+ * search or AutoML) do not need to repeat the expansion of the frame and the statistics computed for it.
+ *
+ * Entries are keyed by the content of the training frame (names, vec keys and current vec checksums) and by the
+ * options the DataInfo was made with, see {@link #key(Frame, Frame, Object...)}. Cached DataInfos are never handed
+ * out, every {@link #acquire} returns a deep copy which the caller is free to modify.
+ *
+ * Every entry counts the builds referencing it (keyed by the model key). Referenced entries are kept, entries which
+ * are not referenced anymore are kept as long as there are at most MAX_UNUSED of them (least recently used ones are
+ * dropped first). Model builders release their references when they are done.
+ *
+ * DataInfos with interactions are not cached, the interaction vecs belong to the model being built.
+ */
+public final class DataInfoCache {
+  static int MAX_UNUSED = 8;
+
+  private static final class Entry {
+    final DataInfo _dinfo;
+    final Set<Key> _refs = new HashSet<>();
+    Entry(DataInfo dinfo) {_dinfo = dinfo;}
+  }
+
+  // access ordered, the least recently used entries come first
+  private static final LinkedHashMap<String, Entry> _cache = new LinkedHashMap<>(16, .75f, true);
+  private static long _hits; // number of successful acquires since the last clear
+
+  private DataInfoCache() {}
+
+  /**
+   * @param train   training frame, before it is adapted by the DataInfo
+   * @param valid   validation frame (only tested for null)
+   * @param options everything else the DataInfo depends on
+   * @return key of the DataInfo made from the given frame with the given options
+   */
+  public static String key(Frame train, Frame valid, Object... options) {
+    StringBuilder sb = new StringBuilder();
+    String [] names = train.names();
+    Vec [] vecs = train.vecs();
+    for (int i = 0; i < vecs.length; ++i)
+      sb.append(names[i]).append('|').append(vecs[i]._key).append('|').append(vecs[i].contentChecksum()).append(';');
+    sb.append(valid != null);
+    for (Object o : options)
+      sb.append(';').append(o);
+    return sb.toString();
+  }
+
+  /**
+   * Get a copy of the cached DataInfo and add a reference to it.
+   * The train and valid frames are restructured the same way as by the DataInfo constructor.
+   *
+   * @param owner key of the model being built, referencing the entry until {@link #release(Key)}
+   * @return copy of the cached DataInfo, null if not cached
+   */
+  public static DataInfo acquire(String key, Key owner, Frame train, Frame valid) {
+    Entry e;
+    synchronized (_cache) {
+      e = _cache.get(key);
+      if (e == null) return null;
+      e._refs.add(owner);
+      ++_hits;
+    }
+    DataInfo res = copy(e._dinfo);
+    String [] names = res._adaptedFrame.names();
+    train.restructure(names, res._adaptedFrame.vecs());
+    if (valid != null)
+      valid.restructure(names, valid.vecs(names));
+    Log.info("Using cached DataInfo for " + owner);
+    return res;
+  }
+
+  /**
+   * Cache (a copy of) the given DataInfo, referenced by the owner.
+   * @return the given DataInfo
+   */
+  public static DataInfo put(String key, Key owner, DataInfo dinfo) {
+    if (dinfo._interactions != null) return dinfo;
+    Entry e = new Entry(copy(dinfo));
+    e._refs.add(owner);
+    synchronized (_cache) {
+      _cache.put(key, e);
+      evict();
+    }
+    return dinfo;
+  }
+
+  /** Drop all the references of the owner. */
+  public static void release(Key owner) {
+    synchronized (_cache) {
+      for (Entry e : _cache.values())
+        e._refs.remove(owner);
+      evict();
+    }
+  }
+
+  /** Drop all the entries (referenced or not). */
+  public static void clear() {
+    synchronized (_cache) {
+      _cache.clear();
+      _hits = 0;
+    }
+  }
+
+  static int size() {
+    synchronized (_cache) {
+      return _cache.size();
+    }
+  }
+
+  static long hits() {
+    synchronized (_cache) {
+      return _hits;
+    }
+  }
+
+  // drop the least recently used entries not referenced by any build, keep at most MAX_UNUSED of them
+  private static void evict() {
+    int unused = 0;
+    for (Entry e : _cache.values())
+      if (e._refs.isEmpty()) ++unused;
+    Iterator<Entry> it = _cache.values().iterator();
+    while (unused > MAX_UNUSED && it.hasNext()) {
+      if (it.next()._refs.isEmpty()) {
+        it.remove();
+        --unused;
+      }
+    }
+  }
+
+  private static DataInfo copy(DataInfo dinfo) {
+    DataInfo res = IcedUtils.deepCopy(dinfo);
+    res._key = Key.make();
+    return res;
+  }
+}
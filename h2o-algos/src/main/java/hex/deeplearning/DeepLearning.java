@@ -80,11 +80,16 @@ public class DeepLearning extends ModelBuilder<DeepLearningModel,DeepLearningMod
    * @param valid Validation frame
    * @param parms Model parameters
    * @param nClasses Number of response levels (1: regression, >=2: classification)
+   * @param owner Key of the model being built, references the cached DataInfo until the build is done
    * @return DataInfo
    */
-  static DataInfo makeDataInfo(Frame train, Frame valid, DeepLearningParameters parms, int nClasses) {
+  static DataInfo makeDataInfo(Frame train, Frame valid, DeepLearningParameters parms, int nClasses, Key owner) {
     double x = 0.782347234;
     boolean identityLink = new Distribution(parms).link(x) == x;
+    // the cached DataInfo includes the adjustments for observation weights below (no need to pass over the data again)
+    String dinfoKey = DataInfoCache.key(train, valid, "DeepLearning", nClasses, identityLink, parms._autoencoder, parms._use_all_factor_levels, parms._standardize, parms._sparse, parms._missing_values_handling, parms._weights_column != null, parms._offset_column != null, parms._fold_column != null);
+    DataInfo cached = DataInfoCache.acquire(dinfoKey, owner, train, valid);
+    if (cached != null) return cached;
     DataInfo dinfo = new DataInfo(
             train,
             valid,
@@ -113,7 +118,13 @@ public class DeepLearning extends ModelBuilder<DeepLearningModel,DeepLearningMod
       if (nClasses == 1)
         dinfo.updateWeightedSigmaAndMeanForResponse(ymt.responseSDs(), ymt.responseMeans());
     }
-    return dinfo;
+    return DataInfoCache.put(dinfoKey, owner, dinfo);
+  }
+
+  @Override
+  protected void cleanUp() {
+    super.cleanUp();
+    DataInfoCache.release(_result);
   }
 
   @Override protected void checkMemoryFootPrint_impl() {
@@ -259,7 +270,7 @@ public class DeepLearning extends ModelBuilder<DeepLearningModel,DeepLearningMod
           // This can add or remove dummy columns (can happen if the dataset is sparse and datasets have different non-const columns)
           for (String st : previous.adaptTestForTrain(_train,true,false)) Log.warn(st);
           for (String st : previous.adaptTestForTrain(_valid,true,false)) Log.warn(st);
-          dinfo = makeDataInfo(_train, _valid, _parms, nclasses());
+          dinfo = makeDataInfo(_train, _valid, _parms, nclasses(), dest());
           DKV.put(dinfo); // For FrameTask that needs DataInfo in the DKV as a standalone thing - the DeepLearningModel has its own copy inside itself
           removeMe.add(dinfo._key);
           cp = new DeepLearningModel(dest(), _parms, previous, false, dinfo);
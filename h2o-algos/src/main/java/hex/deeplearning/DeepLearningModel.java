@@ -220,7 +220,7 @@ public class DeepLearningModel extends Model<DeepLearningModel,DeepLearningModel
    */
   public DeepLearningModel(final Key destKey, final DeepLearningParameters parms, final DeepLearningModelOutput output, Frame train, Frame valid, int nClasses) {
     super(destKey, parms, output);
-    final DataInfo dinfo = makeDataInfo(train, valid, _parms, nClasses);
+    final DataInfo dinfo = makeDataInfo(train, valid, _parms, nClasses, destKey);
     DKV.put(dinfo);
     _output.setNames(dinfo._adaptedFrame.names());
     _output._domains = dinfo._adaptedFrame.domains();
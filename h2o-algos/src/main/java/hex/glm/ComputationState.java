@@ -11,6 +11,7 @@ import hex.optimization.ADMM;
 import hex.optimization.OptimizationUtils.GradientInfo;
 import hex.optimization.OptimizationUtils.GradientSolver;
 import water.H2O;
+import water.Iced;
 import water.Job;
 import water.MemoryManager;
 import water.util.ArrayUtils;
@@ -74,7 +75,7 @@ public final class ComputationState {
     // (shoudl be safe as we check the KKTs anyways)
     applyStrongRules(lambda, _lambda);
     _lambda = lambda;
-    _gslvr = new GLMGradientSolver(_job,_parms,_activeData,l2pen(),_activeBC);
+    _gslvr = gradientSolver(_activeData,l2pen(),_activeBC);
     adjustToNewLambda(lambda, 0);
   }
   public double [] beta(){
@@ -189,7 +190,7 @@ public final class ComputationState {
         assert _u == null || _activeData.activeCols().length == _u.length;
         _ginfo = new GLMGradientInfo(_ginfo._likelihood, _ginfo._objVal, ArrayUtils.select(_ginfo._gradient, cols));
         _activeBC = _bc.filterExpandedColumns(_activeData.activeCols());
-        _gslvr = new GLMGradientSolver(_job,_parms,_activeData,(1-_alpha)*_lambda,_bc);
+        _gslvr = gradientSolver(_activeData,(1-_alpha)*_lambda,_bc);
         assert _beta.length == cols.length;
         return;
       }
@@ -215,7 +216,7 @@ public final class ComputationState {
     return res;
   }
 
-  private static void fillSubRange(int N, int c, int [] ids, double [] src, double [] dst) {
+  static void fillSubRange(int N, int c, int [] ids, double [] src, double [] dst) {
     if(ids == null) {
       System.arraycopy(src,0,dst,c*N,N);
     } else {
@@ -404,8 +405,12 @@ public final class ComputationState {
     }
     int [] activeCols = _activeData.activeCols();
     if(beta != _beta || _ginfo == null) {
-      _gslvr = new GLMGradientSolver(_job, _parms, _dinfo, (1 - _alpha) * _lambda, _bc);
-      _ginfo = _gslvr.getGradient(beta);
+      _gslvr = gradientSolver(_dinfo, (1 - _alpha) * _lambda, _bc);
+      _ginfo = cachedGradient(beta);
+      if(_ginfo == null) {
+        _ginfo = _gslvr.getGradient(beta);
+        if(_colStats != null) _colStats.setBase(beta, _ginfo, l2pen(), _parms._obj_reg);
+      }
     }
     double[] grad = _ginfo._gradient.clone();
     double err = 1e-4;
@@ -452,12 +457,185 @@ public final class ComputationState {
         _ginfo = new GLMGradientInfo(_ginfo._likelihood, _ginfo._objVal, ArrayUtils.select(_ginfo._gradient, newCols));
         _activeData = _dinfo.filterExpandedColumns(newCols);
         _activeBC = _bc.filterExpandedColumns(_activeData.activeCols());
-        _gslvr = new GLMGradientSolver(_job, _parms, _activeData, (1 - _alpha) * _lambda, _activeBC);
+        _gslvr = gradientSolver(_activeData, (1 - _alpha) * _lambda, _activeBC);
         return false;
       }
     }
     return true;
   }
+  private ColumnStats _colStats;
+
+  /**
+   * Start caching per-column statistics across the lambdas of the regularization path. Only done for lambda search
+   * with gaussian family and identity link (the gradient is linear in beta) and no proximal penalty.
+   *
+   * @param beta  full beta
+   * @param ginfo gradient info at beta, computed on the full data with no l2 penalty
+   */
+  public void initColumnStats(double [] beta, GLMGradientInfo ginfo) {
+    if(_parms._lambda_search && _parms._family == Family.gaussian && _parms._link == GLMParameters.Link.identity && !_bc.hasProximalPenalty()) {
+      (_colStats = new ColumnStats(_dinfo)).setBase(beta, ginfo, 0, _parms._obj_reg);
+      if(_sharedGram != null)
+        _colStats.setAll(_sharedGram._xx, _sharedGram._xy);
+    }
+  }
+
+  /**
+   * X'WX and X'W(y - offset) over all the columns (intercept last, not scaled by obj_reg) and sums of squares of the
+   * response of a gaussian problem computed outside of this model, e.g. the sum over the other folds of
+   * a cross-validation model or the sufficient statistics of the data a checkpointed model was trained on.
+   *
+   * The numeric columns are in the standardization given by _normSub and _normMul, x' = (x - normSub)*normMul
+   * (null means no centering/scaling), see {@link #toBasis(double[], double[])}.
+   */
+  static final class SharedGram extends Iced<SharedGram> {
+    final double [][] _xx;
+    final double [] _xy;
+    final int _numStart; // index of the first numeric column
+    double _yy;  // sum of y^2 (unweighted, as in GLMIterationTask)
+    double _wyy; // sum of w*(y - offset)^2
+    long _nobs;  // number of rows with non-zero weight
+    double [] _normSub;
+    double [] _normMul;
+    String [] _coefNames; // names of the columns, set when stored in the model
+
+    SharedGram(double [][] xx, double [] xy, int numStart, double yy, double wyy, long nobs) {
+      _xx = xx;
+      _xy = xy;
+      _numStart = numStart;
+      _yy = yy;
+      _wyy = wyy;
+      _nobs = nobs;
+    }
+
+    double wsum() {return _xx[_xx.length - 1][_xx.length - 1];}
+
+    /** Mark the statistics as computed in the standardization of dinfo. */
+    SharedGram setBasis(DataInfo dinfo) {
+      _normSub = dinfo._normSub == null ? null : dinfo._normSub.clone();
+      _normMul = dinfo._normMul == null ? null : dinfo._normMul.clone();
+      return this;
+    }
+
+    /** Apply the standardization of the numeric columns of dinfo to the statistics (in place). */
+    SharedGram standardize(DataInfo dinfo) {
+      return toBasis(dinfo._normSub, dinfo._normMul);
+    }
+
+    /**
+     * Change the standardization of the numeric columns to x' = (x - normSub)*normMul (in place). Relative to the
+     * current standardization this is again an affine transform of the columns, the intercept column gives the
+     * column sums needed for the centering.
+     */
+    SharedGram toBasis(double [] normSub, double [] normMul) {
+      final int P = _xx.length - 1, ns = _numStart;
+      if(normSub != null || _normSub != null) {
+        for(int i = ns; i < P; ++i) { // rows first, the intercept row is not changed
+          double m = shift(normSub, i - ns);
+          if(m == 0) continue;
+          double [] xi = _xx[i];
+          for(int j = 0; j <= P; ++j)
+            xi[j] -= m * _xx[P][j];
+          _xy[i] -= m * _xy[P];
+        }
+        for(double [] xi : _xx) // then columns, using the already centered intercept column
+          for(int j = ns; j < P; ++j)
+            xi[j] -= shift(normSub, j - ns) * xi[P];
+      }
+      if(normMul != null || _normMul != null) {
+        for(int i = 0; i <= P; ++i) {
+          double [] xi = _xx[i];
+          double si = i >= ns && i < P ? scale(normMul, i - ns) : 1;
+          for(int j = 0; j <= P; ++j)
+            xi[j] *= si * (j >= ns && j < P ? scale(normMul, j - ns) : 1);
+          _xy[i] *= si;
+        }
+      }
+      _normSub = normSub == null ? null : normSub.clone();
+      _normMul = normMul == null ? null : normMul.clone();
+      return this;
+    }
+
+    // centering of column i relative to the current standardization
+    private double shift(double [] normSub, int i) {
+      double d = (normSub == null ? 0 : normSub[i]) - (_normSub == null ? 0 : _normSub[i]);
+      return _normMul == null ? d : d * _normMul[i];
+    }
+
+    // scaling of column i relative to the current standardization
+    private double scale(double [] normMul, int i) {
+      double m = normMul == null ? 1 : normMul[i];
+      return _normMul == null ? m : m / _normMul[i];
+    }
+
+    /** Add the statistics of other data, in the same standardization. */
+    SharedGram add(SharedGram g) {
+      assert g._xx.length == _xx.length;
+      for(int i = 0; i < _xx.length; ++i)
+        ArrayUtils.add(_xx[i], g._xx[i]);
+      ArrayUtils.add(_xy, g._xy);
+      _yy += g._yy;
+      _wyy += g._wyy;
+      _nobs += g._nobs;
+      return this;
+    }
+
+    /**
+     * Weighted means and standard deviations (as computed by YMUTask) of the numeric columns of the original, not
+     * standardized, data.
+     */
+    void meansAndSigmas(double [] means, double [] sigmas) {
+      final int P = _xx.length - 1, ns = _numStart;
+      assert means.length == P - ns;
+      final double wsum = wsum();
+      for(int i = 0; i < means.length; ++i) {
+        double mu = _xx[P][ns + i] / wsum;
+        double m2 = _xx[ns + i][ns + i] - mu * _xx[P][ns + i];
+        double sigma = _nobs > 1 ? Math.sqrt(Math.max(0, _nobs / (_nobs - 1.0) * m2 / wsum)) : 0;
+        double mul = _normMul == null ? 1 : _normMul[i];
+        means[i] = mu / mul + (_normSub == null ? 0 : _normSub[i]);
+        sigmas[i] = sigma / mul;
+      }
+    }
+  }
+
+  private SharedGram _sharedGram;
+
+  /**
+   * Use the given (standardized) statistics instead of passes over the data to compute the grams and gradients. Only
+   * valid for gaussian family with identity link, the gram does not depend on beta.
+   */
+  void setSharedGram(SharedGram g) {
+    assert _parms._family == Family.gaussian && _parms._link == GLMParameters.Link.identity;
+    assert g._xx.length == _dinfo.fullN() + 1;
+    _sharedGram = g;
+    if(_gslvr != null)
+      _gslvr = gradientSolver(_activeData, _gslvr._l2pen, _gslvr._bc);
+  }
+
+  /**
+   * Gradient solver over the given (active) data, computing the gradients from the shared statistics if available.
+   */
+  GLMGradientSolver gradientSolver(DataInfo activeData, double l2pen, BetaConstraint bc) {
+    GLMGradientSolver res = new GLMGradientSolver(_job, _parms, activeData, l2pen, bc);
+    return _sharedGram == null ? res : res.setSharedGram(_sharedGram);
+  }
+
+  // full gradient computed from the cached column statistics, null if not available
+  private GLMGradientInfo cachedGradient(double [] beta) {
+    if(_colStats == null) return null;
+    if(_glmw == null) _glmw = new GLMModel.GLMWeightsFun(_parms);
+    if(!_colStats.addCols(_glmw, _activeData.activeCols())) {
+      Log.info("column statistics cache is full, KKT checks will need a pass over the data");
+      _colStats = null;
+      return null;
+    }
+    GLMGradientInfo ginfo = _colStats.gradient(beta, l2pen(), _parms._obj_reg);
+    if(ginfo != null && !_parms._intercept)
+      ginfo._gradient[ginfo._gradient.length-1] = 0;
+    return ginfo;
+  }
+
   public int []  removeCols(int [] cols) {
     int [] activeCols = ArrayUtils.removeIds(_activeData.activeCols(),cols);
     if(_beta != null)
@@ -468,7 +646,7 @@ public final class ComputationState {
       _ginfo._gradient = ArrayUtils.removeIds(_ginfo._gradient,cols);
     _activeData = _dinfo.filterExpandedColumns(activeCols);
     _activeBC = _bc.filterExpandedColumns(activeCols);
-    _gslvr = new GLMGradientSolver(_job, _parms, _activeData, (1 - _alpha) * _lambda, _activeBC);
+    _gslvr = gradientSolver(_activeData, (1 - _alpha) * _lambda, _activeBC);
     _currGram = null;
     return activeCols;
   }
@@ -627,24 +805,189 @@ public final class ComputationState {
     }
   }
 
+  /**
+   * Per-column statistics of the gaussian problem cached across the lambdas of the regularization path: rows of X'WX
+   * (over all columns of the full data) of every column which has been active so far, and the likelihood and gradient
+   * at some base beta. The likelihood is quadratic in beta, so the full gradient needed by the KKT check (and by the
+   * strong rules of the next lambda) follows from the cache without another pass over the data. Columns entering the
+   * active set are added in a single pass which also gives the incremental update of the cached gram of COD.
+   */
+  static final class ColumnStats {
+    static final long MAX_CACHED = 1L << 24; // max number of cached gram elements (128MB)
+    final DataInfo _dinfo;
+    final double [][] _xx; // rows of X'WX (not scaled by obj_reg) indexed by column id, null if not computed yet
+    final double [] _xy;
+    private long _cached;
+    private double [] _baseBeta;
+    private double [] _baseGrad; // X'W(X*beta - y) at base beta, no l2 penalty, not scaled by obj_reg
+    private double _baseLikelihood;
+
+    ColumnStats(DataInfo dinfo) {
+      _dinfo = dinfo;
+      _xx = new double[dinfo.fullN() + 1][];
+      _xy = MemoryManager.malloc8d(dinfo.fullN() + 1);
+    }
+
+    // all the rows are known upfront
+    void setAll(double [][] xx, double [] xy) {
+      System.arraycopy(xx, 0, _xx, 0, _xx.length);
+      System.arraycopy(xy, 0, _xy, 0, _xy.length);
+      _cached = (long)_xx.length * _xx.length;
+    }
+
+    void setBase(double [] beta, GLMGradientInfo ginfo, double l2pen, double obj_reg) {
+      _baseBeta = beta.clone();
+      _baseGrad = ginfo._gradient.clone();
+      for(int i = 0; i < _baseGrad.length - 1; ++i)
+        _baseGrad[i] -= l2pen * beta[i];
+      ArrayUtils.mult(_baseGrad, 1.0 / obj_reg);
+      _baseLikelihood = ginfo._likelihood;
+    }
+
+    /**
+     * Make sure the given columns are cached, the missing ones are computed in a single pass over the data.
+     * @return false if the cache would grow over the limit
+     */
+    boolean addCols(GLMModel.GLMWeightsFun glmw, int [] cols) {
+      int [] missing = new int[cols.length];
+      int n = 0;
+      for(int c : cols)
+        if(_xx[c] == null) missing[n++] = c;
+      if(n == 0) return true;
+      if(_cached + (long)n * _xx.length > MAX_CACHED) return false;
+      missing = Arrays.copyOf(missing, n);
+      GLMTask.GLMIncrementalGramTask gt = new GLMTask.GLMIncrementalGramTask(missing, _dinfo, glmw, MemoryManager.malloc8d(_xx.length)).doAll(_dinfo._adaptedFrame);
+      for(int i = 0; i < n; ++i) {
+        _xx[missing[i]] = gt._gram[i];
+        _xy[missing[i]] = gt._xy[i];
+      }
+      _cached += (long)n * _xx.length;
+      return true;
+    }
+
+    /**
+     * Gradient info at the given (full) beta, null if some of the coefficients which differ from the base beta are
+     * not cached.
+     */
+    GLMGradientInfo gradient(double [] beta, double l2pen, double obj_reg) {
+      double [] grad = _baseGrad.clone();
+      for(int k = 0; k < beta.length; ++k) {
+        double d = beta[k] - _baseBeta[k];
+        if(d == 0) continue;
+        double [] xk = _xx[k];
+        if(xk == null) return null;
+        for(int j = 0; j < grad.length; ++j)
+          grad[j] += d * xk[j];
+      }
+      // l(beta0 + d) = l(beta0) + 2*d'g(beta0) + d'X'WXd, with X'WXd = g(beta) - g(beta0)
+      double likelihood = _baseLikelihood;
+      for(int k = 0; k < beta.length; ++k) {
+        double d = beta[k] - _baseBeta[k];
+        if(d != 0) likelihood += d * (_baseGrad[k] + grad[k]);
+      }
+      ArrayUtils.mult(grad, obj_reg);
+      for(int j = 0; j < grad.length - 1; ++j)
+        grad[j] += l2pen * beta[j];
+      return new GLMGradientInfo(likelihood, likelihood * obj_reg + .5 * l2pen * ArrayUtils.l2norm2(beta, true), grad);
+    }
+  }
+
   protected GramXY computeNewGram(DataInfo activeData, double [] beta, GLMParameters.Solver s){
     double obj_reg = _parms._obj_reg;
-    if(_glmw == null) _glmw = new GLMModel.GLMWeightsFun(_parms);
-    GLMTask.GLMIterationTask gt = new GLMTask.GLMIterationTask(_job._key, activeData, _glmw, beta,_activeClass).doAll(activeData._adaptedFrame);
-    gt._gram.mul(obj_reg);
-    ArrayUtils.mult(gt._xy,obj_reg);
+    Gram gram;
+    double [] xy;
+    double yy, likelihood;
+    if(_sharedGram != null && _activeClass == -1) {
+      int [] cols = activeData.activeCols();
+      gram = selectSharedGram(cols);
+      xy = ArrayUtils.select(_sharedGram._xy, cols);
+      yy = _sharedGram._yy;
+      likelihood = .5 * _sharedGram._wyy; // l = .5*(b'X'WXb - 2*b'X'Wz + z'Wz)
+      if(beta != null)
+        for(int i = 0; i < beta.length; ++i) {
+          if(beta[i] == 0) continue;
+          double [] xi = _sharedGram._xx[cols[i]];
+          double d = 0;
+          for(int j = 0; j < beta.length; ++j)
+            d += xi[cols[j]] * beta[j];
+          likelihood += beta[i] * (.5 * d - xy[i]);
+        }
+    } else {
+      if(_glmw == null) _glmw = new GLMModel.GLMWeightsFun(_parms);
+      GLMTask.GLMIterationTask gt = new GLMTask.GLMIterationTask(_job._key, activeData, _glmw, beta,_activeClass).doAll(activeData._adaptedFrame);
+      gram = gt._gram;
+      xy = gt._xy;
+      yy = gt._yy;
+      likelihood = gt._likelihood;
+    }
+    gram.mul(obj_reg);
+    ArrayUtils.mult(xy,obj_reg);
     int [] activeCols = activeData.activeCols();
-    int [] zeros = gt._gram.findZeroCols();
+    int [] zeros = gram.findZeroCols();
     GramXY res;
     if(_parms._family != Family.multinomial && zeros.length > 0) {
-      gt._gram.dropCols(zeros);
+      gram.dropCols(zeros);
       removeCols(zeros);
-      res = new ComputationState.GramXY(gt._gram,ArrayUtils.removeIds(gt._xy, zeros),null,gt._beta == null?null:ArrayUtils.removeIds(gt._beta, zeros),activeData().activeCols(),null,gt._yy,gt._likelihood);
-    } else res = new GramXY(gt._gram,gt._xy,null,beta == null?null:beta,activeCols,null,gt._yy,gt._likelihood);
+      res = new ComputationState.GramXY(gram,ArrayUtils.removeIds(xy, zeros),null,beta == null?null:ArrayUtils.removeIds(beta, zeros),activeData().activeCols(),null,yy,likelihood);
+    } else res = new GramXY(gram,xy,null,beta == null?null:beta,activeCols,null,yy,likelihood);
 
     return res;
   }
 
+  // dense lower triangular gram of the given columns (intercept last) from the shared statistics, not scaled by obj_reg
+  private Gram selectSharedGram(int [] cols) {
+    assert cols[cols.length - 1] == _dinfo.fullN();
+    Gram gram = new Gram(cols.length - 1, 0, cols.length - 1, 0, true);
+    for(int i = 0; i < cols.length; ++i) {
+      double [] xi = _sharedGram._xx[cols[i]];
+      double [] gi = gram._xx[i];
+      for(int j = 0; j <= i; ++j)
+        gi[j] = xi[cols[j]];
+    }
+    return gram;
+  }
+
+  // max number of gram entries of all the classes accumulated together in one pass over the data
+  static final long MAX_MULTINOMIAL_GRAM = 1L << 23;
+
+  /**
+   * Grams and x'z vectors of the quadratic approximations for all the multinomial classes, computed at the same
+   * (full) coefficients. Classes are computed together, in one pass over the data, as long as their grams fit in
+   * MAX_MULTINOMIAL_GRAM entries.
+   */
+  public GramXY [] computeGramsMultinomial(double [] beta) {
+    assert _parms._family == Family.multinomial;
+    final int N = _activeData.fullN() + 1;
+    final double obj_reg = _parms._obj_reg;
+    GramXY [] res = new GramXY[_nclasses];
+    int start = 0;
+    while (start < _nclasses) {
+      int end = start;
+      long size = 0;
+      while (end < _nclasses) {
+        long n = activeDataMultinomial(end).fullN() + 1;
+        if (end > start && size + n * (n + 1) / 2 > MAX_MULTINOMIAL_GRAM) break;
+        size += n * (n + 1) / 2;
+        ++end;
+      }
+      int [] classes = new int[end - start];
+      DataInfo [] classInfos = new DataInfo[classes.length];
+      for (int i = 0; i < classes.length; ++i) {
+        classes[i] = start + i;
+        classInfos[i] = activeDataMultinomial(start + i);
+      }
+      GLMTask.GLMIterationTaskMultinomial gt = new GLMTask.GLMIterationTaskMultinomial(_job._key, _activeData, classInfos, classes, beta).doAll(_activeData._adaptedFrame);
+      for (int i = 0; i < classes.length; ++i) {
+        gt._gram[i].mul(obj_reg);
+        ArrayUtils.mult(gt._xy[i], obj_reg);
+        int [] activeCols = classInfos[i].activeCols();
+        res[start + i] = new GramXY(gt._gram[i], gt._xy[i], null, extractSubRange(N, start + i, activeCols, beta), activeCols, null, 0, 0);
+      }
+      start = end;
+    }
+    return res;
+  }
+
   GramXY _currGram;
   GLMModel.GLMWeightsFun _glmw;
 
@@ -655,6 +998,8 @@ public final class ComputationState {
     boolean weighted = _parms._family != Family.gaussian || _parms._link != GLMParameters.Link.identity;
     if(_parms._family == Family.multinomial) // no caching
       return computeNewGram(activeDataMultinomial(_activeClass),beta,s);
+    if(_sharedGram != null) // selected from the shared statistics, no pass over the data
+      return _currGram = computeNewGram(activeData(),beta,s);
     if(s != GLMParameters.Solver.COORDINATE_DESCENT)
       // only cache for solver==COD
       //    caching only makes difference when running with lambda search
@@ -685,12 +1030,26 @@ public final class ComputationState {
         }
       }
       if(!weighted || matches) {
-        GLMTask.GLMIncrementalGramTask gt = new GLMTask.GLMIncrementalGramTask(newColsIds, activeData, _glmw, beta).doAll(activeData._adaptedFrame); // dense
-        for (double[] d : gt._gram)
-          ArrayUtils.mult(d, obj_reg);
-        ArrayUtils.mult(gt._xy, obj_reg);
+        double [][] xxUpdate;
+        double [] xyUpdate;
+        if(!weighted && _colStats != null && _colStats.addCols(_glmw, newCols)) {
+          // rows over all columns are kept for the KKT checks, the gram update is a subset of them
+          xxUpdate = new double[newCols.length][];
+          xyUpdate = new double[newCols.length];
+          for(int i = 0; i < newCols.length; ++i) {
+            xxUpdate[i] = ArrayUtils.mult(ArrayUtils.select(_colStats._xx[newCols[i]], activeCols), obj_reg);
+            xyUpdate[i] = obj_reg * _colStats._xy[newCols[i]];
+          }
+        } else {
+          GLMTask.GLMIncrementalGramTask gt = new GLMTask.GLMIncrementalGramTask(newColsIds, activeData, _glmw, beta).doAll(activeData._adaptedFrame); // dense
+          for (double[] d : gt._gram)
+            ArrayUtils.mult(d, obj_reg);
+          ArrayUtils.mult(gt._xy, obj_reg);
+          xxUpdate = gt._gram;
+          xyUpdate = gt._xy;
+        }
         // glue the update and old gram together
-        return _currGram = GramXY.addCols(beta, activeCols, newColsIds, _currGram, gt._gram, gt._xy);
+        return _currGram = GramXY.addCols(beta, activeCols, newColsIds, _currGram, xxUpdate, xyUpdate);
       }
     }
     return _currGram = computeNewGram(activeData,beta,s);
@@ -1,6 +1,7 @@
 package hex.glm;
 
 import hex.DataInfo;
+import hex.DataInfoCache;
 import hex.ModelBuilder;
 import hex.ModelCategory;
 import hex.ModelMetrics;
@@ -13,6 +14,7 @@ import hex.glm.GLMModel.GLMParameters.Solver;
 import hex.glm.GLMModel.GLMWeightsFun;
 import hex.glm.GLMModel.Submodel;
 import hex.glm.GLMTask.*;
+import hex.gram.DistributedCholesky;
 import hex.gram.Gram;
 import hex.gram.Gram.Cholesky;
 import hex.gram.Gram.NonSPDMatrixException;
@@ -23,7 +25,10 @@ import hex.optimization.L_BFGS;
 import hex.optimization.L_BFGS.ProgressMonitor;
 import hex.optimization.L_BFGS.Result;
 import hex.optimization.OptimizationUtils.*;
+import hex.optimization.SVRG;
 import jsr166y.CountedCompleter;
+import jsr166y.ForkJoinTask;
+import jsr166y.RecursiveAction;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 import water.*;
@@ -82,6 +87,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
   private boolean _doInit = true;  // flag setting whether or not to run init
   private double [] _xval_test_deviances;
   private double [] _xval_test_sd;
+  private transient ComputationState.SharedGram _cvGram; // gram of the other folds, set on cv models by cv_computeSharedStatistics
 
   /**
    * GLM implementation of N-fold cross-validation.
@@ -186,6 +192,101 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
     _cv = false;
   }
 
+  // max number of gram entries of all the folds accumulated together in one pass over the data
+  static final long MAX_CV_GRAMS = 1L << 24;
+
+  /**
+   * With cv_single_pass, compute the grams of all the folds in one pass over the (not standardized) data and give every
+   * cv model the sum over the other folds. The cv models apply their own standardization and then compute their grams
+   * without passing over the data. Only done for gaussian family with identity link solved by IRLSM or COD, where the
+   * gram does not depend on the coefficients.
+   */
+  @Override
+  public void cv_computeSharedStatistics(int N, Vec[] weights, ModelBuilder[] cvModelBuilders) {
+    if(!_parms._cv_single_pass) return;
+    Solver s = _parms._solver == Solver.AUTO ? defaultSolver() : _parms._solver;
+    final long P = _dinfo.fullN() + 1;
+    String reason = null;
+    if(_parms._family != Family.gaussian || _parms._link != Link.identity)
+      reason = "only gaussian family with identity link is supported";
+    else if(s != Solver.IRLSM && s != Solver.COORDINATE_DESCENT)
+      reason = "only IRLSM and COORDINATE_DESCENT solvers are supported";
+    else if(_parms.interactionSpec() != null)
+      reason = "interactions are not supported";
+    else if(N * P * (P + 1) / 2 > MAX_CV_GRAMS)
+      reason = "grams of all the folds would take too much memory";
+    if(reason != null) {
+      Log.info(LogMsg("cv_single_pass is not used, " + reason));
+      return;
+    }
+    long t0 = System.currentTimeMillis();
+    DataInfo dinfo = new DataInfo(_train.clone(), null, 1, _dinfo._useAllFactorLevels, DataInfo.TransformType.NONE, DataInfo.TransformType.NONE, _parms._missing_values_handling == MissingValuesHandling.Skip, _parms._missing_values_handling == MissingValuesHandling.MeanImputation, false, hasWeightCol(), hasOffsetCol(), hasFoldCol(), null);
+    Frame fr = new Frame(dinfo._adaptedFrame);
+    for(int i = 0; i < N; ++i)
+      fr.add("__cv_holdout_weights_" + i, weights[2*i+1]);
+    GLMFoldGramTask gt = new GLMFoldGramTask(_job._key, dinfo, N).doAll(fr);
+    // total over all the folds, every cv model gets the total minus its holdout fold
+    double [][] xx = new double[(int)P][(int)P];
+    double [] xy = MemoryManager.malloc8d((int)P);
+    for(int i = 0; i < N; ++i) {
+      double [][] xxi = gt._gram[i].getXX();
+      for(int j = 0; j < xx.length; ++j)
+        ArrayUtils.add(xx[j], xxi[j]);
+      ArrayUtils.add(xy, gt._xy[i]);
+    }
+    double yy = ArrayUtils.sum(gt._yy), wyy = ArrayUtils.sum(gt._wyy);
+    long nobs = ArrayUtils.sum(gt._nobs);
+    for(int i = 0; i < N; ++i) {
+      double [][] xxi = gt._gram[i].getXX();
+      double [][] xxCV = new double[xx.length][];
+      for(int j = 0; j < xx.length; ++j)
+        xxCV[j] = ArrayUtils.subtract(xx[j], xxi[j]);
+      ((GLM) cvModelBuilders[i])._cvGram = new ComputationState.SharedGram(xxCV, ArrayUtils.subtract(xy, gt._xy[i]), dinfo.numStart(), yy - gt._yy[i], wyy - gt._wyy[i], nobs - gt._nobs[i]);
+    }
+    Log.info(LogMsg("grams of " + N + " folds computed in a single pass in " + (System.currentTimeMillis() - t0) + "ms"));
+  }
+
+  @Override
+  protected void cleanUp() {
+    super.cleanUp();
+    DataInfoCache.release(_result);
+  }
+
+  /**
+   * Gram and X'y of our training data (one pass over the data), in our standardization. With a checkpoint, the
+   * statistics stored in the checkpointed model are added and the data info is re-standardized with the means and
+   * sigmas of all the data, the number of observations, obj_reg and the response mean are set for all the data too.
+   * The model is then fitted from the statistics only, as if it was trained on the old and the new data together.
+   *
+   * @return statistics of all the data, null if the checkpointed model does not match our data (error is reported)
+   */
+  private ComputationState.SharedGram sufficientStatistics(boolean defaultObjReg) {
+    long t0 = System.currentTimeMillis();
+    DataInfo dinfo = new DataInfo(_train.clone(), null, 1, _dinfo._useAllFactorLevels, DataInfo.TransformType.NONE, DataInfo.TransformType.NONE, _parms._missing_values_handling == MissingValuesHandling.Skip, _parms._missing_values_handling == MissingValuesHandling.MeanImputation, false, hasWeightCol(), hasOffsetCol(), hasFoldCol(), null);
+    GLMFoldGramTask gt = new GLMFoldGramTask(_job._key, dinfo).doAll(dinfo._adaptedFrame);
+    ComputationState.SharedGram stats = new ComputationState.SharedGram(gt._gram[0].getXX(), gt._xy[0], dinfo.numStart(), gt._yy[0], gt._wyy[0], gt._nobs[0]).standardize(_dinfo);
+    stats._coefNames = _dinfo.coefNames();
+    if(!_parms.hasCheckpoint()) return stats;
+    ComputationState.SharedGram prior = ((GLMModel)_parms._checkpoint.get())._output._sufficient_statistics;
+    if(!Arrays.equals(prior._coefNames, stats._coefNames)) {
+      error("_checkpoint", "Columns of the training data do not match the checkpointed model, expected " + Arrays.toString(prior._coefNames) + ", got " + Arrays.toString(stats._coefNames) + " (new categorical levels are not supported).");
+      return null;
+    }
+    stats.add(IcedUtils.deepCopy(prior).standardize(_dinfo));
+    if(_parms._standardize && !_parms._stdOverride) {
+      double [] means = MemoryManager.malloc8d(_dinfo._nums), sigmas = MemoryManager.malloc8d(_dinfo._nums);
+      stats.meansAndSigmas(means, sigmas);
+      _dinfo.updateWeightedSigmaAndMean(sigmas, means);
+      stats.standardize(_dinfo);
+    }
+    _nobs = stats._nobs;
+    if(defaultObjReg)
+      _parms._obj_reg = 1.0 / stats.wsum();
+    _state._ymu = new double[]{_parms._intercept ? stats._xy[stats._xy.length - 1] / stats.wsum() : _parms.linkInv(0)};
+    Log.info(LogMsg("added the statistics of " + prior._nobs + " observations of the checkpointed model to " + gt._nobs[0] + " new observations in " + (System.currentTimeMillis() - t0) + "ms"));
+    return stats;
+  }
+
   protected void checkMemoryFootPrint(DataInfo activeData) {
     if (_parms._solver == Solver.IRLSM || _parms._solver == Solver.COORDINATE_DESCENT) {
       int p = activeData.fullN();
@@ -378,6 +479,8 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       if ((_parms._solver.equals(Solver.GRADIENT_DESCENT_LH) || _parms._solver.equals(Solver.GRADIENT_DESCENT_SQERR)) && !_parms._family.equals(Family.ordinal))
         error("_solver", "Solvers GRADIENT_DESCENT_LH and GRADIENT_DESCENT_SQERR are only " +
                 "supported for ordinal regression.  Do not choose them unless you specify your family to be ordinal");
+      if (_parms._solver == Solver.SVRG && (_parms._family == Family.multinomial || _parms._family == Family.ordinal || _parms._family == Family.negativebinomial))
+        error("_solver", "SVRG solver is not supported for " + _parms._family + " family.");
       switch (_parms._family) {
         case binomial:
           if (!_response.isBinary() && _nclass != 2)
@@ -426,6 +529,26 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
           error("_family", "Invalid distribution: " + _parms._distribution);
       }
     }
+    if (_parms._store_sufficient_statistics || _parms.hasCheckpoint()) {
+      String field = _parms.hasCheckpoint() ? "_checkpoint" : "_store_sufficient_statistics";
+      if (_parms._family != Family.gaussian || (_parms._link != Link.family_default && _parms._link != Link.identity))
+        error(field, "Sufficient statistics are only supported for gaussian family with identity link.");
+      if (_parms._solver == Solver.SVRG)
+        error(field, "Sufficient statistics are not supported by SVRG solver.");
+      if (_parms.interactionSpec() != null)
+        error(field, "Sufficient statistics are not supported with interactions.");
+      if (_parms._offset_column != null)
+        error(field, "Sufficient statistics are not supported with offset column.");
+      if (_parms._cv_single_pass)
+        error(field, "Sufficient statistics can not be combined with cv_single_pass.");
+      if (_parms.hasCheckpoint()) {
+        Value v = DKV.get(_parms._checkpoint);
+        if (v == null || !(v.get() instanceof GLMModel) || ((GLMModel) v.get())._output._sufficient_statistics == null)
+          error("_checkpoint", "Checkpoint has to be a GLM model trained with store_sufficient_statistics.");
+        if (_parms._compute_p_values)
+          error("_compute_p_values", "P-values can not be computed for a model updated from a checkpoint.");
+      }
+    }
     if (expensive) {
       if (error_count() > 0) return;
       if (_parms._alpha == null)
@@ -441,7 +564,13 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
         _parms._use_all_factor_levels = true;
       if (_parms._link == Link.family_default)
         _parms._link = _parms._family.defaultLink;
-      _dinfo = new DataInfo(_train.clone(), _valid, 1, _parms._use_all_factor_levels || _parms._lambda_search, _parms._standardize ? DataInfo.TransformType.STANDARDIZE : DataInfo.TransformType.NONE, DataInfo.TransformType.NONE, _parms._missing_values_handling == MissingValuesHandling.Skip, _parms._missing_values_handling == MissingValuesHandling.MeanImputation, false, hasWeightCol(), hasOffsetCol(), hasFoldCol(), _parms.interactionSpec());
+      boolean useAllFactorLevels = _parms._use_all_factor_levels || _parms._lambda_search;
+      String dinfoKey = _parms.interactionSpec() == null ? DataInfoCache.key(_train, _valid, "GLM", useAllFactorLevels, _parms._standardize, _parms._missing_values_handling, hasWeightCol(), hasOffsetCol(), hasFoldCol()) : null;
+      _dinfo = dinfoKey == null ? null : DataInfoCache.acquire(dinfoKey, _result, _train.clone(), _valid);
+      if (_dinfo == null) {
+        _dinfo = new DataInfo(_train.clone(), _valid, 1, useAllFactorLevels, _parms._standardize ? DataInfo.TransformType.STANDARDIZE : DataInfo.TransformType.NONE, DataInfo.TransformType.NONE, _parms._missing_values_handling == MissingValuesHandling.Skip, _parms._missing_values_handling == MissingValuesHandling.MeanImputation, false, hasWeightCol(), hasOffsetCol(), hasFoldCol(), _parms.interactionSpec());
+        if (dinfoKey != null) DataInfoCache.put(dinfoKey, _result, _dinfo);
+      }
 
       if (_parms._max_iterations == -1) { // fill in default max iterations
         int numclasses = (_parms._family == Family.multinomial)||(_parms._family == Family.ordinal)?nclasses():1;
@@ -455,6 +584,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       if (_valid != null)
         _validDinfo = _dinfo.validDinfo(_valid);
       _state = new ComputationState(_job, _parms, _dinfo, null, nclasses());
+      final boolean defaultObjReg = _parms._obj_reg == -1;
       // skipping extra rows? (outside of weights == 0)GLMT
       boolean skippingRows = (_parms._missing_values_handling == MissingValuesHandling.Skip && _train.hasNAs());
       if (hasWeightCol() || skippingRows) { // need to re-compute means and sd
@@ -495,9 +625,26 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       BetaConstraint bc = (_parms._beta_constraints != null)?new BetaConstraint(_parms._beta_constraints.get()):new BetaConstraint();
       if((bc.hasBounds() || bc.hasProximalPenalty()) && _parms._compute_p_values)
         error("_compute_p_values","P-values can not be computed for constrained problems");
+      if(bc.hasProximalPenalty() && _parms._solver == Solver.SVRG)
+        error("_solver","SVRG solver does not support beta constraints with beta_given");
       if(bc.hasBounds())
         _parms._early_stopping = false; // PUBDEV-4641: early stopping does not work correctly with non-negative option
       _state.setBC(bc);
+      boolean cvSharedGram = false;
+      if(_cvGram != null) { // gram of the other folds computed by the main model, standardize it the same way as our data (incl. beta constraints overrides)
+        cvSharedGram = _cvGram._xx.length == _dinfo.fullN() + 1;
+        if(cvSharedGram)
+          _state.setSharedGram(_cvGram.standardize(_dinfo));
+        else
+          Log.warn(LogMsg("shared cross-validation gram does not match the data, ignored"));
+        _cvGram = null;
+      }
+      ComputationState.SharedGram stats = null;
+      if(_parms._store_sufficient_statistics || _parms.hasCheckpoint()) {
+        stats = sufficientStatistics(defaultObjReg);
+        if(stats == null) return; // error reported
+        _state.setSharedGram(stats);
+      }
       if(hasOffsetCol() && _parms._intercept) { // fit intercept
         GLMGradientSolver gslvr = new GLMGradientSolver(_job,_parms, _dinfo.filterExpandedColumns(new int[0]), 0, _state.activeBC());
         double [] x = new L_BFGS().solve(gslvr,new double[]{-_offset.mean()}).coefs;
@@ -512,10 +659,13 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       if(_offset != null) vecs.add(_offset);
       vecs.add(_response);
       double [] beta = getNullBeta();
-      GLMGradientInfo ginfo = new GLMGradientSolver(_job,_parms, _dinfo, 0, _state.activeBC()).getGradient(beta);
+      GLMGradientInfo ginfo = _state.gradientSolver(_dinfo, 0, _state.activeBC()).getGradient(beta);
       _lmax = lmax(ginfo._gradient);
       _state.setLambdaMax(_lmax);
+      _state.initColumnStats(beta, ginfo);
       _model = new GLMModel(_result, _parms, GLM.this, _state._ymu, _dinfo._adaptedFrame.lastVec().sigma(), _lmax, _nobs);
+      _model._output._sufficient_statistics = stats;
+      _model._output._cv_shared_gram = cvSharedGram;
       if (_parms._lambda_min_ratio == -1) {
         _parms._lambda_min_ratio = (_nobs >> 4) > _dinfo.fullN() ? 1e-4 : 1e-2;
         if(_parms._alpha[0] == 0)
@@ -585,6 +735,8 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
 
     private void doCleanup() {
       try {
+        if(_chol != null)
+          _chol.remove();
         if(_parms._lambda_search && _parms._is_cv_model)
           Scope.untrack(removeLater(_dinfo.getWeightsVec()._key));
         if(!_cv && _model!=null)
@@ -621,6 +773,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
           throw new Gram.CollinearColumnsException("Found collinear columns in the dataset. P-values can not be computed with collinear columns in the dataset. Set remove_collinear_columns flag to true to remove collinear columns automatically. Found collinear columns " + Arrays.toString(ArrayUtils.select(_dinfo.coefNames(),collinear_cols)));
         }
         if(!chol.isSPD()) throw new NonSPDMatrixException();
+        if(_chol != null) _chol.remove();
         _chol = chol;
         if(!ignoredCols.isEmpty()) { // got some redundant cols
           int [] collinear_cols = new int[ignoredCols.size()];
@@ -640,6 +793,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
         gram = gram.deep_clone();
         xy = xy.clone();
         GramSolver slvr = new GramSolver(gram.clone(), xy.clone(), _parms._intercept, _state.l2pen(),_state.l1pen(), _state.activeBC()._betaGiven, _state.activeBC()._rho, _state.activeBC()._betaLB, _state.activeBC()._betaUB);
+        if(_chol != null) _chol.remove();
         _chol = slvr._chol;
         if(_state.l1pen() == 0 && !_state.activeBC().hasBounds()) {
           slvr.solve(xy);
@@ -652,39 +806,72 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       return xy;
     }
 
+    // Block Jacobi iterations: the grams of all the classes are computed at the same coefficients in one pass over
+    // the data, the per class COD problems are solved in parallel and the joint update is line searched on the full
+    // multinomial objective.
+    private static final double MAX_MULTINOMIAL_STEP = 16;
+
     private void fitCOD_multinomial(Solver s) {
       double[] beta = _state.betaMultinomial();
-      LineSearchSolver ls;
-
+      final int N = _state.activeDataMultinomial().fullN() + 1;
+      final double l1pen = _state.l1pen();
+      GradientSolver objSlvr = new GradientSolver() {
+        @Override
+        public GradientInfo getGradient(double[] beta) {return _state.gslvr().getGradient(beta);}
+        @Override
+        public GradientInfo getObjective(double[] beta) {
+          GLMGradientInfo ginfo = _state.gslvr().getMultinomialLikelihood(beta);
+          double l1norm = 0; // intercepts are not penalized
+          for (int i = 0; i < beta.length; ++i)
+            if ((i % N) != N - 1) l1norm += Math.abs(beta[i]);
+          return new GLMGradientInfo(ginfo._likelihood, ginfo._objVal + l1pen * l1norm, null);
+        }
+      };
+      GradientInfo ginfo = objSlvr.getObjective(beta);
+      double step = 1;
       do {
-        beta = beta.clone();
-           for (int c = 0; c < _nclass; ++c) {
-            _state.setActiveClass(c);
-            boolean onlyIcpt = _state.activeDataMultinomial(c).fullN() == 0;
-
-            if (_state.l1pen()==0) {
-              if (_state.ginfoNull())
-                _state.updateState(beta, _state.gslvr().getGradient(beta));
-              ls = new MoreThuente(_state.gslvrMultinomial(c), _state.betaMultinomial(c, beta), _state.ginfoMultinomial(c));
-            } else
-              ls = new SimpleBacktrackingLS(_state.gslvrMultinomial(c), _state.betaMultinomial(c, beta), _state.l1pen());
-/*            LineSearchSolver ls = (_state.l1pen() == 0)
-                    ? new MoreThuente(_state.gslvrMultinomial(c), _state.betaMultinomial(c, beta), _state.ginfoMultinomial(c))
-                    : new SimpleBacktrackingLS(_state.gslvrMultinomial(c), _state.betaMultinomial(c, beta), _state.l1pen());*/
-
-            new GLMMultinomialUpdate(_state.activeDataMultinomial(), _job._key, beta, c).doAll(_state.activeDataMultinomial()._adaptedFrame);
-            ComputationState.GramXY gram = _state.computeGram(_state.betaMultinomial(c, beta), s);
-            double[] betaCnd = COD_solve(gram, _state._alpha, _state.lambda());
-
-            if (!onlyIcpt && !ls.evaluate(ArrayUtils.subtract(betaCnd, ls.getX(), betaCnd))) {
-              Log.info(LogMsg("Ls failed " + ls));
-              continue;
+        final ComputationState.GramXY[] grams = _state.computeGramsMultinomial(beta);
+        final double[] betaCnd = beta.clone();
+        RecursiveAction[] ras = new RecursiveAction[_nclass];
+        for (int c = 0; c < _nclass; ++c) {
+          final int cls = c;
+          ras[c] = new RecursiveAction() {
+            @Override
+            protected void compute() {
+              DataInfo activeData = _state.activeDataMultinomial(cls);
+              double[] b = COD_solve(grams[cls], activeData, grams[cls].beta, _state._alpha, _state.lambda());
+              ComputationState.fillSubRange(N, cls, activeData.activeCols(), b, betaCnd);
             }
-            _state.setBetaMultinomial(c, beta, ls.getX());  // set new beta
+          };
+        }
+        ForkJoinTask.invokeAll(ras);
+        double[] dir = ArrayUtils.subtract(betaCnd, beta, betaCnd);
+        double[] x = ArrayUtils.wadd(beta, dir, MemoryManager.malloc8d(beta.length), step);
+        GradientInfo gx = objSlvr.getObjective(x);
+        if (gx._objVal < ginfo._objVal) {
+          // the cross class terms of the hessian are ignored and the joint update tends to be too short,
+          // keep doubling the step while it improves the objective
+          while (step < MAX_MULTINOMIAL_STEP) {
+            double[] x2 = ArrayUtils.wadd(beta, dir, MemoryManager.malloc8d(beta.length), 2 * step);
+            GradientInfo g2 = objSlvr.getObjective(x2);
+            if (!(g2._objVal < gx._objVal)) break;
+            x = x2;
+            gx = g2;
+            step *= 2;
           }
-
-        _state.setActiveClass(-1); // only reset after going through a whole set of classes.  Not sure about this
-      } while (progress(beta, _state.gslvr().getMultinomialLikelihood(beta))); // only need likelihood inside loop
+        } else {
+          LineSearchSolver ls = new SimpleBacktrackingLS(objSlvr, beta, 0, ginfo);
+          if (!ls.evaluate(ArrayUtils.mult(dir, step))) {
+            Log.info(LogMsg("Ls failed " + ls));
+            break;
+          }
+          step = Math.max(1, step * ls.step());
+          x = ls.getX();
+          gx = ls.ginfo();
+        }
+        beta = x;
+        ginfo = gx;
+      } while (progress(beta, ginfo));
       if (_parms._lambda_search ) {
         _state.updateState(beta, _state.gslvr().getGradient(beta));  // only calculate _gradient here when needed
       }
@@ -927,6 +1114,51 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       }
     }
 
+    // initial step of SVRG, inverse of an upper bound of the curvature of the objective (c*E[|x|^2])
+    private double svrgStep(DataInfo activeData) {
+      double xx = activeData._cats + (_parms._intercept ? 1 : 0);
+      for (int i = 0; i < activeData._nums; ++i) {
+        if (activeData._interactions != null) {
+          xx += 1;
+          continue;
+        }
+        Vec v = activeData._adaptedFrame.vec(activeData._cats + i);
+        double m = v.mean() - (activeData._normSub == null ? 0 : activeData._normSub[i]);
+        double mul = activeData._normMul == null ? 1 : activeData._normMul[i];
+        xx += mul * mul * (v.sigma() * v.sigma() + m * m);
+      }
+      double c;
+      switch (_parms._family) {
+        case binomial:
+        case quasibinomial:
+          c = .25;
+          break;
+        case poisson:
+        case tweedie:
+          c = Math.max(1, _state._ymu[0]);
+          break;
+        default:
+          c = 1;
+      }
+      return 1.0 / (c * xx * _parms._obj_reg * _nobs);
+    }
+
+    private void fitSVRG() {
+      double [] beta = _state.beta();
+      BetaConstraint bc = _state.activeBC();
+      if (!_parms._lambda_search && _state._iter == 0)
+        updateProgress(false);
+      SVRG svrg = new SVRG(_parms._seed).setObjEps(_parms._objective_epsilon).setMaxIter(_parms._max_iterations).setStep(svrgStep(_state.activeData()));
+      SVRG.Result r = svrg.solve(new GLMStochasticGradientSolver(_state.gslvr(), _nobs), beta, _state.ginfo(), _state.l1pen(), bc._betaLB, bc._betaUB, new ProgressMonitor() {
+        @Override
+        public boolean progress(double[] beta, GradientInfo ginfo) {
+          return GLMDriver.this.progress(beta, ginfo);
+        }
+      });
+      Log.info(LogMsg(r.toString()));
+      _state.updateState(r.coefs, (GLMGradientInfo) r.ginfo);
+    }
+
     private void fitCOD() {
       double [] beta = _state.beta();
       int p = _state.activeData().fullN()+ 1;
@@ -1098,6 +1330,9 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
         case L_BFGS:
           fitLBFGS();
           break;
+        case SVRG:
+          fitSVRG();
+          break;
         case COORDINATE_DESCENT_NAIVE:
           fitCOD();
           break;
@@ -1439,12 +1674,17 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
   }
 
   public double [] COD_solve(ComputationState.GramXY gram, double alpha, double lambda) {
-    double [] res = COD_solve(gram.gram.getXX(),gram.xy,gram.getCODGradients(),gram.newCols,alpha,lambda);
+    return COD_solve(gram, _state.activeData(), _state.beta(), alpha, lambda);
+  }
+
+  // activeData and beta are passed in explicitly so that multinomial classes can be solved in parallel
+  private double [] COD_solve(ComputationState.GramXY gram, DataInfo activeData, double [] beta, double alpha, double lambda) {
+    double [] res = COD_solve(gram.gram.getXX(),gram.xy,gram.getCODGradients(),gram.newCols,activeData,beta,alpha,lambda);
     gram.newCols = new int[0];
     return res;
   }
 
-  private double [] COD_solve(double [][] xx, double [] xy, double [] grads, int [] newCols, double alpha, double lambda) {
+  private double [] COD_solve(double [][] xx, double [] xy, double [] grads, int [] newCols, DataInfo activeData, double [] beta, double alpha, double lambda) {
     double wsumInv = 1.0/(xx[xx.length-1][xx.length-1]);
     final double betaEpsilon = _parms._beta_epsilon*_parms._beta_epsilon;
     double updateEpsilon = 0.01*betaEpsilon;
@@ -1453,7 +1693,6 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
     double [] diagInv = MemoryManager.malloc8d(xx.length);
     for(int i = 0; i < diagInv.length; ++i)
       diagInv[i] = 1.0/(xx[i][i] + l2pen);
-    DataInfo activeData = _state.activeData();
     int [][] nzs = new int[activeData.numStart()][];
     int sparseCnt = 0;
     if(nzs.length > 1000) {
@@ -1476,7 +1715,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       }
     }
     final BetaConstraint bc = _state.activeBC();
-    double [] beta = _state.beta().clone();
+    beta = beta.clone();
     int numStart = activeData.numStart();
     if(newCols != null) {
       for (int id : newCols) {
@@ -1643,27 +1882,38 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
         rhos = Arrays.copyOf(rhos,rhos.length-1);
         _xy[_xy.length-1] = 0;
       }
-      _chol = gram.cholesky(null, true, null);
+      _chol = cholesky(gram);
       if (!_chol.isSPD()) { // make sure rho is big enough
         gram.addDiag(ArrayUtils.mult(rhos, -1));
         gram.addDiag(rhoAdd,!intercept);
         Log.info("Got NonSPD matrix with original rho, re-computing with rho = " + (_rho[0]+rhoAdd));
-        _chol = gram.cholesky(null, true, null);
+        _chol.remove();
+        _chol = cholesky(gram);
         int cnt = 0;
         double rhoAddSum = rhoAdd;
         while (!_chol.isSPD() && cnt++ < 5) {
           gram.addDiag(rhoAdd,!intercept);
           rhoAddSum += rhoAdd;
           Log.warn("Still NonSPD matrix, re-computing with rho = " + (rhos[0] + rhoAddSum));
-          _chol = gram.cholesky(null, true, null);
+          _chol.remove();
+          _chol = cholesky(gram);
         }
-        if (!_chol.isSPD())
+        if (!_chol.isSPD()) {
+          _chol.remove();
           throw new NonSPDMatrixException();
+        }
       }
       gram.addDiag(ArrayUtils.mult(rhos, -1));
       ArrayUtils.mult(rhos, -1);
     }
 
+    // the dense part of a very wide gram is factored in tiles spread across the cloud
+    private static Cholesky cholesky(Gram gram) {
+      if (H2O.CLOUD.size() > 1 && gram.fullN() - gram._diagN >= DistributedCholesky.MIN_DENSE)
+        return gram.distributedCholesky(DistributedCholesky.DEFAULT_TILE_SIZE);
+      return gram.cholesky(null, true, null);
+    }
+
     @Override
     public double[] rho() {
       return _rho;
@@ -1824,6 +2074,8 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
     final double _l2pen; // l2 penalty
     double[][] _betaMultinomial;
     final Job _job;
+    private ComputationState.SharedGram _sharedGram; // gaussian statistics used instead of passes over the data
+    private int [] _sharedCols; // columns of the shared statistics matching our (active) columns
 
     public GLMGradientSolver(Job job, GLMParameters glmp, DataInfo dinfo, double l2pen, BetaConstraint bc) {
       _job = job;
@@ -1833,19 +2085,56 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       _l2pen = l2pen;
     }
 
-    /*
-    Only update the likelihood function for multinomial while leaving all else stale and old.  This is only
-    used by multinomial with COD.
+    /**
+     * Compute the likelihood and gradient of a gaussian problem from the given statistics (standardized the same way as
+     * our data) instead of passing over the data.
      */
-    public GLMGradientInfo getMultinomialLikelihood(double[] beta) {
-      assert _parms._family.equals(Family.multinomial) : "GLMGradientInfo.getMultinomialLikelihood is only used by multinomial GLM";
-      assert _betaMultinomial != null : "Multinomial coefficents cannot be null.";
-
+    GLMGradientSolver setSharedGram(ComputationState.SharedGram g) {
+      assert _parms._family == Family.gaussian && _parms._link == Link.identity;
+      _sharedGram = g;
+      _sharedCols = _dinfo.activeCols();
+      return this;
+    }
+
+    // sum of w*(x'b - z)^2 = b'X'WXb - 2*b'X'Wz + z'Wz from the shared statistics, fills in the unscaled gradient X'W(Xb - z)
+    private double sharedGramLikelihood(double [] beta, double [] gradient) {
+      final int [] cols = _sharedCols;
+      double l = _sharedGram._wyy;
+      for(int i = 0; i < cols.length; ++i) {
+        double [] xi = _sharedGram._xx[cols[i]];
+        double d = 0;
+        for(int j = 0; j < cols.length; ++j)
+          d += xi[cols[j]] * beta[j];
+        double xy = _sharedGram._xy[cols[i]];
+        if(gradient != null) gradient[i] = d - xy;
+        l += beta[i] * (d - 2 * xy);
+      }
+      return l;
+    }
+
+    // split the multinomial beta into per class coefficients
+    private void setBetaMultinomial(double[] beta) {
+      if (_betaMultinomial == null) {
+        int nclasses = beta.length / (_dinfo.fullN() + 1);
+        assert beta.length % (_dinfo.fullN() + 1) == 0:"beta len = " + beta.length + ", fullN +1  == " + (_dinfo.fullN()+1);
+        _betaMultinomial = new double[nclasses][];
+        for (int i = 0; i < nclasses; ++i)
+          _betaMultinomial[i] = MemoryManager.malloc8d(_dinfo.fullN() + 1);
+      }
       int off = 0;
       for (int i = 0; i < _betaMultinomial.length; ++i) {
         System.arraycopy(beta, off, _betaMultinomial[i], 0, _betaMultinomial[i].length);
         off += _betaMultinomial[i].length;
       }
+    }
+
+    /*
+    Only update the likelihood function for multinomial while leaving all else stale and old.  This is only
+    used by multinomial with COD.
+     */
+    public GLMGradientInfo getMultinomialLikelihood(double[] beta) {
+      assert _parms._family.equals(Family.multinomial) : "GLMGradientInfo.getMultinomialLikelihood is only used by multinomial GLM";
+      setBetaMultinomial(beta);
       GLMMultinomialGradientBaseTask gt = new GLMMultinomialLikelihoodTask(_job, _dinfo, _l2pen, _betaMultinomial,
               _parms).doAll(_dinfo._adaptedFrame);
       double l2pen = 0;
@@ -1858,18 +2147,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
     @Override
     public GLMGradientInfo getGradient(double[] beta) {
       if (_parms._family == Family.multinomial || _parms._family == Family.ordinal) {
-        if (_betaMultinomial == null) {
-          int nclasses = beta.length / (_dinfo.fullN() + 1);
-          assert beta.length % (_dinfo.fullN() + 1) == 0:"beta len = " + beta.length + ", fullN +1  == " + (_dinfo.fullN()+1);
-          _betaMultinomial = new double[nclasses][];
-          for (int i = 0; i < nclasses; ++i)
-            _betaMultinomial[i] = MemoryManager.malloc8d(_dinfo.fullN() + 1);
-        }
-        int off = 0;
-        for (int i = 0; i < _betaMultinomial.length; ++i) {
-          System.arraycopy(beta, off, _betaMultinomial[i], 0, _betaMultinomial[i].length);
-          off += _betaMultinomial[i].length;
-        }
+        setBetaMultinomial(beta);
         GLMMultinomialGradientBaseTask gt = new GLMMultinomialGradientTask(_job, _dinfo, _l2pen, _betaMultinomial,
                 _parms).doAll(_dinfo._adaptedFrame);
         double l2pen = 0;
@@ -1889,6 +2167,15 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       } else {
         assert beta.length == _dinfo.fullN() + 1;
         assert _parms._intercept || (beta[beta.length-1] == 0);
+        double [] gradient;
+        double likelihood;
+        if(_sharedGram != null) {
+          gradient = MemoryManager.malloc8d(beta.length);
+          likelihood = sharedGramLikelihood(beta, gradient);
+          ArrayUtils.mult(gradient, _parms._obj_reg);
+          for(int j = 0; j < beta.length - 1; ++j)
+            gradient[j] += _l2pen * beta[j];
+        } else {
         GLMGradientTask gt;
         if(_parms._family == Family.binomial && _parms._link == Link.logit)
           gt = new GLMBinomialGradientTask(_job == null?null:_job._key,_dinfo,_parms,_l2pen, beta).doAll(_dinfo._adaptedFrame);
@@ -1903,8 +2190,9 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
           gt = new GLMQuasiBinomialGradientTask(_job == null?null:_job._key,_dinfo,_parms,_l2pen, beta).doAll(_dinfo._adaptedFrame);
         else
           gt = new GLMGenericGradientTask(_job == null?null:_job._key, _dinfo, _parms, _l2pen, beta).doAll(_dinfo._adaptedFrame);
-        double [] gradient = gt._gradient;
-        double  likelihood = gt._likelihood;
+        gradient = gt._gradient;
+        likelihood = gt._likelihood;
+        }
         if (!_parms._intercept) // no intercept, null the ginfo
           gradient[gradient.length - 1] = 0;
         double obj = likelihood * _parms._obj_reg + .5 * _l2pen * ArrayUtils.l2norm2(beta, true);
@@ -1916,11 +2204,65 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
 
     @Override
     public GradientInfo getObjective(double[] beta) {
-      double l = new GLMResDevTask(_job._key,_dinfo,_parms,beta).doAll(_dinfo._adaptedFrame)._likelihood;
+      double l = _sharedGram != null
+        ? .5 * sharedGramLikelihood(beta, null) // as in GLMResDevTask
+        : new GLMResDevTask(_job._key,_dinfo,_parms,beta).doAll(_dinfo._adaptedFrame)._likelihood;
       return new GLMGradientInfo(l,l*_parms._obj_reg + .5*_l2pen*ArrayUtils.l2norm2(beta,true),null);
     }
   }
 
+  /**
+   * Gradient solver for SVRG, full gradients are computed by the GLMGradientSolver, gradient differences on random
+   * samples of chunks (mini-batches) by the GLMBatchGradientDiffTask.
+   */
+  public static final class GLMStochasticGradientSolver implements StochasticGradientSolver {
+    public static final int MAX_BATCHES = 16;
+    final GLMGradientSolver _gslvr;
+    final long _nobs;
+    final int _nchunks;
+    final int _nbatches;
+
+    public GLMStochasticGradientSolver(GLMGradientSolver gslvr, long nobs) {
+      _gslvr = gslvr;
+      _nobs = nobs;
+      _nchunks = gslvr._dinfo._adaptedFrame.anyVec().nChunks();
+      _nbatches = Math.min(MAX_BATCHES, _nchunks);
+    }
+
+    @Override
+    public int numBatches() {return _nbatches;}
+
+    @Override
+    public GLMGradientInfo getGradient(double[] beta) {return _gslvr.getGradient(beta);}
+
+    @Override
+    public GradientInfo getObjective(double[] beta) {return _gslvr.getObjective(beta);}
+
+    @Override
+    public double[] getBatchGradientDiff(Random rnd, double[] beta, double[] betaRef) {
+      // sample nchunks/nbatches chunks without replacement
+      int [] ids = new int[_nchunks];
+      for (int i = 0; i < ids.length; ++i) ids[i] = i;
+      boolean [] chunks = new boolean[_nchunks];
+      for (int i = 0; i < _nchunks / _nbatches; ++i) {
+        int j = i + rnd.nextInt(_nchunks - i);
+        int c = ids[j];
+        ids[j] = ids[i];
+        ids[i] = c;
+        chunks[c] = true;
+      }
+      GLMBatchGradientDiffTask gt = new GLMBatchGradientDiffTask(_gslvr._dinfo, _gslvr._parms, beta, betaRef, chunks).doAll(_gslvr._dinfo._adaptedFrame);
+      double [] grad = (gt._gradient == null || gt._nobs == 0)
+        ? MemoryManager.malloc8d(beta.length)
+        : ArrayUtils.mult(gt._gradient, _gslvr._parms._obj_reg * _nobs / gt._nobs);
+      for (int i = 0; i < grad.length - 1; ++i)
+        grad[i] += _gslvr._l2pen * (beta[i] - betaRef[i]);
+      if (!_gslvr._parms._intercept)
+        grad[grad.length - 1] = 0;
+      return grad;
+    }
+  }
+
   protected static double sparseOffset(double[] beta, DataInfo dinfo) {
     double etaOffset = 0;
     if (dinfo._normMul != null && dinfo._normSub != null && beta != null) {
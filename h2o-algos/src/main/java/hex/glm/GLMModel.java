@@ -219,6 +219,10 @@ public class GLMModel extends Model<GLMModel,GLMModel.GLMParameters,GLMModel.GLM
     // internal parameter, handle with care. GLM will stop when there is more than this number of active predictors (after strong rule screening)
     public int _max_active_predictors = -1;
     public boolean _stdOverride; // standardization override by beta constraints
+    // gaussian cross-validation: compute grams of all the folds in a single pass, every cv model gets the sum over the other folds
+    public boolean _cv_single_pass = false;
+    // gaussian: keep the gram and X'y of the training data in the model, so that it can be updated with new data (see _checkpoint)
+    public boolean _store_sufficient_statistics = false;
     final static NormalDistribution _dprobit = new NormalDistribution(0,1);  // get the normal distribution
 
     public void validate(GLM glm) {
@@ -512,7 +516,7 @@ public class GLMModel extends Model<GLMModel,GLMModel.GLMParameters,GLMModel.GLM
     }
     public static enum Link {family_default, identity, logit, log, inverse, tweedie, multinomial, ologit, oprobit, ologlog}
 
-    public static enum Solver {AUTO, IRLSM, L_BFGS, COORDINATE_DESCENT_NAIVE, COORDINATE_DESCENT, GRADIENT_DESCENT_LH, GRADIENT_DESCENT_SQERR}
+    public static enum Solver {AUTO, IRLSM, L_BFGS, COORDINATE_DESCENT_NAIVE, COORDINATE_DESCENT, GRADIENT_DESCENT_LH, GRADIENT_DESCENT_SQERR, SVRG}
 
     // helper function
     static final double y_log_y(double y, double mu) {
@@ -908,6 +912,8 @@ public class GLMModel extends Model<GLMModel,GLMModel.GLMParameters,GLMModel.GLM
     double[] _global_beta;
     private double[] _zvalues;
     double [][] _vcov;
+    ComputationState.SharedGram _sufficient_statistics; // gram and X'y of all the data the model was trained on (if stored)
+    boolean _cv_shared_gram; // cv model trained from the gram computed by the main model (cv_single_pass)
     private double _dispersion;
     private boolean _dispersionEstimated;
     double _trainTheta;
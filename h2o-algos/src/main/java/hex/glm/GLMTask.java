@@ -13,6 +13,7 @@ import water.*;
 import water.H2O.H2OCountedCompleter;
 import water.fvec.C0DChunk;
 import water.fvec.Chunk;
+import water.fvec.Vec;
 import water.util.ArrayUtils;
 import water.util.FrameUtils;
 import water.util.MathUtils;
@@ -1410,61 +1411,136 @@ public abstract class GLMTask  {
   }
 
 
-  public static class GLMIterationTaskMultinomial extends FrameTask2<GLMIterationTaskMultinomial> {
-    final int _c;
-    final double [] _beta; // current beta to compute update of predictors for the current class
-
-    double [] _xy;
-    Gram _gram;
-    transient double _sparseOffset;
+  /**
+   * Weighted gram matrices and x'z vectors of the quadratic approximations of the multinomial likelihood for several
+   * classes, all computed at the same coefficients in one pass over the data.
+   *
+   * Class probabilities are computed from the full rows, every class accumulates its gram over its own active columns
+   * (rows are extracted with the class' DataInfo from the matching subset of the chunks). Sparse data are processed as
+   * sparse rows, the same way as in {@link GLMIterationTask}.
+   */
+  public static class GLMIterationTaskMultinomial extends MRTask<GLMIterationTaskMultinomial> {
+    final Key<Job> _jobKey;
+    final DataInfo _dinfo; // all the columns, used to compute the class probabilities
+    final DataInfo [] _classInfos; // active data of the classes we compute the grams for
+    final int [] _classes;
+    final double [][] _beta; // coefficients of all the classes over all the columns
+    final int [][] _chunkIds; // columns of the class frames in the frame of _dinfo
+    boolean _sparse;
+
+    Gram [] _gram;
+    double [][] _xy;
+    long _nobs;
 
-    public GLMIterationTaskMultinomial(DataInfo dinfo, Key jobKey, double [] beta, int c) {
-      super(null, dinfo, jobKey);
-      _beta = beta;
-      _c = c;
+    public GLMIterationTaskMultinomial(Key<Job> jobKey, DataInfo dinfo, DataInfo [] classInfos, int [] classes, double [] beta) {
+      _jobKey = jobKey;
+      _dinfo = dinfo;
+      _classInfos = classInfos;
+      _classes = classes;
+      _beta = ArrayUtils.convertTo2DMatrix(beta, dinfo.fullN() + 1);
+      _chunkIds = new int[classes.length][];
+      for (int i = 0; i < classes.length; ++i) {
+        Vec [] vecs = classInfos[i]._adaptedFrame.vecs();
+        _chunkIds[i] = new int[vecs.length];
+        for (int j = 0; j < vecs.length; ++j)
+          _chunkIds[i][j] = dinfo._adaptedFrame.find(vecs[j]);
+      }
+      _sparse = FrameUtils.sparseRatio(dinfo._adaptedFrame) < .5;
     }
 
-    @Override public void chunkInit(){
-      // initialize
-      _gram = new Gram(_dinfo.fullN(), _dinfo.largestCat(), _dinfo.numNums(), _dinfo._cats,true);
-      _xy = MemoryManager.malloc8d(_dinfo.fullN()+1); // + 1 is for intercept
-      if(_sparse)
-        _sparseOffset = GLM.sparseOffset(_beta,_dinfo);
-    }
+    public GLMIterationTaskMultinomial setSparse(boolean b) { _sparse = b; return this; }
+
+    private transient Job _job;
     @Override
-    protected void processRow(Row r) {
-      double y = r.response(0);
-      double sumExp = r.response(1);
-      double maxRow = r.response(2);
-      int numStart = _dinfo.numStart();
-      y = (y == _c)?1:0;
-      double eta = r.innerProduct(_beta) + _sparseOffset;
-      if(eta > maxRow) maxRow = eta;
-      double etaExp = Math.exp(eta-maxRow);
-      sumExp += etaExp;
-      double mu = (etaExp == Double.POSITIVE_INFINITY?1:(etaExp / sumExp));
-      if(mu < 1e-16)
-        mu = 1e-16;//
-      double d = mu*(1-mu);
-      double wz = r.weight * (eta * d + (y-mu));
-      double w  = r.weight * d;
-      for(int i = 0; i < r.nBins; ++i) {
-        _xy[r.binIds[i]] += wz;
+    public void setupLocal() {if(_jobKey != null) _job = _jobKey.get();}
+
+    @Override
+    public void map(Chunk [] chks) {
+      if(_job != null && _job.stop_requested()) throw new Job.JobCancelledException();
+      final int ncls = _classes.length;
+      _gram = new Gram[ncls];
+      _xy = new double[ncls][];
+      Row [] rows = new Row[ncls];
+      Chunk [][] classChks = new Chunk[ncls][];
+      for (int i = 0; i < ncls; ++i) {
+        DataInfo dinfo = _classInfos[i];
+        boolean sparseCats = dinfo.numStart() - dinfo.largestCat() >= Gram.MIN_SPARSE_CATS;
+        _gram[i] = new Gram(dinfo.fullN(), dinfo.largestCat(), dinfo.numNums(), dinfo._cats, true, sparseCats);
+        _xy[i] = MemoryManager.malloc8d(dinfo.fullN() + 1); // + 1 is for intercept
+        if (!_sparse) rows[i] = dinfo.newDenseRow();
+        classChks[i] = new Chunk[_chunkIds[i].length];
+        for (int j = 0; j < classChks[i].length; ++j)
+          classChks[i][j] = chks[_chunkIds[i][j]];
       }
-      for(int i = 0; i < r.nNums; ++i){
-        int id = r.numIds == null?(i + numStart):r.numIds[i];
-        double val = r.numVals[i];
-        _xy[id] += wz*val;
+      Row row = null;
+      Row [] sparseRows = null;
+      Row [][] classSparseRows = null;
+      double [] sparseOffsets = MemoryManager.malloc8d(_beta.length);
+      if (_sparse) {
+        sparseRows = _dinfo.extractSparseRows(chks);
+        classSparseRows = new Row[ncls][];
+        for (int i = 0; i < ncls; ++i)
+          classSparseRows[i] = _classInfos[i].extractSparseRows(classChks[i]);
+        for (int c = 0; c < _beta.length; ++c)
+          sparseOffsets[c] = GLM.sparseOffset(_beta[c], _dinfo);
+      } else
+        row = _dinfo.newDenseRow();
+      double [] etas = MemoryManager.malloc8d(_beta.length);
+      for (int rid = 0; rid < chks[0]._len; ++rid) {
+        if (_sparse) row = sparseRows[rid];
+        else _dinfo.extractDenseRow(chks, rid, row);
+        if (row.isBad() || row.weight == 0) continue;
+        ++_nobs;
+        double maxRow = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < _beta.length; ++c) {
+          etas[c] = row.innerProduct(_beta[c]) + sparseOffsets[c];
+          if (etas[c] > maxRow) maxRow = etas[c];
+        }
+        double sumExp = 0;
+        for (int c = 0; c < _beta.length; ++c)
+          sumExp += Math.exp(etas[c] - maxRow);
+        double y = row.response(0);
+        for (int i = 0; i < ncls; ++i) {
+          int c = _classes[i];
+          double mu = Math.exp(etas[c] - maxRow) / sumExp;
+          double d = mu * (1 - mu);
+          if (d == 0) d = 1e-10;
+          double wz = row.weight * (etas[c] * d + ((y == c ? 1 : 0) - mu));
+          double w = row.weight * d;
+          DataInfo dinfo = _classInfos[i];
+          Row r;
+          if (_sparse) r = classSparseRows[i][rid];
+          else dinfo.extractDenseRow(classChks[i], rid, r = rows[i]);
+          double [] xy = _xy[i];
+          for (int j = 0; j < r.nBins; ++j)
+            xy[r.binIds[j]] += wz;
+          int numStart = dinfo.numStart();
+          for (int j = 0; j < r.nNums; ++j)
+            xy[r.numIds == null ? j + numStart : r.numIds[j]] += wz * r.numVals[j];
+          if (dinfo._intercept)
+            xy[xy.length - 1] += wz;
+          _gram[i].addRow(r, w);
+        }
+      }
+      for (int i = 0; i < ncls; ++i) {
+        _gram[i].compactCats();
+        if (_sparse)
+          adjustForSparseStandardizedZeros(_classInfos[i], _gram[i], _xy[i]);
       }
-      if(_dinfo._intercept)
-        _xy[_xy.length-1] += wz;
-      _gram.addRow(r, w);
     }
 
     @Override
     public void reduce(GLMIterationTaskMultinomial glmt) {
-      ArrayUtils.add(_xy,glmt._xy);
-      _gram.add(glmt._gram);
+      if (_gram == null) {
+        _gram = glmt._gram;
+        _xy = glmt._xy;
+      } else if (glmt._gram != null) {
+        for (int i = 0; i < _gram.length; ++i) {
+          _gram[i].add(glmt._gram[i]);
+          ArrayUtils.add(_xy[i], glmt._xy[i]);
+        }
+      }
+      _nobs += glmt._nobs;
     }
   }
 
@@ -1561,7 +1637,11 @@ public abstract class GLMTask  {
     @Override
     public void chunkInit() {
       // initialize
-      _gram = new Gram(_dinfo.fullN(), _dinfo.largestCat(), _dinfo.numNums(), _dinfo._cats,true);
+      // levels of the categoricals outside of the diagonal block, their products are mostly structural zeros
+      boolean sparseCats = _dinfo.numStart() - _dinfo.largestCat() >= Gram.MIN_SPARSE_CATS;
+      _gram = new Gram(_dinfo.fullN(), _dinfo.largestCat(), _dinfo.numNums(), _dinfo._cats,true,sparseCats);
+      if(!_sparse && _dinfo.numNums() >= Gram.MIN_TILED_DENSE)
+        _gram.tileDenseRows(); // wide dense data, accumulate the dense block in tiles of rows
       _xy = MemoryManager.malloc8d(_dinfo.fullN()+1); // + 1 is for intercept
       if(_sparse)
         _sparseOffset = GLM.sparseOffset(_beta,_dinfo);
@@ -1612,7 +1692,11 @@ public abstract class GLMTask  {
     }
 
     @Override
-    public void chunkDone(){adjustForSparseStandardizedZeros();}
+    public void chunkDone(){
+      _gram.flushTile();
+      _gram.compactCats();
+      adjustForSparseStandardizedZeros();
+    }
 
     @Override
     public void reduce(GLMIterationTask git){
@@ -1628,35 +1712,41 @@ public abstract class GLMTask  {
     }
 
     private void adjustForSparseStandardizedZeros(){
-      if(_sparse && _dinfo._normSub != null) { // need to adjust gram for missing centering!
-        int ns = _dinfo.numStart();
-        int interceptIdx = _xy.length - 1;
-        double[] interceptRow = _gram._xx[interceptIdx - _gram._diagN];
-        double nobs = interceptRow[interceptRow.length - 1]; // weighted _nobs
-        for (int i = ns; i < _dinfo.fullN(); ++i) {
-          double iMean = _dinfo._normSub[i - ns] * _dinfo._normMul[i - ns];
-          for (int j = 0; j < ns; ++j)
-            _gram._xx[i - _gram._diagN][j] -= interceptRow[j] * iMean;
-          for (int j = ns; j <= i; ++j) {
-            double jMean = _dinfo._normSub[j - ns] * _dinfo._normMul[j - ns];
-            _gram._xx[i - _gram._diagN][j] -= interceptRow[i] * jMean + interceptRow[j] * iMean - nobs * iMean * jMean;
-          }
-        }
-        if (_dinfo._intercept) { // do the intercept row
-          for (int j = ns; j < _dinfo.fullN(); ++j)
-            interceptRow[j] -= nobs * _dinfo._normSub[j - ns] * _dinfo._normMul[j - ns];
-        }
-        // and the xy vec as well
-        for (int i = ns; i < _dinfo.fullN(); ++i) {
-          _xy[i] -= _xy[_xy.length - 1] * _dinfo._normSub[i - ns] * _dinfo._normMul[i - ns];
-        }
-      }
+      if(_sparse)
+        GLMTask.adjustForSparseStandardizedZeros(_dinfo, _gram, _xy);
     }
 
     public boolean hasNaNsOrInf() {
       return ArrayUtils.hasNaNsOrInfs(_xy) || _gram.hasNaNsOrInfs();
     }
   }
+
+  // sparse rows are not centered, adjusts the gram and the xy vector (with the intercept) computed from them
+  static void adjustForSparseStandardizedZeros(DataInfo dinfo, Gram gram, double [] xy){
+    if(dinfo._normSub != null) { // need to adjust gram for missing centering!
+      int ns = dinfo.numStart();
+      int interceptIdx = xy.length - 1;
+      double[] interceptRow = gram._xx[interceptIdx - gram._diagN];
+      double nobs = interceptRow[interceptRow.length - 1]; // weighted _nobs
+      for (int i = ns; i < dinfo.fullN(); ++i) {
+        double iMean = dinfo._normSub[i - ns] * dinfo._normMul[i - ns];
+        for (int j = 0; j < ns; ++j)
+          gram._xx[i - gram._diagN][j] -= interceptRow[j] * iMean;
+        for (int j = ns; j <= i; ++j) {
+          double jMean = dinfo._normSub[j - ns] * dinfo._normMul[j - ns];
+          gram._xx[i - gram._diagN][j] -= interceptRow[i] * jMean + interceptRow[j] * iMean - nobs * iMean * jMean;
+        }
+      }
+      if (dinfo._intercept) { // do the intercept row
+        for (int j = ns; j < dinfo.fullN(); ++j)
+          interceptRow[j] -= nobs * dinfo._normSub[j - ns] * dinfo._normMul[j - ns];
+      }
+      // and the xy vec as well
+      for (int i = ns; i < dinfo.fullN(); ++i) {
+        xy[i] -= xy[xy.length - 1] * dinfo._normSub[i - ns] * dinfo._normMul[i - ns];
+      }
+    }
+  }
   
 
  /* public static class GLMCoordinateDescentTask extends FrameTask2<GLMCoordinateDescentTask> {
@@ -2044,6 +2134,102 @@ public abstract class GLMTask  {
     public void reduce(ComputeSETsk c){_sumsqe += c._sumsqe; _wsum += c._wsum;}
   }
 
+  /**
+   * Grams X'WX and vectors X'W(y - offset) of all the cross-validation folds of a gaussian problem, computed together
+   * in a single pass over the data. The dinfo must not be standardized (sparse rows are then exact), the caller
+   * applies the standardization of the fold models afterwards.
+   *
+   * The last nfolds chunks passed to the task are the holdout weights of the folds, a row belongs to the fold with
+   * non-zero holdout weight and is accumulated with that weight. Without folds, all the rows are accumulated with
+   * their weights as a single fold.
+   */
+  static class GLMFoldGramTask extends FrameTask2<GLMFoldGramTask> {
+    final int _nfolds;
+    final boolean _rowWeights; // no holdout weights, single fold of all the rows
+    Gram [] _gram;
+    double [][] _xy;
+    double [] _yy;  // sum of y^2 over the rows with non-zero weight (as in GLMIterationTask)
+    double [] _wyy; // sum of w*(y - offset)^2
+    long [] _nobs;
+    private transient Chunk [] _holdout;
+
+    public GLMFoldGramTask(Key<Job> jobKey, DataInfo dinfo, int nfolds) {
+      super(null, dinfo, jobKey);
+      _nfolds = nfolds;
+      _rowWeights = false;
+    }
+
+    public GLMFoldGramTask(Key<Job> jobKey, DataInfo dinfo) {
+      super(null, dinfo, jobKey);
+      _nfolds = 1;
+      _rowWeights = true;
+    }
+
+    @Override public boolean handlesSparseData(){return true;}
+
+    @Override
+    public void map(Chunk [] chks) {
+      if(!_rowWeights)
+        _holdout = Arrays.copyOfRange(chks, chks.length - _nfolds, chks.length);
+      super.map(chks);
+    }
+
+    @Override
+    public void chunkInit() {
+      _gram = new Gram[_nfolds];
+      _xy = new double[_nfolds][];
+      for(int f = 0; f < _nfolds; ++f) {
+        _gram[f] = new Gram(_dinfo.fullN(), _dinfo.largestCat(), _dinfo.numNums(), _dinfo._cats, true);
+        _xy[f] = MemoryManager.malloc8d(_dinfo.fullN() + 1);
+      }
+      _yy = MemoryManager.malloc8d(_nfolds);
+      _wyy = MemoryManager.malloc8d(_nfolds);
+      _nobs = MemoryManager.malloc8(_nfolds);
+    }
+
+    @Override
+    protected void processRow(Row r) {
+      int f = 0;
+      if(!_rowWeights)
+        while(f < _nfolds && _holdout[f].atd(r.cid) == 0) ++f;
+      if(f == _nfolds) return;
+      final double w = _rowWeights ? r.weight : _holdout[f].atd(r.cid);
+      if(w == 0) return;
+      final double y = r.response(0);
+      final double z = y - r.offset;
+      final double wz = w*z;
+      final int numStart = _dinfo.numStart();
+      final double [] xy = _xy[f];
+      ++_nobs[f];
+      _yy[f] += y*y;
+      _wyy[f] += wz*z;
+      for(int i = 0; i < r.nBins; ++i)
+        xy[r.binIds[i]] += wz;
+      for(int i = 0; i < r.nNums; ++i) {
+        int id = r.numIds == null?(i + numStart):r.numIds[i];
+        xy[id] += wz*r.numVals[i];
+      }
+      xy[xy.length-1] += wz;
+      _gram[f].addRow(r, w);
+    }
+
+    @Override
+    public void reduce(GLMFoldGramTask git) {
+      for(int f = 0; f < _nfolds; ++f) {
+        _gram[f].add(git._gram[f]);
+        ArrayUtils.add(_xy[f], git._xy[f]);
+      }
+      ArrayUtils.add(_yy, git._yy);
+      ArrayUtils.add(_wyy, git._wyy);
+      ArrayUtils.add(_nobs, git._nobs);
+      super.reduce(git);
+    }
+  }
+
+  /**
+   * Computes rows of the (weighted) gram matrix for the given new columns against all columns of the dinfo, plus the
+   * corresponding elements of X'y. The intercept (fullN) can be one of the new columns, it has to be the last one.
+   */
   static class GLMIncrementalGramTask extends MRTask<GLMIncrementalGramTask> {
     final int[] _newCols;
     final DataInfo _dinfo;
@@ -2066,6 +2252,8 @@ public abstract class GLMTask  {
       double [][] gram = new double[_newCols.length][_dinfo.fullN() + 1];
       double [] xy = new double[_newCols.length];
       final int ns = _dinfo.numStart();
+      final boolean icpt = _newCols.length > 0 && _newCols[_newCols.length-1] == _dinfo.fullN();
+      final int nnew = icpt?_newCols.length-1:_newCols.length;
       double sparseOffset = rows._sparse?GLM.sparseOffset(_beta,_dinfo):0;
       for (int rid = 0; rid < rows._nrows; ++rid) {
         int j = 0;
@@ -2098,7 +2286,7 @@ public abstract class GLMTask  {
           for (int i = 0; i < r.nNums; i++) {
             while (j < _newCols.length && _newCols[j] < r.numIds[i])
               j++;
-            if (j == _newCols.length) break;
+            if (j == nnew) break;
             if (r.numIds[i] == _newCols[j]) {
               double wx = glmw.w * r.numVals[i];
               r.addToArray(wx, gram[j]);
@@ -2107,7 +2295,7 @@ public abstract class GLMTask  {
             }
           }
         } else { // dense
-          for (; j < _newCols.length; j++) {
+          for (; j < nnew; j++) {
             int id = _newCols[j];
             double x = r.numVals[id - _dinfo.numStart()];
             if(x == 0) continue;
@@ -2115,9 +2303,13 @@ public abstract class GLMTask  {
             r.addToArray(wx, gram[j]);
             xy[j] += wx*glmw.z;
           }
-          assert j == _newCols.length;
+          assert j == nnew;
         }
       }
+      if(icpt) { // intercept row is the weighted column sum
+        System.arraycopy(wsum,0,gram[nnew],0,wsum.length);
+        xy[nnew] = ywsum;
+      }
       if(rows._sparse && _dinfo._normSub != null){ // adjust for sparse zeros (skipped centering)
         int numstart = Arrays.binarySearch(_newCols,ns);
         if(numstart < 0) numstart = -numstart-1;
@@ -2130,7 +2322,7 @@ public abstract class GLMTask  {
             gram[k][j] = gram[k][j] - mean_j*scale_j*wsum[i];
           }
         }
-        for(int k = numstart; k < gram.length; ++k){
+        for(int k = numstart; k < nnew; ++k){
           int i = _newCols[k];
           double mean_i = _dinfo.normSub(i-ns);
           double scale_i = _dinfo.normMul(i-ns);
@@ -2147,6 +2339,9 @@ public abstract class GLMTask  {
           gram[k][gram[k].length-1] -= mean_i*scale_i*wsum[gram[k].length-1];
           xy[k] -= ywsum * mean_i * scale_i;
         }
+        if(icpt)
+          for(int j = ns; j < wsum.length-1; ++j)
+            gram[nnew][j] -= _dinfo.normSub(j-ns)*_dinfo.normMul(j-ns)*wsum[wsum.length-1];
       }
       _gram = gram;
       _xy = xy;
@@ -2158,4 +2353,73 @@ public abstract class GLMTask  {
         ArrayUtils.add(_gram[i],gt._gram[i]);
     }
   }
+
+  /**
+   * Difference of the gradients (with no penalty and not scaled by obj_reg) at beta and betaRef computed on a sample
+   * of chunks only, plus the number of rows of the sample. Used by the SVRG solver.
+   */
+  static class GLMBatchGradientDiffTask extends MRTask<GLMBatchGradientDiffTask> {
+    final DataInfo _dinfo;
+    final GLMWeightsFun _glmf;
+    final double [] _beta;
+    final double [] _betaRef;
+    final boolean [] _chunks; // chunks in the batch, indexed by chunk id
+    final boolean _canonical;
+    double [] _gradient;
+    long _nobs;
+
+    public GLMBatchGradientDiffTask(DataInfo dinfo, GLMParameters parms, double [] beta, double [] betaRef, boolean [] chunks) {
+      _dinfo = dinfo;
+      _glmf = new GLMWeightsFun(parms);
+      _beta = beta;
+      _betaRef = betaRef;
+      _chunks = chunks;
+      _canonical = (parms._family == Family.gaussian && parms._link == Link.identity)
+        || ((parms._family == Family.binomial || parms._family == Family.quasibinomial) && parms._link == Link.logit)
+        || (parms._family == Family.poisson && parms._link == Link.log);
+    }
+
+    // derivative of the likelihood w.r.t. eta, same as in the gradient tasks
+    private double gradientMultiplier(double y, double eta, double w) {
+      double mu = _glmf.linkInv(eta);
+      if(_canonical) return w * (mu - y);
+      double var = _glmf.variance(mu);
+      if (var < 1e-6) var = 1e-6;
+      return w * (mu - y) / (var * _glmf.linkDeriv(mu));
+    }
+
+    @Override
+    public void map(Chunk [] chks) {
+      if(!_chunks[chks[0].cidx()]) return;
+      double [] grad = MemoryManager.malloc8d(_beta.length);
+      DataInfo.Rows rows = _dinfo.rows(chks);
+      double sparseOffset = rows._sparse ? GLM.sparseOffset(_beta, _dinfo) : 0;
+      double sparseOffsetRef = rows._sparse ? GLM.sparseOffset(_betaRef, _dinfo) : 0;
+      double dsum = 0;
+      for (int rid = 0; rid < rows._nrows; ++rid) {
+        Row r = rows.row(rid);
+        if(r.isBad() || r.weight == 0) continue;
+        _nobs++;
+        double y = r.response(0);
+        double d = gradientMultiplier(y, r.innerProduct(_beta) + sparseOffset + r.offset, r.weight)
+          - gradientMultiplier(y, r.innerProduct(_betaRef) + sparseOffsetRef + r.offset, r.weight);
+        if(d == 0) continue;
+        r.addToArray(d, grad);
+        dsum += d;
+      }
+      if(rows._sparse && _dinfo._normSub != null) { // adjust for sparse zeros (skipped centering)
+        int ns = _dinfo.numStart();
+        for(int i = 0; i < _dinfo._nums; ++i)
+          grad[ns + i] -= _dinfo._normSub[i] * _dinfo._normMul[i] * dsum;
+      }
+      _gradient = grad;
+    }
+
+    @Override
+    public void reduce(GLMBatchGradientDiffTask t) {
+      if(_gradient == null) _gradient = t._gradient;
+      else if(t._gradient != null) ArrayUtils.add(_gradient, t._gradient);
+      _nobs += t._nobs;
+    }
+  }
 }
@@ -0,0 +1,523 @@
+package hex.gram;
+
+import jsr166y.ForkJoinTask;
+import jsr166y.RecursiveAction;
+import water.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cholesky decomposition of a Gram with the dense part factored in tiles distributed across the cloud.
+ *
+ * <p>The lower triangle of the dense part is split into square tiles of tileSize rows/columns. Tile (i,j), j &lt;= i,
+ * is stored in DKV under a key homed on the node owning the block-row i (i % cloud size), so the factor is spread over
+ * the cloud. The factorization is the right-looking block Cholesky, for every block-column k:
+ * <ol>
+ *   <li>the owner of the block-row k factors the diagonal tile, L_kk = chol(A_kk),</li>
+ *   <li>all nodes solve their tiles of the block-column, L_ik = A_ik L_kk^-T for i &gt; k,</li>
+ *   <li>all nodes update their tiles of the trailing matrix, A_ij -= L_ik L_jk^T for k &lt; j &lt;= i.</li>
+ * </ol>
+ * Each node processes its tiles in parallel, the tiles of the other nodes (L_kk, L_jk) are fetched from DKV.
+ *
+ * <p>Solving goes block-row by block-row on the owner of the block-row, only the right hand sides travel between
+ * the nodes; several right hand sides (e.g. the columns of the inverse) go through the block-rows together. The
+ * diagonal (categorical) part and the diagonal*dense part are kept on the caller's node and handled the same way as in
+ * {@link Gram.Cholesky}.
+ *
+ * <p>The tiles are built directly from the gram, without a copy of its dense part, and are not cached on the caller's
+ * node. The gram itself still has to fit on the caller's node: it is reduced there by the task computing it, so the
+ * O(p^2) memory of a single node remains the limit of the problem size, this class only avoids the O(p^3) work and
+ * any additional copies of the dense part there.
+ *
+ * <p>The tiles live in DKV until {@link #remove()} is called.
+ */
+public final class DistributedCholesky extends Gram.Cholesky {
+  public static final int DEFAULT_TILE_SIZE = 512;
+  // size of the dense part above which GLM factors the gram with this class on a multi-node cloud
+  public static final int MIN_DENSE = 10000;
+
+  private static final int ROWS_PER_TASK = 32;
+  // number of right hand sides solved together
+  private static final int RHS_BATCH = 128;
+
+  private final Tiles _tiles;
+
+  private DistributedCholesky(double[][] xx, double[] diag, Tiles tiles) {
+    super(xx, diag);
+    _tiles = tiles;
+  }
+
+  /**
+   * Factor the gram given as its diagonal part and the rows of the lower triangle of its dense rows (diagonal columns
+   * first), see {@link Gram}. The gram is not modified.
+   */
+  static DistributedCholesky decompose(final double[][] gram, double[] gramDiag, int tileSize) {
+    final int sparseN = gramDiag.length;
+    final int n = gram.length;
+    final Tiles tiles = new Tiles(Key.make().toString(), n, tileSize);
+    // the diagonal and diagonal*dense parts, same as in Gram.cholesky
+    final double[] diag = new double[sparseN];
+    final double[][] sparse = new double[n][];
+    for (int r = 0; r < n; ++r)
+      sparse[r] = MemoryManager.malloc8d(sparseN);
+    for (int i = 0; i < sparseN; ++i) {
+      double d = 1.0 / (diag[i] = Math.sqrt(gramDiag[i]));
+      for (int r = 0; r < n; ++r)
+        sparse[r][i] = d * gram[r][i];
+    }
+    final int[][] nz = new int[n][];
+    RecursiveAction[] ras = new RecursiveAction[n];
+    for (int r = 0; r < n; ++r) {
+      final int fr = r;
+      ras[r] = new RecursiveAction() {
+        @Override
+        protected void compute() {
+          int[] tmp = new int[sparseN];
+          int cnt = 0;
+          for (int k = 0; k < sparseN; ++k)
+            if (sparse[fr][k] != .0) tmp[cnt++] = k;
+          nz[fr] = Arrays.copyOf(tmp, cnt);
+        }
+      };
+    }
+    ForkJoinTask.invokeAll(ras);
+    // the tiles of dense*dense-outer_product(diagonal*dense), one block-row at a time
+    Futures fs = new Futures();
+    for (int i = 0; i < tiles._ntiles; ++i) {
+      final int fi = i;
+      final double[][] vals = new double[i + 1][];
+      ras = new RecursiveAction[i + 1];
+      for (int j = 0; j <= i; ++j) {
+        final int fj = j;
+        ras[j] = new RecursiveAction() {
+          @Override
+          protected void compute() { vals[fj] = denseTile(gram, sparse, nz, sparseN, tiles, fi, fj); }
+        };
+      }
+      ForkJoinTask.invokeAll(ras);
+      final boolean local = tiles.isLocal(i);
+      for (int j = 0; j <= i; ++j)
+        DKV.put(tiles.key(i, j), new Tile(vals[j]), fs, !local);
+      fs.blockForPending(); // at most one block-row of tiles in flight
+    }
+    DistributedCholesky chol = new DistributedCholesky(sparse, diag, tiles);
+    chol.setSPD(chol.factor());
+    return chol;
+  }
+
+  // tile (i,j) of dense*dense-outer_product(diagonal*dense), lower triangle only for the diagonal tiles
+  private static double[] denseTile(double[][] gram, double[][] sparse, int[][] nz, int sparseN, Tiles tiles, int i, int j) {
+    final int r0 = tiles.start(i), rows = tiles.size(i);
+    final int c0 = tiles.start(j), cols = tiles.size(j);
+    double[] vals = MemoryManager.malloc8d(rows * cols);
+    for (int r = 0; r < rows; ++r) {
+      final double[] grow = gram[r0 + r];
+      final double[] rowi = sparse[r0 + r];
+      final int[] nzi = nz[r0 + r];
+      final int cend = Math.min(cols, r0 + r - c0 + 1);
+      for (int c = 0; c < cend; ++c) {
+        final double[] rowj = sparse[c0 + c];
+        final int[] nzj = nz[c0 + c];
+        double s = 0;
+        for (int t = 0, z = 0; t < nzi.length && z < nzj.length; ) {
+          int k1 = nzi[t];
+          int k2 = nzj[z];
+          if (k1 < k2) t++;
+          else if (k1 > k2) z++;
+          else {
+            s += rowi[k1] * rowj[k1];
+            t++; z++;
+          }
+        }
+        vals[r * cols + c] = grow[sparseN + c0 + c] - s;
+      }
+    }
+    return vals;
+  }
+
+  private boolean factor() {
+    final Tiles tiles = _tiles;
+    for (int k = 0; k < tiles._ntiles; ++k) {
+      FactorDiagTile fdt = new FactorDiagTile(tiles, k);
+      new RPC<>(tiles.owner(k), fdt).call().get();
+      if (!fdt._spd) return false;
+      if (k + 1 == tiles._ntiles) break;
+      new SolvePanel(tiles, k).doAllNodes();
+      new UpdateTrailing(tiles, k).doAllNodes();
+    }
+    return true;
+  }
+
+  @Override
+  public void solve(double[] y) {
+    solveAll(new double[][]{y});
+  }
+
+  // same as Gram.Cholesky.solve(double[][]), the right hand sides go through the block-rows in batches
+  @Override
+  public void solve(double[][] ys) {
+    for (int i = 0; i < ys.length; ++i)
+      ys[i][i] = 1;
+    for (int b = 0; b < ys.length; b += RHS_BATCH)
+      solveAll(Arrays.copyOfRange(ys, b, Math.min(b + RHS_BATCH, ys.length)));
+  }
+
+  @Override
+  public double[] getInvDiag() {
+    final int N = _tiles._n + _diag.length;
+    final double[] res = new double[N];
+    for (int b = 0; b < N; b += RHS_BATCH) {
+      double[][] ys = new double[Math.min(RHS_BATCH, N - b)][N];
+      for (int t = 0; t < ys.length; ++t)
+        ys[t][b + t] = 1;
+      solveAll(ys);
+      for (int t = 0; t < ys.length; ++t)
+        res[b + t] = ys[t][b + t];
+    }
+    return res;
+  }
+
+  // solves all the right hand sides in place
+  private void solveAll(double[][] ys) {
+    if (!isSPD()) throw new Gram.NonSPDMatrixException();
+    final int sparseN = _diag.length;
+    final int n = _tiles._n;
+    double[][] yd = new double[ys.length][];
+    for (int t = 0; t < ys.length; ++t) {
+      final double[] y = ys[t];
+      // diagonal
+      for (int k = 0; k < sparseN; ++k)
+        y[k] /= _diag[k];
+      // diagonal*dense part of L*Y = B
+      for (int k = 0; k < n; ++k) {
+        final double[] xrow = _xx[k];
+        double d = 0;
+        for (int i = 0; i < sparseN; ++i)
+          d += y[i] * xrow[i];
+        y[sparseN + k] -= d;
+      }
+      yd[t] = Arrays.copyOfRange(y, sparseN, sparseN + n);
+    }
+    // dense part, L*Y = B and L'*X = Y, block-row by block-row
+    for (int i = 0; i < _tiles._ntiles; ++i)
+      solveRow(i, yd, true);
+    for (int i = _tiles._ntiles - 1; i >= 0; --i)
+      solveRow(i, yd, false);
+    for (int t = 0; t < ys.length; ++t) {
+      final double[] y = ys[t];
+      System.arraycopy(yd[t], 0, y, sparseN, n);
+      // diagonal*dense part of L'*X = Y
+      for (int k = n - 1; k >= 0; --k) {
+        final double[] xrow = _xx[k];
+        final double yk = y[sparseN + k];
+        for (int i = 0; i < sparseN; ++i)
+          y[i] -= yk * xrow[i];
+      }
+      // diagonal
+      for (int k = sparseN - 1; k >= 0; --k)
+        y[k] /= _diag[k];
+    }
+  }
+
+  // only the part of the right hand sides up to the end of the block-row is needed (and changed)
+  private void solveRow(int i, double[][] ys, boolean forward) {
+    final int end = _tiles.start(i) + _tiles.size(i);
+    double[][] part = new double[ys.length][];
+    for (int t = 0; t < ys.length; ++t)
+      part[t] = end == ys[t].length ? ys[t] : Arrays.copyOf(ys[t], end);
+    SolveRow sr = new SolveRow(_tiles, i, forward, part);
+    new RPC<>(_tiles.owner(i), sr).call().get();
+    for (int t = 0; t < ys.length; ++t) {
+      if (sr._y[t].length == ys[t].length) ys[t] = sr._y[t];
+      else System.arraycopy(sr._y[t], 0, ys[t], 0, end);
+    }
+  }
+
+  @Override
+  public double[][] getL() {
+    final int sparseN = _diag.length;
+    final int N = _tiles._n + sparseN;
+    double[][] xx = new double[N][];
+    for (int i = 0; i < N; ++i)
+      xx[i] = MemoryManager.malloc8d(N);
+    for (int i = 0; i < sparseN; ++i)
+      xx[i][i] = _diag[i];
+    for (int i = 0; i < _tiles._n; ++i)
+      System.arraycopy(_xx[i], 0, xx[sparseN + i], 0, sparseN);
+    for (int i = 0; i < _tiles._ntiles; ++i) {
+      final int r0 = _tiles.start(i), rows = _tiles.size(i);
+      for (int j = 0; j <= i; ++j) {
+        final int c0 = _tiles.start(j), cols = _tiles.size(j);
+        double[] vals = _tiles.<Tile>get(i, j)._vals;
+        for (int r = 0; r < rows; ++r) {
+          final int cend = i == j ? r + 1 : cols;
+          for (int c = 0; c < cend; ++c)
+            xx[sparseN + r0 + r][sparseN + c0 + c] = vals[r * cols + c];
+        }
+      }
+    }
+    return xx;
+  }
+
+  @Override
+  public void remove() {
+    Futures fs = new Futures();
+    for (int i = 0; i < _tiles._ntiles; ++i)
+      for (int j = 0; j <= i; ++j)
+        DKV.remove(_tiles.key(i, j), fs);
+    fs.blockForPending();
+  }
+
+  /**
+   * Layout of the tiles, block i covers the dense rows/columns [i*tileSize, min((i+1)*tileSize, n)).
+   */
+  static final class Tiles extends Iced<Tiles> {
+    final String _prefix;
+    final int _n;
+    final int _tileSize;
+    final int _ntiles;
+
+    Tiles(String prefix, int n, int tileSize) {
+      _prefix = prefix;
+      _n = n;
+      _tileSize = tileSize;
+      _ntiles = (n + tileSize - 1) / tileSize;
+    }
+
+    int start(int i) { return i * _tileSize; }
+    int size(int i) { return Math.min(_tileSize, _n - i * _tileSize); }
+    H2ONode owner(int i) { return H2O.CLOUD._memary[i % H2O.CLOUD.size()]; }
+    boolean isLocal(int i) { return owner(i) == H2O.SELF; }
+    // tiles of the block-row i are homed on the owner of the block-row
+    Key key(int i, int j) { return Key.make(_prefix + "_chol_" + i + "_" + j, (byte) 1, Key.HIDDEN_USER_KEY, true, owner(i)); }
+    <T extends Iced> T get(int i, int j) { return DKV.getGet(key(i, j)); }
+  }
+
+  static final class Tile extends Iced<Tile> {
+    final double[] _vals; // row-major
+
+    Tile(double[] vals) { _vals = vals; }
+  }
+
+  private static class FactorDiagTile extends DTask<FactorDiagTile> {
+    final Tiles _tiles;
+    final int _k;
+    boolean _spd;
+
+    FactorDiagTile(Tiles tiles, int k) {
+      _tiles = tiles;
+      _k = k;
+    }
+
+    @Override
+    public void compute2() {
+      double[] a = _tiles.<Tile>get(_k, _k)._vals.clone();
+      _spd = potrf(a, _tiles.size(_k));
+      DKV.put(_tiles.key(_k, _k), new Tile(a));
+      tryComplete();
+    }
+  }
+
+  // L_ik = A_ik L_kk^-T for the local block-rows i > k
+  private static class SolvePanel extends MRTask<SolvePanel> {
+    final Tiles _tiles;
+    final int _k;
+
+    SolvePanel(Tiles tiles, int k) {
+      _tiles = tiles;
+      _k = k;
+    }
+
+    @Override
+    protected void setupLocal() {
+      final int m = _tiles.size(_k);
+      final double[] l = _tiles.<Tile>get(_k, _k)._vals;
+      List<ForkJoinTask> tasks = new ArrayList<>();
+      List<Integer> rows = new ArrayList<>();
+      final List<double[]> tiles = new ArrayList<>();
+      for (int i = _k + 1; i < _tiles._ntiles; ++i) {
+        if (!_tiles.isLocal(i)) continue;
+        final double[] b = _tiles.<Tile>get(i, _k)._vals.clone();
+        rows.add(i);
+        tiles.add(b);
+        final int nrows = _tiles.size(i);
+        for (int r = 0; r < nrows; r += ROWS_PER_TASK) {
+          final int r0 = r, r1 = Math.min(r + ROWS_PER_TASK, nrows);
+          tasks.add(new RecursiveAction() {
+            @Override
+            protected void compute() { trsm(l, m, b, r0, r1); }
+          });
+        }
+      }
+      ForkJoinTask.invokeAll(tasks);
+      Futures fs = new Futures();
+      for (int t = 0; t < rows.size(); ++t)
+        DKV.put(_tiles.key(rows.get(t), _k), new Tile(tiles.get(t)), fs);
+      fs.blockForPending();
+    }
+  }
+
+  // A_ij -= L_ik L_jk^T for the local block-rows i > k and k < j <= i
+  private static class UpdateTrailing extends MRTask<UpdateTrailing> {
+    final Tiles _tiles;
+    final int _k;
+
+    UpdateTrailing(Tiles tiles, int k) {
+      _tiles = tiles;
+      _k = k;
+    }
+
+    @Override
+    protected void setupLocal() {
+      final int m = _tiles.size(_k);
+      List<ForkJoinTask> tasks = new ArrayList<>();
+      List<Key> keys = new ArrayList<>();
+      final List<double[]> tiles = new ArrayList<>();
+      for (int i = _k + 1; i < _tiles._ntiles; ++i) {
+        if (!_tiles.isLocal(i)) continue;
+        final double[] a = _tiles.<Tile>get(i, _k)._vals;
+        final int nrows = _tiles.size(i);
+        for (int j = _k + 1; j <= i; ++j) {
+          final double[] b = _tiles.<Tile>get(j, _k)._vals; // remote unless j is local too
+          final double[] c = _tiles.<Tile>get(i, j)._vals.clone();
+          final int ncols = _tiles.size(j);
+          final boolean diag = i == j;
+          keys.add(_tiles.key(i, j));
+          tiles.add(c);
+          for (int r = 0; r < nrows; r += ROWS_PER_TASK) {
+            final int r0 = r, r1 = Math.min(r + ROWS_PER_TASK, nrows);
+            tasks.add(new RecursiveAction() {
+              @Override
+              protected void compute() { syrk(a, b, m, c, ncols, r0, r1, diag); }
+            });
+          }
+        }
+      }
+      ForkJoinTask.invokeAll(tasks);
+      Futures fs = new Futures();
+      for (int t = 0; t < keys.size(); ++t)
+        DKV.put(keys.get(t), new Tile(tiles.get(t)), fs);
+      fs.blockForPending();
+    }
+  }
+
+  // One block-row step of the forward (L*Y = B) or backward (L'*X = Y) substitution of all the right hand sides, runs
+  // on the owner of the block-row.
+  private static class SolveRow extends DTask<SolveRow> {
+    final Tiles _tiles;
+    final int _i;
+    final boolean _forward;
+    double[][] _y;
+
+    SolveRow(Tiles tiles, int i, boolean forward, double[][] y) {
+      _tiles = tiles;
+      _i = i;
+      _forward = forward;
+      _y = y;
+    }
+
+    @Override
+    public void compute2() {
+      final int y0 = _tiles.start(_i), m = _tiles.size(_i);
+      final double[] l = _tiles.<Tile>get(_i, _i)._vals;
+      if (_forward) {
+        for (int j = 0; j < _i; ++j) {
+          final double[] lij = _tiles.<Tile>get(_i, j)._vals;
+          final int c0 = _tiles.start(j), cols = _tiles.size(j);
+          for (double[] y : _y)
+            for (int r = 0; r < m; ++r) {
+              double d = 0;
+              for (int c = 0; c < cols; ++c)
+                d += lij[r * cols + c] * y[c0 + c];
+              y[y0 + r] -= d;
+            }
+        }
+        for (double[] y : _y)
+          for (int r = 0; r < m; ++r) {
+            double d = 0;
+            for (int c = 0; c < r; ++c)
+              d += l[r * m + c] * y[y0 + c];
+            y[y0 + r] = (y[y0 + r] - d) / l[r * m + r];
+          }
+      } else {
+        for (double[] y : _y)
+          for (int r = m - 1; r >= 0; --r) {
+            final double x = y[y0 + r] /= l[r * m + r];
+            for (int c = 0; c < r; ++c)
+              y[y0 + c] -= x * l[r * m + c];
+          }
+        for (int j = 0; j < _i; ++j) {
+          final double[] lij = _tiles.<Tile>get(_i, j)._vals;
+          final int c0 = _tiles.start(j), cols = _tiles.size(j);
+          for (double[] y : _y)
+            for (int r = 0; r < m; ++r) {
+              final double x = y[y0 + r];
+              for (int c = 0; c < cols; ++c)
+                y[c0 + c] -= x * lij[r * cols + c];
+            }
+        }
+      }
+      tryComplete();
+    }
+  }
+
+  // In-place Cholesky of the lower triangle of the m x m tile, returns false if the tile is not positive definite.
+  static boolean potrf(double[] a, int m) {
+    for (int i = 0; i < m; ++i) {
+      final int ri = i * m;
+      for (int k = 0; k < i; ++k) {
+        final int rk = k * m;
+        double s = 0;
+        for (int jj = 0; jj < k; ++jj)
+          s += a[rk + jj] * a[ri + jj];
+        a[ri + k] = (a[ri + k] - s) / a[rk + k];
+      }
+      double d = 0;
+      for (int jj = 0; jj < i; ++jj)
+        d += a[ri + jj] * a[ri + jj];
+      d = a[ri + i] - d;
+      if (!(d > 0)) return false;
+      a[ri + i] = Math.sqrt(d);
+    }
+    return true;
+  }
+
+  // b = b L^-T for the rows [r0,r1) of b, L is the factored m x m diagonal tile
+  static void trsm(double[] l, int m, double[] b, int r0, int r1) {
+    for (int r = r0; r < r1; ++r) {
+      final int rb = r * m;
+      for (int c = 0; c < m; ++c) {
+        final int rl = c * m;
+        double s = 0;
+        for (int jj = 0; jj < c; ++jj)
+          s += l[rl + jj] * b[rb + jj];
+        b[rb + c] = (b[rb + c] - s) / l[rl + c];
+      }
+    }
+  }
+
+  // c -= a b^T for the rows [r0,r1) of c, a and b have m columns, only the lower triangle of a diagonal tile
+  static void syrk(double[] a, double[] b, int m, double[] c, int ncols, int r0, int r1, boolean lower) {
+    for (int r = r0; r < r1; ++r) {
+      final int ra = r * m, rc = r * ncols;
+      final int cend = lower ? r + 1 : ncols;
+      for (int cc = 0; cc < cend; ++cc) {
+        final int rb = cc * m;
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int jj = 0;
+        for (; jj + 3 < m; jj += 4) {
+          s0 += a[ra + jj] * b[rb + jj];
+          s1 += a[ra + jj + 1] * b[rb + jj + 1];
+          s2 += a[ra + jj + 2] * b[rb + jj + 2];
+          s3 += a[ra + jj + 3] * b[rb + jj + 3];
+        }
+        for (; jj < m; ++jj)
+          s0 += a[ra + jj] * b[rb + jj];
+        c[rc + cc] -= (s0 + s1) + (s2 + s3);
+      }
+    }
+  }
+
+}
@@ -8,6 +8,7 @@ import jsr166y.RecursiveAction;
 import water.*;
 import water.fvec.Chunk;
 import water.util.ArrayUtils;
+import water.util.DenseKernels;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -44,15 +45,151 @@ public final class Gram extends Iced<Gram> {
   }
 
   public Gram(int N, int diag, int dense, int sparse, boolean hasIntercept) {
+    this(N, diag, dense, sparse, hasIntercept, false);
+  }
+
+  /**
+   * @param sparseCats store the rows of the categorical levels outside of the diagonal block sparse, see {@link #_catIds}
+   */
+  public Gram(int N, int diag, int dense, int sparse, boolean hasIntercept, boolean sparseCats) {
     _hasIntercept = hasIntercept;
     _fullN = N + (_hasIntercept?1:0);
     _xx = new double[_fullN - diag][];
     _diag = MemoryManager.malloc8d(_diagN = diag);
     _denseN = dense;
-    for( int i = 0; i < (_fullN - _diagN); ++i )
+    int i = 0;
+    if(sparseCats) {
+      int ncats = _fullN - _denseN - _diagN - (_hasIntercept?1:0);
+      _catIds = new int[ncats][];
+      _catVals = new double[ncats][];
+      _catLen = new int[ncats];
+      i = ncats;
+    }
+    for( ; i < (_fullN - _diagN); ++i )
       _xx[i] = MemoryManager.malloc8d(diag + i + 1);
   }
 
+  // Sparse categorical block.
+  // The rows of the categorical levels outside of the diagonal block (_xx rows [0, _catIds.length)) only hold the
+  // cat X cat products: the levels of one categorical are exclusive, so the block of a categorical is diagonal, and
+  // the cross blocks of two categoricals are as sparse as the co-occurrences of their levels. With high cardinality
+  // categoricals these rows are stored as sorted (column id, value) pairs instead of dense rows of _xx (which are
+  // null). Entries are appended while accumulating and merged by compactCats().
+  // Methods not aware of the sparse rows densify() the gram first.
+  public static final int MIN_SPARSE_CATS = 256;
+
+  int[][] _catIds;
+  double[][] _catVals;
+  private transient int[] _catLen; // number of entries appended to the row, null when compact
+
+  public final boolean hasSparseCats() { return _catIds != null; }
+
+  private void addSparseCat(int row, int col, double w) {
+    if(_catLen == null) _catLen = catLengths();
+    int[] ids = _catIds[row];
+    int n = _catLen[row];
+    if(ids == null) {
+      _catIds[row] = ids = new int[4];
+      _catVals[row] = MemoryManager.malloc8d(4);
+    } else if(n == ids.length) {
+      n = compactCatRow(row, n);
+      if(2*n > ids.length) {
+        _catIds[row] = ids = Arrays.copyOf(ids, 2 * ids.length);
+        _catVals[row] = Arrays.copyOf(_catVals[row], ids.length);
+      }
+    }
+    ids[n] = col;
+    _catVals[row][n] = w;
+    _catLen[row] = n + 1;
+  }
+
+  private int[] catLengths() {
+    int[] len = new int[_catIds.length];
+    for(int i = 0; i < len.length; ++i)
+      len[i] = _catIds[i] == null ? 0 : _catIds[i].length;
+    return len;
+  }
+
+  // sort the first n entries of the row by column id and sum up the duplicates, returns the new number of entries
+  private int compactCatRow(int row, int n) {
+    final int[] ids = _catIds[row];
+    final double[] vals = _catVals[row];
+    long[] order = new long[n];
+    for(int k = 0; k < n; ++k)
+      order[k] = ((long)ids[k] << 32) | k;
+    Arrays.sort(order);
+    double[] v = new double[n];
+    int m = -1;
+    for(int k = 0; k < n; ++k) {
+      int id = (int)(order[k] >>> 32);
+      double d = vals[(int)order[k]];
+      if(m >= 0 && ids[m] == id) v[m] += d;
+      else {
+        ids[++m] = id;
+        v[m] = d;
+      }
+    }
+    System.arraycopy(v, 0, vals, 0, m + 1);
+    return m + 1;
+  }
+
+  /**
+   * Merge the entries appended to the sparse categorical rows, has to be called before the gram is used or sent over.
+   */
+  public final void compactCats() {
+    if(_catLen == null) return;
+    for(int i = 0; i < _catIds.length; ++i) {
+      if(_catIds[i] == null) continue;
+      int n = compactCatRow(i, _catLen[i]);
+      _catIds[i] = Arrays.copyOf(_catIds[i], n);
+      _catVals[i] = Arrays.copyOf(_catVals[i], n);
+    }
+    _catLen = null;
+  }
+
+  private double getSparseCat(int row, int col) {
+    compactCats();
+    int[] ids = _catIds[row];
+    if(ids == null) return 0;
+    int k = Arrays.binarySearch(ids, col);
+    return k >= 0 ? _catVals[row][k] : 0;
+  }
+
+  /**
+   * Switch to the dense representation of the categorical rows.
+   */
+  public final void densify() {
+    if(_catIds == null) return;
+    compactCats();
+    for(int i = 0; i < _catIds.length; ++i)
+      _xx[i] = denseCatRow(i);
+    _catIds = null;
+    _catVals = null;
+  }
+
+  private double[] denseCatRow(int i) {
+    compactCats();
+    double[] row = MemoryManager.malloc8d(_diagN + i + 1);
+    if(_catIds[i] != null)
+      for(int k = 0; k < _catIds[i].length; ++k)
+        row[_catIds[i][k]] = _catVals[i][k];
+    return row;
+  }
+
+  private void addCatXCat(int[] binIds, int nBins, boolean hasDiag, double w) {
+    for(int i = hasDiag?1:0; i < nBins; ++i){
+      final int row = binIds[i] - _diagN;
+      if(_catIds != null) {
+        for(int j = 0; j <= i; ++j)
+          addSparseCat(row, binIds[j], w);
+      } else {
+        final double [] mrow = _xx[row];
+        for(int j = 0; j <= i; ++j)
+          mrow[binIds[j]] += w;
+      }
+    }
+  }
+
   public Gram(double[][] xxCacheNew) {
     _xx = xxCacheNew;
     _xxCache = new XXCache(xxCacheNew,false,false);
@@ -71,9 +208,22 @@ public final class Gram extends Iced<Gram> {
   }
 
   public Gram deep_clone(){
+    compactCats();
     Gram res = clone();
-    if(_xx != null)
-      res._xx = ArrayUtils.deepClone(_xx);
+    if(_xx != null) {
+      res._xx = _xx.clone();
+      for(int i = 0; i < _xx.length; ++i)
+        if(_xx[i] != null) res._xx[i] = _xx[i].clone();
+    }
+    if(_catIds != null) {
+      res._catIds = _catIds.clone();
+      res._catVals = _catVals.clone();
+      for(int i = 0; i < _catIds.length; ++i)
+        if(_catIds[i] != null) {
+          res._catIds[i] = _catIds[i].clone();
+          res._catVals[i] = _catVals[i].clone();
+        }
+    }
     if(_diag != null)
       res._diag = res._diag.clone();
     return res;
@@ -87,7 +237,11 @@ public final class Gram extends Iced<Gram> {
     for(;i < Math.min(_diagN,ds.length); ++i)
       _diag[i] += ds[i];
     for(;i < ds.length; ++i)
-      _xx[i-_diagN][i] += ds[i];
+      if(_catIds != null && i - _diagN < _catIds.length)
+        addSparseCat(i - _diagN, i, ds[i]);
+      else
+        _xx[i-_diagN][i] += ds[i];
+    compactCats();
   }
 
   public double get(int i, int j) {
@@ -99,6 +253,8 @@ public final class Gram extends Iced<Gram> {
     }
     if(i < _diagN)
       return(j == i)?_diag[i]:0;
+    if(_catIds != null && i - _diagN < _catIds.length)
+      return getSparseCat(i - _diagN, j);
     return _xx[i-_diagN][j];
   }
 
@@ -110,7 +266,11 @@ public final class Gram extends Iced<Gram> {
       _diag[i] += d;
     int ii = (!_hasIntercept || add2Intercept)?0:1;
     for( int i = 0; i < _xx.length - ii; ++i )
-      _xx[i][_xx[i].length - 1] += d;
+      if(_xx[i] == null)
+        addSparseCat(i, _diagN + i, d);
+      else
+        _xx[i][_xx[i].length - 1] += d;
+    compactCats();
   }
 
   public double sparseness(){
@@ -128,7 +288,8 @@ public final class Gram extends Iced<Gram> {
       for(double d:_diag) res += d;
     }
     if(_xx != null){
-      for(double [] x:_xx)res += x[x.length-1];
+      for(int i = 0; i < _xx.length; ++i)
+        res += _xx[i] == null ? getSparseCat(i, _diagN + i) : _xx[i][_xx[i].length-1];
     }
     return res;
   }
@@ -194,6 +355,7 @@ public final class Gram extends Iced<Gram> {
    * @return Cholesky - cholesky decomposition fo the gram
    */
   public Cholesky qrCholesky(ArrayList<Integer> dropped_cols, boolean standardized) {
+    densify();
     final double [][] Z = getXX(true,true);
     final double [][] R = new double[Z.length][];
     final double [] Zdiag = new double[Z.length];
@@ -293,6 +455,7 @@ public final class Gram extends Iced<Gram> {
 
 
   public void dropCols(int[] cols) {
+    densify();
     int diagCols = 0;
     for(int i =0; i < cols.length; ++i)
       if(cols[i] < _diagN) ++diagCols;
@@ -332,6 +495,7 @@ public final class Gram extends Iced<Gram> {
   }
 
   public int[] findZeroCols(){
+    densify();
     ArrayList<Integer> zeros = new ArrayList<>();
     if(_diag != null)
       for(int i = 0; i < _diag.length; ++i)
@@ -438,12 +602,16 @@ public final class Gram extends Iced<Gram> {
    * @return the Cholesky decomposition
    */
   public Cholesky cholesky(Cholesky chol, boolean parallelize,String id) {
-    long start = System.currentTimeMillis();
+    final double[][] src; // the gram, any element is read before the same element of chol is written
     if( chol == null ) {
       double[][] xx = _xx.clone();
       for( int i = 0; i < xx.length; ++i )
-        xx[i] = xx[i].clone();
+        xx[i] = xx[i] == null ? denseCatRow(i) : xx[i].clone();
       chol = new Cholesky(xx, _diag.clone());
+      src = xx;
+    } else {
+      densify();
+      src = _xx;
     }
     final Cholesky fchol = chol;
     final int sparseN = _diag.length;
@@ -452,7 +620,7 @@ public final class Gram extends Iced<Gram> {
     if( _diag != null ) for( int i = 0; i < sparseN; ++i ) {
       double d = 1.0 / (chol._diag[i] = Math.sqrt(_diag[i]));
       for( int j = 0; j < denseN; ++j )
-        chol._xx[j][i] = d*_xx[j][i];
+        chol._xx[j][i] = d*src[j][i];
     }
     ForkJoinTask [] fjts = new ForkJoinTask[denseN];
     // compute the outer product of diagonal*dense
@@ -492,7 +660,7 @@ public final class Gram extends Iced<Gram> {
                 t++; z++;
               }
             }
-            rowi[j + sparseN] = _xx[fi][j + sparseN] - s;
+            rowi[j + sparseN] = src[fi][j + sparseN] - s;
           }
         }
       };
@@ -516,6 +684,16 @@ public final class Gram extends Iced<Gram> {
     return chol;
   }
 
+  /**
+   * Compute the Cholesky decomposition with the dense*dense part factored by {@link DistributedCholesky}, in tiles
+   * stored in DKV across the cloud. Meant for Grams with too many dense columns to be factored on a single node.
+   * The gram is only read, the tiles are built from it directly. The caller has to {@link Cholesky#remove()} the result.
+   */
+  public Cholesky distributedCholesky(int tileSize) {
+    densify();
+    return DistributedCholesky.decompose(_xx, _diag, tileSize);
+  }
+
   public double[][] getXX(){return getXX(false, false);}
   public double[][] getXX(boolean lowerDiag, boolean icptFist) {
     if(_xxCache != null && _xxCache.match(lowerDiag,icptFist)) return _xxCache.xx;
@@ -528,6 +706,7 @@ public final class Gram extends Iced<Gram> {
 
   public double[][]getXX(double[][] xalloc) { return getXX(xalloc,false, false);}
   public double[][] getXX(double[][] xalloc, boolean lowerDiag, boolean icptFist) {
+    densify();
     final int N = _fullN;
     double[][] xx = xalloc;
     int off = 0;
@@ -563,20 +742,65 @@ public final class Gram extends Iced<Gram> {
   }
 
   public void add(Gram grm) {
-    ArrayUtils.add(_xx,grm._xx);
+    flushTile();
+    grm.flushTile();
+    if(_catIds != null && grm._catIds != null) {
+      compactCats();
+      grm.compactCats();
+      for(int i = 0; i < _catIds.length; ++i)
+        addCatRow(i, grm._catIds[i], grm._catVals[i]);
+    } else {
+      densify();
+      grm.densify();
+    }
+    for(int i = 0; i < _xx.length; ++i)
+      if(_xx[i] != null)
+        ArrayUtils.add(_xx[i],grm._xx[i]);
     ArrayUtils.add(_diag,grm._diag);
   }
 
+  // merge of two sorted sparse rows
+  private void addCatRow(int row, int[] ids, double[] vals) {
+    if(ids == null) return;
+    int[] ids0 = _catIds[row];
+    if(ids0 == null) {
+      _catIds[row] = ids.clone();
+      _catVals[row] = vals.clone();
+      return;
+    }
+    double[] vals0 = _catVals[row];
+    int[] resIds = new int[ids0.length + ids.length];
+    double[] resVals = new double[resIds.length];
+    int a = 0, b = 0, n = 0;
+    while(a < ids0.length || b < ids.length) {
+      if(b == ids.length || (a < ids0.length && ids0[a] < ids[b])) {
+        resIds[n] = ids0[a]; resVals[n++] = vals0[a++];
+      } else if(a == ids0.length || ids[b] < ids0[a]) {
+        resIds[n] = ids[b]; resVals[n++] = vals[b++];
+      } else {
+        resIds[n] = ids0[a]; resVals[n++] = vals0[a++] + vals[b++];
+      }
+    }
+    _catIds[row] = n == resIds.length ? resIds : Arrays.copyOf(resIds, n);
+    _catVals[row] = n == resVals.length ? resVals : Arrays.copyOf(resVals, n);
+  }
+
   public final boolean hasNaNsOrInfs() {
-    for( int i = 0; i < _xx.length; ++i )
+    compactCats();
+    for( int i = 0; i < _xx.length; ++i ) {
+      if( _xx[i] == null ) {
+        if( _catVals[i] != null && ArrayUtils.hasNaNsOrInfs(_catVals[i]) ) return true;
+        continue;
+      }
       for( int j = 0; j < _xx[i].length; ++j )
         if( Double.isInfinite(_xx[i][j]) || Double.isNaN(_xx[i][j]) ) return true;
+    }
     for( double d : _diag )
       if( Double.isInfinite(d) || Double.isNaN(d) ) return true;
     return false;
   }
 
-  public static final class Cholesky {
+  public static class Cholesky {
     public final double[][] _xx;
     protected final double[] _diag;
     private boolean _isSPD;
@@ -611,7 +835,8 @@ public final class Gram extends Iced<Gram> {
       ForkJoinTask.invokeAll(ras);
     }
     public double [][] getInv(){
-      double [][] res = new double[_xx[_xx.length-1].length][_xx[_xx.length-1].length];
+      final int N = _xx.length + _diag.length;
+      double [][] res = new double[N][N];
       for(int i = 0; i < res.length; ++i)
         res[i][i] = 1;
       solve(res);
@@ -660,7 +885,7 @@ public final class Gram extends Iced<Gram> {
      *
      * @param y
      */
-    public final void   solve(double[] y) {
+    public void   solve(double[] y) {
       if( !isSPD() ) throw new NonSPDMatrixException();
       if(_icptFirst) {
         double icpt = y[y.length-1];
@@ -698,6 +923,11 @@ public final class Gram extends Iced<Gram> {
     }
     public final boolean isSPD() {return _isSPD;}
     public final void setSPD(boolean b) {_isSPD = b;}
+
+    /**
+     * Release the resources held outside of this object, no-op unless the decomposition is distributed.
+     */
+    public void remove() {}
   }
 
   public final void addRowSparse(DataInfo.Row r, double w) {
@@ -727,22 +957,153 @@ public final class Gram extends Iced<Gram> {
     }
     final boolean hasDiag = (_diagN > 0 && r.nBins > 0 && r.binIds[0] < _diagN);
     // cat X cat
-    for(int i = hasDiag?1:0; i < r.nBins; ++i){
-      final double [] mrow = _xx[r.binIds[i] - _diagN];
-      for(int j = 0; j <= i; ++j)
-        mrow[r.binIds[j]] += w;
-    }
+    addCatXCat(r.binIds, r.nBins, hasDiag, w);
     // DIAG
     if(hasDiag && r.nBins > 0)
       _diag[r.binIds[0]] += w;
   }
   public final void addRow(DataInfo.Row row, double w) {
-    if(row.numIds == null)
-      addRowDense(row,w);
-    else
+    if(row.numIds == null) {
+      if (_tileX != null)
+        addRowTiled(row, w);
+      else
+        addRowDense(row, w);
+    } else
       addRowSparse(row, w);
   }
 
+  // Blocked accumulation of the dense numeric block.
+  // Adding one dense row at a time streams the whole dense triangle of _xx through the memory for every row, which
+  // makes it memory bound once there are more than a few hundred numeric columns. In the tiled mode the numeric values
+  // of up to TILE_ROWS rows are buffered (column-major, so that each column of the tile is contiguous) and added to
+  // the dense block as one rank-k update (SYRK), computed in TILE_COLS x TILE_COLS blocks which fit in the cache.
+  // The cheap parts (categoricals and intercept) are still added row by row.
+  public static final int TILE_ROWS = 64;
+  public static final int MIN_TILED_DENSE = 128; // tiling does not pay off for a small dense block
+  private static final int TILE_COLS = 64;
+
+  private transient double[][] _tileX;  // _denseN x TILE_ROWS, values of the buffered rows
+  private transient double[][] _tileWX; // _denseN x TILE_ROWS, values of the buffered rows multiplied by row weights
+  private transient int _tileLen;
+
+  /**
+   * Switch to the tiled (blocked) accumulation of dense rows. Dense rows added by {@link #addRow(DataInfo.Row, double)}
+   * are buffered and the gram is complete only after {@link #flushTile()} is called.
+   */
+  public Gram tileDenseRows() {
+    _tileX = new double[_denseN][];
+    _tileWX = new double[_denseN][];
+    for (int i = 0; i < _denseN; ++i) {
+      _tileX[i] = MemoryManager.malloc8d(TILE_ROWS);
+      _tileWX[i] = MemoryManager.malloc8d(TILE_ROWS);
+    }
+    _tileLen = 0;
+    return this;
+  }
+
+  public final void addRowTiled(DataInfo.Row row, double w) {
+    final int intercept = _hasIntercept?1:0;
+    final int denseRowStart = _fullN - _denseN - _diagN - intercept;
+    final int denseColStart = _fullN - _denseN - intercept;
+    final double [] interceptRow = _hasIntercept?_xx[_denseN + denseRowStart]:null;
+    final int t = _tileLen;
+    for(int i = 0; i < _denseN; ++i) {
+      final double x = row.numVals[i];
+      final double d = w * x;
+      _tileX[i][t] = x;
+      _tileWX[i][t] = d;
+      if(x != 0) {
+        if (_hasIntercept)
+          interceptRow[i + denseColStart] += d; // intercept*x[i]
+        // nums * cats
+        if (row.nBins > 0) {
+          final double[] mrow = _xx[i + denseRowStart];
+          for (int j = 0; j < row.nBins; ++j)
+            mrow[row.binIds[j]] += d;
+        }
+      }
+    }
+    if(_hasIntercept){
+      // intercept*intercept
+      interceptRow[_denseN+denseColStart] += w;
+      // intercept X cat
+      for(int j = 0; j < row.nBins; ++j)
+        interceptRow[row.binIds[j]] += w;
+    }
+    final boolean hasDiag = (_diagN > 0 && row.nBins > 0 && row.binIds[0] < _diagN);
+    // cat X cat
+    addCatXCat(row.binIds, row.nBins, hasDiag, w);
+    // DIAG
+    if(hasDiag)
+      _diag[row.binIds[0]] += w;
+    if(++_tileLen == TILE_ROWS)
+      flushTile();
+  }
+
+  /**
+   * Add the buffered rows to the dense block, xx[i][j] += sum_k wx[k][i]*x[k][j] for j <= i.
+   */
+  public final void flushTile() {
+    final int n = _tileLen;
+    if(n == 0) return;
+    final int intercept = _hasIntercept?1:0;
+    final int denseRowStart = _fullN - _denseN - _diagN - intercept;
+    final int denseColStart = _fullN - _denseN - intercept;
+    for(int ib = 0; ib < _denseN; ib += TILE_COLS) {
+      final int iend = Math.min(ib + TILE_COLS, _denseN);
+      for(int jb = 0; jb <= ib; jb += TILE_COLS) {
+        int i = ib;
+        // 2 x 4 elements at a time, independent sums keep the multiply-adds pipelined and every column of the tile
+        // is loaded once for two rows
+        for(; i + 1 < iend; i += 2) {
+          final double [] wx0 = _tileWX[i], wx1 = _tileWX[i+1];
+          final double [] mrow0 = _xx[i + denseRowStart], mrow1 = _xx[i + 1 + denseRowStart];
+          final int jend = Math.min(jb + TILE_COLS, i + 1);
+          int j = jb;
+          for(; j + 3 < jend; j += 4) {
+            final double [] x0 = _tileX[j], x1 = _tileX[j+1], x2 = _tileX[j+2], x3 = _tileX[j+3];
+            double s00 = 0, s01 = 0, s02 = 0, s03 = 0, s10 = 0, s11 = 0, s12 = 0, s13 = 0;
+            for(int k = 0; k < n; ++k) {
+              final double a = wx0[k], b = wx1[k];
+              s00 += a * x0[k]; s01 += a * x1[k]; s02 += a * x2[k]; s03 += a * x3[k];
+              s10 += b * x0[k]; s11 += b * x1[k]; s12 += b * x2[k]; s13 += b * x3[k];
+            }
+            final int c = j + denseColStart;
+            mrow0[c] += s00; mrow0[c+1] += s01; mrow0[c+2] += s02; mrow0[c+3] += s03;
+            mrow1[c] += s10; mrow1[c+1] += s11; mrow1[c+2] += s12; mrow1[c+3] += s13;
+          }
+          for(; j < jend; ++j) {
+            final double [] x = _tileX[j];
+            double s0 = 0, s1 = 0;
+            for(int k = 0; k < n; ++k) {
+              s0 += wx0[k] * x[k];
+              s1 += wx1[k] * x[k];
+            }
+            mrow0[j + denseColStart] += s0;
+            mrow1[j + denseColStart] += s1;
+          }
+          if(jend == i + 1) // diagonal element of the second row
+            mrow1[i + 1 + denseColStart] += dot(wx1, _tileX[i+1], n);
+        }
+        if(i < iend) {
+          final double [] wx = _tileWX[i];
+          final double [] mrow = _xx[i + denseRowStart];
+          final int jend = Math.min(jb + TILE_COLS, i + 1);
+          for(int j = jb; j < jend; ++j)
+            mrow[j + denseColStart] += dot(wx, _tileX[j], n);
+        }
+      }
+    }
+    _tileLen = 0;
+  }
+
+  private static double dot(double [] x, double [] y, int n) {
+    double s = 0;
+    for(int k = 0; k < n; ++k)
+      s += x[k] * y[k];
+    return s;
+  }
+
   public final void   addRowDense(DataInfo.Row row, double w) {
     final int intercept = _hasIntercept?1:0;
     final int denseRowStart = _fullN - _denseN - _diagN - intercept; // we keep dense numbers at the right bottom of the matrix, -1 is for intercept
@@ -771,11 +1132,7 @@ public final class Gram extends Iced<Gram> {
     }
     final boolean hasDiag = (_diagN > 0 && row.nBins > 0 && row.binIds[0] < _diagN);
     // cat X cat
-    for(int i = hasDiag?1:0; i < row.nBins; ++i){
-      final double [] mrow = _xx[row.binIds[i] - _diagN];
-      for(int j = 0; j <= i; ++j)
-        mrow[row.binIds[j]] += w;
-    }
+    addCatXCat(row.binIds, row.nBins, hasDiag, w);
     // DIAG
     if(hasDiag)
       _diag[row.binIds[0]] += w;
@@ -783,9 +1140,14 @@ public final class Gram extends Iced<Gram> {
   public void mul(double x){
     if(_diag != null)for(int i = 0; i < _diag.length; ++i)
       _diag[i] *= x;
-    for(int i = 0; i < _xx.length; ++i)
-      for(int j = 0; j < _xx[i].length; ++j)
-        _xx[i][j] *= x;
+    compactCats();
+    for(int i = 0; i < _xx.length; ++i) {
+      if(_xx[i] == null) {
+        if(_catVals[i] != null) ArrayUtils.mult(_catVals[i], x);
+        continue;
+      }
+      DenseKernels.scal(x, _xx[i], _xx[i].length);
+    }
   }
 
   public double [] mul(double [] x){
@@ -813,31 +1175,36 @@ public final class Gram extends Iced<Gram> {
   in the multiplication process.  Done!
    */
   public void mul(double[] x, double[] res){
-    int colSize = fullN();        // actual gram matrix size
-    int offsetForCat = colSize-_xx.length; // offset for categorical columns
-
-    for (int rowIndex = 0; rowIndex < colSize; rowIndex++) {
+    final int colSize = fullN();        // actual gram matrix size
+    final int offsetForCat = colSize-_xx.length; // offset for categorical columns
+    Arrays.fill(res, 0, colSize, 0);
+    for (int i = 0; i < offsetForCat; ++i)
+      res[i] = _diag[i]*x[i];
+    compactCats();
+    // every stored element below the diagonal contributes to both res[row] and res[col]
+    for (int r = 0; r < _xx.length; ++r) {
+      final int rowIndex = r + offsetForCat;
+      final double xr = x[rowIndex];
       double d = 0;
-      if (rowIndex >=offsetForCat) {
-        for (int colIndex = 0; colIndex < rowIndex; colIndex++) {   // below diagonal
-          d += _xx[rowIndex - offsetForCat][colIndex] * x[colIndex];
-        }
-      }
-      // on diagonal
-      d+= (rowIndex>=offsetForCat)?_xx[rowIndex-offsetForCat][rowIndex]*x[rowIndex]:_diag[rowIndex]*x[rowIndex];
-
-      for (int colIndex = rowIndex+1; colIndex < colSize; colIndex++) {   // above diagonal
-        if (rowIndex<offsetForCat) {
-          if ((colIndex>=offsetForCat)) {
-            d += _xx[colIndex-offsetForCat][rowIndex]*x[colIndex];
+      if (_xx[r] == null) { // sparse categorical row
+        final int[] ids = _catIds[r];
+        if (ids == null) continue;
+        final double[] vals = _catVals[r];
+        for (int k = 0; k < ids.length; ++k) {
+          final int colIndex = ids[k];
+          if (colIndex == rowIndex) {
+            d += vals[k]*xr;
+          } else {
+            d += vals[k]*x[colIndex];
+            res[colIndex] += vals[k]*xr;
           }
-        } else {
-          d += _xx[colIndex-offsetForCat][rowIndex]*x[colIndex];
         }
-/*        d += (rowIndex<offsetForCat)?((colIndex<offsetForCat)?0:_xx[colIndex-offsetForCat][rowIndex]*x[colIndex]):
-                _xx[colIndex-offsetForCat][rowIndex]*x[colIndex];*/
-    }
-      res[rowIndex] = d;
+      } else {
+        final double[] xrow = _xx[r];
+        d = DenseKernels.dotAxpy(xrow, x, xr, res, rowIndex);
+        d += xrow[rowIndex]*xr;
+      }
+      res[rowIndex] += d;
     }
   }
 
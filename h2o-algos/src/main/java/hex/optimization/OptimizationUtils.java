@@ -6,6 +6,7 @@ import water.util.ArrayUtils;
 import water.util.Log;
 
 import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Created by tomasnykodym on 9/29/15.
@@ -47,6 +48,22 @@ public class OptimizationUtils {
     GradientInfo getObjective(double [] beta);
   }
 
+  /**
+   *  Gradient solver which can also evaluate gradients on random mini-batches of the data (used by SVRG).
+   */
+  public interface StochasticGradientSolver extends GradientSolver {
+    /**
+     * @return number of mini-batches which make up one pass over the data
+     */
+    int numBatches();
+
+    /**
+     * Evaluate the difference of the gradients at beta and betaRef on a random mini-batch of the data, scaled to
+     * estimate the difference of the full gradients.
+     */
+    double [] getBatchGradientDiff(Random rnd, double [] beta, double [] betaRef);
+  }
+
 
   public interface LineSearchSolver {
     boolean evaluate(double [] direction);
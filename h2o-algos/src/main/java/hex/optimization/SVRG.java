@@ -0,0 +1,148 @@
+package hex.optimization;
+
+import hex.optimization.L_BFGS.ProgressMonitor;
+import hex.optimization.OptimizationUtils.GradientInfo;
+import hex.optimization.OptimizationUtils.StochasticGradientSolver;
+import water.Iced;
+import water.util.ArrayUtils;
+import water.util.Log;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Mini-batch proximal SVRG (stochastic variance reduced gradient) optimizer.
+ *
+ * Every epoch computes the full gradient mu at the reference point betaRef (1 pass over the data) and then makes
+ * a step for each of the mini-batches of the solver (1 more pass over the data in total) along the variance reduced
+ * gradient
+ *
+ *   g = grad_batch(beta) - grad_batch(betaRef) + mu
+ *
+ * followed by the proximal step of l1 penalty (soft thresholding) and bounds (clipping). The last coefficient is
+ * treated as intercept and is not penalized.
+ *
+ * The step size of the first epoch is given, later ones are Barzilai-Borwein estimates computed from the full gradients
+ * at the start and the end of the previous epoch. An epoch which does not decrease the objective is rejected and the
+ * step size is halved, the full gradient computed at the end of the epoch gives the objective (and the next mu) for free.
+ *
+ * Unlike L-BFGS, which needs 2 passes over the data per iteration, SVRG makes numBatches() steps per 2 passes and so
+ * typically gets to a good solution in a few passes over huge data.
+ */
+public final class SVRG extends Iced {
+  int _maxIter = 100; // max number of epochs
+  double _objEps = 1e-6;
+  double _step = 1;
+  double _minStep = 1e-8;
+  final long _seed;
+
+  public SVRG(long seed) {_seed = seed;}
+  public SVRG setMaxIter(int m) {_maxIter = m; return this;}
+  public SVRG setObjEps(double d) {_objEps = d; return this;}
+  public SVRG setStep(double d) {_step = d; return this;}
+
+  public static final class Result {
+    public final int iter;
+    public final double [] coefs;
+    public final GradientInfo ginfo;
+    public final boolean converged;
+    public final double rel_improvement;
+    public final double step;
+
+    public Result(boolean converged, int iter, double [] coefs, GradientInfo ginfo, double rel_improvement, double step){
+      this.iter = iter;
+      this.coefs = coefs;
+      this.ginfo = ginfo;
+      this.converged = converged;
+      this.rel_improvement = rel_improvement;
+      this.step = step;
+    }
+
+    public String toString(){
+      return "SVRG_res(converged? " + converged + ", iter = " + iter + ", obj = " + ginfo._objVal + ", rel_improvement = " + rel_improvement + ", step = " + step + ")";
+    }
+  }
+
+  private static double objVal(GradientInfo ginfo, double [] beta, double l1pen) {
+    return ginfo._objVal + l1pen * ArrayUtils.l1norm(beta, true);
+  }
+
+  // proximal operator of l1 penalty (not applied to the intercept) and of the bounds
+  private static void prox(double [] beta, double l1step, double [] lb, double [] ub) {
+    if(l1step > 0)
+      for(int i = 0; i < beta.length - 1; ++i) {
+        double b = beta[i];
+        beta[i] = b > l1step ? b - l1step : b < -l1step ? b + l1step : 0;
+      }
+    if(lb != null)
+      for(int i = 0; i < beta.length; ++i)
+        if(beta[i] < lb[i]) beta[i] = lb[i];
+    if(ub != null)
+      for(int i = 0; i < beta.length; ++i)
+        if(beta[i] > ub[i]) beta[i] = ub[i];
+  }
+
+  /**
+   * Solve the problem starting at beta.
+   *
+   * @param gslvr  problem specific (stochastic) gradient solver
+   * @param beta   starting point
+   * @param ginfo  gradient info at beta (with no l1 penalty), computed if null
+   * @param l1pen  l1 penalty
+   * @param lb     lower bounds, can be null
+   * @param ub     upper bounds, can be null
+   * @param pm     progress monitor, called after every accepted epoch
+   * @return result
+   */
+  public Result solve(StochasticGradientSolver gslvr, double [] beta, GradientInfo ginfo, double l1pen, double [] lb, double [] ub, ProgressMonitor pm) {
+    Random rnd = new Random(_seed);
+    double [] betaRef = beta.clone();
+    prox(betaRef, 0, lb, ub);
+    GradientInfo ginfoRef = (ginfo == null || !Arrays.equals(betaRef, beta)) ? gslvr.getGradient(betaRef) : ginfo;
+    double objRef = objVal(ginfoRef, betaRef, l1pen);
+    final int nbatches = gslvr.numBatches();
+    double step = _step;
+    double relImprovement = 1;
+    boolean converged = false;
+    int iter = 0;
+    while(iter < _maxIter && step >= _minStep) {
+      final double [] mu = ginfoRef._gradient;
+      double [] x = betaRef.clone();
+      for(int k = 0; k < nbatches; ++k) {
+        // the first step is made at betaRef, the batch gradients cancel out
+        double [] g = k == 0 ? mu.clone() : ArrayUtils.add(gslvr.getBatchGradientDiff(rnd, x, betaRef), mu);
+        ArrayUtils.wadd(x, g, -step);
+        prox(x, step * l1pen, lb, ub);
+      }
+      GradientInfo gx = gslvr.getGradient(x);
+      double objX = objVal(gx, x, l1pen);
+      ++iter;
+      if(!gx.isValid() || objX > objRef) {
+        step *= .5;
+        Log.info("SVRG: epoch rejected, obj = " + objX + " > " + objRef + ", new step = " + step);
+        continue;
+      }
+      relImprovement = (objRef - objX) / objRef;
+      // Barzilai-Borwein step, dx'dg/dg'dg estimates the inverse of the (largest) curvature along the last epoch
+      double dxdg = 0, dgdg = 0;
+      for(int i = 0; i < x.length; ++i) {
+        double dx = x[i] - betaRef[i];
+        double dg = gx._gradient[i] - mu[i];
+        dxdg += dx * dg;
+        dgdg += dg * dg;
+      }
+      if(dxdg > 0 && dgdg > 0)
+        step = dxdg / dgdg;
+      betaRef = x;
+      ginfoRef = gx;
+      objRef = objX;
+      if(pm != null && !pm.progress(betaRef, ginfoRef))
+        break;
+      if(relImprovement < _objEps) {
+        converged = true;
+        break;
+      }
+    }
+    return new Result(converged, iter, betaRef, ginfoRef, relImprovement, step);
+  }
+}
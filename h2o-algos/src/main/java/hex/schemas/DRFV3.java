@@ -17,6 +17,7 @@ public class DRFV3 extends SharedTreeV3<DRF, DRFV3, DRFV3.DRFParametersV3> {
                 "keep_cross_validation_fold_assignment",
                 "score_each_iteration",
                 "score_tree_interval",
+                "score_validation_each_tree",
                 "fold_assignment",
                 "fold_column",
                 "response_column",
@@ -34,6 +35,8 @@ public class DRFV3 extends SharedTreeV3<DRF, DRFV3, DRFV3.DRFParametersV3> {
                 "min_rows",
                 "nbins",
                 "nbins_top_level",
+                "prebin_nbins",
+                "bundle_exclusive_features",
                 "nbins_cats",
                 "r2_stopping",
                 "stopping_rounds",
@@ -46,6 +49,7 @@ public class DRFV3 extends SharedTreeV3<DRF, DRFV3, DRFV3.DRFParametersV3> {
                 "sample_rate",
                 "sample_rate_per_class",
                 "binomial_double_trees",
+                "replicate_training_data",
                 "checkpoint",
                 "col_sample_rate_change_per_level",
                 "col_sample_rate_per_tree",
@@ -67,6 +71,9 @@ public class DRFV3 extends SharedTreeV3<DRF, DRFV3, DRFV3.DRFParametersV3> {
         @API(help = "For binary classification: Build 2x as many trees (one per class) - can lead to higher accuracy.", level = API.Level.expert)
         public boolean binomial_double_trees;
 
+        @API(help = "Replicate the training data onto every node and build whole trees locally on the nodes (no synchronization per tree level). For data that fits into the memory of every node.", level = API.Level.expert)
+        public boolean replicate_training_data;
+
         @API(help = "Row sample rate per tree (from 0.0 to 1.0)", gridable = true)
         public double sample_rate;
 
@@ -19,6 +19,7 @@ public class GBMV3 extends SharedTreeV3<GBM,GBMV3,GBMV3.GBMParametersV3> {
       "keep_cross_validation_fold_assignment",
       "score_each_iteration",
       "score_tree_interval",
+      "score_validation_each_tree",
       "fold_assignment",
       "fold_column",
       "response_column",
@@ -33,9 +34,13 @@ public class GBMV3 extends SharedTreeV3<GBM,GBMV3,GBMV3.GBMParametersV3> {
       "max_hit_ratio_k",
       "ntrees",
       "max_depth",
+      "grow_policy",
+      "max_leaves",
       "min_rows",
       "nbins",
       "nbins_top_level",
+      "prebin_nbins",
+      "bundle_exclusive_features",
       "nbins_cats",
       "r2_stopping",
       "stopping_rounds",
@@ -53,6 +58,9 @@ public class GBMV3 extends SharedTreeV3<GBM,GBMV3,GBMV3.GBMParametersV3> {
       "checkpoint",
       "sample_rate",
       "sample_rate_per_class",
+      "goss",
+      "goss_top_rate",
+      "goss_other_rate",
       "col_sample_rate",
       "col_sample_rate_change_per_level",
       "col_sample_rate_per_tree",
@@ -87,9 +95,24 @@ public class GBMV3 extends SharedTreeV3<GBM,GBMV3,GBMV3.GBMParametersV3> {
     @API(help="Column sample rate (from 0.0 to 1.0)", level = API.Level.critical, gridable = true)
     public double col_sample_rate;
 
+    @API(help="Use Gradient-based One-Side Sampling (GOSS) instead of uniform row sampling: keep the rows with the largest gradients and a random sample of the other rows", level = API.Level.secondary, gridable = true)
+    public boolean goss;
+
+    @API(help="GOSS: fraction of rows with the largest gradients that are always kept (from 0.0 to 1.0)", level = API.Level.secondary, gridable = true)
+    public double goss_top_rate;
+
+    @API(help="GOSS: fraction of all rows sampled from the rows with small gradients (from 0.0 to 1.0)", level = API.Level.secondary, gridable = true)
+    public double goss_other_rate;
+
     @API(help = "A mapping representing monotonic constraints. Use +1 to enforce an increasing constraint and -1 to specify a decreasing constraint.", level = API.Level.secondary)
     public KeyValueV3[] monotone_constraints;
 
+    @API(help="Tree growth policy: depthwise grows the trees level by level, lossguide always splits the leaf with the largest loss reduction first", values = {"depthwise", "lossguide"}, level = API.Level.secondary, gridable = true)
+    public GBMParameters.GrowPolicy grow_policy;
+
+    @API(help="Maximum number of leaves per tree, required with the lossguide growth policy (at least 2); the trees are still limited by max_depth", level = API.Level.secondary, gridable = true)
+    public int max_leaves;
+
     @API(help="Maximum absolute value of a leaf node prediction", level = API.Level.expert, gridable = true)
     public double max_abs_leafnode_pred;
 
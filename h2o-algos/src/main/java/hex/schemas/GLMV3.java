@@ -62,6 +62,9 @@ public class GLMV3 extends ModelBuilderSchema<GLM,GLMV3,GLMV3.GLMParametersV3> {
             "interactions",
             "interaction_pairs",
             "obj_reg",
+            "cv_single_pass",
+            "store_sufficient_statistics",
+            "checkpoint",
             "export_checkpoints_dir",
             // dead unused args forced here by backwards compatibility, remove in V4
             "balance_classes",
@@ -90,7 +93,7 @@ public class GLMV3 extends ModelBuilderSchema<GLM,GLMV3,GLMV3.GLMParametersV3> {
     @API(help = "Theta", level = Level.critical, gridable = true)
     public double theta; // used by negtaive binomial distribution family
 
-    @API(help = "AUTO will set the solver based on given data and the other parameters. IRLSM is fast on on problems with small number of predictors and for lambda-search with L1 penalty, L_BFGS scales better for datasets with many columns.", values = {"AUTO", "IRLSM", "L_BFGS","COORDINATE_DESCENT_NAIVE", "COORDINATE_DESCENT", "GRADIENT_DESCENT_LH", "GRADIENT_DESCENT_SQERR"}, level = Level.critical)
+    @API(help = "AUTO will set the solver based on given data and the other parameters. IRLSM is fast on on problems with small number of predictors and for lambda-search with L1 penalty, L_BFGS scales better for datasets with many columns. SVRG (mini-batch stochastic variance reduced gradient) gets to a good solution in a few passes over datasets with many rows.", values = {"AUTO", "IRLSM", "L_BFGS","COORDINATE_DESCENT_NAIVE", "COORDINATE_DESCENT", "GRADIENT_DESCENT_LH", "GRADIENT_DESCENT_SQERR", "SVRG"}, level = Level.critical)
     public Solver solver;
 
     @API(help = "Distribution of regularization between the L1 (Lasso) and L2 (Ridge) penalties. A value of 1 for alpha represents Lasso regression, a value of 0 produces Ridge regression, and anything in between specifies the amount of mixing between the two. Default value of alpha is 0 when SOLVER = 'L-BFGS'; 0.5 otherwise.", level = Level.critical, gridable = true)
@@ -177,6 +180,12 @@ public class GLMV3 extends ModelBuilderSchema<GLM,GLMV3,GLMV3.GLMParametersV3> {
     @API(help="A list of pairwise (first order) column interactions.", direction=Direction.INPUT, level=Level.expert)
     public StringPairV3[] interaction_pairs;
 
+    @API(help="Compute the grams of all the cross-validation folds in a single pass over the data (gaussian family with identity link and IRLSM or COORDINATE_DESCENT solver only).", direction=Direction.INPUT, level=Level.expert)
+    public boolean cv_single_pass;
+
+    @API(help="Keep the gram and X'y of the training data in the model, so that it can be updated with new data by a model using it as a checkpoint (gaussian family with identity link only).", direction=Direction.INPUT, level=Level.expert)
+    public boolean store_sufficient_statistics;
+
     // dead unused args, formely inherited from supervised model schema
     /**
      * For imbalanced data, balance training data class counts via
@@ -60,6 +60,12 @@ public class SharedTreeV3<B extends SharedTree, S extends SharedTreeV3<B,S,P>, P
     @API(help = "For numerical columns (real/int), build a histogram of (at most) this many bins at the root level, then decrease by factor of two per level", level = API.Level.secondary, gridable = true)
     public int nbins_top_level;
 
+    @API(help = "Quantize numeric columns into (at most) this many bins once before training and build all trees on the bin indices. Reduces memory bandwidth of histogram building. 0 to disable.", level = API.Level.expert, gridable = true)
+    public int prebin_nbins;
+
+    @API(help = "Bundle mutually exclusive sparse columns (e.g. one-hot encoded columns) and build their histograms in a single pass over the bundled column.", level = API.Level.expert, gridable = true)
+    public boolean bundle_exclusive_features;
+
     @API(help="For categorical columns (factors), build a histogram of this many bins, then split at the best point. Higher values can lead to more overfitting.", level = API.Level.secondary, gridable = true)
     public int nbins_cats;
 
@@ -84,6 +90,9 @@ public class SharedTreeV3<B extends SharedTree, S extends SharedTreeV3<B,S,P>, P
     @API(help="Score the model after every so many trees. Disabled if set to 0.", level = API.Level.secondary, gridable = false)
     public int score_tree_interval;
 
+    @API(help="Score the validation frame after every tree, the predictions are updated incrementally with the new tree only. Early stopping is then checked after every tree.", level = API.Level.expert, gridable = false)
+    public boolean score_validation_each_tree;
+
     @API(help="Minimum relative improvement in squared error reduction for a split to happen", level = API.Level.secondary, gridable = true)
     public double min_split_improvement;
 
@@ -4,6 +4,8 @@ import water.DKV;
 import water.Iced;
 import water.Key;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 /**
  * Collection of Compressed Trees
  * contains:
@@ -28,9 +30,19 @@ public class CompressedForest extends Iced<CompressedTree> {
    * @return fetched trees
    */
   public final LocalCompressedForest fetch() {
+    return fetch(0);
+  }
+
+  /**
+   * Fetches the trees starting with a given tree from DKV and converts them to a node-local structure.
+   * Trees before <code>startTree</code> are not fetched and cannot be scored.
+   * @param startTree index of the first tree to fetch
+   * @return fetched trees
+   */
+  public final LocalCompressedForest fetch(int startTree) {
     int ntrees = _treeKeys.length;
     CompressedTree[][] trees = new CompressedTree[ntrees][];
-    for (int t = 0; t < ntrees; t++) {
+    for (int t = startTree; t < ntrees; t++) {
       Key[] treek = _treeKeys[t];
       trees[t] = new CompressedTree[treek.length];
       for (int i = 0; i < treek.length; i++)
@@ -42,26 +54,68 @@ public class CompressedForest extends Iced<CompressedTree> {
 
   /**
    * Node-local representation of a collection of trees.
+   * The trees are scored using their flattened representation ({@link FlatTree}), built when a tree is scored for the
+   * first time, trees which are never scored are kept only in their compressed form.
    * Is not meant to be Serialized/Iced or send over the wire.
    */
   public static class LocalCompressedForest {
     public CompressedTree[][] _trees;
     public String[][] _domains;
+    private final AtomicReferenceArray<FlatTree[]> _flatTrees;
 
     private LocalCompressedForest(CompressedTree[][] trees, String[][] domains) {
       _trees = trees;
       _domains = domains;
+      _flatTrees = new AtomicReferenceArray<>(trees.length);
     }
 
+    // Flat trees (per class) of the given tree. The forest is shared by the threads of a node, two threads can build
+    // the same flat trees concurrently, any of the (identical) results can be used.
+    private FlatTree[] flatTrees(int tidx) {
+      FlatTree[] ts = _flatTrees.get(tidx);
+      if (ts == null) {
+        CompressedTree[] trees = _trees[tidx];
+        ts = new FlatTree[trees.length];
+        for (int c = 0; c < trees.length; c++)
+          if (trees[c] != null)
+            ts[c] = new FlatTree(trees[c], _domains);
+        _flatTrees.set(tidx, ts);
+      }
+      return ts;
+    }
+
+    public final int ntrees() { return _trees.length; }
+
     /** Score given tree on the row of data.
      *  @param data row of data
      *  @param preds array to hold resulting prediction
      *  @param tidx index of a tree (points to a representation of a single regression tree, or multi tree)  */
     public final void scoreTree(double data[], double preds[], int tidx) {
-      CompressedTree[] ts = _trees[tidx];
+      FlatTree[] ts = flatTrees(tidx);
       for( int c=0; c<ts.length; c++ )
         if( ts[c] != null )
-          preds[ts.length==1?0:c+1] += ts[c].score(data, _domains);
+          preds[ts.length==1?0:c+1] += ts[c].score(data);
+    }
+
+    /** Score a block of rows on a range of trees. The trees are visited in the outer loop and each tree is applied
+     *  to all rows of the block, the block of rows and the tree stay in the cache. For each row the tree predictions
+     *  are added up in the same order as by calling {@link #scoreTree(double[], double[], int)} tree by tree.
+     *  @param rows block of rows of data
+     *  @param nrows number of rows of the block to score
+     *  @param preds arrays to hold resulting predictions, one per row
+     *  @param startTree index of the first tree to score
+     *  @param endTree index of the last tree to score (exclusive) */
+    public final void scoreBlock(double[][] rows, int nrows, double[][] preds, int startTree, int endTree) {
+      for( int tidx=startTree; tidx<endTree; tidx++ ) {
+        FlatTree[] ts = flatTrees(tidx);
+        for( int c=0; c<ts.length; c++ ) {
+          if( ts[c] == null ) continue;
+          final FlatTree tree = ts[c];
+          final int idx = ts.length==1?0:c+1;
+          for( int r=0; r<nrows; r++ )
+            preds[r][idx] += tree.score(rows[r]);
+        }
+      }
     }
   }
 
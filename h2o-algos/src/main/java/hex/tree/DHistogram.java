@@ -241,6 +241,9 @@ public final class DHistogram extends Iced {
   public int nbins() { return _nbin; }
   public double bins(int b) { return w(b); }
 
+  /** @return true if the bins were allocated (see {@link #init()}) */
+  public boolean isInitialized() { return _vals != null; }
+
   // Big allocation of arrays
   public void init() { init(null);}
   public void init(double [] vals) {
@@ -433,6 +436,132 @@ public final class DHistogram extends Iced {
     }
   }
 
+  /**
+   * Update counts with a single row. Not thread safe, assumed to have private copy.
+   * @param col_data column value (can be NA)
+   * @param weight observation weight (non-zero)
+   * @param y response
+   */
+  void updateHisto(double col_data, double weight, double y) {
+    if (col_data < _min2) _min2 = col_data;
+    if (col_data > _maxIn) _maxIn = col_data;
+    assert (!Double.isNaN(y));
+    double wy = weight * y;
+    int b = bin(col_data);
+    _vals[_vals_dim*b + 0] += weight;
+    _vals[_vals_dim*b + 1] += wy;
+    _vals[_vals_dim*b + 2] += wy * y;
+    if (_vals_dim == 5) {
+      _vals[_vals_dim * b + 3] += weight * (_pred1 - y) * (_pred1 - y);
+      _vals[_vals_dim * b + 4] += weight * (_pred2 - y) * (_pred2 - y);
+    }
+  }
+
+  /**
+   * Update counts with rows of value 0 given only their sums (used for sparse columns where the zeros are not visited).
+   * Not thread safe, assumed to have private copy.
+   * @param w sum of weights of the rows
+   * @param wY sum of weighted responses
+   * @param wYY sum of weighted squared responses
+   */
+  void updateHistoZeros(double w, double wY, double wYY) {
+    addValue(0, w, wY, wYY);
+  }
+
+  // Integer histogram with one bin per value - bins of such histograms are aligned with bins of any other one
+  private boolean hasUnitBins() {
+    return _isInt > 0 && _step == 1 && _histoType == SharedTreeModel.SharedTreeParameters.HistogramType.UniformAdaptive
+            && _vals_dim == 3;
+  }
+
+  /**
+   * Checks if this histogram can be derived from the histogram of the parent node by subtraction.
+   * This is only possible when each bin of this histogram corresponds to exactly one bin of the parent
+   * histogram: both histograms have to be integer histograms with one bin per value (typically
+   * categoricals, integer columns with a small range and pre-binned columns).
+   * @param parent histogram of the same column in the parent node
+   * @return true if {@link #subtract(DHistogram, DHistogram)} can be used to fill this histogram
+   */
+  boolean isSubtractable(DHistogram parent) {
+    return hasUnitBins() && parent.hasUnitBins() && parent._min <= _min && _maxEx <= parent._maxEx;
+  }
+
+  /**
+   * Fills this histogram as a difference of the parent node histogram and the histogram of the sibling node,
+   * the histogram of the sibling node doesn't need to be built from the data (histogram subtraction trick).
+   * Observed min/max are recovered from the non-empty bins, this is exact for unit-bin histograms.
+   * @param parent histogram of the same column in the parent node
+   * @param sibling histogram of the same column in the sibling node (already filled in)
+   */
+  public void subtract(DHistogram parent, DHistogram sibling) {
+    assert isSubtractable(parent) && sibling.isSubtractable(parent);
+    assert parent._vals != null;
+    if (_vals == null) init();
+    final boolean hasSibling = sibling._vals != null;
+    double min = Double.MAX_VALUE, maxIn = -Double.MAX_VALUE;
+    for (int b = 0; b <= _nbin; b++) { // including the NA bucket
+      int pb = b == _nbin ? parent._nbin : (int) (_min + b - parent._min);
+      int sb = b == _nbin ? sibling._nbin : (int) (_min + b - sibling._min);
+      boolean inSibling = hasSibling && sb >= 0 && (b == _nbin || sb < sibling._nbin);
+      double pw = parent._vals[_vals_dim * pb];
+      double w = pw - (inSibling ? sibling._vals[_vals_dim * sb] : 0);
+      if (w <= SUBTRACTION_EPS * pw)
+        continue; // empty bin (up to roundoff error)
+      _vals[_vals_dim * b] = w;
+      _vals[_vals_dim * b + 1] = parent._vals[_vals_dim * pb + 1] - (inSibling ? sibling._vals[_vals_dim * sb + 1] : 0);
+      _vals[_vals_dim * b + 2] = parent._vals[_vals_dim * pb + 2] - (inSibling ? sibling._vals[_vals_dim * sb + 2] : 0);
+      if (b < _nbin) {
+        min = Math.min(min, _min + b);
+        maxIn = Math.max(maxIn, _min + b);
+      }
+    }
+    setMin(min);
+    setMaxIn(maxIn);
+    reducePrecision();
+  }
+  private static final double SUBTRACTION_EPS = 1e-10;
+
+  /**
+   * Fills this histogram from the histogram of a bundled column (see {@link FeatureBundling}). Non-zero value v of
+   * this column is represented by value offset + v of the bundled column, rows not represented by any of the values
+   * of this column have value 0 in this column.
+   * @param bundled w, wY and wYY per value of the bundled column
+   * @param offset offset of the values of this column in the bundled column
+   * @param maxValue maximum value of this column
+   * @param total total w, wY and wYY of all the rows of the node
+   */
+  void addBundled(double[] bundled, int offset, int maxValue, double[] total) {
+    if (_vals == null) init();
+    double zw = total[0], zwY = total[1], zwYY = total[2];
+    for (int v = 1; v <= maxValue; v++) {
+      int i = 3 * (offset + v);
+      double w = bundled[i];
+      if (w == 0) continue;
+      zw -= w;
+      zwY -= bundled[i + 1];
+      zwYY -= bundled[i + 2];
+      addValue(v, w, bundled[i + 1], bundled[i + 2]);
+    }
+    if (zw > SUBTRACTION_EPS * total[0])
+      addValue(0, zw, zwY, zwYY);
+  }
+
+  // Adds the rows with a given (non-NA) value, not thread safe
+  private void addValue(double v, double w, double wY, double wYY) {
+    if (v < _min || v >= _maxEx)
+      return; // not a value of this node (only possible up to roundoff error for the derived zero counts)
+    int b = bin(v);
+    _vals[_vals_dim * b] += w;
+    _vals[_vals_dim * b + 1] += wY;
+    _vals[_vals_dim * b + 2] += wYY;
+    if (_vals_dim == 5) { // weight * (pred - y)^2 expanded
+      _vals[_vals_dim * b + 3] += w * _pred1 * _pred1 - 2 * _pred1 * wY + wYY;
+      _vals[_vals_dim * b + 4] += w * _pred2 * _pred2 - 2 * _pred2 * wY + wYY;
+    }
+    if (v < _min2) _min2 = v;
+    if (v > _maxIn) _maxIn = v;
+  }
+
   /**
    * Cast bin values *except for sums of weights and Na-bucket counters to floats to drop least significant bits.
    * Improves reproducibility (drop bits most affected by floating point error).
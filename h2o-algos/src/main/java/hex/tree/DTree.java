@@ -38,6 +38,7 @@ public class DTree extends Iced {
   public final transient Random _rand; // RNG for split decisions & sampling
   public final transient int[] _cols; // Per-tree selection of columns to consider for splits
   public transient SharedTreeModel.SharedTreeParameters _parms;
+  public final transient PreBinning _binning; // Pre-binning of the training frame (if any); split points are translated on compression
 
 
   // compute the effective number of columns to sample
@@ -46,7 +47,12 @@ public class DTree extends Iced {
   }
 
   public DTree(Frame fr, int ncols, int mtrys, int mtrys_per_tree, long seed, SharedTreeModel.SharedTreeParameters parms) {
+    this(fr, ncols, mtrys, mtrys_per_tree, seed, parms, null);
+  }
+
+  public DTree(Frame fr, int ncols, int mtrys, int mtrys_per_tree, long seed, SharedTreeModel.SharedTreeParameters parms, PreBinning binning) {
     _names = fr.names();
+    _binning = binning;
     _ncols = ncols;
     _parms = parms;
     _ns = new Node[1];
@@ -309,6 +315,10 @@ public class DTree extends Iced {
     public transient DHistogram[] _hs; //(up to) one histogram per column
     public transient Constraints _cs;
     public final int _scoreCols[];      // A list of columns to score; could be null for all
+    // Histogram subtraction: columns whose histograms are derived as parent minus sibling histograms
+    transient int[] _derivedCols;
+    transient DHistogram[] _parentHs;
+    transient int _siblingNid;
     public UndecidedNode( DTree tree, int pid, DHistogram[] hs, Constraints cs ) {
       super(tree,pid);
       assert hs.length==tree._ncols;
@@ -357,6 +367,47 @@ public class DTree extends Iced {
       return Arrays.copyOfRange(cols, len, choices);
     }
 
+    private boolean isScored(int col) {
+      return _scoreCols == null || ArrayUtils.find(_scoreCols, col) >= 0;
+    }
+
+    // Find columns whose histograms can be calculated as a difference of parent and sibling histograms,
+    // both nodes need to score the column (histogram of the sibling would not be built otherwise)
+    void deriveHistogramsFrom(DHistogram[] parentHs, int siblingNid) {
+      UndecidedNode sibling = _tree.undecided(siblingNid);
+      int[] cols = new int[_hs.length];
+      int len = 0;
+      for (int c = 0; c < _hs.length; c++) {
+        if (_hs[c] == null || sibling._hs[c] == null || parentHs[c] == null || parentHs[c]._vals == null)
+          continue;
+        if (isScored(c) && sibling.isScored(c) && _hs[c].isSubtractable(parentHs[c]) && sibling._hs[c].isSubtractable(parentHs[c]))
+          cols[len++] = c;
+      }
+      if (len == 0)
+        return;
+      _derivedCols = Arrays.copyOf(cols, len);
+      _parentHs = parentHs;
+      _siblingNid = siblingNid;
+    }
+
+    /** @return columns whose histograms are derived from the parent and sibling histograms, null if none */
+    public int[] derivedCols() { return _derivedCols; }
+
+    /** @return node id of the sibling used to derive the histograms of this node */
+    public int siblingNid() { return _siblingNid; }
+
+    /**
+     * Fills in the histograms which were skipped during the pass over the data (see {@link #deriveHistogramsFrom}).
+     * @param hs histograms of this node
+     * @param siblingHs histograms of the sibling node
+     */
+    public void subtractHistograms(DHistogram[] hs, DHistogram[] siblingHs) {
+      for (int c : _derivedCols)
+        if (hs[c] != null)
+          hs[c].subtract(_parentHs[c], siblingHs[c]);
+      _parentHs = null; // no longer needed
+    }
+
     // Make the parent of this Node use UNINTIALIZED NIDs for its children to prevent the split that this
     // node otherwise induces.  Happens if we find out too-late that we have a
     // perfect prediction here, and we want to turn into a leaf.
@@ -452,6 +503,10 @@ public class DTree extends Iced {
     //       T         |  !=   ==
     public final int _nids[];          // Children NIDS for the split LEFT, RIGHT
 
+    boolean _deferred; // Split found but children not created yet, the node is a leaf until expanded
+    private transient DHistogram[] _deferredHs;
+    private transient Constraints _deferredCs;
+
     transient byte _nodeType; // Complex encoding: see the compressed struct comments
     transient int _size = 0;  // Compressed byte size of this subtree
     transient int _nnodes = 0; // Number of nodes in this subtree
@@ -528,6 +583,15 @@ public class DTree extends Iced {
     }
 
     public DecidedNode(UndecidedNode n, DHistogram hs[], Constraints cs) {
+      this(n, hs, cs, true);
+    }
+
+    /**
+     * Replaces an undecided node by a decision.
+     * @param expand if false, only the best split is found; the children are created later by {@link #expand()}
+     *               (best-first tree growth: the leaf stays in the tree and its rows are not moved until expanded)
+     */
+    public DecidedNode(UndecidedNode n, DHistogram hs[], Constraints cs, boolean expand) {
       super(n._tree,n._pid,n._nid); // Replace Undecided with this DecidedNode
       _nids = new int[2];           // Split into 2 subsets
       _split = bestCol(n,hs,cs);  // Best split-point for this tree
@@ -540,6 +604,36 @@ public class DTree extends Iced {
         return;
       }
       _splat = _split._nasplit != DHistogram.NASplitDir.NAvsREST && (_split._equal == 0 || _split._equal == 1) ? _split.splat(hs) : -1f; // Split-at value (-1 for group-wise splits)
+      if (expand) {
+        makeChildren(hs, cs);
+      } else {
+        Arrays.fill(_nids,ScoreBuildHistogram.UNDECIDED_CHILD_NODE_ID);
+        _deferred = true;
+        _deferredHs = hs;
+        _deferredCs = cs;
+      }
+    }
+
+    /** @return true if this node has a split that has not been applied yet (see {@link #expand()}) */
+    public boolean isDeferred() {
+      return _deferred;
+    }
+
+    /** Creates the children of a node whose split was deferred. */
+    public void expand() {
+      assert _deferred;
+      _deferred = false;
+      makeChildren(_deferredHs, _deferredCs);
+      _deferredHs = null;
+      _deferredCs = null;
+    }
+
+    /** @return reduction of the squared error achieved by this node's split, or 0 if the node doesn't split */
+    public double gain() {
+      return _split == null ? 0 : _split.pre_split_se() - _split.se();
+    }
+
+    private void makeChildren(DHistogram hs[], Constraints cs) {
       for(int way = 0; way <2; way++ ) { // left / right
         // Create children histograms, not yet populated, but the ranges are set
         Constraints ncs = cs != null ? _split.nextLevelConstraints(cs, way, _splat, _tree._parms) : null;
@@ -548,6 +642,12 @@ public class DTree extends Iced {
         // Assign a new (yet undecided) node to each child, and connect this (the parent) decided node and the newly made histograms to it
         _nids[way] = nhists == null ? ScoreBuildHistogram.UNDECIDED_CHILD_NODE_ID : makeUndecidedNode(nhists,ncs)._nid;
       }
+      // Histogram subtraction trick: only the smaller child is histogrammed from the data (where possible),
+      // histograms of the larger child are derived from the parent histograms
+      if (_nids[0] != ScoreBuildHistogram.UNDECIDED_CHILD_NODE_ID && _nids[1] != ScoreBuildHistogram.UNDECIDED_CHILD_NODE_ID) {
+        int larger = _split._n0 >= _split._n1 ? 0 : 1;
+        _tree.undecided(_nids[larger]).deriveHistogramsFrom(hs, _nids[1 - larger]);
+      }
     }
 
     public int getChildNodeID(Chunk [] chks, int row ) {
@@ -714,7 +814,7 @@ public class DTree extends Iced {
 
       // Save split-at-value or group
       if (_split._nasplit!= DHistogram.NASplitDir.NAvsREST) {
-        if (_split._equal == 0 || _split._equal == 1) ab.put4f(_splat);
+        if (_split._equal == 0 || _split._equal == 1) ab.put4f(_tree._binning != null ? _tree._binning.splitValue(_split._col, _splat) : _splat);
         else if(_split._equal == 2) _split._bs.compress2(ab);
         else _split._bs.compress3(ab);
       }
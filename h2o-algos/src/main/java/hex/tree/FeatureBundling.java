@@ -0,0 +1,325 @@
+package hex.tree;
+
+import water.Futures;
+import water.Iced;
+import water.MRTask;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.util.ArrayUtils;
+import water.util.Log;
+
+import java.util.*;
+
+/**
+ * Exclusive feature bundling: mutually exclusive sparse predictors (columns that are never non-zero in the same row,
+ * typically one-hot encoded or interaction columns) are bundled into a single column.
+ *
+ * <p>The bundled column holds, for each row, {@code offset + value} of the (only) non-zero member column of the row,
+ * or 0 if all the member columns are zero. The histograms of all the members are accumulated in a single pass over
+ * the bundled column, instead of one pass per member column, and they are then split back into the histograms
+ * of the individual member columns (see {@link ScoreBuildHistogram2}). The zero bin of a member column is derived
+ * from the totals of the node. Trees are still built and split on the original columns, the bundles are invisible
+ * to the rest of the algorithm and to the model.
+ *
+ * <p>Candidate columns are non-negative integer columns with a small range, no missing values and mostly zeros.
+ * The bundles are found by a greedy coloring of the conflict graph estimated on a sample of the rows, exclusivity
+ * is then verified on the full data and members that conflict with their bundle are taken out of it.
+ */
+public class FeatureBundling extends Iced<FeatureBundling> {
+
+  /** Number of rows (approximately) used to find the mutually exclusive columns */
+  private static final int SAMPLE_SIZE = 100000;
+  /** Only columns with at most this fraction of non-zeros are considered for bundling */
+  private static final double MAX_NONZERO_RATE = 0.5;
+  /** Maximum number of distinct values of a bundled column */
+  private static final int MAX_BUNDLE_BINS = (1 << 16) - 1;
+
+  final int[][] _cols;    // Per bundle: member columns
+  final int[][] _offsets; // Per bundle: offsets of the values of the member columns in the bundled column
+  final int[] _nbins;     // Per bundle: number of distinct values of the bundled column (including 0)
+  private transient Vec[] _vecs;
+
+  FeatureBundling(int[][] cols, int[][] offsets, int[] nbins) {
+    _cols = cols;
+    _offsets = offsets;
+    _nbins = nbins;
+  }
+
+  /**
+   * Finds bundles of mutually exclusive sparse predictors of the training frame.
+   * @param fr training frame, predictors are expected to be the first ncols columns
+   * @param ncols number of predictors
+   * @param maxValue maximum value of a candidate column (typically the number of bins of the histograms)
+   * @param seed seed used to sample the rows
+   * @return bundling of the predictors, {@link #apply(Frame)} needs to be called to actually build the bundled columns
+   */
+  public static FeatureBundling make(Frame fr, int ncols, int maxValue, long seed) {
+    int[] candidates = new int[ncols];
+    int len = 0;
+    for (int i = 0; i < ncols; i++)
+      if (isCandidate(fr.vec(i), maxValue))
+        candidates[len++] = i;
+    candidates = Arrays.copyOf(candidates, len);
+    if (len < 2)
+      return new FeatureBundling(new int[0][], new int[0][], new int[0]);
+
+    Frame candidateFr = new Frame();
+    for (int c : candidates)
+      candidateFr.add(fr.name(c), fr.vec(c));
+    long[][] sampledNZs = new SampleNonZeros(Math.min(1.0, (double) SAMPLE_SIZE / fr.numRows()), seed)
+            .doAll(candidateFr)._rows;
+    int[][] bundles = findBundles(fr, candidates, sampledNZs);
+
+    // verify exclusivity on all rows, members conflicting with their bundle are dropped from the bundle
+    Frame bundledFr = new Frame();
+    int[][] bundleCols = new int[bundles.length][];
+    for (int b = 0; b < bundles.length; b++) {
+      bundleCols[b] = new int[bundles[b].length];
+      for (int i = 0; i < bundles[b].length; i++) {
+        bundleCols[b][i] = bundledFr.numCols();
+        bundledFr.add(fr.name(bundles[b][i]), fr.vec(bundles[b][i]));
+      }
+    }
+    boolean[] conflicts = bundles.length > 0 ? new CheckExclusive(bundleCols).doAll(bundledFr)._conflicts : new boolean[0];
+
+    List<int[]> cols = new ArrayList<>();
+    List<int[]> offsets = new ArrayList<>();
+    List<Integer> nbins = new ArrayList<>();
+    for (int b = 0; b < bundles.length; b++) {
+      int[] members = new int[bundles[b].length];
+      int[] offs = new int[bundles[b].length];
+      int n = 0;
+      int offset = 0;
+      for (int i = 0; i < bundles[b].length; i++) {
+        if (conflicts[bundleCols[b][i]]) continue;
+        members[n] = bundles[b][i];
+        offs[n++] = offset;
+        offset += (int) fr.vec(bundles[b][i]).max();
+      }
+      if (n < 2) continue;
+      cols.add(Arrays.copyOf(members, n));
+      offsets.add(Arrays.copyOf(offs, n));
+      nbins.add(offset + 1);
+    }
+    int[] nbinsArr = new int[nbins.size()];
+    for (int i = 0; i < nbinsArr.length; i++)
+      nbinsArr[i] = nbins.get(i);
+    return new FeatureBundling(cols.toArray(new int[0][]), offsets.toArray(new int[0][]), nbinsArr);
+  }
+
+  private static boolean isCandidate(Vec v, int maxValue) {
+    return v.isInt() && !v.isCategorical() && v.naCnt() == 0 && v.min() == 0 && v.max() >= 1 && v.max() <= maxValue
+            && v.nzCnt() <= MAX_NONZERO_RATE * v.length();
+  }
+
+  // Greedy coloring of the conflict graph: columns with most non-zeros are placed first, each into the first bundle
+  // it doesn't conflict with (on the sampled rows)
+  private static int[][] findBundles(Frame fr, int[] candidates, final long[][] sampledNZs) {
+    Integer[] order = new Integer[candidates.length];
+    for (int i = 0; i < order.length; i++)
+      order[i] = i;
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        return Integer.compare(sampledNZs[o2].length, sampledNZs[o1].length);
+      }
+    });
+    List<List<Integer>> bundles = new ArrayList<>();
+    List<Set<Long>> bundleRows = new ArrayList<>();
+    List<Integer> bundleBins = new ArrayList<>();
+    for (int i : order) {
+      int max = (int) fr.vec(candidates[i]).max();
+      int b = 0;
+      for (; b < bundles.size(); b++) {
+        if (bundleBins.get(b) + max > MAX_BUNDLE_BINS) continue;
+        if (!conflicts(bundleRows.get(b), sampledNZs[i])) break;
+      }
+      if (b == bundles.size()) {
+        bundles.add(new ArrayList<Integer>());
+        bundleRows.add(new HashSet<Long>());
+        bundleBins.add(1);
+      }
+      bundles.get(b).add(candidates[i]);
+      for (long row : sampledNZs[i])
+        bundleRows.get(b).add(row);
+      bundleBins.set(b, bundleBins.get(b) + max);
+    }
+    List<int[]> result = new ArrayList<>();
+    for (List<Integer> bundle : bundles) {
+      if (bundle.size() < 2) continue;
+      int[] members = new int[bundle.size()];
+      for (int i = 0; i < members.length; i++)
+        members[i] = bundle.get(i);
+      Arrays.sort(members);
+      result.add(members);
+    }
+    return result.toArray(new int[0][]);
+  }
+
+  private static boolean conflicts(Set<Long> rows, long[] nzs) {
+    for (long row : nzs)
+      if (rows.contains(row))
+        return true;
+    return false;
+  }
+
+  /**
+   * Builds the bundled columns. The new Vecs are owned by this instance and deleted by {@link #remove(Futures)}.
+   * @param fr training frame
+   */
+  public void apply(Frame fr) {
+    assert _vecs == null;
+    if (_cols.length == 0) {
+      _vecs = new Vec[0];
+      return;
+    }
+    Frame source = new Frame();
+    int[][] cols = new int[_cols.length][];
+    for (int b = 0; b < _cols.length; b++) {
+      cols[b] = new int[_cols[b].length];
+      for (int i = 0; i < _cols[b].length; i++) {
+        cols[b][i] = source.numCols();
+        source.add(fr.name(_cols[b][i]), fr.vec(_cols[b][i]));
+      }
+    }
+    _vecs = new BundleTask(cols, _offsets).doAll(_cols.length, Vec.T_NUM, source).outputFrame().vecs();
+    for (int b = 0; b < _cols.length; b++)
+      Log.info("Bundled " + _cols[b].length + " mutually exclusive columns into a column with " + _nbins[b] + " values.");
+  }
+
+  public int numBundles() {
+    return _cols.length;
+  }
+
+  /**
+   * @return number of columns bundled
+   */
+  public int numBundledColumns() {
+    int n = 0;
+    for (int[] cols : _cols)
+      n += cols.length;
+    return n;
+  }
+
+  Vec[] vecs() {
+    return _vecs;
+  }
+
+  public Futures remove(Futures fs) {
+    if (_vecs != null) {
+      for (Vec v : _vecs)
+        v.remove(fs);
+      _vecs = null;
+    }
+    return fs;
+  }
+
+  // Global indices of the non-zero rows of each column, only rows from a sample are collected
+  private static class SampleNonZeros extends MRTask<SampleNonZeros> {
+    private final double _rate;
+    private final long _seed;
+    long[][] _rows;
+
+    SampleNonZeros(double rate, long seed) {
+      _rate = rate;
+      _seed = seed;
+    }
+
+    @Override
+    public void map(Chunk[] cs) {
+      _rows = new long[cs.length][];
+      final long start = cs[0].start();
+      for (int c = 0; c < cs.length; c++) {
+        final Chunk chk = cs[c];
+        long[] rows = new long[Math.min(chk._len, 16)];
+        int n = 0;
+        for (int r = chk.nextNZ(-1); r < chk._len; r = chk.nextNZ(r)) {
+          if (chk.atd(r) == 0 || !isSampled(start + r)) continue;
+          if (n == rows.length) rows = Arrays.copyOf(rows, 2 * n);
+          rows[n++] = start + r;
+        }
+        _rows[c] = Arrays.copyOf(rows, n);
+      }
+    }
+
+    private boolean isSampled(long row) {
+      if (_rate >= 1) return true;
+      long h = (row + _seed) * 0x9E3779B97F4A7C15L; // seeding is independent of chunking
+      return (h >>> 40) < _rate * (1 << 24);
+    }
+
+    @Override
+    public void reduce(SampleNonZeros mrt) {
+      for (int c = 0; c < _rows.length; c++) {
+        long[] rows = Arrays.copyOf(_rows[c], _rows[c].length + mrt._rows[c].length);
+        System.arraycopy(mrt._rows[c], 0, rows, _rows[c].length, mrt._rows[c].length);
+        _rows[c] = rows;
+      }
+    }
+  }
+
+  // Flags the columns that are non-zero in a row where an earlier member of the same bundle is non-zero
+  private static class CheckExclusive extends MRTask<CheckExclusive> {
+    private final int[][] _bundles;
+    boolean[] _conflicts;
+
+    CheckExclusive(int[][] bundles) {
+      _bundles = bundles;
+    }
+
+    @Override
+    public void map(Chunk[] cs) {
+      _conflicts = new boolean[cs.length];
+      final boolean[] taken = new boolean[cs[0]._len];
+      for (int[] bundle : _bundles) {
+        Arrays.fill(taken, false);
+        for (int c : bundle) {
+          final Chunk chk = cs[c];
+          for (int r = chk.nextNZ(-1); r < chk._len; r = chk.nextNZ(r)) {
+            if (chk.atd(r) == 0) continue;
+            if (taken[r]) _conflicts[c] = true;
+            else taken[r] = true;
+          }
+        }
+      }
+    }
+
+    @Override
+    public void reduce(CheckExclusive mrt) {
+      ArrayUtils.or(_conflicts, mrt._conflicts);
+    }
+  }
+
+  private static class BundleTask extends MRTask<BundleTask> {
+    private final int[][] _bundles;
+    private final int[][] _offsets;
+
+    BundleTask(int[][] bundles, int[][] offsets) {
+      _bundles = bundles;
+      _offsets = offsets;
+    }
+
+    @Override
+    public void map(Chunk[] cs, NewChunk[] ncs) {
+      final int len = cs[0]._len;
+      final int[] vals = new int[len];
+      for (int b = 0; b < _bundles.length; b++) {
+        Arrays.fill(vals, 0);
+        for (int i = 0; i < _bundles[b].length; i++) {
+          final Chunk chk = cs[_bundles[b][i]];
+          final int offset = _offsets[b][i];
+          for (int r = chk.nextNZ(-1); r < len; r = chk.nextNZ(r)) {
+            long v = chk.at8(r);
+            if (v != 0) vals[r] = offset + (int) v;
+          }
+        }
+        final NewChunk nc = ncs[b];
+        for (int r = 0; r < len; r++)
+          nc.addNum(vals[r], 0);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,169 @@
+package hex.tree;
+
+import hex.genmodel.algos.tree.NaSplitDir;
+import hex.genmodel.utils.ByteBufferWrapper;
+import hex.genmodel.utils.GenmodelBitSet;
+
+import java.util.Arrays;
+
+/**
+ * Node-local, flattened (structure-of-arrays) representation of a {@link CompressedTree}.
+ *
+ * <p>The byte encoding of a compressed tree is compact but every row scored has to decode the node headers,
+ * split values and subtree sizes along its path again. A flat tree decodes the bytes once, nodes are stored
+ * in pre-order and scoring a row only reads the split column, the split value (or the bitset) and the index
+ * of the child. The result of {@link #score(double[])} is identical to {@link CompressedTree#score(double[], String[][])}
+ * (see {@link hex.genmodel.algos.tree.SharedTreeMojoModel#scoreTree(byte[], double[], boolean, String[][])}).
+ *
+ * <p>Is not meant to be Serialized/Iced or send over the wire.
+ */
+public final class FlatTree {
+
+  private static final int NsdNaVsRest = NaSplitDir.NAvsREST.value();
+  private static final int NsdNaLeft = NaSplitDir.NALeft.value();
+  private static final int NsdLeft = NaSplitDir.Left.value();
+
+  // Node flags
+  private static final byte NA_LEFT = 1;     // NAs (and values outside of the bitset/domain) go left
+  private static final byte NA_VS_REST = 2;  // split NAs (right) vs. the rest (left)
+  private static final byte BITSET = 4;      // categorical split (bitset test)
+
+  private final int[] _cols;      // split column, -1 for a leaf
+  private final float[] _values;  // split value of a numeric split, prediction of a leaf
+  private final int[] _left;      // index of the left child
+  private final int[] _right;     // index of the right child
+  private final byte[] _flags;    // see above
+  private final int[] _domainLen; // cardinality of a categorical split column, -1 otherwise
+  private final GenmodelBitSet[] _bitsets; // bitset of a categorical split, view on top of the tree bytes
+
+  private final int _nnodes;
+
+  public FlatTree(CompressedTree tree, String[][] domains) {
+    this(tree._bits, domains);
+  }
+
+  FlatTree(byte[] bits, String[][] domains) {
+    Decoder d = new Decoder(bits, domains);
+    // the decoder arrays are sized for the worst case, keep only the decoded nodes
+    _nnodes = d._nnodes;
+    _cols = Arrays.copyOf(d._cols, _nnodes);
+    _values = Arrays.copyOf(d._values, _nnodes);
+    _left = Arrays.copyOf(d._left, _nnodes);
+    _right = Arrays.copyOf(d._right, _nnodes);
+    _flags = Arrays.copyOf(d._flags, _nnodes);
+    _domainLen = Arrays.copyOf(d._domainLen, _nnodes);
+    _bitsets = Arrays.copyOf(d._bitsets, _nnodes);
+  }
+
+  public int numNodes() { return _nnodes; }
+
+  /**
+   * Score the tree on the row of data.
+   * @param row row of data
+   * @return prediction of the leaf the row ends up in
+   */
+  public double score(final double[] row) {
+    int n = 0;
+    int col;
+    while ((col = _cols[n]) >= 0) {
+      double d = row[col];
+      int flags = _flags[n];
+      GenmodelBitSet bs = _bitsets[n];
+      boolean right;
+      if (Double.isNaN(d) || (bs != null && !bs.isInRange((int) d)) || (_domainLen[n] >= 0 && _domainLen[n] <= (int) d))
+        right = (flags & NA_LEFT) == 0;
+      else if ((flags & NA_VS_REST) != 0)
+        right = false;
+      else
+        right = (flags & BITSET) == 0 ? d >= _values[n] : bs.contains((int) d);
+      n = right ? _right[n] : _left[n];
+    }
+    return _values[n];
+  }
+
+  // Decodes the bytes of a tree into (oversized) node arrays
+  private static final class Decoder {
+    final int[] _cols;
+    final float[] _values;
+    final int[] _left;
+    final int[] _right;
+    final byte[] _flags;
+    final int[] _domainLen;
+    final GenmodelBitSet[] _bitsets;
+    int _nnodes;
+
+    Decoder(byte[] bits, String[][] domains) {
+      // the smallest node (a leaf or a node header) takes 4 bytes
+      int maxNodes = bits.length / 4 + 1;
+      _cols = new int[maxNodes];
+      _values = new float[maxNodes];
+      _left = new int[maxNodes];
+      _right = new int[maxNodes];
+      _flags = new byte[maxNodes];
+      _domainLen = new int[maxNodes];
+      _bitsets = new GenmodelBitSet[maxNodes];
+      ByteBufferWrapper ab = new ByteBufferWrapper(bits);
+      int nodeType = ab.get1U();
+      int colId = ab.get2();
+      if (colId == 65535)
+        leaf(ab.get4f());
+      else
+        node(bits, ab, nodeType, colId, null, domains);
+    }
+
+    private int leaf(float pred) {
+      int n = _nnodes++;
+      _cols[n] = -1;
+      _values[n] = pred;
+      return n;
+    }
+
+    // Decodes the node (header already read) and both its subtrees. The bitset of the nearest categorical ancestor
+    // is inherited by the nodes that don't define their own, the same way the byte-walker reuses its bitset.
+    private int node(byte[] bits, ByteBufferWrapper ab, int nodeType, int colId, GenmodelBitSet bs, String[][] domains) {
+      final int n = _nnodes++;
+      int naSplitDir = ab.get1U();
+      boolean naVsRest = naSplitDir == NsdNaVsRest;
+      boolean leftward = naSplitDir == NsdNaLeft || naSplitDir == NsdLeft;
+      int lmask = (nodeType & 51);
+      int equal = (nodeType & 12);
+      assert equal != 4;
+      byte flags = 0;
+      if (!naVsRest) {
+        if (equal == 0) {
+          _values[n] = ab.get4f();
+        } else {
+          bs = new GenmodelBitSet(0);
+          if (equal == 8)
+            bs.fill2(bits, ab);
+          else
+            bs.fill3(bits, ab);
+          flags |= BITSET;
+        }
+      }
+      if (naVsRest) flags |= NA_VS_REST;
+      if (leftward) flags |= NA_LEFT;
+      _cols[n] = colId;
+      _flags[n] = flags;
+      _bitsets[n] = equal != 0 ? bs : null;
+      _domainLen[n] = domains != null && domains[colId] != null ? domains[colId].length : -1;
+
+      // left subtree, prefixed by its size
+      if (lmask <= 3)
+        ab.skip(lmask + 1);
+      _left[n] = (lmask & 16) != 0 ? leaf(ab.get4f()) : subtree(bits, ab, bs, domains);
+      // right subtree
+      int rmask = (nodeType & 0xC0) >> 2;
+      _right[n] = (rmask & 16) != 0 ? leaf(ab.get4f()) : subtree(bits, ab, bs, domains);
+      return n;
+    }
+
+    private int subtree(byte[] bits, ByteBufferWrapper ab, GenmodelBitSet bs, String[][] domains) {
+      int nodeType = ab.get1U();
+      int colId = ab.get2();
+      assert colId != 65535 : "Only a root can be a single leaf";
+      return node(bits, ab, nodeType, colId, bs, domains);
+    }
+  }
+
+}
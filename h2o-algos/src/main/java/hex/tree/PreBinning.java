@@ -0,0 +1,247 @@
+package hex.tree;
+
+import water.Futures;
+import water.Iced;
+import water.MRTask;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.util.ArrayUtils;
+import water.util.Log;
+
+import java.util.Arrays;
+
+/**
+ * One-time quantization of the numeric predictors of a training frame (pre-binning).
+ *
+ * <p>Numeric columns with more distinct values than the requested number of bins are replaced by columns
+ * of bin indices. The bins are (approximately) equal-frequency, their bounds are derived from a single pass
+ * computing a fine-grained histogram of each column. Bin indices are small integers and the binned Vecs
+ * compress to 1 or 2 bytes per row, all trees and all levels then build their histograms from the compact
+ * columns instead of re-reading the original doubles.
+ *
+ * <p>Trees are grown in the space of bin indices. A split on a binned column is translated back to a split
+ * on the original values when the tree is compressed (see {@link #splitValue(int, float)}) - models built
+ * on a pre-binned frame are scored on raw data, exactly like any other tree model.
+ *
+ * <p>Categorical columns and integer columns with a small range are left untouched, their values already
+ * are small integers.
+ */
+public class PreBinning extends Iced<PreBinning> {
+
+  /** Resolution of the histogram used to find the bin bounds, relative to the number of bins */
+  private static final int FINE_BINS_PER_BIN = 8;
+  private static final int MAX_FINE_BINS = 1 << 16;
+
+  // Per column: lower bounds of bins 1..nbins-1 (bin 0 has no lower bound), null if the column is not binned
+  private final float[][] _thresholds;
+  private transient Vec[] _binnedVecs;
+
+  PreBinning(float[][] thresholds) {
+    _thresholds = thresholds;
+  }
+
+  /**
+   * Finds the bin bounds of all numeric predictors of the training frame.
+   * @param fr training frame, predictors are expected to be the first ncols columns
+   * @param ncols number of predictors
+   * @param nbins maximum number of bins per column
+   * @param weights observation weights, can be null
+   * @return pre-binning of the frame, {@link #apply(Frame)} needs to be called to actually replace the columns
+   */
+  public static PreBinning make(Frame fr, int ncols, int nbins, Vec weights) {
+    float[][] thresholds = new float[ncols][];
+    int[] cols = new int[ncols];
+    int len = 0;
+    for (int i = 0; i < ncols; i++)
+      if (needsBinning(fr.vec(i), nbins))
+        cols[len++] = i;
+    cols = Arrays.copyOf(cols, len);
+    if (len > 0) {
+      Vec[] vecs = new Vec[len + 1];
+      for (int i = 0; i < len; i++)
+        vecs[i] = fr.vec(cols[i]);
+      vecs[len] = weights != null ? weights : vecs[0].makeCon(1);
+      try {
+        int fineBins = Math.min(nbins * FINE_BINS_PER_BIN, MAX_FINE_BINS);
+        double[][] counts = new FineHistogram(fineBins).doAll(vecs)._counts;
+        for (int i = 0; i < len; i++) {
+          Vec v = vecs[i];
+          thresholds[cols[i]] = findThresholds(counts[i], v.min(), v.max(), nbins);
+        }
+      } finally {
+        if (weights == null)
+          vecs[len].remove();
+      }
+    }
+    return new PreBinning(thresholds);
+  }
+
+  private static boolean needsBinning(Vec v, int nbins) {
+    if (!v.isNumeric() || v.isCategorical() || v.isBinary() || v.naCnt() == v.length() || v.min() == v.max()
+            || Double.isInfinite(v.min()) || Double.isInfinite(v.max()))
+      return false;
+    return !v.isInt() || v.max() - v.min() >= nbins;
+  }
+
+  static float[] findThresholds(double[] counts, double min, double max, int nbins) {
+    final double step = (max - min) / counts.length;
+    final double total = ArrayUtils.sum(counts);
+    final double target = total / nbins;
+    float[] thresholds = new float[nbins - 1];
+    int len = 0;
+    double acc = 0;
+    for (int b = 0; b < counts.length - 1 && len < thresholds.length; b++) {
+      acc += counts[b];
+      if (acc < target)
+        continue;
+      float t = (float) (min + (b + 1) * step);
+      if (t > min && (len == 0 || t > thresholds[len - 1])) {
+        thresholds[len++] = t;
+        acc = 0;
+      }
+    }
+    return Arrays.copyOf(thresholds, len);
+  }
+
+  /**
+   * Replaces the binned predictors in a given frame by columns of bin indices.
+   * The new Vecs are owned by this instance and deleted by {@link #remove(Futures)}.
+   * @param fr training frame
+   */
+  public void apply(Frame fr) {
+    assert _binnedVecs == null;
+    int[] cols = binnedColumns();
+    if (cols.length == 0) {
+      _binnedVecs = new Vec[0];
+      return;
+    }
+    Frame source = new Frame();
+    for (int col : cols)
+      source.add(fr.name(col), fr.vec(col));
+    _binnedVecs = new BinTask(_thresholds, cols).doAll(cols.length, Vec.T_NUM, source).outputFrame().vecs();
+    for (int i = 0; i < cols.length; i++) {
+      fr.replace(cols[i], _binnedVecs[i]);
+      Log.info("Pre-binned column " + fr.name(cols[i]) + " into " + nbins(cols[i]) + " bins.");
+    }
+  }
+
+  int[] binnedColumns() {
+    int[] cols = new int[_thresholds.length];
+    int len = 0;
+    for (int i = 0; i < _thresholds.length; i++)
+      if (isBinned(i))
+        cols[len++] = i;
+    return Arrays.copyOf(cols, len);
+  }
+
+  public boolean isBinned(int col) {
+    return col < _thresholds.length && _thresholds[col] != null;
+  }
+
+  public int nbins(int col) {
+    return _thresholds[col].length + 1;
+  }
+
+  /**
+   * Translates a split point in the space of bin indices to a split point on the original values.
+   * Rows with bin index &gt;= splat have original values &gt;= the returned split point.
+   * @param col column index
+   * @param splat split point (as used by {@link DTree.DecidedNode}) on the binned column
+   * @return split point on the original column
+   */
+  public float splitValue(int col, float splat) {
+    if (!isBinned(col) || Float.isNaN(splat))
+      return splat;
+    int bin = (int) Math.ceil(splat);
+    float[] thresholds = _thresholds[col];
+    if (bin <= 0)
+      return Float.NEGATIVE_INFINITY;
+    if (bin > thresholds.length)
+      return Float.POSITIVE_INFINITY;
+    return thresholds[bin - 1];
+  }
+
+  /**
+   * @return bin index of a given value: number of thresholds the value is greater or equal to
+   */
+  static int bin(float[] thresholds, double d) {
+    int lo = 0, hi = thresholds.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (d >= thresholds[mid]) lo = mid + 1;
+      else hi = mid;
+    }
+    return lo;
+  }
+
+  public Futures remove(Futures fs) {
+    if (_binnedVecs != null) {
+      for (Vec v : _binnedVecs)
+        v.remove(fs);
+      _binnedVecs = null;
+    }
+    return fs;
+  }
+
+  // Weighted counts of the values of each column (last column holds the weights) in uniform fine bins
+  private static class FineHistogram extends MRTask<FineHistogram> {
+    private final int _nbins;
+    double[][] _counts;
+
+    FineHistogram(int nbins) {
+      _nbins = nbins;
+    }
+
+    @Override
+    public void map(Chunk[] cs) {
+      final int ncols = cs.length - 1;
+      final Chunk weights = cs[ncols];
+      _counts = new double[ncols][_nbins];
+      for (int c = 0; c < ncols; c++) {
+        final Chunk chk = cs[c];
+        final Vec v = chk.vec();
+        final double min = v.min();
+        final double step = _nbins / (v.max() - min);
+        final double[] counts = _counts[c];
+        for (int row = 0; row < chk._len; row++) {
+          double w = weights.atd(row);
+          if (w == 0 || Double.isNaN(w) || chk.isNA(row))
+            continue;
+          int b = (int) ((chk.atd(row) - min) * step);
+          counts[Math.max(0, Math.min(b, _nbins - 1))] += w;
+        }
+      }
+    }
+
+    @Override
+    public void reduce(FineHistogram mrt) {
+      ArrayUtils.add(_counts, mrt._counts);
+    }
+  }
+
+  private static class BinTask extends MRTask<BinTask> {
+    private final float[][] _thresholds;
+    private final int[] _cols;
+
+    BinTask(float[][] thresholds, int[] cols) {
+      _thresholds = thresholds;
+      _cols = cols;
+    }
+
+    @Override
+    public void map(Chunk[] cs, NewChunk[] ncs) {
+      for (int i = 0; i < cs.length; i++) {
+        final float[] thresholds = _thresholds[_cols[i]];
+        final Chunk chk = cs[i];
+        final NewChunk nc = ncs[i];
+        for (int row = 0; row < chk._len; row++) {
+          if (chk.isNA(row)) nc.addNA();
+          else nc.addNum(bin(thresholds, chk.atd(row)), 0);
+        }
+      }
+    }
+  }
+
+}
@@ -28,10 +28,22 @@ public class Sample extends MRTask<Sample> {
       boolean skip = ys.isNA(row);
       if (!skip) {
         double rate = _rate_per_class==null ? _rate : _rate_per_class[(int)ys.at8(row)];
-        rand.setSeed(_tree._seed + row + nids.start()); //seeding is independent of chunking
-        skip = rand.nextFloat() >= rate; //float is good enough, half as much cost
+        skip = isOutOfBag(rand, _tree._seed, row + nids.start(), rate);
       }
       if (skip) is[row] = ScoreBuildHistogram.OUT_OF_BAG;     // Flag row as being ignored by sampling
     }
   }
+
+  /**
+   * Sampling decision for a single row, the same for every chunk layout of the frame.
+   * @param rand RNG to (re)use, it is re-seeded
+   * @param seed seed of the tree
+   * @param row global index of the row
+   * @param rate sampling rate
+   * @return true if the row is not sampled for the tree
+   */
+  public static boolean isOutOfBag(Random rand, long seed, long row, double rate) {
+    rand.setSeed(seed + row); //seeding is independent of chunking
+    return rand.nextFloat() >= rate; //float is good enough, half as much cost
+  }
 }
@@ -28,6 +28,8 @@ public class Score extends CMetricScoringTask<Score> {
   /** Output parameter: Metric builder */
   ModelMetrics.MetricBuilder _mb;
 
+  private transient CompressedForest.LocalCompressedForest _forest; // Trees of the model, used to score "the hard way"
+
   /** Compute ModelMetrics on the testing dataset.
    *  It expect already adapted validation dataset which is adapted to a model
    *  and contains a response which is adapted to confusion matrix domain.
@@ -48,6 +50,13 @@ public class Score extends CMetricScoringTask<Score> {
     assert (! _is_train) || (_sii == null);
   }
 
+  @Override protected void setupLocal() {
+    super.setupLocal();
+    if (!_is_train) {
+      _forest = _bldr._model.compressedForest().fetch(_sii != null ? _sii._startTree : 0);
+    }
+  }
+
   @Override public void map(Chunk allchks[]) {
     final Chunk[] chks = getScoringChunks(allchks);
     Chunk ys = _bldr.isSupervised() ? _bldr.chk_resp(chks) : new C0DChunk(0, chks[0]._len);  // Response
@@ -70,6 +79,7 @@ public class Score extends CMetricScoringTask<Score> {
     // If working a validation set, need to push thru official model scoring
     // logic which requires a temp array to hold the features.
     final double[] tmp = _is_train && _bldr._ntrees > 0 ? null : new double[_bldr._ncols];
+    final SharedTreeModel.BlockScorer scorer = _forest != null ? m.new BlockScorer(_forest, chks, _sii) : null;
 //    final double[] tmp = new double[_bldr._ncols];
 
     // Score all Rows
@@ -83,10 +93,8 @@ public class Score extends CMetricScoringTask<Score> {
       double offset = offsetChunk!=null?offsetChunk.atd(row):0;
       if( _is_train ) // Passed in the model-specific columns
         _bldr.score2(chks, weight, offset, cdists, row); // Use the training data directly (per-row predictions already made)
-      else if (_sii != null)
-        m.score0Incremental(_sii, chks, offset, row, tmp, cdists); // Incremental scoring (only use new trees)
-      else            // Must score "the hard way"
-        m.score0(chks, offset, row, tmp, cdists);
+      else            // Must score "the hard way" (incrementally if possible - only use new trees)
+        scorer.score0(offset, row, tmp, cdists);
 
       // fill tmp with training data for null model - to have proper tie breaking
       if (_is_train && _bldr._ntrees == 0)
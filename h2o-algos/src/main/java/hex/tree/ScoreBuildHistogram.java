@@ -162,6 +162,7 @@ public class ScoreBuildHistogram extends MRTask<ScoreBuildHistogram> {
       boolean oob = isOOBRow(nid);
       if( oob ) nid = oob2Nid(nid); // sampled away - we track the position in the tree
       DTree.DecidedNode dn = _tree.decided(nid);
+      if( dn != null && dn.isDeferred() ) { nnids[row] = nid-_leaf; continue; } // Leaf waiting to be expanded, rows stay
       if( dn == null || dn._split == null ) { // Might have a leftover non-split
         if( DTree.isRootNode(dn) ) { nnids[row] = nid-_leaf; continue; }
         nid = dn._pid;             // Use the parent split decision then
@@ -64,9 +64,14 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
   transient double [][] _ws;
   transient int [][] _nhs;
   transient int [][] _rss;
+  transient int [][] _lids;     // Per chunk: leaf of each row (negative if the row is not histogrammed)
+  transient double [][] _tots;  // Per chunk: w, wY, wYY and row count per leaf, only for chunks with sparse columns
   Frame _fr2;
   final int _numLeafs;
   final IcedBitSet _activeCols;
+  final int[][] _derivedCols; // Per node: columns that are not histogrammed, they are derived by histogram subtraction
+  FeatureBundling _bundling;  // Bundles of mutually exclusive columns histogrammed in a single pass (null if not used)
+  int _bundleIdx;             // Index of the first bundled column in _fr2
 
   public ScoreBuildHistogram2(H2O.H2OCountedCompleter cc, int k, int ncols, int nbins, int nbins_cats, DTree tree, int leaf, DHistogram[][] hcs, DistributionFamily family, int weightIdx, int workIdx, int nidIdxs) {
     super(cc, k, ncols, nbins, nbins_cats, tree, leaf, hcs, family, weightIdx, workIdx, nidIdxs);
@@ -85,9 +90,24 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
       }
     }
     _activeCols = activeCols;
+    _derivedCols = new int[hcslen][];
+    for (int n = 0; n < hcslen; n++)
+      _derivedCols[n] = _tree.undecided(n + _leaf)._derivedCols;
     _hcs = ArrayUtils.transpose(_hcs);
   }
 
+  /**
+   * Builds the histograms of bundled columns from the bundles instead of the individual columns.
+   * @param bundling bundles of mutually exclusive columns, null if no columns are bundled
+   * @param bundleIdx index of the first bundled column in the frame passed to {@link #dfork2(byte[], Frame, boolean)}
+   * @return this
+   */
+  public ScoreBuildHistogram2 withFeatureBundling(FeatureBundling bundling, int bundleIdx) {
+    _bundling = bundling;
+    _bundleIdx = bundleIdx;
+    return this;
+  }
+
   @Override
   public ScoreBuildHistogram dfork2(byte[] types, Frame fr, boolean run_local) {
     _fr2 = fr;
@@ -127,6 +147,7 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
       boolean oob = isOOBRow(nid);
       if( oob ) nid = oob2Nid(nid); // sampled away - we track the position in the tree
       DTree.DecidedNode dn = _tree.decided(nid);
+      if( dn.isDeferred() ) { res[row] = nid - _leaf; continue; } // Leaf waiting to be expanded, rows stay
       if( dn._split == null ) { // Might have a leftover non-split
         if( DTree.isRootNode(dn) ) { res[row] = nid - _leaf; continue; }
         nid = dn._pid;             // Use the parent split decision then
@@ -159,6 +180,8 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
     _ws = new double[_cids.length][];
     _nhs = new int[_cids.length][];
     _rss = new int[_cids.length][];
+    _lids = new int[_cids.length][];
+    _tots = new double[_cids.length][];
     long [] espc = v.espc();
     int largestChunkSz = 0;
     for(int i = 1; i < espc.length; ++i){
@@ -207,6 +230,7 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
         for (int row = 0; row < nnids.length; row++)
           if (nnids[row] >= 0)
             rows[nh[nnids[row]]++] = row;
+        _lids[id] = nnids;
 
       }
       @Override
@@ -227,6 +251,8 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
           if(_weightIdx != -1){
             _ws[id] = chks[_weightIdx].getDoubles(MemoryManager.malloc8d(len), 0, len);
           }
+          if (hasSparseColumns(chks))
+            _tots[id] = leafTotals(_nhs[id], _rss[id], _ys[id], _ws[id]);
         }
       }
     },new H2O.H2OCountedCompleter(this){
@@ -236,13 +262,35 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
         int nactive_cols = active_cols == null?ncols:active_cols.length;
         final int numWrks = _hcs.length*nactive_cols < 16*1024?H2O.NUMCPUS:Math.min(H2O.NUMCPUS,Math.max(4*H2O.NUMCPUS/nactive_cols,1));
         final int rem = H2O.NUMCPUS-numWrks*ncols;
-        ScoreBuildHistogram2.this.addToPendingCount(1+nactive_cols);
         if(active_cols != null) {
           int j = 0;
           for (int i = 0; i < ncols; ++i)
             if (_activeCols.contains(i))
               active_cols[j++] = i;
         }
+        // Bundled columns are histogrammed together, in one task per bundle
+        int [] cols = active_cols == null ? ArrayUtils.range(0, ncols - 1) : active_cols.clone();
+        int [] bundles = new int[0];
+        if (_bundling != null) {
+          boolean [] bundled = new boolean[ncols];
+          for (int b = 0; b < _bundling.numBundles(); b++) {
+            boolean active = false;
+            for (int c : _bundling._cols[b]) {
+              bundled[c] = true;
+              active |= _activeCols == null || _activeCols.contains(c);
+            }
+            if (active) bundles = ArrayUtils.append(bundles, b);
+          }
+          int j = 0;
+          for (int c : cols)
+            if (!bundled[c])
+              cols[j++] = c;
+          cols = Arrays.copyOf(cols, j);
+        }
+        final int [] plain_cols = cols;
+        final int [] active_bundles = bundles;
+        final int ntasks = plain_cols.length + active_bundles.length;
+        ScoreBuildHistogram2.this.addToPendingCount(1+ntasks);
         // MRTask (over columns) launching MrTasks (over number of workers) for each column.
         // We want FJ to start processing all the columns before parallelizing within column to reduce memory overhead.
         // (running single column in n threads means n-copies of the histogram)
@@ -254,15 +302,53 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
         // This way we should have columns as equally distributed as possible without resorting to shared priority queue
         new LocalMR(new MrFun() {
           @Override
-          protected void map(int c) {
-            c = active_cols == null?c:active_cols[c];
+          protected void map(int t) {
+            if (t >= plain_cols.length) {
+              final ComputeBundleHistoThread cbt = new ComputeBundleHistoThread(active_bundles[t - plain_cols.length],fLargestChunkSz,new AtomicInteger());
+              new LocalMR(cbt,numWrks,new H2O.H2OCountedCompleter(ScoreBuildHistogram2.this){
+                @Override public void onCompletion(CountedCompleter cc) { cbt.unbundle(); }
+              }).fork();
+              return;
+            }
+            int c = plain_cols[t];
             new LocalMR(new ComputeHistoThread(_hcs.length == 0?new DHistogram[0]:_hcs[c],c,fLargestChunkSz,new AtomicInteger()),numWrks + (c < rem?1:0),ScoreBuildHistogram2.this).fork();
           }
-        },nactive_cols,ScoreBuildHistogram2.this).fork();
+        },ntasks,ScoreBuildHistogram2.this).fork();
       }
     }).fork();
   }
 
+  private boolean hasSparseColumns(Chunk [] chks) {
+    for (int c = 0; c < _ncols; c++)
+      if (chks[c].isSparseZero())
+        return true;
+    if (_bundling != null)
+      for (int b = 0; b < _bundling.numBundles(); b++)
+        if (chks[_bundleIdx + b].isSparseZero())
+          return true;
+    return false;
+  }
+
+  // Sums of w, wY, wYY and count of the rows with non-zero weight of each leaf
+  private double [] leafTotals(int [] nh, int [] rs, double [] ys, double [] ws) {
+    double [] tots = new double[4 * _numLeafs];
+    for (int n = 0; n < _numLeafs; n++) {
+      int hi = nh[n];
+      int lo = (n == 0 ? 0 : nh[n - 1]);
+      for (int r = lo; r < hi; r++) {
+        int k = rs[r];
+        double w = ws[k];
+        if (w == 0) continue;
+        double wy = w * ys[k];
+        tots[4 * n] += w;
+        tots[4 * n + 1] += wy;
+        tots[4 * n + 2] += wy * ys[k];
+        tots[4 * n + 3]++;
+      }
+    }
+    return tots;
+  }
+
   private static void mergeHistos(DHistogram [] hcs, DHistogram [] hcs2){
     // Distributed histograms need a little work
     for( int i=0; i< hcs.length; i++ ) {
@@ -273,10 +359,18 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
     }
   }
 
+  /**
+   * Builds the histograms of one column for all the leaves. Each worker thread accumulates into its own
+   * copies of the histograms, there are no atomic updates in the inner loop. The private copies are merged
+   * pairwise as the LocalMR tree of workers completes, the root merges the results into the shared histograms.
+   * A private copy of a histogram is only made once the thread actually sees rows of the given leaf, threads
+   * that don't touch a leaf don't allocate its bins and don't take part in its merge.
+   */
   private class ComputeHistoThread extends MrFun<ComputeHistoThread> {
     final int _maxChunkSz;
     final int _col;
-    final DHistogram [] _lh;
+    final DHistogram [] _src; // Shared histograms, template for the private copies
+    final DHistogram [] _lh;  // Histograms filled by this thread (null if this thread has not seen the leaf)
 
     AtomicInteger _cidx;
     private boolean _done;
@@ -284,13 +378,17 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
     public boolean isDone(){return _done || (_done = _cidx.get() >= _cids.length);}
 
     ComputeHistoThread(DHistogram [] hcs, int col, int maxChunkSz,AtomicInteger cidx){
-      _lh = hcs; _col = col; _maxChunkSz = maxChunkSz;
+      this(hcs, hcs, col, maxChunkSz, cidx);
+    }
+
+    private ComputeHistoThread(DHistogram [] src, DHistogram [] lh, int col, int maxChunkSz,AtomicInteger cidx){
+      _src = src; _lh = lh; _col = col; _maxChunkSz = maxChunkSz;
       _cidx = cidx;
     }
 
     @Override
     public ComputeHistoThread makeCopy() {
-      return new ComputeHistoThread(ArrayUtils.deepClone(_lh),_col,_maxChunkSz,_cidx);
+      return new ComputeHistoThread(_src, new DHistogram[_src.length],_col,_maxChunkSz,_cidx);
     }
 
     @Override
@@ -310,15 +408,26 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
       double [] ys = ScoreBuildHistogram2.this._ys[id];
       if(_weightIdx != -1) _chks[id][_weightIdx].getDoubles(ws, 0, len);
       final int hcslen = _lh.length;
+      final boolean sparse = _chks[id][_col].isSparseZero();
+      DHistogram [] sparseHs = sparse ? new DHistogram[hcslen] : null;
       boolean extracted = false;
       for (int n = 0; n < hcslen; n++) {
         int sCols[] = _tree.undecided(n + _leaf)._scoreCols; // Columns to score (null, or a list of selected cols)
-        if (sCols == null || ArrayUtils.find(sCols, _col) >= 0) {
-          DHistogram h = _lh[n];
+        if ((sCols == null || ArrayUtils.find(sCols, _col) >= 0) &&
+                (_derivedCols[n] == null || ArrayUtils.find(_derivedCols[n], _col) < 0)) {
           int hi = nh[n];
           int lo = (n == 0 ? 0 : nh[n - 1]);
-          if (hi == lo || h == null) continue; // Ignore untracked columns in this split
+          if (hi == lo || _src[n] == null) continue; // Ignore untracked columns in this split
+          DHistogram h = _lh[n];
+          if (h == null) {
+            assert _src[n]._vals == null; // Shallow copy, bins must not be shared
+            h = _lh[n] = (DHistogram) _src[n].clone();
+          }
           if (h._vals == null) h.init();
+          if (sparse) {
+            sparseHs[n] = h; // filled below in a single pass over the non-zeros
+            continue;
+          }
           if (!extracted) {
             _chks[id][_col].getDoubles(cs,0,len);
             extracted = true;
@@ -326,6 +435,37 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
           h.updateHisto(ws, cs, ys, rs, hi, lo);
         }
       }
+      if (sparse)
+        computeSparseChunk(id, sparseHs, ws, ys);
+    }
+
+    /**
+     * Sparse chunks: only the non-zero rows are visited. The rows with value 0 are added to each histogram in bulk,
+     * their sums are the totals of the leaf less the sums of the non-zero rows.
+     */
+    private void computeSparseChunk(int id, DHistogram [] hs, double [] ws, double [] ys) {
+      final Chunk chk = _chks[id][_col];
+      final int [] lids = _lids[id];
+      final double [] tots = _tots[id];
+      final double [] nzs = new double[4 * hs.length]; // Per leaf: w, wY, wYY and count of non-zero rows
+      for (int r = chk.nextNZ(-1); r < chk._len; r = chk.nextNZ(r)) {
+        int n = lids[r];
+        if (n < 0 || hs[n] == null) continue;
+        double w = ws[r];
+        if (w == 0) continue;
+        double d = chk.atd(r);
+        if (d == 0) continue; // explicit zero, added with the others
+        double y = ys[r];
+        hs[n].updateHisto(d, w, y);
+        double wy = w * y;
+        nzs[4 * n] += w;
+        nzs[4 * n + 1] += wy;
+        nzs[4 * n + 2] += wy * y;
+        nzs[4 * n + 3]++;
+      }
+      for (int n = 0; n < hs.length; n++)
+        if (hs[n] != null && tots[4 * n + 3] > nzs[4 * n + 3])
+          hs[n].updateHistoZeros(tots[4 * n] - nzs[4 * n], tots[4 * n + 1] - nzs[4 * n + 1], tots[4 * n + 2] - nzs[4 * n + 2]);
     }
 
     @Override
@@ -335,6 +475,156 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
     }
   }
 
+  /**
+   * Builds the histograms of all the member columns of a bundle (see {@link FeatureBundling}) in a single pass over
+   * the bundled column. Per node, it accumulates w, wY and wYY for each value of the bundled column, these are split
+   * into the histograms of the member columns once all the chunks are processed. Private copies are allocated and
+   * merged the same way as in {@link ComputeHistoThread}.
+   */
+  private class ComputeBundleHistoThread extends MrFun<ComputeBundleHistoThread> {
+    final int _bundle;
+    final int _maxChunkSz;
+    final boolean [][] _fill;  // Per node and member column: true if the histogram is to be filled in
+    final double [][] _vals;   // Per node: w, wY and wYY per value of the bundled column (null if not seen by this thread)
+    final AtomicInteger _cidx;
+
+    ComputeBundleHistoThread(int bundle, int maxChunkSz, AtomicInteger cidx) {
+      this(bundle, maxChunkSz, cidx, fillMask(bundle));
+    }
+
+    private ComputeBundleHistoThread(int bundle, int maxChunkSz, AtomicInteger cidx, boolean [][] fill) {
+      _bundle = bundle; _maxChunkSz = maxChunkSz; _cidx = cidx; _fill = fill;
+      _vals = new double[fill.length][];
+    }
+
+    @Override
+    public ComputeBundleHistoThread makeCopy() {
+      return new ComputeBundleHistoThread(_bundle, _maxChunkSz, _cidx, _fill);
+    }
+
+    @Override
+    protected void map(int id) {
+      double [] cs = null;
+      for(int i = _cidx.getAndIncrement(); i < _cids.length; i = _cidx.getAndIncrement()) {
+        if(cs == null) cs = MemoryManager.malloc8d(_maxChunkSz);
+        computeChunk(i, cs);
+      }
+    }
+
+    private void computeChunk(int id, double [] cs) {
+      int [] nh = _nhs[id];
+      int [] rs = _rss[id];
+      double [] ys = ScoreBuildHistogram2.this._ys[id];
+      double [] ws = _ws[id];
+      Chunk chk = _chks[id][_bundleIdx + _bundle];
+      if (chk.isSparseZero()) {
+        computeSparseChunk(id, chk, ws, ys);
+        return;
+      }
+      boolean extracted = false;
+      for (int n = 0; n < _fill.length; n++) {
+        if (_fill[n] == null) continue;
+        int hi = nh[n];
+        int lo = (n == 0 ? 0 : nh[n - 1]);
+        if (hi == lo) continue;
+        if (!extracted) {
+          chk.getDoubles(cs, 0, chk._len);
+          extracted = true;
+        }
+        double [] vals = _vals[n];
+        if (vals == null) vals = _vals[n] = MemoryManager.malloc8d(3 * _bundling._nbins[_bundle]);
+        for (int r = lo; r < hi; ++r) {
+          int k = rs[r];
+          double w = ws[k];
+          if (w == 0) continue;
+          double wy = w * ys[k];
+          int b = 3 * (int) cs[k];
+          vals[b] += w;
+          vals[b + 1] += wy;
+          vals[b + 2] += wy * ys[k];
+        }
+      }
+    }
+
+    // Only the rows with a non-zero bundled value are visited, value 0 gets the remainder of the totals of the leaf
+    private void computeSparseChunk(int id, Chunk chk, double [] ws, double [] ys) {
+      final int [] nh = _nhs[id];
+      final int [] lids = _lids[id];
+      final double [] tots = _tots[id];
+      for (int n = 0; n < _fill.length; n++) {
+        if (_fill[n] == null || nh[n] == (n == 0 ? 0 : nh[n - 1])) continue;
+        if (_vals[n] == null) _vals[n] = MemoryManager.malloc8d(3 * _bundling._nbins[_bundle]);
+        _vals[n][0] += tots[4 * n];
+        _vals[n][1] += tots[4 * n + 1];
+        _vals[n][2] += tots[4 * n + 2];
+      }
+      for (int r = chk.nextNZ(-1); r < chk._len; r = chk.nextNZ(r)) {
+        int n = lids[r];
+        if (n < 0 || _fill[n] == null) continue;
+        double w = ws[r];
+        if (w == 0) continue;
+        int b = 3 * (int) chk.at8(r);
+        if (b == 0) continue;
+        double [] vals = _vals[n];
+        double wy = w * ys[r];
+        vals[b] += w;
+        vals[b + 1] += wy;
+        vals[b + 2] += wy * ys[r];
+        vals[0] -= w;
+        vals[1] -= wy;
+        vals[2] -= wy * ys[r];
+      }
+    }
+
+    @Override
+    protected void reduce(ComputeBundleHistoThread cc) {
+      for (int n = 0; n < _vals.length; n++) {
+        if (_vals[n] == null) _vals[n] = cc._vals[n];
+        else if (cc._vals[n] != null) ArrayUtils.add(_vals[n], cc._vals[n]);
+      }
+    }
+
+    // Splits the accumulated values into the histograms of the member columns
+    void unbundle() {
+      final int [] cols = _bundling._cols[_bundle];
+      final int [] offsets = _bundling._offsets[_bundle];
+      for (int n = 0; n < _vals.length; n++) {
+        double [] vals = _vals[n];
+        if (vals == null) continue;
+        double [] total = new double[3];
+        for (int i = 0; i < vals.length; i += 3) {
+          total[0] += vals[i];
+          total[1] += vals[i + 1];
+          total[2] += vals[i + 2];
+        }
+        for (int i = 0; i < cols.length; i++) {
+          if (!_fill[n][i]) continue;
+          int maxValue = (i + 1 < cols.length ? offsets[i + 1] : _bundling._nbins[_bundle] - 1) - offsets[i];
+          _hcs[cols[i]][n].addBundled(vals, offsets[i], maxValue, total);
+        }
+      }
+    }
+  }
+
+  // Per node and member column of a bundle: true if the histogram of the column needs to be built in the node
+  private boolean [][] fillMask(int bundle) {
+    final int [] cols = _bundling._cols[bundle];
+    boolean [][] fill = new boolean[_numLeafs][];
+    for (int n = 0; n < _numLeafs; n++) {
+      int sCols[] = _tree.undecided(n + _leaf)._scoreCols;
+      boolean [] f = new boolean[cols.length];
+      boolean any = false;
+      for (int i = 0; i < cols.length; i++) {
+        int c = cols[i];
+        f[i] = _hcs[c][n] != null && (sCols == null || ArrayUtils.find(sCols, c) >= 0) &&
+                (_derivedCols[n] == null || ArrayUtils.find(_derivedCols[n], c) < 0);
+        any |= f[i];
+      }
+      fill[n] = any ? f : null;
+    }
+    return fill;
+  }
+
   @Override public void postGlobal(){
     _hcs = ArrayUtils.transpose(_hcs);
     for(DHistogram [] ary:_hcs)
@@ -26,6 +26,8 @@ import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
 
@@ -62,6 +64,12 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
 
   protected Random _rand;
 
+  // Pre-binning of the numeric predictors (null if disabled)
+  protected transient PreBinning _binning;
+
+  // Bundles of mutually exclusive sparse predictors (null if disabled)
+  protected transient FeatureBundling _bundling;
+
   protected final Frame calib() { return _calib; }
   protected transient Frame _calib;
 
@@ -148,10 +156,16 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
     if (_parms._nbins_cats >= 1<<16) error ("_nbins_cats", "nbins_cats must be < " + (1<<16));
     if (_parms._nbins_top_level < _parms._nbins) error ("_nbins_top_level", "nbins_top_level must be >= nbins (" + _parms._nbins + ").");
     if (_parms._nbins_top_level >= 1<<16) error ("_nbins_top_level", "nbins_top_level must be < " + (1<<16));
+    if (_parms._prebin_nbins < 0 || _parms._prebin_nbins == 1 || _parms._prebin_nbins >= 1<<16)
+      error ("_prebin_nbins", "prebin_nbins must be 0 (disabled) or between 2 and " + ((1<<16) - 1) + ".");
+    if (_parms._prebin_nbins > 0 && _parms.hasCheckpoint())
+      error ("_prebin_nbins", "Pre-binning cannot be used when continuing training from a checkpoint.");
     if (_parms._max_depth <= 0) error ("_max_depth", "_max_depth must be > 0.");
     if (_parms._min_rows <=0) error ("_min_rows", "_min_rows must be > 0.");
     if (_parms._r2_stopping!=Double.MAX_VALUE) warn("_r2_stopping", "_r2_stopping is no longer supported - please use stopping_rounds, stopping_metric and stopping_tolerance instead.");
     if (_parms._score_tree_interval < 0) error ("_score_tree_interval", "_score_tree_interval must be >= 0.");
+    if (_parms._score_validation_each_tree && _parms._valid == null)
+      warn ("_score_validation_each_tree", "score_validation_each_tree is ignored without a validation frame.");
     validateRowSampleRate();
     if (_parms._min_split_improvement < 0)
       error("_min_split_improvement", "min_split_improvement must be >= 0, but is " + _parms._min_split_improvement + ".");
@@ -270,6 +284,21 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
           }
         }
 
+        // Quantize the numeric predictors once, all trees are then built on compact bin indices
+        if (_parms._prebin_nbins > 0) {
+          _job.update(0, "Pre-binning numeric columns.");
+          _binning = PreBinning.make(_train, _ncols, _parms._prebin_nbins, _weights);
+          _binning.apply(_train);
+        }
+
+        // Bundle mutually exclusive sparse predictors, their histograms are then built in a single pass
+        if (_parms._bundle_exclusive_features) {
+          _job.update(0, "Bundling mutually exclusive columns.");
+          _bundling = FeatureBundling.make(_train, _ncols, _parms._nbins, _parms._seed);
+          _bundling.apply(_train);
+          Log.info("Bundled " + _bundling.numBundledColumns() + " columns into " + _bundling.numBundles() + " bundles.");
+        }
+
         // top-level quantiles for all columns
         // non-numeric columns get a vector full of NAs
         if (_parms._histogram_type == SharedTreeModel.SharedTreeParameters.HistogramType.QuantilesGlobal
@@ -374,6 +403,14 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
           _trainPredsCache.remove();
           _trainPredsCache = null;
         }
+        if (_binning != null) {
+          _binning.remove(new Futures()).blockForPending();
+          _binning = null;
+        }
+        if (_bundling != null) {
+          _bundling.remove(new Futures()).blockForPending();
+          _bundling = null;
+        }
       }
     }
 
@@ -392,6 +429,21 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
 
     protected Frame makeValidWorkspace() { return null; }
 
+    /**
+     * Makes the workspace for incremental scoring of the validation frame: one column per tree class keeping
+     * the sum of the predictions of the trees scored so far (see {@link Score.ScoreIncInfo}).
+     * @param ncols number of tree classes (columns of the workspace)
+     * @return workspace frame
+     */
+    protected final Frame makeValidWorkspace(int ncols) {
+      // FIXME: this is not efficient, we need a sparse volatile chunks
+      Vec[] tmp = _valid.anyVec().makeVolatileDoubles(ncols);
+      String[] tmpNames = new String[tmp.length];
+      for (int i = 0; i < tmpNames.length; i++)
+        tmpNames[i] = "__P_" + i;
+      return new Frame(tmpNames, tmp);
+    }
+
     // Helpers to store quantiles in DKV - keep a cache on each node (instead of sending around over and over)
     protected Key getGlobalQuantilesKey(int i) {
       if (_model==null || _model._key == null || _parms._histogram_type!= SharedTreeModel.SharedTreeParameters.HistogramType.QuantilesGlobal
@@ -430,7 +482,8 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
     protected final void scoreAndBuildTrees(boolean oob) {
       for( int tid=0; tid< _ntrees; tid++) {
         // During first iteration model contains 0 trees, then 1-tree, ...
-        boolean scored = doScoringAndSaveModel(false, oob, _parms._build_tree_one_node);
+        boolean scored = doScoringAndSaveModel(false, oob, _parms._build_tree_one_node) ||
+                doValidationScoring(_parms._build_tree_one_node);
         if (scored && ScoreKeeper.stopEarly(_model._output.scoreKeepers(), _parms._stopping_rounds, _nclass > 1, _parms._stopping_metric, _parms._stopping_tolerance, "model's last", true)) {
           doScoringAndSaveModel(true, oob, _parms._build_tree_one_node);
           _job.update(_ntrees-_model._output._ntrees); //finish
@@ -475,16 +528,27 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
 
       // Add temporary workspace vectors (optional weights are taken over from fr)
       int weightIdx = fr2.find(_parms._weights_column);
+      Vec treeWeights = treeWeights(fr);
+      if (treeWeights != null) {
+        weightIdx = fr2.numCols(); fr2.add("__tree_weights", treeWeights);            //weights of the rows sampled for the tree
+      }
       fr2.add(fr._names[idx_tree(k)],vecs[idx_tree(k)]);                              //tree predictions
       int workIdx = fr2.numCols(); fr2.add(fr._names[idx_work(k)],vecs[idx_work(k)]); //target value to fit (copy of actual response for DRF, residual for GBM)
       int nidIdx  = fr2.numCols(); fr2.add(fr._names[idx_nids(k)],vecs[idx_nids(k)]); //node indices for tree construction
+      int bundleIdx = -1;
+      if (_bundling != null && _bundling.numBundles() > 0) {
+        bundleIdx = fr2.numCols();
+        Vec[] bundled = _bundling.vecs();
+        for (int b = 0; b < bundled.length; b++)
+          fr2.add("__bundle_" + b, bundled[b]);                                         //bundled mutually exclusive columns
+      }
       if (DEV_DEBUG) {
         System.out.println("Building a layer for class " + k + ":\n" + fr2.toTwoDimTable());
       }
       // Async tree building
       // step 1: build histograms
       // step 2: split nodes
-      H2O.submitTask(sb1ts[k] = new ScoreBuildOneTree(this,k,nbins, nbins_cats, tree, leafs, hcs, fr2, build_tree_one_node, _improvPerVar, _model._parms._distribution, weightIdx, workIdx, nidIdx));
+      H2O.submitTask(sb1ts[k] = new ScoreBuildOneTree(this,k,nbins, nbins_cats, tree, leafs, hcs, fr2, build_tree_one_node, _improvPerVar, _model._parms._distribution, weightIdx, workIdx, nidIdx, bundleIdx));
     }
     // Block for all K trees to complete.
     boolean did_split=false;
@@ -523,10 +587,11 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
     final int _weightIdx;
     final int _workIdx;
     final int _nidIdx;
+    final int _bundleIdx;
 
     boolean _did_split;
 
-    ScoreBuildOneTree(SharedTree st, int k, int nbins, int nbins_cats, DTree tree, int leafs[], DHistogram hcs[][][], Frame fr2, boolean build_tree_one_node, float[] improvPerVar, DistributionFamily family, int weightIdx, int workIdx, int nidIdx) {
+    ScoreBuildOneTree(SharedTree st, int k, int nbins, int nbins_cats, DTree tree, int leafs[], DHistogram hcs[][][], Frame fr2, boolean build_tree_one_node, float[] improvPerVar, DistributionFamily family, int weightIdx, int workIdx, int nidIdx, int bundleIdx) {
       _st   = st;
       _k    = k;
       _nbins= nbins;
@@ -541,6 +606,7 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
       _weightIdx = weightIdx;
       _workIdx = workIdx;
       _nidIdx = nidIdx;
+      _bundleIdx = bundleIdx;
     }
     @Override public void compute2() {
       // Fuse 2 conceptual passes into one:
@@ -552,40 +618,96 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
       // got assigned into.  Collect counts, mean, variance, min, max per bin,
       // per column.
 //      new ScoreBuildHistogram(this,_k, _st._ncols, _nbins, _nbins_cats, _tree, _leafOffsets[_k], _hcs[_k], _family, _weightIdx, _workIdx, _nidIdx).dfork2(null,_fr2,_build_tree_one_node);
-      new ScoreBuildHistogram2(this,_k, _st._ncols, _nbins, _nbins_cats, _tree, _leafOffsets[_k], _hcs[_k], _family, _weightIdx, _workIdx, _nidIdx).dfork2(null,_fr2,_build_tree_one_node);
+      new ScoreBuildHistogram2(this,_k, _st._ncols, _nbins, _nbins_cats, _tree, _leafOffsets[_k], _hcs[_k], _family, _weightIdx, _workIdx, _nidIdx)
+              .withFeatureBundling(_bundleIdx >= 0 ? _st._bundling : null, _bundleIdx)
+              .dfork2(null,_fr2,_build_tree_one_node);
     }
     @Override public void onCompletion(CountedCompleter caller) {
       ScoreBuildHistogram sbh = (ScoreBuildHistogram) caller;
       final int leafOffset = _leafOffsets[_k];
       int tmax = _tree.len();   // Number of total splits in tree K
+      for (int leaf = leafOffset; leaf < tmax; leaf++) { // Derive the histograms skipped by the pass over the data
+        DTree.UndecidedNode udn = _tree.undecided(leaf);
+        if (udn._derivedCols != null)
+          udn.subtractHistograms(sbh._hcs[leaf - leafOffset], sbh._hcs[udn._siblingNid - leafOffset]);
+      }
+      final int maxLeaves = _st.maxLeaves();
       for (int leaf = leafOffset; leaf < tmax; leaf++) { // Visit all the new splits (leaves)
         DTree.UndecidedNode udn = _tree.undecided(leaf);
 //        System.out.println((_st._nclass==1?"Regression":("Class "+_st._response.domain()[_k]))+",\n  Undecided node:"+udn);
         // Replace the Undecided with the Split decision
-        DTree.DecidedNode dn = _st.makeDecided(udn, sbh._hcs[leaf - leafOffset], udn._cs);
+        DTree.DecidedNode dn = maxLeaves > 0
+                ? new DTree.DecidedNode(udn, sbh._hcs[leaf - leafOffset], udn._cs, false) // Best-first: only find the split
+                : _st.makeDecided(udn, sbh._hcs[leaf - leafOffset], udn._cs);
 //        System.out.println(dn + "\n" + dn._split);
         if (dn._split == null) udn.do_not_split();
-        else {
-          _did_split = true;
-          DTree.Split s = dn._split; // Accumulate squared error improvements per variable
-          float improvement = (float) (s.pre_split_se() - s.se());
-          assert (improvement >= 0);
-          AtomicUtils.FloatArray.add(_improvPerVar, s.col(), improvement);
-        }
+        else if (maxLeaves == 0) recordSplit(dn);
       }
+      if (maxLeaves > 0) // Expand the leaves with the largest gains, their children are histogrammed in the next pass
+        expandDeferredLeaves(maxLeaves);
       _leafOffsets[_k] = tmax;          // Setup leafs for next tree level
       int new_leafs = _tree.len() - tmax; //new_leafs can be 0 if no actual splits were made
       _hcs[_k] = new DHistogram[new_leafs][/*ncol*/];
       for (int nl = tmax; nl < _tree.len(); nl++)
         _hcs[_k][nl - tmax] = _tree.undecided(nl)._hs;
 //      if (_did_split && new_leafs > 0) _tree._depth++;
-      if (_did_split) _tree._depth++; //
+      if (maxLeaves > 0) {
+        for (int nl = tmax; nl < _tree.len(); nl++) // the expanded leaves can be at different depths
+          _tree._depth = Math.max(_tree._depth, depth(nl));
+      } else if (_did_split) _tree._depth++; //
+    }
+
+    private void recordSplit(DTree.DecidedNode dn) {
+      _did_split = true;
+      DTree.Split s = dn._split; // Accumulate squared error improvements per variable
+      float improvement = (float) (s.pre_split_se() - s.se());
+      assert (improvement >= 0);
+      AtomicUtils.FloatArray.add(_improvPerVar, s.col(), improvement);
+    }
+
+    // Best-first growth: expands the not yet expanded leaves in the order of their split gain,
+    // as many as fit in the remaining leaf budget (each expansion adds one leaf to the tree)
+    private void expandDeferredLeaves(int maxLeaves) {
+      int splits = 0;
+      List<DTree.DecidedNode> deferred = new ArrayList<>();
+      for (int nid = 0; nid < _tree.len(); nid++) {
+        if (!(_tree.node(nid) instanceof DTree.DecidedNode)) continue;
+        DTree.DecidedNode dn = _tree.decided(nid);
+        if (dn._split == null) continue;
+        if (!dn.isDeferred()) splits++;
+        else if (depth(nid) < _tree._parms._max_depth) deferred.add(dn);
+      }
+      Collections.sort(deferred, new Comparator<DTree.DecidedNode>() {
+        @Override public int compare(DTree.DecidedNode a, DTree.DecidedNode b) {
+          return Double.compare(b.gain(), a.gain());
+        }
+      });
+      for (DTree.DecidedNode dn : deferred) {
+        if (splits + 1 >= maxLeaves) break;
+        dn.expand();
+        recordSplit(dn);
+        splits++;
+      }
+    }
+
+    private int depth(int nid) {
+      int depth = 0;
+      for (; nid != DTree.NO_PARENT; nid = _tree.node(nid)._pid) depth++;
+      return depth - 1;
     }
   }
 
   // --------------------------------------------------------------------------
   // Convenience accessor for a complex chunk layout.
   // Wish I could name the array elements nicer...
+  /**
+   * Weights used to build the histograms of the trees if they differ from the observation weights
+   * (eg. when the sampling of rows re-weights the sampled rows).
+   * @param fr training frame
+   * @return Vec of tree weights or null if the observation weights are used
+   */
+  protected Vec treeWeights(Frame fr) { return null; }
+
   protected int idx_weight(   ) { return _model._output.weightsIdx(); }
   protected int idx_offset(   ) { return _model._output.offsetIdx(); }
   protected int idx_resp(     ) { return _model._output.responseIdx(); }
@@ -638,10 +760,25 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
   }
 
   // Builder-specific decision node
+  /**
+   * Maximum number of leaves of a tree grown best-first (the leaf with the largest split gain is expanded
+   * in each pass over the data), 0 if the trees are grown level-wise.
+   */
+  protected int maxLeaves() { return 0; }
+
   protected DTree.DecidedNode makeDecided( DTree.UndecidedNode udn, DHistogram hs[], Constraints cs ) {
     return new DTree.DecidedNode(udn, hs, cs);
   }
 
+  /**
+   * Adds squared error improvements per variable of splits that were not made by {@link #buildLayer}
+   * (eg. trees built on a single node).
+   * @param improvPerVar improvement per variable
+   */
+  protected final void recordImprovements(float[] improvPerVar) {
+    ArrayUtils.add(_improvPerVar, improvPerVar);
+  }
+
   // Read the 'tree' columns, do model-specific math and put the results in the
   // fs[] array, and return the sum.  Dividing any fs[] element by the sum
   // turns the results into a probability distribution.
@@ -707,16 +844,7 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
 
       // Score again on validation data
       if( _parms._valid != null) {
-        Frame v = new Frame(valid());
-        Score.ScoreIncInfo sii;
-        if (validWorkspace() != null) {
-          v = v.add(validWorkspace());
-          sii = new Score.ScoreIncInfo(_lastScoredTree, valid().numCols(), validWorkspace().numCols(), _nclass > 1 ? 1 : 0 /* skip class for classification problems */);
-        } else
-          sii = null;
-        Score scv = new Score(this, sii,false, vresponse(), _model._output.getModelCategory(), computeGainsLift, _validPredsCache, CFuncRef.from(_parms._custom_metric_func));
-        ModelMetrics mmv = scv.scoreAndMakeModelMetrics(_model, _parms.valid(), v, build_tree_one_node);
-        _lastScoredTree = _model._output._ntrees;
+        ModelMetrics mmv = scoreValidation(computeGainsLift, build_tree_one_node);
         out._validation_metrics = mmv;
         if (_model._output._ntrees>0 || scoreZeroTrees()) //don't score the 0-tree model - the error is too large
           out._scored_valid[out._ntrees].fillFrom(mmv);
@@ -775,6 +903,36 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
     return updated;
   }
 
+  /**
+   * Scores the validation frame between the regular scoring rounds (see {@link SharedTreeModel.SharedTreeParameters#_score_validation_each_tree}).
+   * The predictions of the validation frame are maintained incrementally and only the trees built since the last
+   * scoring are scored, early stopping can then be checked after every tree at a fraction of the cost of a full scoring round.
+   * @return true if the validation frame was scored
+   */
+  protected final boolean doValidationScoring(boolean build_tree_one_node) {
+    if (!_parms._score_validation_each_tree || _parms._valid == null || validWorkspace() == null || _model._output._ntrees == 0)
+      return false;
+    // predictions are needed to compute huber metrics (see Score#makeModelMetrics), gains/lift are not computed otherwise
+    boolean keepPreds = _parms._distribution == DistributionFamily.huber;
+    ModelMetrics mmv = scoreValidation(keepPreds, build_tree_one_node);
+    _model._output._scored_valid[_model._output._ntrees].fillFrom(mmv);
+    return true;
+  }
+
+  private ModelMetrics scoreValidation(boolean computeGainsLift, boolean build_tree_one_node) {
+    Frame v = new Frame(valid());
+    Score.ScoreIncInfo sii;
+    if (validWorkspace() != null) {
+      v = v.add(validWorkspace());
+      sii = new Score.ScoreIncInfo(_lastScoredTree, valid().numCols(), validWorkspace().numCols(), _nclass > 1 ? 1 : 0 /* skip class for classification problems */);
+    } else
+      sii = null;
+    Score scv = new Score(this, sii,false, vresponse(), _model._output.getModelCategory(), computeGainsLift, _validPredsCache, CFuncRef.from(_parms._custom_metric_func));
+    ModelMetrics mmv = scv.scoreAndMakeModelMetrics(_model, _parms.valid(), v, build_tree_one_node);
+    _lastScoredTree = _model._output._ntrees;
+    return mmv;
+  }
+
   static int counter = 0;
   // helper for debugging
   @SuppressWarnings("unused")
@@ -31,6 +31,9 @@ public abstract class SharedTreeModel<
         O extends SharedTreeModel.SharedTreeOutput
         > extends Model<M, P, O> implements Model.LeafNodeAssignment, Model.GetMostImportantFeatures {
 
+  /** Number of rows scored together by all trees in bulk scoring */
+  static final int SCORE_BLOCK_SIZE = 256;
+
   @Override
   public String[] getMostImportantFeatures(int n) {
     if (_output == null) return null;
@@ -65,10 +68,16 @@ public abstract class SharedTreeModel<
 
     public int _nbins_top_level = 1<<10; //hardcoded maximum top-level number of bins for real-valued columns
 
+    public int _prebin_nbins = 0; // quantize numeric columns into (at most) this many bins once before training (0 to disable)
+
+    public boolean _bundle_exclusive_features = false; // histogram mutually exclusive sparse columns in a single pass over a bundled column
+
     public boolean _build_tree_one_node = false;
 
     public int _score_tree_interval = 0; // score every so many trees (no matter what)
 
+    public boolean _score_validation_each_tree = false; // score (incrementally) the validation frame after every tree, early stopping is checked every tree
+
     public int _initial_score_interval = 4000; //Adding this parameter to take away the hard coded value of 4000 for scoring the first  4 secs
 
     public int _score_interval = 4000; //Adding this parameter to take away the hard coded value of 4000 for scoring each iteration every 4 secs
@@ -190,18 +199,36 @@ public abstract class SharedTreeModel<
       // DEBUG: Print the generated K trees
       //SharedTree.printGenerateTrees(trees);
       assert nclasses()==trees.length;
-      // Compress trees and record tree-keys
+      // Compress trees
+      CompressedTree[] cts = new CompressedTree[trees.length];
+      CompressedTree[] ctsAux = new CompressedTree[trees.length];
+      for( int i=0; i<nclasses(); i++ ) if( trees[i] != null ) {
+        cts[i] = trees[i].compress(_ntrees,i,_domains);
+        _treeStats.updateBy(trees[i]); // Update tree shape stats
+        ctsAux[i] = new CompressedTree(trees[i]._abAux.buf(),-1,-1,-1);
+      }
+      addKTrees(cts, ctsAux);
+    }
+
+    /**
+     * Adds K trees that were already compressed (eg. trees built on another node), the tree shape stats
+     * are not updated.
+     * @param trees compressed trees, the tree id has to be the current number of trees
+     * @param auxTrees auxiliary tree info of the trees
+     */
+    public void addKTrees( CompressedTree[] trees, CompressedTree[] auxTrees) {
+      assert nclasses()==trees.length;
+      // Record tree-keys
       _treeKeys = Arrays.copyOf(_treeKeys ,_ntrees+1);
       _treeKeysAux = Arrays.copyOf(_treeKeysAux ,_ntrees+1);
       Key[] keys = _treeKeys[_ntrees] = new Key[trees.length];
       Key[] keysAux = _treeKeysAux[_ntrees] = new Key[trees.length];
       Futures fs = new Futures();
       for( int i=0; i<nclasses(); i++ ) if( trees[i] != null ) {
-        CompressedTree ct = trees[i].compress(_ntrees,i,_domains);
+        CompressedTree ct = trees[i];
         DKV.put(keys[i]=ct._key,ct,fs);
-        _treeStats.updateBy(trees[i]); // Update tree shape stats
 
-        CompressedTree ctAux = new CompressedTree(trees[i]._abAux.buf(),-1,-1,-1);
+        CompressedTree ctAux = auxTrees[i];
         keysAux[i] = ctAux._key = Key.make(createAuxKey(ct._key.toString()));
         DKV.put(ctAux,fs);
       }
@@ -422,10 +449,6 @@ public abstract class SharedTreeModel<
       throw H2O.unimpl("Calibration is only supported for binomial models");
   }
 
-  protected double[] score0Incremental(Score.ScoreIncInfo sii, Chunk chks[], double offset, int row_in_chunk, double[] tmp, double[] preds) {
-    return score0(chks, offset, row_in_chunk, tmp, preds); // by default delegate to non-incremental implementation
-  }
-
   @Override protected double[] score0(double[] data, double[] preds, double offset) {
     return score0(data, preds, offset, _output._treeKeys.length);
   }
@@ -435,7 +458,19 @@ public abstract class SharedTreeModel<
 
   protected double[] score0(double[] data, double[] preds, double offset, int ntrees) {
     Arrays.fill(preds,0);
-    return score0(data, preds, offset, 0, ntrees);
+    score0(data, preds, offset, 0, ntrees);
+    return unifyPreds(data, preds, offset, ntrees);
+  }
+
+  /** Turns the sum of the tree predictions into the model's predictions (in-memory counterpart of
+   *  {@link #toJavaUnifyPreds(SBPrintStream)}).
+   *  @param data row of data
+   *  @param preds sum of the predictions of the first <code>ntrees</code> trees
+   *  @param offset row offset
+   *  @param ntrees number of trees that were scored
+   *  @return predictions */
+  protected double[] unifyPreds(double[] data, double[] preds, double offset, int ntrees) {
+    return preds;
   }
 
   protected double[] score0(double[] data, double[] preds, double offset, int startTree, int ntrees) {
@@ -446,6 +481,95 @@ public abstract class SharedTreeModel<
     return preds;
   }
 
+  final CompressedForest compressedForest() {
+    return new CompressedForest(_output._treeKeys, _output._domains);
+  }
+
+  @Override
+  protected BigScorePredict setupBigScorePredict(BigScore bs) {
+    final CompressedForest.LocalCompressedForest forest = compressedForest().fetch();
+    return new BigScorePredict() {
+      @Override
+      public BigScoreChunkPredict initMap(Frame fr, Chunk[] chks) {
+        final BlockScorer scorer = new BlockScorer(forest, chks);
+        return new BigScoreChunkPredict() {
+          @Override
+          public double[] score0(Chunk[] chks, double offset, int row_in_chunk, double[] tmp, double[] preds) {
+            return scorer.score0(offset, row_in_chunk, tmp, preds);
+          }
+          @Override
+          public void close() {}
+        };
+      }
+    };
+  }
+
+  /**
+   * Scores the rows of a chunk in blocks: when a row is requested, all trees are applied to the whole block
+   * the row belongs to (see {@link CompressedForest.LocalCompressedForest#scoreBlock}). Gives exactly the same
+   * predictions as {@link #score0(Chunk[], double, int, double[], double[])}; when incremental scoring info is given
+   * (see {@link Score.ScoreIncInfo}) only the trees added since the last scoring are applied on top of the sums kept
+   * in the workspace columns. Expects the rows to be requested in (mostly) increasing order.
+   */
+  final class BlockScorer {
+    private final CompressedForest.LocalCompressedForest _forest;
+    private final Chunk[] _chks;
+    private final Score.ScoreIncInfo _sii;
+    private double[][] _rows;
+    private double[][] _sums;
+    private int _blockStart;
+    private int _blockLen;
+
+    BlockScorer(CompressedForest.LocalCompressedForest forest, Chunk[] chks) {
+      this(forest, chks, null);
+    }
+
+    BlockScorer(CompressedForest.LocalCompressedForest forest, Chunk[] chks, Score.ScoreIncInfo sii) {
+      _forest = forest;
+      _chks = chks;
+      _sii = sii;
+    }
+
+    double[] score0(double offset, int row, double[] tmp, double[] preds) {
+      if (_sums == null || row < _blockStart || row >= _blockStart + _blockLen)
+        scoreBlock(row, tmp.length, preds.length);
+      int r = row - _blockStart;
+      System.arraycopy(_rows[r], 0, tmp, 0, tmp.length);
+      System.arraycopy(_sums[r], 0, preds, 0, preds.length);
+      unifyPreds(tmp, preds, offset, _forest.ntrees());
+      if (needsPostProcess() && isSupervised())
+        score0PostProcessSupervised(preds, tmp);
+      return preds;
+    }
+
+    private void scoreBlock(int start, int ncols, int npreds) {
+      if (_sums == null) {
+        int blockSize = Math.min(SCORE_BLOCK_SIZE, _chks[0]._len);
+        _rows = new double[blockSize][ncols];
+        _sums = new double[blockSize][npreds];
+      }
+      // rows are added the new trees' predictions only once
+      assert _sii == null || _blockLen == 0 || start >= _blockStart + _blockLen : "Incremental scoring expects increasing rows";
+      _blockStart = start;
+      _blockLen = Math.min(_sums.length, _chks[0]._len - start);
+      final int startTree = _sii != null ? _sii._startTree : 0;
+      for (int r = 0; r < _blockLen; r++) {
+        double[] rowData = _rows[r];
+        for (int i = 0; i < ncols; i++)
+          rowData[i] = _chks[i].atd(start + r);
+        Arrays.fill(_sums[r], 0);
+        if (startTree > 0)
+          for (int i = 0; i < _sii._workspaceColCnt; i++)
+            _sums[r][_sii._predsAryOffset + i] = _chks[_sii._workspaceColIdx + i].atd(start + r);
+      }
+      _forest.scoreBlock(_rows, _blockLen, _sums, startTree, _forest.ntrees());
+      if (_sii != null)
+        for (int r = 0; r < _blockLen; r++)
+          for (int i = 0; i < _sii._workspaceColCnt; i++)
+            _chks[_sii._workspaceColIdx + i].set(start + r, _sums[r][_sii._predsAryOffset + i]);
+    }
+  }
+
   // Score per line per tree
   private void score0(double[] data, double[] preds, int treeIdx) {
     Key[] keys = _output._treeKeys[treeIdx];
@@ -12,6 +12,8 @@ import water.MRTask;
 import water.fvec.C0DChunk;
 import water.fvec.Chunk;
 import water.fvec.Frame;
+import water.util.ArrayUtils;
+import water.util.RandomUtils;
 
 import java.util.Random;
 
@@ -74,12 +76,22 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
     if (hasOffsetCol() && isClassifier()) {
       error("_offset_column", "Offset is only supported for regression.");
     }
+    if (_parms._replicate_training_data) {
+      if (_parms._stopping_rounds > 0)
+        error("_stopping_rounds", "Early stopping is not supported when the trees are built on replicated training data.");
+      if (_parms._prebin_nbins > 0)
+        error("_prebin_nbins", "Pre-binning cannot be used with replicated training data.");
+      if (_parms._bundle_exclusive_features)
+        error("_bundle_exclusive_features", "Feature bundling cannot be used with replicated training data.");
+    }
   }
 
   // ----------------------
   private class DRFDriver extends Driver {
     @Override protected boolean doOOBScoring() { return true; }
 
+    @Override protected Frame makeValidWorkspace() { return makeValidWorkspace(_nclass); }
+
     // --- Private data handled only on master node
     // Classification or Regression:
     // Tree votes/SSE of individual trees on OOB rows
@@ -146,6 +158,10 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
     // --------------------------------------------------------------------------
     // Build the next random k-trees representing tid-th tree
     @Override protected boolean buildNextKTrees() {
+      if (_parms._replicate_training_data) {
+        buildTreesLocally(_ntrees);
+        return true; // all the trees are built at once
+      }
       // We're going to build K (nclass) trees - each focused on correcting
       // errors for a single class.
       final DTree[] ktrees = new DTree[_nclass];
@@ -159,8 +175,8 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
       // Move rows into the final leaf rows - fill "Tree" and OUT_BAG_TREES columns and zap the NIDs column
       CollectPreds cp = new CollectPreds(ktrees,leafs,_model.defaultThreshold()).doAll(_train,_parms._build_tree_one_node);
 
-      if (isClassifier())   asVotes(_treeMeasuresOnOOB).append(cp.rightVotes, cp.allRows); // Track right votes over OOB rows for this tree
-      else /* regression */ asSSE  (_treeMeasuresOnOOB).append(cp.sse, cp.allRows);
+      if (isClassifier())   asVotes(_treeMeasuresOnOOB).append(cp.rightVotes[0], cp.allRows[0]); // Track right votes over OOB rows for this tree
+      else /* regression */ asSSE  (_treeMeasuresOnOOB).append(cp.sse[0], cp.allRows[0]);
 
       // Grow the model by K-trees
       _model._output.addKTrees(ktrees);
@@ -168,6 +184,38 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
       return false; //never stop early
     }
 
+    // Build the given number of trees at once, each tree is built on a single node on a replica of the
+    // training data (see LocalTreeBuilder)
+    private void buildTreesLocally(int ntrees) {
+      // Use the same seeds as if the trees were built one by one
+      long[] seeds = new long[ntrees];
+      for (int t = 0; t < ntrees; t++) seeds[t] = _rand.nextLong();
+      boolean[] active = new boolean[_nclass];
+      double[] stumpPreds = new double[_nclass];
+      for (int k = 0; k < _nclass; k++) {
+        active[k] = _model._output._distribution[k] != 0 && !(k==1 && _nclass==2 && _model.binomialOpt());
+        stumpPreds[k] = isClassifier() ? _model._output._priorClassDist[k] : _initialPrediction;
+      }
+      final int firstTree = _model._output._ntrees;
+      LocalTreeBuilder ltb = new LocalTreeBuilder(_train, _ncols, idx_resp(), hasWeightCol() ? idx_weight() : -1, _parms,
+              _mtry, _mtry_per_tree, isClassifier(), active, stumpPreds, seeds, firstTree, _model._output._domains,
+              getGlobalQuantilesKeys()).doAllNodes();
+      recordImprovements(ltb._improvPerVar);
+      for (int t = 0; t < ntrees; t++) {
+        _model._output.addKTrees(ltb._trees[t], ltb._auxTrees[t]);
+        for (int k = 0; k < _nclass; k++)
+          if (ltb._trees[t][k] != null)
+            _model._output._treeStats.updateBy(ltb._depths[t][k], ltb._leaves[t][k]);
+      }
+
+      // Out-of-bag predictions of the new trees - fill "Tree" and OUT_BAG_TREES columns
+      CollectPreds cp = new CollectPreds(_model._output._treeKeys, firstTree, seeds, _model.defaultThreshold()).doAll(_train);
+      for (int t = 0; t < ntrees; t++) {
+        if (isClassifier())   asVotes(_treeMeasuresOnOOB).append(cp.rightVotes[t], cp.allRows[t]);
+        else /* regression */ asSSE  (_treeMeasuresOnOOB).append(cp.sse[t], cp.allRows[t]);
+      }
+    }
+
     // Assumes that the "Work" column are filled with horizontalized (0/1) class memberships per row (or copy of regression response)
     private void growTrees(DTree[] ktrees, int[] leafs, Random rand) {
       // Initial set of histograms.  All trees; one leaf per tree (the root
@@ -187,7 +235,7 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
           // This optimization assumes the 2nd tree of a 2-class system is the
           // inverse of the first (and that the same columns were picked)
           if( k==1 && _nclass==2 && _model.binomialOpt()) continue;
-          ktrees[k] = new DTree(_train, _ncols, _mtry, _mtry_per_tree, rseed, _parms);
+          ktrees[k] = new DTree(_train, _ncols, _mtry, _mtry_per_tree, rseed, _parms, _binning);
           new UndecidedNode(ktrees[k], -1, DHistogram.initialHist(_train, _ncols, adj_nbins, hcs[k][0], rseed, _parms, getGlobalQuantilesKeys()), null); // The "root" node
         }
       }
@@ -214,46 +262,47 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
       for( int k=0; k<_nclass; k++ ) {
         DTree tree = ktrees[k];
         if( tree == null ) continue;
-        int leaf = leafs[k] = tree.len();
-        for( int nid=0; nid<leaf; nid++ ) {
-          if( tree.node(nid) instanceof DecidedNode ) {
-            DecidedNode dn = tree.decided(nid);
-            if( dn._split == null ) { // No decision here, no row should have this NID now
-              if( nid==0 ) {               // Handle the trivial non-splitting tree
-                LeafNode ln = new LeafNode(tree, -1, 0);
-                ln._pred = (float)(isClassifier() ? _model._output._priorClassDist[k] : _initialPrediction);
-              }
-              continue;
-            }
-            for( int i=0; i<dn._nids.length; i++ ) {
-              int cnid = dn._nids[i];
-              if( cnid == -1 || // Bottomed out (predictors or responses known constant)
-                      tree.node(cnid) instanceof UndecidedNode || // Or chopped off for depth
-                      (tree.node(cnid) instanceof DecidedNode &&  // Or not possible to split
-                              ((DecidedNode)tree.node(cnid))._split==null) ) {
-                LeafNode ln = new LeafNode(tree,nid);
-                ln._pred = (float)dn.pred(i);  // Set prediction into the leaf
-                dn._nids[i] = ln.nid(); // Mark a leaf here
-              }
-            }
-          }
-        }
+        leafs[k] = makeLeafNodes(tree, isClassifier() ? _model._output._priorClassDist[k] : _initialPrediction);
       } // -- k-trees are done
     }
 
-    // Collect and write predictions into leafs.
+    // Collect and write predictions into leafs. The trees are either the k-trees just built on the distributed data
+    // (the NIDs columns tell the node of each row), or trees built elsewhere (see LocalTreeBuilder) whose out-of-bag
+    // rows are found by re-doing the sampling the same way it was done by the trees.
     private class CollectPreds extends MRTask<CollectPreds> {
       /* @IN  */ final DTree _trees[]; // Read-only, shared (except at the histograms in the Nodes)
+      /* @IN  */ final Key<CompressedTree>[][] _treeKeys; // Or the keys of the trees built elsewhere
+      /* @IN  */ final int _firstTree;
+      /* @IN  */ final long[] _seeds;     // seeds of the trees built elsewhere
       /* @IN */  double _threshold;      // Sum of squares for this tree only
-      /* @OUT */ double rightVotes; // number of right votes over OOB rows (performed by this tree) represented by DTree[] _trees
-      /* @OUT */ double allRows;    // number of all OOB rows (sampled by this tree)
-      /* @OUT */ float sse;      // Sum of squares for this tree only
-      CollectPreds(DTree trees[], int leafs[], double threshold) { _trees=trees; _threshold = threshold; }
-      final boolean importance = true;
+      /* @OUT */ double[] rightVotes; // per tree: number of right votes over OOB rows (performed by this tree)
+      /* @OUT */ double[] allRows;    // per tree: number of all OOB rows (sampled by this tree)
+      /* @OUT */ float[] sse;         // per tree: sum of squares for this tree only
+      private transient FlatTree[][] _flatTrees;
+      CollectPreds(DTree trees[], int leafs[], double threshold) { this(trees, null, 0, null, threshold); }
+      CollectPreds(Key<CompressedTree>[][] treeKeys, int firstTree, long[] seeds, double threshold) { this(null, treeKeys, firstTree, seeds, threshold); }
+      private CollectPreds(DTree trees[], Key<CompressedTree>[][] treeKeys, int firstTree, long[] seeds, double threshold) {
+        _trees = trees; _treeKeys = treeKeys; _firstTree = firstTree; _seeds = seeds; _threshold = threshold;
+      }
+      @Override protected void setupLocal() {
+        if( _treeKeys == null ) return;
+        _flatTrees = new FlatTree[_seeds.length][_nclass];
+        for( int t=0; t<_seeds.length; t++ )
+          for( int k=0; k<_nclass; k++ )
+            if( _treeKeys[_firstTree+t][k] != null )
+              _flatTrees[t][k] = new FlatTree(_treeKeys[_firstTree+t][k].get(), _model._output._domains);
+      }
       @Override public void map( Chunk[] chks ) {
-        final Chunk    y       = importance ? chk_resp(chks) : null; // Response
-        final double[] rpred   = importance ? new double[1+_nclass] : null; // Row prediction
-        final double[] rowdata = importance ? new double[_ncols] : null; // Pre-allocated row data
+        final int ntrees = _trees != null ? 1 : _seeds.length;
+        rightVotes = new double[ntrees];
+        allRows = new double[ntrees];
+        sse = new float[ntrees];
+        if( _trees != null ) mapBuiltTrees(chks);
+        else mapTreesBuiltElsewhere(chks);
+      }
+      private void mapBuiltTrees( Chunk[] chks ) {
+        final double[] rpred   = new double[1+_nclass]; // Row prediction
+        final double[] rowdata = new double[_ncols]; // Pre-allocated row data
         final Chunk   oobt  = chk_oobt(chks); // Out-of-bag rows counter over all trees
         final Chunk   weights  = hasWeightCol() ? chk_weight(chks) : new C0DChunk(1, chks[0]._len); // Out-of-bag rows counter over all trees
         // Iterate over all rows
@@ -270,7 +319,6 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
               // Update only out-of-bag rows
               // This is out-of-bag row - but we would like to track on-the-fly prediction for the row
               if (wasOOBRow) {
-                final Chunk ct = chk_tree(chks, k); // k-tree working column holding votes for given row
                 nid = ScoreBuildHistogram.oob2Nid(nid);
                 if (tree.node(nid) instanceof UndecidedNode) // If we bottomed out the tree
                   nid = tree.node(nid).pid();                 // Then take parent's decision
@@ -283,50 +331,116 @@ public class DRF extends SharedTree<hex.tree.drf.DRFModel, hex.tree.drf.DRFModel
                     dn = tree.decided(tree.node(nid).pid());    // Then take parent's decision
                   leafnid = dn.getChildNodeID(chks,row); // Decide down to a leafnode
                 }
-                // Setup Tree(i) - on the fly prediction of i-tree for row-th row
-                //   - for classification: cumulative number of votes for this row
-                //   - for regression: cumulative sum of prediction of each tree - has to be normalized by number of trees
                 double prediction = ((LeafNode) tree.node(leafnid)).pred(); // Prediction for this k-class and this row
-                if (importance) rpred[1 + k] = (float) prediction; // for both regression and classification
-                ct.set(row, (float) (ct.atd(row) + prediction));
+                addPrediction(chks, row, k, prediction, rpred);
               }
             }
             // reset help column for this row and this k-class
             nids.set(row, 0);
           } /* end of k-trees iteration */
           // For this tree this row is out-of-bag - i.e., a tree voted for this row
-          if (wasOOBRow) oobt.set(row, oobt.atd(row) + weight); // track number of trees
-          if (importance && weight!=0) {
-            if (wasOOBRow && !y.isNA(row)) {
-              if (isClassifier()) {
-                int treePred = getPrediction(rpred, _model._output._priorClassDist, data_row(chks, row, rowdata), _threshold);
-                int actuPred = (int) y.at8(row);
-                if (treePred==actuPred) rightVotes+=weight; // No miss !
-              } else { // regression
-                double treePred = rpred[1];
-                double actuPred = y.atd(row);
-                sse += (actuPred-treePred)*(actuPred-treePred);
-              }
-              allRows+=weight;
-            }
+          if (wasOOBRow) recordOOBRow(chks, row, 0, weight, rpred, isClassifier() && weight != 0 ? data_row(chks, row, rowdata) : rowdata);
+        }
+      }
+      private void mapTreesBuiltElsewhere( Chunk[] chks ) {
+        final double[] rpred   = new double[1+_nclass]; // Row prediction
+        final double[] rowdata = new double[_ncols]; // Pre-allocated row data
+        final Chunk    y       = chk_resp(chks); // Response
+        final Chunk    weights = hasWeightCol() ? chk_weight(chks) : new C0DChunk(1, chks[0]._len);
+        final Random   rand    = RandomUtils.getRNG(0);
+        for( int row=0; row<y._len; row++ ) {
+          double weight = weights.atd(row);
+          boolean yNA = y.isNA(row);
+          double rate = yNA || _parms._sample_rate_per_class == null ? _parms._sample_rate : _parms._sample_rate_per_class[(int)y.at8(row)];
+          if (weight != 0) data_row(chks, row, rowdata);
+          for( int t=0; t<_seeds.length; t++ ) {
+            // Rows with a missing response are never sampled
+            if( !yNA && !Sample.isOutOfBag(rand, _seeds[t], row + y.start(), rate) ) continue;
+            if( weight!=0 )
+              for( int k=0; k<_nclass; k++ )
+                if( _flatTrees[t][k] != null ) // Empty class is ignored
+                  addPrediction(chks, row, k, _flatTrees[t][k].score(rowdata), rpred);
+            recordOOBRow(chks, row, t, weight, rpred, rowdata);
           }
         }
       }
+      // Setup Tree(i) - on the fly prediction of i-tree for row-th row
+      //   - for classification: cumulative number of votes for this row
+      //   - for regression: cumulative sum of prediction of each tree - has to be normalized by number of trees
+      private void addPrediction( Chunk[] chks, int row, int k, double prediction, double[] rpred ) {
+        rpred[1 + k] = (float) prediction; // for both regression and classification
+        final Chunk ct = chk_tree(chks, k); // k-tree working column holding votes for given row
+        ct.set(row, (float) (ct.atd(row) + prediction));
+      }
+      // Counts the out-of-bag row for the tree and scores the tree's prediction
+      private void recordOOBRow( Chunk[] chks, int row, int t, double weight, double[] rpred, double[] rowdata ) {
+        final Chunk oobt = chk_oobt(chks);
+        oobt.set(row, oobt.atd(row) + weight); // track number of trees
+        final Chunk y = chk_resp(chks);
+        if (weight == 0 || y.isNA(row)) return;
+        if (isClassifier()) {
+          int treePred = getPrediction(rpred, _model._output._priorClassDist, rowdata, _threshold);
+          int actuPred = (int) y.at8(row);
+          if (treePred==actuPred) rightVotes[t]+=weight; // No miss !
+        } else { // regression
+          double treePred = rpred[1];
+          double actuPred = y.atd(row);
+          sse[t] += (actuPred-treePred)*(actuPred-treePred);
+        }
+        allRows[t]+=weight;
+      }
       @Override public void reduce(CollectPreds mrt) {
-        rightVotes += mrt.rightVotes;
-        allRows    += mrt.allRows;
-        sse        += mrt.sse;
+        if( mrt.allRows == null ) return;
+        if( allRows == null ) {
+          rightVotes = mrt.rightVotes; allRows = mrt.allRows; sse = mrt.sse;
+          return;
+        }
+        ArrayUtils.add(rightVotes, mrt.rightVotes);
+        ArrayUtils.add(allRows, mrt.allRows);
+        ArrayUtils.add(sse, mrt.sse);
       }
     }
 
-
-
     @Override protected DRFModel makeModel( Key modelKey, DRFModel.DRFParameters parms) {
       return new DRFModel(modelKey,parms,new DRFModel.DRFOutput(DRF.this));
     }
 
   }
 
+  /**
+   * Inserts LeafNodes holding the predictions below the bottom DecidedNodes of a fully grown tree.
+   * @param tree tree
+   * @param stumpPred prediction of a tree that doesn't split at all
+   * @return node id of the first leaf
+   */
+  static int makeLeafNodes(DTree tree, double stumpPred) {
+    int leaf = tree.len();
+    for( int nid=0; nid<leaf; nid++ ) {
+      if( tree.node(nid) instanceof DecidedNode ) {
+        DecidedNode dn = tree.decided(nid);
+        if( dn._split == null ) { // No decision here, no row should have this NID now
+          if( nid==0 ) {               // Handle the trivial non-splitting tree
+            LeafNode ln = new LeafNode(tree, -1, 0);
+            ln._pred = (float)stumpPred;
+          }
+          continue;
+        }
+        for( int i=0; i<dn._nids.length; i++ ) {
+          int cnid = dn._nids[i];
+          if( cnid == -1 || // Bottomed out (predictors or responses known constant)
+                  tree.node(cnid) instanceof UndecidedNode || // Or chopped off for depth
+                  (tree.node(cnid) instanceof DecidedNode &&  // Or not possible to split
+                          ((DecidedNode)tree.node(cnid))._split==null) ) {
+            LeafNode ln = new LeafNode(tree,nid);
+            ln._pred = (float)dn.pred(i);  // Set prediction into the leaf
+            dn._nids[i] = ln.nid(); // Mark a leaf here
+          }
+        }
+      }
+    }
+    return leaf;
+  }
+
   // Read the 'tree' columns, do model-specific math and put the results in the
   // fs[] array, and return the sum.  Dividing any fs[] element by the sum
   // turns the results into a probability distribution.
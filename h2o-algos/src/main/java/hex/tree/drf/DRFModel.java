@@ -14,6 +14,7 @@ public class DRFModel extends SharedTreeModel<DRFModel, DRFModel.DRFParameters,
     public String javaName() { return DRFModel.class.getName(); }
     public boolean _binomial_double_trees = false;
     public int _mtries = -1; //number of columns to use per split. default depeonds on the algorithm and problem (classification/regression)
+    public boolean _replicate_training_data = false; // build whole trees on single nodes, each node has a replica of the training data
 
     public DRFParameters() {
       super();
@@ -33,12 +34,7 @@ public class DRFModel extends SharedTreeModel<DRFModel, DRFModel.DRFParameters,
 
   @Override protected boolean binomialOpt() { return !_parms._binomial_double_trees; }
 
-  /** Bulk scoring API for one row.  Chunks are all compatible with the model,
-   *  and expect the last Chunks are for the final distribution and prediction.
-   *  Default method is to just load the data into the tmp array, then call
-   *  subclass scoring logic. */
-  @Override protected double[] score0(double[] data, double[] preds, double offset, int ntrees) {
-    super.score0(data, preds, offset, ntrees);
+  @Override protected double[] unifyPreds(double[] data, double[] preds, double offset, int ntrees) {
     int N = _output._ntrees;
     if (_output.nclasses() == 1) { // regression - compute avg over all trees
       if (N>=1) preds[0] /= N;
@@ -0,0 +1,322 @@
+package hex.tree.drf;
+
+import hex.tree.CompressedTree;
+import hex.tree.DHistogram;
+import hex.tree.DTree;
+import hex.tree.DTree.DecidedNode;
+import hex.tree.DTree.UndecidedNode;
+import hex.tree.Sample;
+import jsr166y.CountedCompleter;
+import water.H2O;
+import water.Key;
+import water.LocalMR;
+import water.MRTask;
+import water.MemoryManager;
+import water.MrFun;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.util.AtomicUtils;
+import water.util.RandomUtils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static hex.tree.ScoreBuildHistogram.*;
+
+/**
+ * Builds DRF trees on replicated training data: every tree is built entirely on a single node, the nodes
+ * build different trees at the same time and there is no synchronization between the nodes per tree level.
+ * The trees are compressed on the node that built them and collected at the end of the task.
+ *
+ * <p>Each node fetches all the chunks of the predictors, response and weights (remote chunks are cached
+ * locally) and builds the trees assigned to it (tree t goes to node t % cloud size) in parallel, one tree
+ * per thread. Rows are sampled, assigned to nodes and histogrammed exactly like by {@link Sample} and
+ * {@link hex.tree.ScoreBuildHistogram2}, given the seed the tree is the same as the tree built by the regular
+ * distributed DRF (up to the order of summation in the histograms).
+ *
+ * <p>The working columns of the training frame are not touched, the out-of-bag predictions have to be
+ * collected by the caller.
+ */
+class LocalTreeBuilder extends MRTask<LocalTreeBuilder> {
+
+  /* @IN */ final Frame _fr;          // predictors first, then the response and weights
+  /* @IN */ final int _ncols;         // number of predictors
+  /* @IN */ final int _respIdx;
+  /* @IN */ final int _weightIdx;     // -1 if there are no weights
+  /* @IN */ final DRFModel.DRFParameters _parms;
+  /* @IN */ final int _mtry;
+  /* @IN */ final int _mtryPerTree;
+  /* @IN */ final boolean _classification;
+  /* @IN */ final boolean[] _active;  // per class: true if the class gets a tree
+  /* @IN */ final double[] _stumpPreds; // per class: prediction of a tree without any split
+  /* @IN */ final long[] _seeds;      // per tree: seed, shared by the trees of all classes
+  /* @IN */ final int _firstTree;     // index of the first tree in the model
+  /* @IN */ final String[][] _domains;
+  /* @IN */ final Key[] _quantilesKeys;
+
+  /* @OUT */ CompressedTree[][] _trees;    // per tree and class
+  /* @OUT */ CompressedTree[][] _auxTrees; // per tree and class
+  /* @OUT */ int[][] _depths;
+  /* @OUT */ int[][] _leaves;
+  /* @OUT */ float[] _improvPerVar;        // squared error improvement per variable
+
+  private transient Chunk[][] _chks;  // per chunk: all columns of _fr
+  private transient double[][] _ws;   // per chunk: weights, null if there are no weights
+  private transient int _maxChunkLen;
+
+  LocalTreeBuilder(Frame fr, int ncols, int respIdx, int weightIdx, DRFModel.DRFParameters parms, int mtry, int mtryPerTree,
+                   boolean classification, boolean[] active, double[] stumpPreds, long[] seeds, int firstTree,
+                   String[][] domains, Key[] quantilesKeys) {
+    _fr = fr;
+    _ncols = ncols;
+    _respIdx = respIdx;
+    _weightIdx = weightIdx;
+    _parms = parms;
+    _mtry = mtry;
+    _mtryPerTree = mtryPerTree;
+    _classification = classification;
+    _active = active;
+    _stumpPreds = stumpPreds;
+    _seeds = seeds;
+    _firstTree = firstTree;
+    _domains = domains;
+    _quantilesKeys = quantilesKeys;
+  }
+
+  @Override protected void setupLocal() {
+    final int ntrees = _seeds.length;
+    final int nclass = _active.length;
+    _trees = new CompressedTree[ntrees][];
+    _auxTrees = new CompressedTree[ntrees][];
+    _depths = new int[ntrees][];
+    _leaves = new int[ntrees][];
+    _improvPerVar = new float[_ncols];
+    final int nodes = H2O.CLOUD.size();
+    final int self = H2O.SELF.index();
+    int nlocal = 0;
+    for (int t = self; t < ntrees; t += nodes) nlocal++;
+    if (nlocal == 0) return;
+    final int[] localTrees = new int[nlocal];
+    for (int t = self, i = 0; t < ntrees; t += nodes) localTrees[i++] = t;
+    for (int t : localTrees) {
+      _trees[t] = new CompressedTree[nclass];
+      _auxTrees[t] = new CompressedTree[nclass];
+      _depths[t] = new int[nclass];
+      _leaves[t] = new int[nclass];
+    }
+    replicate();
+    // Trees are built in parallel, each tree writes into its own slots of the output arrays
+    addToPendingCount(1);
+    H2O.submitTask(new LocalMR(new MrFun() {
+      @Override protected void map(int id) { buildTree(localTrees[id]); }
+    }, nlocal, new H2O.H2OCountedCompleter(this) {
+      @Override public void onCompletion(CountedCompleter caller) {
+        _chks = null;
+        _ws = null;
+      }
+    }));
+  }
+
+  // Local copy of the whole training frame (the chunks of other nodes are fetched once)
+  private void replicate() {
+    Vec[] vecs = _fr.vecs();
+    int nchunks = _fr.anyVec().nChunks();
+    _chks = new Chunk[nchunks][vecs.length];
+    _ws = _weightIdx >= 0 ? new double[nchunks][] : null;
+    for (int cidx = 0; cidx < nchunks; cidx++) {
+      for (int c = 0; c < vecs.length; c++)
+        _chks[cidx][c] = vecs[c].chunkForChunkIdx(cidx);
+      int len = _chks[cidx][0]._len;
+      _maxChunkLen = Math.max(_maxChunkLen, len);
+      if (_ws != null)
+        _ws[cidx] = _chks[cidx][_weightIdx].getDoubles(MemoryManager.malloc8d(len), 0, len);
+    }
+  }
+
+  @Override public void reduce(LocalTreeBuilder ltb) {
+    for (int t = 0; t < _trees.length; t++) {
+      if (ltb._trees[t] == null) continue;
+      _trees[t] = ltb._trees[t];
+      _auxTrees[t] = ltb._auxTrees[t];
+      _depths[t] = ltb._depths[t];
+      _leaves[t] = ltb._leaves[t];
+    }
+    if (_improvPerVar != ltb._improvPerVar)
+      for (int c = 0; c < _improvPerVar.length; c++)
+        _improvPerVar[c] += ltb._improvPerVar[c];
+  }
+
+  private void buildTree(int t) {
+    for (int k = 0; k < _active.length; k++) {
+      if (!_active[k]) continue;
+      DTree tree = new DTree(_fr, _ncols, _mtry, _mtryPerTree, _seeds[t], _parms);
+      growTree(tree, k, _seeds[t]);
+      DRF.makeLeafNodes(tree, _stumpPreds[k]);
+      _trees[t][k] = tree.compress(_firstTree + t, k, _domains);
+      _auxTrees[t][k] = new CompressedTree(tree._abAux.buf(), -1, -1, -1);
+      _depths[t][k] = tree._depth;
+      _leaves[t][k] = tree._leaves;
+    }
+  }
+
+  // Grows the tree level by level, the same way as SharedTree#buildLayer
+  private void growTree(DTree tree, int k, long seed) {
+    final int nchunks = _chks.length;
+    // Sample - mark the rows not sampled as OUT_OF_BAG
+    final int[][] nids = new int[nchunks][];
+    Random rand = RandomUtils.getRNG(seed);
+    for (int cidx = 0; cidx < nchunks; cidx++) {
+      Chunk ys = _chks[cidx][_respIdx];
+      int[] is = nids[cidx] = new int[ys._len];
+      for (int row = 0; row < ys._len; row++) {
+        boolean skip = ys.isNA(row);
+        if (!skip) {
+          double rate = _parms._sample_rate_per_class == null ? _parms._sample_rate : _parms._sample_rate_per_class[(int) ys.at8(row)];
+          skip = Sample.isOutOfBag(rand, seed, row + ys.start(), rate);
+        }
+        if (skip) is[row] = OUT_OF_BAG;
+      }
+    }
+    // The root
+    int adj_nbins = Math.max(_parms._nbins_top_level, _parms._nbins);
+    new UndecidedNode(tree, -1, DHistogram.initialHist(_fr, _ncols, adj_nbins, new DHistogram[_ncols], seed, _parms, _quantilesKeys), null);
+    DHistogram[][] hcs = new DHistogram[][]{tree.undecided(0)._hs};
+
+    final double[] ys = MemoryManager.malloc8d(_maxChunkLen);
+    final double[] cs = MemoryManager.malloc8d(_maxChunkLen);
+    final double[] ones = MemoryManager.malloc8d(_maxChunkLen);
+    Arrays.fill(ones, 1);
+    int leaf = 0;
+    for (int depth = 0; depth < _parms._max_depth; depth++) {
+      final int tmax = tree.len();
+      final int numLeafs = tmax - leaf;
+      boolean[][] fill = fillMask(tree, leaf, hcs);
+      // Score the rows against the decisions of the last level and build the histograms of the new leaves
+      for (int cidx = 0; cidx < nchunks; cidx++) {
+        Chunk[] chks = _chks[cidx];
+        int[] lids = leaf > 0 ? scoreDecide(tree, leaf, chks, nids[cidx]) : rootIds(nids[cidx]);
+        int len = lids.length;
+        // Sort the rows by leaf
+        int[] nh = new int[numLeafs + 1];
+        for (int i : lids)
+          if (i >= 0)
+            nh[i + 1]++;
+        for (int i = 0; i < numLeafs; i++) nh[i + 1] += nh[i];
+        int[] rs = new int[len];
+        for (int row = 0; row < len; row++)
+          if (lids[row] >= 0)
+            rs[nh[lids[row]]++] = row;
+        workColumn(chks[_respIdx], k, ys);
+        double[] ws = _ws != null ? _ws[cidx] : ones;
+        for (int c = 0; c < _ncols; c++) {
+          boolean extracted = false;
+          for (int n = 0; n < numLeafs; n++) {
+            int hi = nh[n];
+            int lo = n == 0 ? 0 : nh[n - 1];
+            if (!fill[n][c] || hi == lo) continue;
+            DHistogram h = hcs[n][c];
+            if (!h.isInitialized()) h.init();
+            if (!extracted) {
+              chks[c].getDoubles(cs, 0, len);
+              extracted = true;
+            }
+            h.updateHisto(ws, cs, ys, rs, hi, lo);
+          }
+        }
+      }
+      for (DHistogram[] hs : hcs)
+        for (DHistogram h : hs)
+          if (h != null) h.reducePrecision();
+      for (int n = 0; n < numLeafs; n++) { // Derive the histograms skipped by the pass over the data
+        UndecidedNode udn = tree.undecided(leaf + n);
+        if (udn.derivedCols() != null)
+          udn.subtractHistograms(hcs[n], hcs[udn.siblingNid() - leaf]);
+      }
+      // Split the leaves
+      boolean didSplit = false;
+      for (int n = 0; n < numLeafs; n++) {
+        UndecidedNode udn = tree.undecided(leaf + n);
+        DecidedNode dn = new DecidedNode(udn, hcs[n], udn._cs);
+        if (dn._split == null) udn.do_not_split();
+        else {
+          didSplit = true;
+          DTree.Split s = dn._split;
+          AtomicUtils.FloatArray.add(_improvPerVar, s.col(), (float) (s.pre_split_se() - s.se()));
+        }
+      }
+      leaf = tmax;
+      hcs = new DHistogram[tree.len() - tmax][];
+      for (int nl = tmax; nl < tree.len(); nl++)
+        hcs[nl - tmax] = tree.undecided(nl)._hs;
+      if (!didSplit) break;
+      tree._depth++;
+    }
+  }
+
+  // Per leaf and column: true if the histogram is built from the data
+  private boolean[][] fillMask(DTree tree, int leaf, DHistogram[][] hcs) {
+    boolean[][] fill = new boolean[hcs.length][_ncols];
+    for (int n = 0; n < hcs.length; n++) {
+      UndecidedNode udn = tree.undecided(leaf + n);
+      for (int c = 0; c < _ncols; c++)
+        fill[n][c] = hcs[n][c] != null;
+      if (udn._scoreCols != null) {
+        boolean[] scored = new boolean[_ncols];
+        for (int c : udn._scoreCols) scored[c] = true;
+        for (int c = 0; c < _ncols; c++) fill[n][c] &= scored[c];
+      }
+      if (udn.derivedCols() != null)
+        for (int c : udn.derivedCols()) fill[n][c] = false;
+    }
+    return fill;
+  }
+
+  // Target of the tree: 0/1 class membership (classification) or the response (regression), 0 for NAs
+  private void workColumn(Chunk resp, int k, double[] ys) {
+    for (int row = 0; row < resp._len; row++) {
+      if (resp.isNA(row)) ys[row] = 0;
+      else if (_classification) ys[row] = resp.at8(row) == k ? 1 : 0;
+      else ys[row] = (float) resp.atd(row);
+    }
+  }
+
+  // First pass: all rows are in the root
+  private static int[] rootIds(int[] nids) {
+    int[] res = new int[nids.length];
+    for (int row = 0; row < nids.length; row++)
+      if (isDecidedRow(nids[row]))
+        res[row] = DECIDED_ROW;
+    return res;
+  }
+
+  // Moves the rows one level down the tree, same as ScoreBuildHistogram2#score_decide
+  private static int[] scoreDecide(DTree tree, int leaf, Chunk[] chks, int[] nnids) {
+    int[] res = nnids.clone();
+    for (int row = 0; row < nnids.length; row++) {
+      int nid = nnids[row];
+      if (isDecidedRow(nid)) {
+        res[row] -= leaf;
+        continue;
+      }
+      boolean oob = isOOBRow(nid);
+      if (oob) nid = oob2Nid(nid);
+      DecidedNode dn = tree.decided(nid);
+      if (dn._split == null) {
+        if (DTree.isRootNode(dn)) { res[row] = nid - leaf; continue; }
+        nid = dn._pid;
+        int xnid = oob ? nid2Oob(nid) : nid;
+        nnids[row] = xnid;
+        res[row] = xnid - leaf;
+        dn = tree.decided(nid);
+      }
+      nid = dn.getChildNodeID(chks, row);
+      if (!isDecidedRow(nid)) {
+        if (oob) nid = nid2Oob(nid);
+        nnids[row] = nid;
+      }
+      res[row] = nid - leaf;
+    }
+    return res;
+  }
+}
@@ -41,6 +41,11 @@ public class GBM extends SharedTree<GBMModel,GBMModel.GBMParameters,GBMModel.GBM
     return 2; //GBM always has some serial work, so it's fine to build two models at once
   }
 
+  @Override protected int maxLeaves() {
+    if (_parms._grow_policy != GBMModel.GBMParameters.GrowPolicy.lossguide) return 0;
+    return _parms._max_leaves;
+  }
+
   /** Start the GBM training Job on an F/J thread. */
   @Override protected GBMDriver trainModelImpl() {
     return new GBMDriver();
@@ -148,29 +153,57 @@ public class GBM extends SharedTree<GBMModel,GBMModel.GBMParameters,GBMModel.GBM
       error("_max_abs_leafnode_pred", "max_abs_leafnode_pred must be larger than 0.");
     if (_parms._pred_noise_bandwidth < 0)
       error("_pred_noise_bandwidth", "pred_noise_bandwidth must be >= 0.");
+    if (_parms._grow_policy != GBMModel.GBMParameters.GrowPolicy.lossguide) {
+      if (_parms._max_leaves != 0)
+        error("_max_leaves", "max_leaves can only be used with grow_policy=lossguide.");
+    } else if (_parms._max_leaves < 2)
+      error("_max_leaves", "max_leaves must be at least 2 with grow_policy=lossguide.");
+    if (_parms._goss) {
+      if (!(0. <= _parms._goss_top_rate && _parms._goss_top_rate < 1.0))
+        error("_goss_top_rate", "goss_top_rate must be in interval [0,1).");
+      if (!(0. < _parms._goss_other_rate && _parms._goss_other_rate <= 1.0))
+        error("_goss_other_rate", "goss_other_rate must be in interval (0,1].");
+      if (_parms._goss_top_rate + _parms._goss_other_rate > 1.0)
+        error("_goss_other_rate", "goss_top_rate + goss_other_rate must not be larger than 1.");
+      if (_parms._sample_rate < 1 || _parms._sample_rate_per_class != null)
+        error("_goss", "GOSS cannot be combined with sample_rate or sample_rate_per_class.");
+      if (_parms._distribution == DistributionFamily.laplace || _parms._distribution == DistributionFamily.quantile
+              || _parms._distribution == DistributionFamily.huber)
+        error("_goss", "GOSS is not supported for " + _parms._distribution + " distribution.");
+    }
 
     if ((_train != null) && (_parms._monotone_constraints != null)) {
       TreeUtils.checkMonotoneConstraints(this, _train, _parms._monotone_constraints);
     }
   }
 
+  /** Name of the working column holding the GOSS weights of the sampled rows */
+  private static final String GOSS_WEIGHTS = "GOSS_weights";
+
+  @Override
+  protected Vec treeWeights(Frame fr) {
+    return _parms._goss ? fr.vec(GOSS_WEIGHTS) : null;
+  }
+
   // ----------------------
   private class GBMDriver extends Driver {
     private transient FrameMap frameMap;
+    private transient FrameMap treeFrameMap; // same as frameMap, weights are the GOSS weights if GOSS is enabled
 
     @Override
     protected Frame makeValidWorkspace() {
-      // FIXME: this is not efficient, we need a sparse volatile chunks
-      Vec[] tmp = _valid.anyVec().makeVolatileDoubles(numClassTrees());
-      String[] tmpNames = new String[tmp.length];
-      for (int i = 0; i < tmpNames.length; i++)
-        tmpNames[i] = "__P_" + i;
-      return new Frame(tmpNames, tmp);
+      return makeValidWorkspace(numClassTrees());
     }
 
     @Override protected boolean doOOBScoring() { return false; }
     @Override protected void initializeModelSpecifics() {
       frameMap = new FrameMap(GBM.this);
+      treeFrameMap = frameMap;
+      if (_parms._goss) {
+        _train.add(GOSS_WEIGHTS, _train.anyVec().makeVolatileDoubles(1)[0]);
+        treeFrameMap = new FrameMap(GBM.this);
+        treeFrameMap.weightIndex = _train.find(GOSS_WEIGHTS);
+      }
       _mtry_per_tree = Math.max(1, (int)(_parms._col_sample_rate_per_tree * _ncols)); //per-tree
       if (!(1 <= _mtry_per_tree && _mtry_per_tree <= _ncols)) throw new IllegalArgumentException("Computed mtry_per_tree should be in interval <1,"+_ncols+"> but it is " + _mtry_per_tree);
       _mtry = Math.max(1, (int)(_parms._col_sample_rate * _parms._col_sample_rate_per_tree * _ncols)); //per-split
@@ -359,7 +392,7 @@ public class GBM extends SharedTree<GBMModel,GBMModel.GBMParameters,GBMModel.GBM
       // ----
       // ESL2, page 387.  Step 2b iii.  Compute the gammas (leaf node predictions === fit best constant), and store them back
       // into the tree leaves.  Includes learn_rate.
-      GammaPass gp = new GammaPass(frameMap, ktrees, leaves, new Distribution(_parms), _nclass);
+      GammaPass gp = new GammaPass(treeFrameMap, ktrees, leaves, new Distribution(_parms), _nclass);
       gp.doAll(_train);
       if (_parms._distribution == DistributionFamily.laplace) {
         fitBestConstantsQuantile(ktrees, leaves[0], 0.5); //special case for Laplace: compute the median for each leaf node and store that as prediction
@@ -430,14 +463,28 @@ public class GBM extends SharedTree<GBMModel,GBMModel.GBMParameters,GBMModel.GBM
       for (int k = 0; k < numClassTrees(); k++) {
         // Initially setup as-if an empty-split had just happened
         if (_model._output._distribution[k] != 0) {
-          ktrees[k] = new DTree(_train, _ncols, _mtry, _mtry_per_tree, rseed, _parms);
+          ktrees[k] = new DTree(_train, _ncols, _mtry, _mtry_per_tree, rseed, _parms, _binning);
           DHistogram[] hist = DHistogram.initialHist(_train, _ncols, adj_nbins, hcs[k][0], rseed, _parms, getGlobalQuantilesKeys());
           new UndecidedNode(ktrees[k], DTree.NO_PARENT, hist, cs); // The "root" node
         }
       }
 
       // Sample - mark the lines by putting 'OUT_OF_BAG' into nid(<klass>) vector
-      if (_parms._sample_rate < 1 || _parms._sample_rate_per_class != null) {
+      if (_parms._goss) {
+        Frame gossFr = new Frame();
+        boolean[] active = new boolean[_nclass];
+        for (int k = 0; k < _nclass; k++) {
+          active[k] = ktrees[k] != null;
+          gossFr.add("work_" + k, vec_work(_train, k));
+        }
+        for (int k = 0; k < _nclass; k++)
+          gossFr.add("nids_" + k, vec_nids(_train, k));
+        gossFr.add("response", _response);
+        if (hasWeightCol())
+          gossFr.add("weights", vec_weight(_train));
+        gossFr.add(GOSS_WEIGHTS, _train.vec(GOSS_WEIGHTS));
+        GossSample.sample(gossFr, active, hasWeightCol(), _parms._goss_top_rate, _parms._goss_other_rate, rseed);
+      } else if (_parms._sample_rate < 1 || _parms._sample_rate_per_class != null) {
         Sample ss[] = new Sample[_nclass];
         for (int k = 0; k < _nclass; k++)
           if (ktrees[k] != null)
@@ -455,12 +502,18 @@ public class GBM extends SharedTree<GBMModel,GBMModel.GBMParameters,GBMModel.GBM
       // ----
       // ESL2, page 387.  Step 2b ii.
       // One Big Loop till the ktrees are of proper depth.
-      // Adds a layer to the trees each pass.
-      int depth = 0;
-      for (; depth < _parms._max_depth; depth++) {
-        hcs = buildLayer(_train, _parms._nbins, _parms._nbins_cats, ktrees, leaves, hcs, _parms._build_tree_one_node);
-        // If we did not make any new splits, then the tree is split-to-death
-        if (hcs == null) break;
+      // Adds a layer to the trees each pass (or expands the best leaves for lossguide).
+      if (maxLeaves() > 0) {
+        do {
+          hcs = buildLayer(_train, _parms._nbins, _parms._nbins_cats, ktrees, leaves, hcs, _parms._build_tree_one_node);
+        } while (hcs != null); // Stops when the leaf budget is used up or no leaf can be split
+      } else {
+        int depth = 0;
+        for (; depth < _parms._max_depth; depth++) {
+          hcs = buildLayer(_train, _parms._nbins, _parms._nbins_cats, ktrees, leaves, hcs, _parms._build_tree_one_node);
+          // If we did not make any new splits, then the tree is split-to-death
+          if (hcs == null) break;
+        }
       }
 
       // Each tree bottomed-out in a DecidedNode; go 1 more level and insert
@@ -473,6 +526,7 @@ public class GBM extends SharedTree<GBMModel,GBMModel.GBMParameters,GBMModel.GBM
         for (int nid = 0; nid < leaf; nid++) {
           if (tree.node(nid) instanceof DecidedNode) {
             DecidedNode dn = tree.decided(nid);
+            if (dn.isDeferred()) continue; // Leaf never expanded (lossguide), becomes a leaf of its parent
             if (dn._split == null) { // No decision here, no row should have this NID now
               if (nid == 0)               // Handle the trivial non-splitting tree
                 new LeafNode(tree, DTree.NO_PARENT, 0);
@@ -482,8 +536,8 @@ public class GBM extends SharedTree<GBMModel,GBMModel.GBMParameters,GBMModel.GBM
               int cnid = dn._nids[i];
               if (cnid == ScoreBuildHistogram.UNDECIDED_CHILD_NODE_ID ||    // Bottomed out (predictors or responses known constant)
                       tree.node(cnid) instanceof UndecidedNode || // Or chopped off for depth
-                      (tree.node(cnid) instanceof DecidedNode &&  // Or not possible to split
-                              ((DecidedNode) tree.node(cnid))._split == null)) {
+                      (tree.node(cnid) instanceof DecidedNode &&  // Or not possible to split (or not expanded)
+                              (((DecidedNode) tree.node(cnid))._split == null || ((DecidedNode) tree.node(cnid)).isDeferred()))) {
                 dn._nids[i] = new LeafNode(tree, nid).nid(); // Mark a leaf here
               }
             }
@@ -1033,7 +1087,7 @@ public class GBM extends SharedTree<GBMModel,GBMModel.GBMParameters,GBMModel.GBM
           if (wasOOBRow) nid = ScoreBuildHistogram.oob2Nid(nid);
           if (nid < 0) continue;
           DecidedNode dn = tree.decided(nid);           // Must have a decision point
-          if (dn._split == null)                    // Unable to decide?
+          if (dn._split == null || dn.isDeferred()) // Unable to decide (or never expanded)?
             dn = tree.decided(dn.pid());  // Then take parent's decision
           int leafnid = dn.getChildNodeID(chks, row); // Decide down to a leafnode
           assert leaf <= leafnid && leafnid < tree._len :
@@ -25,6 +25,17 @@ public class GBMModel extends SharedTreeModel<GBMModel, GBMModel.GBMParameters,
     public double _max_abs_leafnode_pred;
     public double _pred_noise_bandwidth;
     public KeyValue[] _monotone_constraints;
+    public GrowPolicy _grow_policy;
+    public int _max_leaves;
+    public boolean _goss;
+    public double _goss_top_rate;
+    public double _goss_other_rate;
+
+    /**
+     * How the trees are grown: level by level up to max_depth (depthwise), or always splitting the leaf
+     * with the largest reduction of the loss first, until there are max_leaves leaves (lossguide).
+     */
+    public enum GrowPolicy { depthwise, lossguide }
 
     public GBMParameters() {
       super();
@@ -36,6 +47,11 @@ public class GBMModel extends SharedTreeModel<GBMModel, GBMModel.GBMParameters,
       _max_depth = 5;
       _max_abs_leafnode_pred = Double.MAX_VALUE;
       _pred_noise_bandwidth =0;
+      _grow_policy = GrowPolicy.depthwise;
+      _max_leaves = 0;
+      _goss = false;
+      _goss_top_rate = 0.2;
+      _goss_other_rate = 0.1;
     }
 
     public String algoName() { return "GBM"; }
@@ -150,34 +166,8 @@ public class GBMModel extends SharedTreeModel<GBMModel, GBMModel.GBMParameters,
     }
   }
 
-  @Override
-  protected final double[] score0Incremental(Score.ScoreIncInfo sii, Chunk[] chks, double offset, int row_in_chunk, double[] tmp, double[] preds) {
-    assert _output.nfeatures() == tmp.length;
-    for (int i = 0; i < tmp.length; i++)
-      tmp[i] = chks[i].atd(row_in_chunk);
-
-    if (sii._startTree == 0)
-      Arrays.fill(preds,0);
-    else
-      for (int i = 0; i < sii._workspaceColCnt; i++)
-        preds[sii._predsAryOffset + i] = chks[sii._workspaceColIdx + i].atd(row_in_chunk);
-
-    score0(tmp, preds, offset, sii._startTree, _output._treeKeys.length);
-
-    for (int i = 0; i < sii._workspaceColCnt; i++)
-      chks[sii._workspaceColIdx + i].set(row_in_chunk, preds[sii._predsAryOffset + i]);
-
-    score0Probabilities(preds, offset);
-    score0PostProcessSupervised(preds, tmp);
-    return preds;
-  }
-
-  /** Bulk scoring API for one row.  Chunks are all compatible with the model,
-   *  and expect the last Chunks are for the final distribution and prediction.
-   *  Default method is to just load the data into the tmp array, then call
-   *  subclass scoring logic. */
-  @Override protected double[] score0(double data[/*ncols*/], double preds[/*nclasses+1*/], double offset, int ntrees) {
-    super.score0(data, preds, offset, ntrees);    // These are f_k(x) in Algorithm 10.4
+  @Override protected double[] unifyPreds(double data[/*ncols*/], double preds[/*nclasses+1*/], double offset, int ntrees) {
+    // preds are f_k(x) in Algorithm 10.4
     return score0Probabilities(preds, offset);
   }
 
@@ -0,0 +1,148 @@
+package hex.tree.gbm;
+
+import hex.tree.ScoreBuildHistogram;
+import water.MRTask;
+import water.fvec.C4VolatileChunk;
+import water.fvec.C8DVolatileChunk;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.util.ArrayUtils;
+import water.util.RandomUtils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Gradient-based One-Side Sampling (GOSS), see Ke et al.: LightGBM: A Highly Efficient Gradient Boosting Decision Tree.
+ *
+ * <p>Rows with a large gradient (the top {@code topRate} fraction of rows) are always used to build the next trees,
+ * from the remaining rows only a random sample of {@code otherRate} (relative to all rows) is used. The sampled rows
+ * with a small gradient are up-weighted by {@code (1 - topRate) / otherRate} to keep the split gains and leaf values
+ * unbiased. Rows that are not sampled keep their original weight and are marked out-of-bag exactly like with uniform
+ * row sampling ({@link hex.tree.Sample}).
+ *
+ * <p>The gradient of a row is the (weighted) absolute value of the residual, summed over all classes.
+ *
+ * <p>Expected layout of the frame: residuals (one column per class), node ids (one column per class), response,
+ * observation weights (optional), GOSS weights (output).
+ */
+class GossSample extends MRTask<GossSample> {
+
+  /** Maximum number of gradients collected to estimate the threshold of the top rows */
+  private static final int THRESHOLD_SAMPLE_SIZE = 100000;
+
+  private final boolean[] _active; // classes with a tree
+  private final boolean _hasWeights;
+  private final double _threshold;
+  private final float _otherProb;
+  private final double _otherWeight;
+  private final long _seed;
+
+  private GossSample(boolean[] active, boolean hasWeights, double threshold, double topRate, double otherRate, long seed) {
+    _active = active;
+    _hasWeights = hasWeights;
+    _threshold = threshold;
+    _otherProb = (float) (otherRate / (1 - topRate));
+    _otherWeight = (1 - topRate) / otherRate;
+    _seed = seed;
+  }
+
+  /**
+   * Marks the rows not sampled for the next trees as out-of-bag and fills in the GOSS weights.
+   * @param fr frame with the layout described in the class description
+   * @param active classes that have a tree
+   * @param hasWeights true if the frame contains observation weights
+   * @param topRate fraction of rows with the largest gradients
+   * @param otherRate fraction of rows sampled from the rest
+   * @param seed seed of the trees
+   */
+  static void sample(Frame fr, boolean[] active, boolean hasWeights, double topRate, double otherRate, long seed) {
+    double threshold = new GradientSample(active, hasWeights, (double) THRESHOLD_SAMPLE_SIZE / fr.numRows(), seed)
+            .doAll(fr).threshold(topRate);
+    new GossSample(active, hasWeights, threshold, topRate, otherRate, seed).doAll(fr);
+  }
+
+  private static double gradient(Chunk[] cs, boolean[] active, Chunk weights, int row) {
+    double g = 0;
+    for (int k = 0; k < active.length; k++)
+      if (active[k])
+        g += Math.abs(cs[k].atd(row));
+    return weights != null ? g * weights.atd(row) : g;
+  }
+
+  @Override
+  public void map(Chunk[] cs) {
+    final int nclass = _active.length;
+    final Chunk ys = cs[2 * nclass];
+    final Chunk weights = _hasWeights ? cs[2 * nclass + 1] : null;
+    final double[] gossWeights = ((C8DVolatileChunk) cs[cs.length - 1]).getValues();
+    final int[][] nids = new int[nclass][];
+    for (int k = 0; k < nclass; k++)
+      if (_active[k])
+        nids[k] = ((C4VolatileChunk) cs[nclass + k]).getValues();
+    Random rand = RandomUtils.getRNG(_seed);
+    for (int row = 0; row < ys._len; row++) {
+      double w = weights != null ? weights.atd(row) : 1;
+      gossWeights[row] = w;
+      boolean skip = ys.isNA(row);
+      if (!skip && w != 0 && gradient(cs, _active, weights, row) < _threshold) {
+        rand.setSeed(_seed + row + ys.start()); //seeding is independent of chunking
+        skip = rand.nextFloat() >= _otherProb;
+        if (!skip)
+          gossWeights[row] = w * _otherWeight;
+      }
+      if (skip)
+        for (int k = 0; k < nclass; k++)
+          if (_active[k])
+            nids[k][row] = ScoreBuildHistogram.OUT_OF_BAG; // Flag row as being ignored by sampling
+    }
+  }
+
+  // Random sample of the gradients, used to find the threshold of the top rows
+  private static class GradientSample extends MRTask<GradientSample> {
+    private final boolean[] _active;
+    private final boolean _hasWeights;
+    private final double _rate;
+    private final long _seed;
+    double[] _gs;
+
+    GradientSample(boolean[] active, boolean hasWeights, double rate, long seed) {
+      _active = active;
+      _hasWeights = hasWeights;
+      _rate = rate;
+      _seed = seed;
+    }
+
+    @Override
+    public void map(Chunk[] cs) {
+      final int nclass = _active.length;
+      final Chunk ys = cs[2 * nclass];
+      final Chunk weights = _hasWeights ? cs[2 * nclass + 1] : null;
+      Random rand = RandomUtils.getRNG(_seed);
+      double[] gs = new double[_rate >= 1 ? ys._len : Math.min(ys._len, (int) (ys._len * _rate * 2) + 16)];
+      int n = 0;
+      for (int row = 0; row < ys._len; row++) {
+        if (ys.isNA(row) || (weights != null && weights.atd(row) == 0)) continue;
+        if (_rate < 1) {
+          rand.setSeed(_seed + 0xC0FFEE + row + ys.start());
+          if (rand.nextFloat() >= _rate) continue;
+        }
+        if (n == gs.length) gs = Arrays.copyOf(gs, Math.min(ys._len, 2 * n));
+        gs[n++] = gradient(cs, _active, weights, row);
+      }
+      _gs = Arrays.copyOf(gs, n);
+    }
+
+    @Override
+    public void reduce(GradientSample mrt) {
+      _gs = ArrayUtils.append(_gs, mrt._gs);
+    }
+
+    double threshold(double topRate) {
+      if (_gs == null || _gs.length == 0 || topRate == 0) return Double.POSITIVE_INFINITY;
+      Arrays.sort(_gs);
+      return _gs[Math.min((int) ((1 - topRate) * _gs.length), _gs.length - 1)];
+    }
+  }
+
+}
@@ -0,0 +1,139 @@
+package hex;
+
+import hex.deeplearning.DeepLearning;
+import hex.deeplearning.DeepLearningModel;
+import hex.deeplearning.DeepLearningModel.DeepLearningParameters;
+import hex.glm.GLM;
+import hex.glm.GLMModel;
+import hex.glm.GLMModel.GLMParameters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Key;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import static org.junit.Assert.*;
+
+public class DataInfoCacheTest extends TestUtil {
+  @BeforeClass static public void setup() {  stall_till_cloudsize(1); }
+
+  @Before @After public void clear() { DataInfoCache.clear(); }
+
+  private static Frame makeFrame() {
+    return new TestFrameBuilder()
+            .withName("DataInfoCacheTest")
+            .withColNames("x", "c", "y")
+            .withVecTypes(Vec.T_NUM, Vec.T_CAT, Vec.T_NUM)
+            .withDataForCol(0, ard(1, 2, Double.NaN, 4, 5))
+            .withDataForCol(1, ar("a", "b", "a", "c", "b"))
+            .withDataForCol(2, ard(1, 0, 1, 0, 1))
+            .build();
+  }
+
+  private static DataInfo make(Frame fr) {
+    return new DataInfo(fr.clone(), null, 1, false, DataInfo.TransformType.STANDARDIZE, DataInfo.TransformType.NONE, false, true, false, false, false, false);
+  }
+
+  @Test public void testAcquireRelease() {
+    Scope.enter();
+    try {
+      Frame fr = Scope.track(makeFrame());
+      Key owner1 = Key.make(), owner2 = Key.make();
+      String key = DataInfoCache.key(fr, null, "test", 1);
+      assertEquals(key, DataInfoCache.key(fr, null, "test", 1));
+      assertNotEquals(key, DataInfoCache.key(fr, null, "test", 2));
+      assertNotEquals(key, DataInfoCache.key(fr, fr, "test", 1));
+      assertNull(DataInfoCache.acquire(key, owner1, fr.clone(), null));
+      assertEquals(0, DataInfoCache.hits());
+      DataInfo dinfo = DataInfoCache.put(key, owner1, make(fr));
+      // the cached copy is not changed by the caller
+      dinfo._normMul[0] = 42;
+      Frame train = fr.clone();
+      DataInfo cached = DataInfoCache.acquire(key, owner2, train, null);
+      assertNotNull(cached);
+      assertEquals(1, DataInfoCache.hits());
+      assertNotEquals(dinfo._key, cached._key);
+      assertArrayEquals(make(fr)._normMul, cached._normMul, 0);
+      assertArrayEquals(dinfo._catOffsets, cached._catOffsets);
+      assertArrayEquals(dinfo._numMeans, cached._numMeans, 0);
+      assertArrayEquals(dinfo._adaptedFrame.names(), cached._adaptedFrame.names());
+      assertArrayEquals(cached._adaptedFrame.names(), train.names()); // restructured like by the constructor
+      // unused entries are evicted beyond the limit, referenced ones are kept
+      int maxUnused = DataInfoCache.MAX_UNUSED;
+      DataInfoCache.MAX_UNUSED = 0;
+      try {
+        DataInfoCache.release(owner1);
+        assertEquals(1, DataInfoCache.size());
+        DataInfoCache.release(owner2);
+        assertEquals(0, DataInfoCache.size());
+      } finally {
+        DataInfoCache.MAX_UNUSED = maxUnused;
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  // the second model of the same kind on the same frame uses the cached DataInfo and gets the same result
+  @Test public void testModelsShareDataInfo() {
+    Scope.enter();
+    try {
+      Frame fr = Scope.track(new TestFrameBuilder()
+              .withName("DataInfoCacheModels")
+              .withColNames("x1", "x2", "w", "y")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM)
+              .withRandomDoubleDataForCol(0, 1000, -1, 1, 1)
+              .withRandomDoubleDataForCol(1, 1000, -1, 1, 2)
+              .withRandomIntDataForCol(2, 1000, 1, 4, 3)
+              .withRandomDoubleDataForCol(3, 1000, 0, 10, 4)
+              .build());
+      double [] mse = new double[4];
+      for (int i = 0; i < 2; ++i) {
+        GLMParameters glmParms = new GLMParameters(GLMParameters.Family.gaussian);
+        glmParms._train = fr._key;
+        glmParms._response_column = "y";
+        glmParms._weights_column = "w";
+        GLMModel glm = new GLM(glmParms).trainModel().get();
+        Scope.track_generic(glm);
+        mse[i] = glm._output._training_metrics.mse();
+        DeepLearningParameters dlParms = new DeepLearningParameters();
+        dlParms._train = fr._key;
+        dlParms._response_column = "y";
+        dlParms._weights_column = "w";
+        dlParms._hidden = new int[]{5};
+        dlParms._epochs = 1;
+        dlParms._reproducible = true;
+        dlParms._seed = 42;
+        DeepLearningModel dl = new DeepLearning(dlParms).trainModel().get();
+        Scope.track_generic(dl);
+        mse[2 + i] = dl._output._training_metrics.mse();
+        assertEquals(2, DataInfoCache.size());
+        assertEquals(2 * i, DataInfoCache.hits()); // both models of the second round are cache hits
+      }
+      assertEquals(mse[0], mse[1], 0);
+      assertEquals(mse[2], mse[3], 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test public void testChangedData() {
+    Scope.enter();
+    try {
+      Frame fr = Scope.track(makeFrame());
+      String key = DataInfoCache.key(fr, null, "test");
+      Vec x = fr.vec("x");
+      Key vecKey = x._key;
+      x.set(0, 10); // same vec, new content
+      assertEquals(vecKey, fr.vec("x")._key);
+      assertNotEquals(key, DataInfoCache.key(fr, null, "test"));
+    } finally {
+      Scope.exit();
+    }
+  }
+}
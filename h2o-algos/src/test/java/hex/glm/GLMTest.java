@@ -9,12 +9,14 @@ import hex.glm.GLMModel.GLMParameters.Link;
 import hex.glm.GLMModel.GLMParameters.Solver;
 import hex.glm.GLMModel.GLMWeightsFun;
 import hex.glm.GLMTask.*;
+import hex.gram.Gram;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
 import water.*;
 import water.H2O.H2OCountedCompleter;
+import water.exceptions.H2OModelBuilderIllegalArgumentException;
 import water.fvec.*;
 import water.parser.BufferedString;
 import water.parser.ParseDataset;
@@ -1051,6 +1053,543 @@ public class GLMTest  extends TestUtil {
     f.delete();
   }
 
+  /**
+   * Test the multinomial gram task gives the same grams of all the classes on sparse rows as on dense rows
+   */
+  @Test
+  public void testSparseGramComputationMultinomial() {
+    Random rnd = new Random(987654321l);
+    final int N = 1000, K = 3;
+    String[] dom = new String[]{"a", "b", "c", "d", "e"};
+    String[] classes = new String[]{"c0", "c1", "c2"};
+    long[] c = MemoryManager.malloc8(N);
+    long[] y = MemoryManager.malloc8(N);
+    double[] d0 = MemoryManager.malloc8d(N);
+    double[][] ds = new double[6][N];
+    for (int i = 0; i < N; ++i) {
+      c[i] = rnd.nextInt(dom.length);
+      y[i] = rnd.nextInt(K);
+      d0[i] = rnd.nextDouble();
+    }
+    for (double[] d : ds)
+      for (int i = 0; i < 30; ++i)
+        d[rnd.nextInt(N)] = rnd.nextDouble();
+    Vec.VectorGroup vg = Vec.VectorGroup.VG_LEN1;
+    Vec[] vecs = new Vec[ds.length + 3];
+    vecs[0] = Vec.makeVec(c, dom, vg.addVec());
+    vecs[1] = Vec.makeVec(d0, vg.addVec());
+    for (int i = 0; i < ds.length; ++i)
+      vecs[i + 2] = Vec.makeVec(ds[i], vg.addVec());
+    vecs[vecs.length - 1] = Vec.makeVec(y, classes, vg.addVec());
+    Frame f = new Frame(Key.<Frame>make("TestSparseMultinomial"), null, vecs);
+    DKV.put(f);
+    DataInfo dinfo = new DataInfo(f, null, 1, true, DataInfo.TransformType.STANDARDIZE, DataInfo.TransformType.NONE, true, false, false, false, false, false);
+    try {
+      double[] beta = new double[(dinfo.fullN() + 1) * K];
+      for (int i = 0; i < beta.length; ++i)
+        beta[i] = rnd.nextGaussian() * .1;
+      DataInfo[] classInfos = new DataInfo[]{dinfo, dinfo};
+      int[] cls = new int[]{0, 2};
+      GLMIterationTaskMultinomial sparse = new GLMIterationTaskMultinomial(null, dinfo, classInfos, cls, beta).setSparse(true).doAll(dinfo._adaptedFrame);
+      GLMIterationTaskMultinomial dense = new GLMIterationTaskMultinomial(null, dinfo, classInfos, cls, beta).setSparse(false).doAll(dinfo._adaptedFrame);
+      assertEquals(dense._nobs, sparse._nobs);
+      for (int k = 0; k < cls.length; ++k) {
+        for (int i = 0; i < dense._xy[k].length; ++i) {
+          for (int j = 0; j <= i; ++j)
+            assertEquals(dense._gram[k].get(i, j), sparse._gram[k].get(i, j), 1e-8);
+          assertEquals(dense._xy[k][i], sparse._xy[k][i], 1e-8);
+        }
+      }
+    } finally {
+      dinfo.remove();
+      f.delete();
+    }
+  }
+
+
+  /**
+   * Test the tiled accumulation of wide dense data gives the same gram as adding the rows one by one
+   */
+  @Test
+  public void testTiledGramComputation() {
+    Random rnd = new Random(987654321L);
+    int N = 1000;
+    int P = Gram.MIN_TILED_DENSE + 30;
+    String[] dom = new String[]{"a", "b", "c", "d", "e", "f", "g", "h"};
+    Vec.VectorGroup vg = Vec.VectorGroup.VG_LEN1;
+    Vec[] vecs = new Vec[P + 2];
+    long[] c = MemoryManager.malloc8(N);
+    for (int i = 0; i < N; ++i) c[i] = rnd.nextInt(dom.length);
+    vecs[0] = Vec.makeVec(c, dom, vg.addVec());
+    for (int p = 0; p < P; ++p) {
+      double[] d = MemoryManager.malloc8d(N);
+      for (int i = 0; i < N; ++i)
+        d[i] = rnd.nextInt(10) == 0 ? 0 : rnd.nextGaussian();
+      vecs[p + 1] = Vec.makeVec(d, vg.addVec());
+    }
+    double[] y = MemoryManager.malloc8d(N);
+    for (int i = 0; i < N; ++i) y[i] = rnd.nextGaussian();
+    vecs[P + 1] = Vec.makeVec(y, vg.addVec());
+    Frame f = new Frame(Key.<Frame>make("TestTiledData"), null, vecs);
+    DKV.put(f);
+    DataInfo dinfo = new DataInfo(f, null, 1, true, DataInfo.TransformType.STANDARDIZE, DataInfo.TransformType.NONE, true, false, false, false, false, false);
+    try {
+      GLMParameters params = new GLMParameters(Family.gaussian);
+      double[] beta = MemoryManager.malloc8d(dinfo.fullN() + 1);
+      for (int i = 0; i < beta.length; ++i) beta[i] = rnd.nextGaussian() * .1;
+      GLMIterationTask glmt = new GLMIterationTask(null, dinfo, new GLMWeightsFun(params), beta).setSparse(false).doAll(dinfo._adaptedFrame);
+      // reference, rows added one at a time
+      Gram gram = new Gram(dinfo.fullN(), dinfo.largestCat(), dinfo.numNums(), dinfo._cats, true);
+      Chunk[] chks = new Chunk[f.numCols()];
+      for (int i = 0; i < chks.length; ++i) chks[i] = dinfo._adaptedFrame.vec(i).chunkForChunkIdx(0);
+      DataInfo.Row row = dinfo.newDenseRow();
+      for (int r = 0; r < N; ++r) {
+        dinfo.extractDenseRow(chks, r, row);
+        gram.addRowDense(row, row.weight);
+      }
+      for (int i = 0; i < glmt._xy.length; ++i)
+        for (int j = 0; j <= i; ++j)
+          assertEquals(gram.get(i, j), glmt._gram.get(i, j), 1e-10 * Math.max(1, Math.abs(gram.get(i, j))));
+    } finally {
+      dinfo.remove();
+      f.delete();
+    }
+  }
+
+
+  /**
+   * Test the sparse categorical block of the gram gives the same gram and solution as the dense one
+   */
+  @Test
+  public void testSparseCatsGramComputation() {
+    Random rnd = new Random(13579L);
+    int N = 3000;
+    int[] cards = new int[]{300, 200, 150};
+    Vec.VectorGroup vg = Vec.VectorGroup.VG_LEN1;
+    Vec[] vecs = new Vec[cards.length + 2];
+    for (int c = 0; c < cards.length; ++c) {
+      String[] dom = new String[cards[c]];
+      for (int l = 0; l < dom.length; ++l) dom[l] = "L" + l;
+      long[] vals = MemoryManager.malloc8(N);
+      for (int i = 0; i < N; ++i) vals[i] = (i < cards[c]) ? i : rnd.nextInt(cards[c]);
+      vecs[c] = Vec.makeVec(vals, dom, vg.addVec());
+    }
+    double[] x = MemoryManager.malloc8d(N);
+    double[] y = MemoryManager.malloc8d(N);
+    for (int i = 0; i < N; ++i) {
+      x[i] = rnd.nextGaussian();
+      y[i] = x[i] + rnd.nextGaussian();
+    }
+    vecs[cards.length] = Vec.makeVec(x, vg.addVec());
+    vecs[cards.length + 1] = Vec.makeVec(y, vg.addVec());
+    Frame f = new Frame(Key.<Frame>make("TestSparseCats"), null, vecs);
+    DKV.put(f);
+    DataInfo dinfo = new DataInfo(f, null, 1, true, DataInfo.TransformType.STANDARDIZE, DataInfo.TransformType.NONE, true, false, false, false, false, false);
+    try {
+      GLMParameters params = new GLMParameters(Family.gaussian);
+      assertTrue(dinfo.numStart() - dinfo.largestCat() >= Gram.MIN_SPARSE_CATS);
+      // reference, dense gram
+      Gram expected = new Gram(dinfo.fullN(), dinfo.largestCat(), dinfo.numNums(), dinfo._cats, true);
+      Chunk[] chks = new Chunk[f.numCols()];
+      for (int i = 0; i < chks.length; ++i) chks[i] = dinfo._adaptedFrame.vec(i).chunkForChunkIdx(0);
+      // and the same rows added to two sparse grams, reduced
+      Gram g1 = new Gram(dinfo.fullN(), dinfo.largestCat(), dinfo.numNums(), dinfo._cats, true, true);
+      Gram g2 = new Gram(dinfo.fullN(), dinfo.largestCat(), dinfo.numNums(), dinfo._cats, true, true);
+      DataInfo.Row row = dinfo.newDenseRow();
+      for (int r = 0; r < N; ++r) {
+        dinfo.extractDenseRow(chks, r, row);
+        expected.addRow(row, row.weight);
+        (r % 3 == 0 ? g1 : g2).addRow(row, row.weight);
+      }
+      g1.add(g2);
+      for (int i = 0; i < dinfo.fullN() + 1; ++i)
+        for (int j = 0; j <= i; ++j)
+          assertEquals(expected.get(i, j), g1.get(i, j), 1e-10);
+      for (boolean sparse : new boolean[]{false, true}) {
+        final GLMIterationTask glmt = new GLMIterationTask(null, dinfo, new GLMWeightsFun(params), null).setSparse(sparse).doAll(dinfo._adaptedFrame);
+        final Gram gram = glmt._gram;
+        assertTrue(gram.hasSparseCats());
+        for (int i = 0; i < glmt._xy.length; ++i)
+          for (int j = 0; j <= i; ++j)
+            assertEquals(expected.get(i, j), gram.get(i, j), 1e-8);
+        double[] beta = MemoryManager.malloc8d(glmt._xy.length);
+        for (int i = 0; i < beta.length; ++i) beta[i] = rnd.nextGaussian();
+        assertArrayEquals(expected.mul(beta), gram.mul(beta), 1e-8);
+        // solution of the (sparse) gram solver
+        final double[] res = MemoryManager.malloc8d(glmt._xy.length);
+        final double[] resDense = MemoryManager.malloc8d(glmt._xy.length);
+        final Gram dense = gram.deep_clone();
+        dense.densify();
+        H2O.submitTask(new H2OCountedCompleter() {
+          @Override
+          public void compute2() {
+            new GLM.GramSolver(gram, glmt._xy, true, 1e-5, 0, null, null, null, null).solve(null, res);
+            new GLM.GramSolver(dense, glmt._xy, true, 1e-5, 0, null, null, null, null).solve(null, resDense);
+            tryComplete();
+          }
+        }).join();
+        assertTrue(gram.hasSparseCats());
+        assertArrayEquals(resDense, res, 1e-8);
+      }
+    } finally {
+      dinfo.remove();
+      f.delete();
+    }
+  }
+
+
+  /**
+   * Test the column statistics cached across lambdas give the same gradient as a pass over the data and that
+   * the lambda search solution using them satisfies the KKT conditions
+   */
+  @Test
+  public void testColumnStatsGradient() {
+    Random rnd = new Random(24680L);
+    int N = 2000;
+    Vec.VectorGroup vg = Vec.VectorGroup.VG_LEN1;
+    Vec[] vecs = new Vec[6];
+    String[] dom = new String[10];
+    for (int l = 0; l < dom.length; ++l) dom[l] = "L" + l;
+    long[] cats = MemoryManager.malloc8(N);
+    double[][] xs = new double[4][N];
+    double[] y = MemoryManager.malloc8d(N);
+    for (int i = 0; i < N; ++i) {
+      cats[i] = rnd.nextInt(dom.length);
+      for (int j = 0; j < 3; ++j) xs[j][i] = rnd.nextGaussian();
+      xs[3][i] = rnd.nextInt(20) == 0 ? 1 + rnd.nextDouble() : 0; // sparse
+      y[i] = (cats[i] % 3) + 2 * xs[0][i] - xs[2][i] + 3 * xs[3][i] + rnd.nextGaussian();
+    }
+    vecs[0] = Vec.makeVec(cats, dom, vg.addVec());
+    for (int j = 0; j < 4; ++j) vecs[j + 1] = Vec.makeVec(xs[j], vg.addVec());
+    vecs[5] = Vec.makeVec(y, vg.addVec());
+    Frame f = new Frame(Key.<Frame>make("TestColumnStats"), new String[]{"c", "x1", "x2", "x3", "xs", "y"}, vecs);
+    DKV.put(f);
+    DataInfo dinfo = new DataInfo(f, null, 1, true, DataInfo.TransformType.STANDARDIZE, DataInfo.TransformType.NONE, true, false, false, false, false, false);
+    GLMModel model = null;
+    try {
+      GLMParameters params = new GLMParameters(Family.gaussian);
+      params._obj_reg = 1.0 / N;
+      int P = dinfo.fullN();
+      int ns = dinfo.numStart();
+      double[] beta0 = MemoryManager.malloc8d(P + 1);
+      beta0[P] = ArrayUtils.sum(y) / N;
+      ComputationState.ColumnStats stats = new ComputationState.ColumnStats(dinfo);
+      stats.setBase(beta0, new GLM.GLMGradientSolver(null, params, dinfo, 0, null).getGradient(beta0), 0, params._obj_reg);
+      int[] cols = new int[]{1, 4, ns, ns + 2, ns + 3, P};
+      assertTrue(stats.addCols(new GLMWeightsFun(params), cols));
+      double[] beta = beta0.clone();
+      for (int c : cols) beta[c] += rnd.nextGaussian();
+      double l2pen = 0.1;
+      GLM.GLMGradientInfo expected = new GLM.GLMGradientSolver(null, params, dinfo, l2pen, null).getGradient(beta);
+      GLM.GLMGradientInfo actual = stats.gradient(beta, l2pen, params._obj_reg);
+      assertArrayEquals(expected._gradient, actual._gradient, 1e-8);
+      assertEquals(expected._likelihood, actual._likelihood, 1e-8 * expected._likelihood);
+      assertEquals(expected._objVal, actual._objVal, 1e-8 * expected._objVal);
+      beta[ns + 1] = 1; // not cached
+      assertNull(stats.gradient(beta, l2pen, params._obj_reg));
+      // lambda search solution (KKT checks done from the cache)
+      params._train = f._key;
+      params._response_column = "y";
+      params._lambda_search = true;
+      params._nlambdas = 30;
+      params._alpha = new double[]{.5};
+      params._solver = Solver.COORDINATE_DESCENT;
+      params._obj_reg = -1;
+      model = new GLM(params).trainModel().get();
+      double lambda = model._output.lambda_selected();
+      double[] nbeta = model._output.getNormBeta();
+      params._obj_reg = 1.0 / N;
+      double[] grad = new GLM.GLMGradientSolver(null, params, dinfo, .5 * lambda, null).getGradient(nbeta)._gradient;
+      for (int i = 0; i < P; ++i)
+        if (nbeta[i] == 0)
+          assertTrue("KKT violated for " + i + ": " + grad[i] + " > " + .5 * lambda, Math.abs(grad[i]) <= .5 * lambda + 1e-4);
+    } finally {
+      if (model != null) model.delete();
+      dinfo.remove();
+      f.delete();
+    }
+  }
+
+
+  // data with P gaussian predictors in many chunks and the response drawn from the softmax of K classes, K == 2 gives
+  // a numeric 0/1 response (binomial), more classes a categorical one (multinomial); also used by GLMSolverBench
+  public static Frame makeLogisticFrame(Key<Frame> key, long N, final int P, final int K, final long seed) {
+    Vec[] vecs = new Vec[P + 1];
+    vecs[0] = Vec.makeCon(0, N);
+    for (int i = 1; i < P; ++i) vecs[i] = vecs[0].makeZero();
+    if (K == 2) vecs[P] = vecs[0].makeZero();
+    else {
+      String[] domain = new String[K];
+      for (int k = 0; k < K; ++k) domain[k] = "c" + k;
+      vecs[P] = vecs[0].makeZero(domain);
+    }
+    new MRTask() {
+      @Override
+      public void map(Chunk[] cs) {
+        double[] etas = new double[K];
+        for (int r = 0; r < cs[0]._len; ++r) {
+          Random rnd = new Random(seed + cs[0].start() + r);
+          Arrays.fill(etas, 0);
+          for (int i = 0; i < P; ++i) {
+            double x = rnd.nextGaussian();
+            for (int k = 0; k < K; ++k)
+              etas[k] += .5 * x * (((i + k) % 3) - 1) * (1 + i % 2);
+            cs[i].set(r, x);
+          }
+          // softmax sample via the gumbel max trick
+          int y = 0;
+          double max = Double.NEGATIVE_INFINITY;
+          for (int k = 0; k < K; ++k) {
+            double v = etas[k] - Math.log(-Math.log(rnd.nextDouble()));
+            if (v > max) {
+              max = v;
+              y = k;
+            }
+          }
+          cs[P].set(r, y);
+        }
+      }
+    }.doAll(vecs);
+    String[] names = new String[P + 1];
+    for (int i = 0; i < P; ++i) names[i] = "x" + i;
+    names[P] = "y";
+    Frame f = new Frame(key, names, vecs);
+    DKV.put(f);
+    return f;
+  }
+
+  /**
+   * Test the SVRG solver gets to (almost) the same solution as L-BFGS
+   */
+  @Test
+  public void testSVRG() {
+    Frame f = makeLogisticFrame(Key.<Frame>make("TestSVRG"), 100000, 20, 2, 1234);
+    GLMModel lbfgs = null, svrg = null;
+    try {
+      GLMParameters params = new GLMParameters(Family.binomial);
+      params._train = f._key;
+      params._response_column = "y";
+      params._alpha = new double[]{.5};
+      params._lambda = new double[]{1e-4};
+      params._objective_epsilon = 1e-6;
+      params._solver = Solver.L_BFGS;
+      lbfgs = new GLM(params).trainModel().get();
+      params._solver = Solver.SVRG;
+      params._seed = 42;
+      svrg = new GLM(params).trainModel().get();
+      double devLBFGS = ((ModelMetricsBinomialGLM) lbfgs._output._training_metrics)._resDev;
+      double devSVRG = ((ModelMetricsBinomialGLM) svrg._output._training_metrics)._resDev;
+      assertEquals(devLBFGS, devSVRG, 1e-3 * devLBFGS);
+      // SVRG converges in a few epochs (passes over the data), well below the iteration limit
+      int epochs = svrg._output._submodels[0].iteration;
+      assertTrue("SVRG took " + epochs + " epochs", epochs > 0 && epochs <= 30);
+      assertTrue(lbfgs._output._submodels[0].iteration > 0);
+      double[] b1 = lbfgs.beta();
+      double[] b2 = svrg.beta();
+      for (int i = 0; i < b1.length; ++i)
+        assertEquals(b1[i], b2[i], 1e-2);
+    } finally {
+      if (lbfgs != null) lbfgs.delete();
+      if (svrg != null) svrg.delete();
+      f.delete();
+    }
+  }
+
+
+  /**
+   * Test the multinomial COD (all the classes in one pass, solved in parallel) gets to the same solution as L-BFGS,
+   * with and without lambda search (classes with different active columns).
+   */
+  @Test
+  public void testMultinomialCOD() {
+    Frame f = makeLogisticFrame(Key.<Frame>make("TestMultinomialCOD"), 2000, 5, 3, 1234);
+    GLMModel lbfgs = null, cod = null;
+    try {
+      for (boolean lambdaSearch : new boolean[]{false, true}) {
+        GLMParameters params = new GLMParameters(Family.multinomial);
+        params._train = f._key;
+        params._response_column = "y";
+        params._alpha = new double[]{.5};
+        if (lambdaSearch) {
+          params._lambda_search = true;
+          params._nlambdas = 5;
+          params._lambda_min_ratio = 1e-2;
+        } else
+          params._lambda = new double[]{1e-3};
+        params._solver = Solver.L_BFGS;
+        lbfgs = new GLM(params).trainModel().get();
+        params._solver = Solver.COORDINATE_DESCENT;
+        cod = new GLM(params).trainModel().get();
+        double devLBFGS = ((ModelMetricsBinomialGLM.ModelMetricsMultinomialGLM) lbfgs._output._training_metrics)._resDev;
+        double devCOD = ((ModelMetricsBinomialGLM.ModelMetricsMultinomialGLM) cod._output._training_metrics)._resDev;
+        assertEquals(devLBFGS, devCOD, 2e-3 * devLBFGS);
+        lbfgs.delete();
+        cod.delete();
+        lbfgs = cod = null;
+      }
+    } finally {
+      if (lbfgs != null) lbfgs.delete();
+      if (cod != null) cod.delete();
+      f.delete();
+    }
+  }
+
+
+  /**
+   * Test cross-validation with the grams of all the folds computed in a single pass gives the same models as building
+   * every fold on its own, with weights, a categorical column, both solvers and lambda search.
+   */
+  @Test
+  public void testCVSinglePass() {
+    Frame f = makeLogisticFrame(Key.<Frame>make("TestCVSinglePass"), 20000, 10, 2, 1234);
+    Vec cat = f.anyVec().makeZero(new String[]{"a", "b", "c", "d", "e"});
+    Vec w = f.anyVec().makeZero();
+    new MRTask() {
+      @Override
+      public void map(Chunk[] cs) {
+        for (int r = 0; r < cs[0]._len; ++r) {
+          long rid = cs[0].start() + r;
+          cs[0].set(r, (rid * 7) % 5);
+          cs[1].set(r, 1 + rid % 3);
+          cs[2].set(r, cs[2].atd(r) + cs[0].at8(r) * .1); // add the categorical effect to the response
+        }
+      }
+    }.doAll(cat, w, f.vec("y"));
+    f.add("c", cat);
+    f.add("w", w);
+    DKV.put(f);
+    GLMModel[] models = new GLMModel[2];
+    try {
+      for (Solver s : new Solver[]{Solver.IRLSM, Solver.COORDINATE_DESCENT}) {
+        for (int i = 0; i < models.length; ++i) {
+          GLMParameters params = new GLMParameters(Family.gaussian);
+          params._train = f._key;
+          params._response_column = "y";
+          params._weights_column = "w";
+          params._solver = s;
+          params._nfolds = 4;
+          params._seed = 42;
+          params._alpha = new double[]{.5};
+          if (s == Solver.COORDINATE_DESCENT) {
+            params._lambda_search = true;
+            params._nlambdas = 10;
+          } else
+            params._lambda = new double[]{1e-3};
+          params._cv_single_pass = i == 1;
+          models[i] = new GLM(params).trainModel().get();
+        }
+        double mse0 = models[0]._output._cross_validation_metrics.mse();
+        double mse1 = models[1]._output._cross_validation_metrics.mse();
+        assertEquals(mse0, mse1, 1e-6 * mse0);
+        for (int k = 0; k < models[0]._output._cross_validation_models.length; ++k) {
+          GLMModel cv0 = DKV.getGet(models[0]._output._cross_validation_models[k]);
+          GLMModel cv1 = DKV.getGet(models[1]._output._cross_validation_models[k]);
+          // only the single pass cv models are trained from the grams shared by the main model
+          assertFalse(cv0._output._cv_shared_gram);
+          assertTrue(cv1._output._cv_shared_gram);
+          assertArrayEquals(cv0.beta(), cv1.beta(), 1e-5);
+        }
+        for (int i = 0; i < models.length; ++i) {
+          models[i].deleteCrossValidationModels();
+          models[i].delete();
+          models[i] = null;
+        }
+      }
+    } finally {
+      for (GLMModel m : models)
+        if (m != null) {
+          m.deleteCrossValidationModels();
+          m.delete();
+        }
+      f.delete();
+    }
+  }
+
+  // model updated with new data from the sufficient statistics of a checkpoint is the same as the model trained on all the data
+  @Test
+  public void testCheckpointSufficientStatistics() {
+    Frame f = makeLogisticFrame(Key.<Frame>make("TestCheckpointSufficientStatistics"), 20000, 10, 2, 1234);
+    Vec cat = f.anyVec().makeZero(new String[]{"a", "b", "c", "d", "e"});
+    Vec w = f.anyVec().makeZero();
+    new MRTask() {
+      @Override
+      public void map(Chunk[] cs) {
+        for (int r = 0; r < cs[0]._len; ++r) {
+          long rid = cs[0].start() + r;
+          cs[0].set(r, (rid * 7) % 5);
+          cs[1].set(r, 1 + rid % 3);
+          cs[2].set(r, cs[2].atd(r) + cs[0].at8(r) * .1 + rid * 1e-5); // categorical effect and a drift of the response
+        }
+      }
+    }.doAll(cat, w, f.vec("y"));
+    f.add("c", cat);
+    f.add("w", w);
+    DKV.put(f);
+    long [] oldRows = new long[14000], newRows = new long[6000];
+    for (int i = 0; i < oldRows.length; ++i) oldRows[i] = i;
+    for (int i = 0; i < newRows.length; ++i) newRows[i] = oldRows.length + i;
+    Frame fOld = f.deepSlice(oldRows, null), fNew = f.deepSlice(newRows, null);
+    fOld = new Frame(Key.<Frame>make("TestCheckpointSufficientStatisticsOld"), fOld.names(), fOld.vecs());
+    fNew = new Frame(Key.<Frame>make("TestCheckpointSufficientStatisticsNew"), fNew.names(), fNew.vecs());
+    DKV.put(fOld);
+    DKV.put(fNew);
+    assertEquals(14000, fOld.numRows());
+    GLMModel[] models = new GLMModel[3];
+    try {
+      for (Solver s : new Solver[]{Solver.IRLSM, Solver.COORDINATE_DESCENT, Solver.L_BFGS}) {
+        for (int i = 0; i < models.length; ++i) {
+          GLMParameters params = new GLMParameters(Family.gaussian);
+          params._train = (i == 0 ? fOld : i == 1 ? fNew : f)._key;
+          params._response_column = "y";
+          params._weights_column = "w";
+          params._solver = s;
+          if (s == Solver.COORDINATE_DESCENT) {
+            params._alpha = new double[]{.5};
+            params._lambda_search = true;
+            params._nlambdas = 10;
+          } else if (s == Solver.L_BFGS) {
+            params._alpha = new double[]{0};
+            params._lambda = new double[]{1e-3};
+          } else
+            params._lambda = new double[]{0};
+          params._store_sufficient_statistics = i == 0;
+          if (i == 1) params._checkpoint = models[0]._key;
+          models[i] = new GLM(params).trainModel().get();
+        }
+        System.out.println(s + ": updated model coefficients = " + models[1].coefficients() + ", all data = " + models[2].coefficients());
+        assertEquals(20000, models[1]._output._sufficient_statistics._nobs);
+        assertNull(models[2]._output._sufficient_statistics);
+        assertArrayEquals(models[2].beta(), models[1].beta(), s == Solver.L_BFGS ? 1e-4 : 1e-6);
+        // the statistics are kept with the updated model, it can be updated again
+        assertArrayEquals(models[1]._output._dinfo.coefNames(), models[1]._output._sufficient_statistics._coefNames);
+        for (int i = 0; i < models.length; ++i) {
+          models[i].delete();
+          models[i] = null;
+        }
+      }
+      // checkpoint has to have the statistics
+      GLMParameters params = new GLMParameters(Family.gaussian);
+      params._train = fOld._key;
+      params._response_column = "y";
+      models[0] = new GLM(params).trainModel().get();
+      params = new GLMParameters(Family.gaussian);
+      params._train = fNew._key;
+      params._response_column = "y";
+      params._checkpoint = models[0]._key;
+      try {
+        models[1] = new GLM(params).trainModel().get();
+        fail("expected an error, checkpoint without sufficient statistics");
+      } catch (H2OModelBuilderIllegalArgumentException e) {
+        assertTrue(e.getMessage().contains("store_sufficient_statistics"));
+      }
+    } finally {
+      for (GLMModel m : models)
+        if (m != null) m.delete();
+      f.delete();
+      fOld.delete();
+      fNew.delete();
+    }
+  }
 
   @Test @Ignore public void testConstantColumns(){
     GLMModel model1 = null, model2 = null, model3 = null, model4 = null;
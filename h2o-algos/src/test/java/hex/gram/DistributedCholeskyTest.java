@@ -0,0 +1,128 @@
+package hex.gram;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.H2O;
+import water.TestUtil;
+import water.util.ArrayUtils;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DistributedCholeskyTest extends TestUtil {
+
+  @BeforeClass
+  public static void setup() { stall_till_cloudsize(1); }
+
+  // X'X of a one-hot encoded categorical (the diagonal part) and dense gaussian columns
+  private static Gram makeGram(int diagN, int denseN, int nrows, long seed) {
+    Random rnd = new Random(seed);
+    int N = diagN + denseN;
+    double[][] x = new double[nrows][N];
+    for (int r = 0; r < nrows; ++r) {
+      x[r][rnd.nextInt(diagN)] = 1;
+      for (int c = diagN; c < N; ++c)
+        x[r][c] = rnd.nextGaussian() + (c % 3 == 0 ? x[r][c - 1] : 0);
+    }
+    Gram gram = new Gram(N, diagN, denseN, 1, false);
+    for (double[] row : x) {
+      for (int i = 0; i < diagN; ++i)
+        gram._diag[i] += row[i] * row[i];
+      for (int i = diagN; i < N; ++i)
+        for (int j = 0; j <= i; ++j)
+          gram._xx[i - diagN][j] += row[i] * row[j];
+    }
+    return gram;
+  }
+
+  // the decompositions fork, have to run inside of the FJ pool
+  private static Gram.Cholesky[] decompose(final Gram gram, final int tileSize) {
+    final Gram.Cholesky[] res = new Gram.Cholesky[2];
+    H2O.submitTask(new H2O.H2OCountedCompleter() {
+      @Override
+      public void compute2() {
+        res[0] = gram.cholesky(null);
+        res[1] = gram.distributedCholesky(tileSize);
+        tryComplete();
+      }
+    }).join();
+    return res;
+  }
+
+  @Test
+  public void testMatchesCholesky() {
+    Gram gram = makeGram(5, 70, 500, 42);
+    Gram.Cholesky[] chols = decompose(gram, 16); // last tile is smaller
+    Gram.Cholesky expected = chols[0];
+    Gram.Cholesky chol = chols[1];
+    try {
+      assertTrue(expected.isSPD());
+      assertTrue(chol.isSPD());
+      double[][] lExpected = expected.getL();
+      double[][] l = chol.getL();
+      for (int i = 0; i < l.length; ++i)
+        for (int j = 0; j <= i; ++j)
+          assertEquals(lExpected[i][j], l[i][j], 1e-10);
+      Random rnd = new Random(7);
+      for (int t = 0; t < 3; ++t) {
+        double[] y = new double[75];
+        for (int i = 0; i < y.length; ++i)
+          y[i] = rnd.nextGaussian();
+        double[] y2 = y.clone();
+        expected.solve(y);
+        chol.solve(y2);
+        assertArrayEquals(y, y2, 1e-10);
+      }
+    } finally {
+      chol.remove();
+    }
+  }
+
+  @Test
+  public void testInverse() {
+    Gram gram = makeGram(5, 150, 800, 7); // more columns than right hand sides solved in one batch
+    double[][] xx = ArrayUtils.deepClone(gram.getXX());
+    Gram.Cholesky[] chols = decompose(gram, 32);
+    final Gram.Cholesky expected = chols[0];
+    final Gram.Cholesky chol = chols[1];
+    try {
+      // the gram is left as it was
+      assertArrayEquals(xx, gram.getXX());
+      final double[][][] invs = new double[2][][];
+      final double[][] invDiag = new double[1][];
+      H2O.submitTask(new H2O.H2OCountedCompleter() {
+        @Override
+        public void compute2() {
+          invs[0] = expected.getInv();
+          invs[1] = chol.getInv();
+          invDiag[0] = chol.getInvDiag();
+          tryComplete();
+        }
+      }).join();
+      double[][] invExpected = invs[0];
+      double[][] inv = invs[1];
+      for (int i = 0; i < inv.length; ++i) {
+        assertArrayEquals(invExpected[i], inv[i], 1e-10);
+        assertEquals(invExpected[i][i], invDiag[0][i], 1e-10);
+      }
+    } finally {
+      chol.remove();
+    }
+  }
+
+  @Test
+  public void testNotSPD() {
+    Gram gram = makeGram(3, 40, 200, 123);
+    gram._xx[30][33] = -1;
+    Gram.Cholesky[] chols = decompose(gram, 8);
+    Gram.Cholesky chol = chols[1];
+    try {
+      assertFalse(chols[0].isSPD());
+      assertFalse(chol.isSPD());
+    } finally {
+      chol.remove();
+    }
+  }
+
+}
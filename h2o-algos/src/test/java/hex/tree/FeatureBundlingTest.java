@@ -0,0 +1,117 @@
+package hex.tree;
+
+import hex.tree.gbm.GBM;
+import hex.tree.gbm.GBMModel;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Futures;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FeatureBundlingTest extends TestUtil {
+
+  @BeforeClass
+  public static void stall() { stall_till_cloudsize(1); }
+
+  // Two one-hot encoded categoricals (A with 10 levels, B with 6 levels), a dense column and a sparse column
+  // conflicting with everything. A is only present in a given fraction of rows.
+  private static Frame makeOneHotFrame(int N, double aRate) {
+    Random rnd = new Random(0xF00D);
+    TestFrameBuilder builder = new TestFrameBuilder().withName("onehot");
+    String[] names = new String[19];
+    byte[] types = new byte[19];
+    double[][] data = new double[19][N];
+    for (int i = 0; i < N; i++) {
+      int a = rnd.nextDouble() < aRate ? rnd.nextInt(10) : -1;
+      int b = rnd.nextInt(6);
+      if (a >= 0) data[a][i] = 1;
+      data[10 + b][i] = 1;
+      data[16][i] = rnd.nextGaussian();
+      data[17][i] = rnd.nextInt(10) == 0 ? 1 + rnd.nextInt(3) : 0;
+      data[18][i] = a + (b == 2 ? 5 : 0) + data[16][i] + data[17][i] + rnd.nextGaussian() * 0.1;
+    }
+    for (int c = 0; c < names.length; c++) {
+      names[c] = c < 10 ? "A" + c : c < 16 ? "B" + (c - 10) : c == 16 ? "dense" : c == 17 ? "sparse" : "y";
+      types[c] = Vec.T_NUM;
+      builder.withDataForCol(c, data[c]);
+    }
+    return builder
+            .withColNames(names)
+            .withVecTypes(types)
+            .withChunkLayout(N / 4, N / 4, N / 2)
+            .build();
+  }
+
+  @Test
+  public void testBundlesOfExclusiveColumns() {
+    Scope.enter();
+    try {
+      Frame fr = makeOneHotFrame(4000, 1);
+      FeatureBundling bundling = FeatureBundling.make(fr, 18, 20, 42);
+      assertEquals(2, bundling.numBundles());
+      assertEquals(16, bundling.numBundledColumns());
+      for (int b = 0; b < 2; b++) {
+        int[] cols = bundling._cols[b];
+        boolean isA = cols.length == 10;
+        assertEquals(isA ? 10 : 6, cols.length);
+        assertEquals(cols.length + 1, bundling._nbins[b]);
+        for (int i = 0; i < cols.length; i++)
+          assertEquals(isA ? i : 10 + i, cols[i]);
+      }
+
+      bundling.apply(fr);
+      try {
+        Vec[] bundled = bundling.vecs();
+        for (int b = 0; b < 2; b++) {
+          int[] cols = bundling._cols[b];
+          for (long row = 0; row < fr.numRows(); row++) {
+            long expected = 0;
+            for (int i = 0; i < cols.length; i++)
+              if (fr.vec(cols[i]).at8(row) != 0)
+                expected = bundling._offsets[b][i] + fr.vec(cols[i]).at8(row);
+            assertEquals(expected, bundled[b].at8(row));
+          }
+        }
+      } finally {
+        bundling.remove(new Futures()).blockForPending();
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testGBMWithBundling() {
+    Scope.enter();
+    try {
+      Frame fr = makeOneHotFrame(20000, 0.05); // bundles of sparse columns are sparse
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = fr._key;
+      parms._response_column = "y";
+      parms._ntrees = 10;
+      parms._max_depth = 5;
+      parms._seed = 42;
+      GBMModel gbm = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+
+      parms._bundle_exclusive_features = true;
+      GBMModel bundled = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+
+      // bundling only changes how the histograms are computed, not what they contain
+      double mse = gbm._output._training_metrics.mse();
+      assertEquals(mse, bundled._output._training_metrics.mse(), 1e-6 * mse);
+      Frame preds = Scope.track(gbm.score(fr));
+      Frame predsBundled = Scope.track(bundled.score(fr));
+      assertVecEquals(preds.vec(0), predsBundled.vec(0), 1e-6);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+}
@@ -0,0 +1,136 @@
+package hex.tree;
+
+import hex.tree.drf.DRF;
+import hex.tree.drf.DRFModel;
+import hex.tree.gbm.GBM;
+import hex.tree.gbm.GBMModel;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.MRTask;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FlatTreeTest extends TestUtil {
+
+  @BeforeClass
+  public static void stall() { stall_till_cloudsize(1); }
+
+  // numeric column with NAs, a categorical with many levels (big bitsets), a small categorical with NAs
+  private static Frame makeFrame(int N, boolean classification) {
+    Random rnd = new Random(0xBEEF);
+    double[] x1 = new double[N];
+    String[] x2 = new String[N];
+    String[] x3 = new String[N];
+    String[] yc = new String[N];
+    double[] yr = new double[N];
+    for (int i = 0; i < N; i++) {
+      x1[i] = i % 20 == 0 ? Double.NaN : rnd.nextGaussian();
+      int l2 = rnd.nextInt(60);
+      x2[i] = "L" + l2;
+      x3[i] = i % 30 == 0 ? null : "C" + rnd.nextInt(5);
+      double y = (Double.isNaN(x1[i]) ? -1 : x1[i]) + (l2 % 7 == 0 ? 2 : 0) + ("C3".equals(x3[i]) ? 1 : 0) + rnd.nextGaussian() * 0.3;
+      yr[i] = y;
+      yc[i] = y < 0 ? "a" : y < 1 ? "b" : "c";
+    }
+    TestFrameBuilder builder = new TestFrameBuilder()
+            .withName(classification ? "flat_cls" : "flat_reg")
+            .withColNames("x1", "x2", "x3", "y")
+            .withVecTypes(Vec.T_NUM, Vec.T_CAT, Vec.T_CAT, classification ? Vec.T_CAT : Vec.T_NUM)
+            .withDataForCol(0, x1)
+            .withDataForCol(1, x2)
+            .withDataForCol(2, x3);
+    builder = classification ? builder.withDataForCol(3, yc) : builder.withDataForCol(3, yr);
+    return builder.withChunkLayout(N / 4, N / 4, N / 2).build();
+  }
+
+  private static void assertFlatTreesMatch(SharedTreeModel<?, ?, ?> model, Frame fr) {
+    SharedTreeModel.SharedTreeOutput out = model._output;
+    Random rnd = new Random(42);
+    double[][] rows = new double[(int) fr.numRows() + 100][];
+    for (int r = 0; r < fr.numRows(); r++)
+      rows[r] = new double[]{fr.vec(0).at(r), fr.vec(1).at(r), fr.vec(2).at(r)};
+    // unseen levels and missing values
+    for (int r = (int) fr.numRows(); r < rows.length; r++)
+      rows[r] = new double[]{rnd.nextBoolean() ? Double.NaN : rnd.nextGaussian() * 3,
+              rnd.nextBoolean() ? Double.NaN : rnd.nextInt(80), rnd.nextBoolean() ? Double.NaN : rnd.nextInt(8)};
+    int nflat = 0;
+    for (int t = 0; t < out._treeKeys.length; t++)
+      for (int c = 0; c < out._treeKeys[t].length; c++) {
+        if (out._treeKeys[t][c] == null) continue;
+        CompressedTree ct = out._treeKeys[t][c].get();
+        FlatTree flat = new FlatTree(ct, out._domains);
+        assertTrue(flat.numNodes() > 1);
+        for (double[] row : rows)
+          assertEquals(ct.score(row, out._domains), flat.score(row), 0);
+        nflat++;
+      }
+    assertTrue(nflat > 0);
+  }
+
+  // block scoring (Model.score) gives exactly the same predictions as scoring row by row
+  private static void assertBlockScoringMatches(final SharedTreeModel<?, ?, ?> model, Frame fr) {
+    Frame preds = Scope.track(model.score(fr));
+    Frame both = new Frame(fr).add(preds);
+    final int ncols = fr.numCols();
+    final int npreds = preds.numCols();
+    new MRTask() {
+      @Override
+      public void map(Chunk[] cs) {
+        double[] tmp = new double[ncols - 1];
+        double[] p = new double[npreds];
+        for (int row = 0; row < cs[0]._len; row++) {
+          model.score0(cs, 0, row, tmp, p);
+          for (int c = 0; c < npreds; c++)
+            assertEquals(p[c], cs[ncols + c].atd(row), 0);
+        }
+      }
+    }.doAll(both);
+  }
+
+  @Test
+  public void testGBMMultinomial() {
+    Scope.enter();
+    try {
+      Frame fr = makeFrame(5000, true);
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = fr._key;
+      parms._response_column = "y";
+      parms._ntrees = 10;
+      parms._max_depth = 6;
+      parms._seed = 42;
+      GBMModel gbm = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+      assertFlatTreesMatch(gbm, fr);
+      assertBlockScoringMatches(gbm, fr);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testDRFRegression() {
+    Scope.enter();
+    try {
+      Frame fr = makeFrame(5000, false);
+      DRFModel.DRFParameters parms = new DRFModel.DRFParameters();
+      parms._train = fr._key;
+      parms._response_column = "y";
+      parms._ntrees = 10;
+      parms._max_depth = 10;
+      parms._seed = 42;
+      DRFModel drf = (DRFModel) Scope.track_generic(new DRF(parms).trainModel().get());
+      assertFlatTreesMatch(drf, fr);
+      assertBlockScoringMatches(drf, fr);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+}
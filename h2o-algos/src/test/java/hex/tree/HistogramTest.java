@@ -1,9 +1,14 @@
 package hex.tree;
 
+import hex.tree.gbm.GBM;
+import hex.tree.gbm.GBMModel;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import water.*;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
 import water.util.*;
 
 import java.util.Arrays;
@@ -313,4 +318,112 @@ public class HistogramTest extends TestUtil {
       Log.info("N=" + N + " Sum:" + sum + " Time: " + PrettyPrint.msecs(done - start, true));
     }
   }
+
+  @Test public void testSubtraction() {
+    final SharedTreeModel.SharedTreeParameters.HistogramType histoType = SharedTreeModel.SharedTreeParameters.HistogramType.UniformAdaptive;
+    final int N = 10000;
+    Random rng = new Random(0xC0FFEE);
+    double[] ws = new double[N], cs = new double[N], ys = new double[N];
+    int[] rows = new int[N];
+    int nLeft = 0;
+    for (int i = 0; i < N; i++) {
+      cs[i] = i % 97 == 0 ? Double.NaN : 10 + rng.nextInt(40);
+      ys[i] = rng.nextGaussian();
+      ws[i] = rng.nextInt(3) * 0.5;
+      if (rng.nextInt(3) == 0) rows[nLeft++] = i; // left child gets about 1/3 of the rows
+    }
+    for (int i = 0, r = nLeft; i < N; i++)
+      if (Arrays.binarySearch(rows, 0, nLeft, i) < 0) rows[r++] = i;
+    int[] all = new int[N];
+    for (int i = 0; i < N; i++) all[i] = i;
+
+    DHistogram parent = new DHistogram("x", 64, 64, (byte) 1, 10, 50, 0, histoType, 42, null, Double.NaN, Double.NaN);
+    parent.init();
+    parent.updateHisto(ws, cs, ys, all, N, 0);
+    parent.reducePrecision();
+    // children are narrowed to the observed range of the parent
+    double min = parent.find_min(), maxEx = parent.find_maxEx();
+    DHistogram left = new DHistogram("x", 40, 64, (byte) 1, min, maxEx, 0, histoType, 43, null, Double.NaN, Double.NaN);
+    left.init();
+    left.updateHisto(ws, cs, ys, rows, nLeft, 0);
+    left.reducePrecision();
+    DHistogram right = new DHistogram("x", 40, 64, (byte) 1, min, maxEx, 0, histoType, 44, null, Double.NaN, Double.NaN);
+    right.init();
+    right.updateHisto(ws, cs, ys, rows, N, nLeft);
+    right.reducePrecision();
+
+    DHistogram derived = new DHistogram("x", 40, 64, (byte) 1, min, maxEx, 0, histoType, 44, null, Double.NaN, Double.NaN);
+    Assert.assertTrue(derived.isSubtractable(parent));
+    derived.subtract(parent, left);
+    Assert.assertEquals(right.nbins(), derived.nbins());
+    for (int b = 0; b < right.nbins(); b++) {
+      Assert.assertEquals(right.w(b), derived.w(b), 0);
+      Assert.assertEquals(right.wY(b), derived.wY(b), 1e-4);
+      Assert.assertEquals(right.wYY(b), derived.wYY(b), 1e-4);
+    }
+    Assert.assertEquals(right.wNA(), derived.wNA(), 0);
+    Assert.assertEquals(right.wYNA(), derived.wYNA(), 1e-4);
+    Assert.assertEquals(right.find_min(), derived.find_min(), 0);
+    Assert.assertEquals(right.find_maxIn(), derived.find_maxIn(), 0);
+
+    // bins are not aligned for real-valued columns
+    DHistogram real = new DHistogram("x", 20, 64, (byte) 0, min, maxEx, 0, histoType, 45, null, Double.NaN, Double.NaN);
+    Assert.assertFalse(real.isSubtractable(parent));
+  }
+
+  @Test public void testSparseChunks() {
+    Scope.enter();
+    try {
+      final int N = 20000;
+      Random rng = new Random(0xBEEF);
+      double[] x1 = new double[N], x2 = new double[N], x1Dense = new double[N], x2Dense = new double[N], y = new double[N];
+      for (int i = 0; i < N; i++) {
+        x1[i] = rng.nextInt(50) == 0 ? 1 + rng.nextInt(5) : 0;
+        x2[i] = i % 1000 == 0 ? Double.NaN : rng.nextInt(100) == 0 ? 1 + rng.nextInt(20) : 0;
+        x1Dense[i] = x1[i] + 1; // no zeros - dense chunks, same histogram bins
+        x2Dense[i] = x2[i] + 1;
+        y[i] = x1[i] * 2 - (Double.isNaN(x2[i]) ? 3 : x2[i]) + rng.nextGaussian();
+      }
+      Frame sparse = new TestFrameBuilder()
+              .withName("sparse")
+              .withColNames("x1", "x2", "y")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, x1)
+              .withDataForCol(1, x2)
+              .withDataForCol(2, y)
+              .withChunkLayout(5000, 5000, 10000)
+              .build();
+      Frame dense = new TestFrameBuilder()
+              .withName("dense")
+              .withColNames("x1", "x2", "y")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, x1Dense)
+              .withDataForCol(1, x2Dense)
+              .withDataForCol(2, y)
+              .withChunkLayout(5000, 5000, 10000)
+              .build();
+      Assert.assertTrue(sparse.vec("x1").chunkForChunkIdx(0).isSparseZero());
+      Assert.assertTrue(sparse.vec("x2").chunkForChunkIdx(2).isSparseZero());
+      Assert.assertFalse(dense.vec("x1").chunkForChunkIdx(0).isSparseZero());
+
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._response_column = "y";
+      parms._ntrees = 5;
+      parms._max_depth = 4;
+      parms._seed = 42;
+      parms._train = sparse._key;
+      GBMModel gbmSparse = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+      parms._train = dense._key;
+      GBMModel gbmDense = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+
+      // histograms of sparse chunks only visit the non-zeros, the trees are the same
+      double mse = gbmDense._output._training_metrics.mse();
+      Assert.assertEquals(mse, gbmSparse._output._training_metrics.mse(), 1e-6 * mse);
+      Frame predsSparse = Scope.track(gbmSparse.score(sparse));
+      Frame predsDense = Scope.track(gbmDense.score(dense));
+      assertVecEquals(predsDense.vec(0), predsSparse.vec(0), 1e-6);
+    } finally {
+      Scope.exit();
+    }
+  }
 }
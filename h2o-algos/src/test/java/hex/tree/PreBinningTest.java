@@ -0,0 +1,106 @@
+package hex.tree;
+
+import hex.ModelMetricsRegression;
+import hex.tree.gbm.GBM;
+import hex.tree.gbm.GBMModel;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PreBinningTest extends TestUtil {
+
+  @BeforeClass
+  public static void stall() { stall_till_cloudsize(1); }
+
+  @Test
+  public void testSplitValueMatchesBinIndex() {
+    Random rnd = new Random(42);
+    double[] counts = new double[800];
+    double[] xs = new double[10000];
+    for (int i = 0; i < xs.length; i++) {
+      xs[i] = Math.exp(rnd.nextGaussian());
+      counts[Math.min((int) (xs[i] / 20 * counts.length), counts.length - 1)]++;
+    }
+    float[] thresholds = PreBinning.findThresholds(counts, 0, 20, 100);
+    assertTrue(thresholds.length > 50 && thresholds.length < 100);
+    for (int i = 1; i < thresholds.length; i++)
+      assertTrue(thresholds[i - 1] < thresholds[i]);
+
+    float[][] allThresholds = new float[][]{null, thresholds};
+    PreBinning binning = new PreBinning(allThresholds);
+    for (int k = 1; k <= thresholds.length; k++) {
+      // splits on binned columns are always half-way between two bin indices
+      float splat = binning.splitValue(1, k - 0.5f);
+      for (double x : xs)
+        assertEquals(PreBinning.bin(thresholds, x) >= k, x >= splat);
+    }
+    assertEquals(3.5f, binning.splitValue(0, 3.5f), 0); // column not binned
+  }
+
+  @Test
+  public void testGBMOnPreBinnedFrame() {
+    Scope.enter();
+    try {
+      final int N = 5000;
+      Random rnd = new Random(0xDECAF);
+      double[] x1 = new double[N];
+      double[] x2 = new double[N];
+      String[] x3 = new String[N];
+      double[] y = new double[N];
+      for (int i = 0; i < N; i++) {
+        x1[i] = i % 50 == 0 ? Double.NaN : Math.exp(rnd.nextGaussian());
+        x2[i] = rnd.nextInt(100000);
+        x3[i] = "L" + rnd.nextInt(5);
+        y[i] = (Double.isNaN(x1[i]) ? 1 : Math.log(x1[i])) + x2[i] / 50000 + (x3[i].equals("L1") ? 2 : 0) + rnd.nextGaussian() * 0.1;
+      }
+      Frame fr = new TestFrameBuilder()
+              .withName("prebinned")
+              .withColNames("x1", "x2", "x3", "y")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, Vec.T_NUM)
+              .withDataForCol(0, x1)
+              .withDataForCol(1, x2)
+              .withDataForCol(2, x3)
+              .withDataForCol(3, y)
+              .withChunkLayout(1000, 1000, 1000, 2000)
+              .build();
+
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = fr._key;
+      parms._response_column = "y";
+      parms._ntrees = 20;
+      parms._max_depth = 4;
+      parms._prebin_nbins = 64;
+      parms._seed = 42;
+      GBMModel gbm = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+
+      GBMModel.GBMParameters parmsRaw = (GBMModel.GBMParameters) parms.clone();
+      parmsRaw._prebin_nbins = 0;
+      GBMModel gbmRaw = (GBMModel) Scope.track_generic(new GBM(parmsRaw).trainModel().get());
+
+      // training metrics are calculated from the in-training predictions (on bin indices),
+      // scoring uses the compressed trees with split points translated back to the original values
+      Scope.track(gbm.score(fr));
+      ModelMetricsRegression mm = ModelMetricsRegression.getFromDKV(gbm, fr);
+      double trainMSE = gbm._output._training_metrics.mse();
+      assertEquals(trainMSE, mm.mse(), 1e-6 * trainMSE);
+
+      // quantization shouldn't make the model noticeably worse
+      assertEquals(gbmRaw._output._training_metrics.mse(), trainMSE, 0.1 * trainMSE);
+
+      // pre-binned Vecs don't leak and the original frame is untouched
+      assertArrayEquals(new byte[]{Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, Vec.T_NUM}, fr.types());
+      assertEquals(x2[7], fr.vec("x2").at(7), 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+}
@@ -2,8 +2,10 @@ package hex.tree.drf;
 
 
 import hex.Model;
+import hex.ModelMetrics;
 import hex.ModelMetricsBinomial;
 import hex.ModelMetricsRegression;
+import hex.ScoreKeeper;
 import hex.SplitFrame;
 import hex.tree.SharedTreeModel;
 import org.junit.Assert;
@@ -14,6 +16,7 @@ import water.*;
 import water.exceptions.H2OModelBuilderIllegalArgumentException;
 import water.fvec.Frame;
 import water.fvec.RebalanceDataSet;
+import water.fvec.TestFrameBuilder;
 import water.fvec.Vec;
 import water.util.ArrayUtils;
 import water.util.Log;
@@ -1709,4 +1712,110 @@ public class DRFTest extends TestUtil {
     }
     Scope.exit(); 
   }
+
+  @Test public void testIncrementalValidationScoring() {
+    Scope.enter();
+    try {
+      Random rnd = new Random(0xF00);
+      Frame[] frames = new Frame[2];
+      for (int f = 0; f < frames.length; f++) {
+        int N = f == 0 ? 4000 : 2000;
+        double[] x = new double[N];
+        String[] c = new String[N];
+        String[] y = new String[N];
+        for (int i = 0; i < N; i++) {
+          x[i] = rnd.nextGaussian();
+          c[i] = "L" + rnd.nextInt(4);
+          y[i] = x[i] + (c[i].equals("L1") ? 1 : 0) + rnd.nextGaussian() > 0.5 ? "a" : x[i] > -0.5 ? "b" : "c";
+        }
+        frames[f] = new TestFrameBuilder()
+                .withName(f == 0 ? "drf_inc_train" : "drf_inc_valid")
+                .withColNames("x", "c", "y")
+                .withVecTypes(Vec.T_NUM, Vec.T_CAT, Vec.T_CAT)
+                .withDataForCol(0, x)
+                .withDataForCol(1, c)
+                .withDataForCol(2, y)
+                .withChunkLayout(N / 2, N / 2)
+                .build();
+      }
+      DRFModel.DRFParameters parms = new DRFModel.DRFParameters();
+      parms._train = frames[0]._key;
+      parms._valid = frames[1]._key;
+      parms._response_column = "y";
+      parms._ntrees = 15;
+      parms._max_depth = 6;
+      parms._score_validation_each_tree = true;
+      parms._seed = 42;
+      DRFModel drf = (DRFModel) Scope.track_generic(new DRF(parms).trainModel().get());
+
+      // the validation predictions are maintained incrementally, tree after tree
+      int nvalid = 0;
+      for (ScoreKeeper sk : drf._output._scored_valid) if (!sk.isEmpty()) nvalid++;
+      assertEquals(15, nvalid); // 0-tree model is not scored
+      double validMSE = drf._output._validation_metrics.mse();
+      Scope.track(drf.score(frames[1]));
+      assertEquals(ModelMetrics.getFromDKV(drf, frames[1]).mse(), validMSE, 1e-8);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test public void testReplicatedTrainingData() {
+    Scope.enter();
+    try {
+      Random rnd = new Random(0xD0F);
+      int N = 6000;
+      double[] x = new double[N];
+      String[] c = new String[N];
+      double[] w = new double[N];
+      String[] yc = new String[N];
+      double[] yr = new double[N];
+      for (int i = 0; i < N; i++) {
+        x[i] = i % 25 == 0 ? Double.NaN : rnd.nextGaussian();
+        c[i] = "L" + rnd.nextInt(8);
+        w[i] = rnd.nextInt(4);
+        yr[i] = (Double.isNaN(x[i]) ? 0 : x[i]) + (c[i].equals("L1") || c[i].equals("L5") ? 1 : 0) + rnd.nextGaussian() * 0.5;
+        yc[i] = yr[i] > 0.8 ? "a" : yr[i] > -0.2 ? "b" : "c";
+      }
+      for (boolean classification : new boolean[]{true, false}) {
+        TestFrameBuilder builder = new TestFrameBuilder()
+                .withName(classification ? "drf_repl_cls" : "drf_repl_reg")
+                .withColNames("x", "c", "w", "y")
+                .withVecTypes(Vec.T_NUM, Vec.T_CAT, Vec.T_NUM, classification ? Vec.T_CAT : Vec.T_NUM)
+                .withDataForCol(0, x)
+                .withDataForCol(1, c)
+                .withDataForCol(2, w);
+        builder = classification ? builder.withDataForCol(3, yc) : builder.withDataForCol(3, yr);
+        Frame fr = builder.withChunkLayout(N / 4, N / 4, N / 2).build();
+        DRFModel.DRFParameters parms = new DRFModel.DRFParameters();
+        parms._train = fr._key;
+        parms._response_column = "y";
+        parms._weights_column = "w";
+        parms._ntrees = 12;
+        parms._max_depth = 8;
+        parms._seed = 42;
+        DRFModel drf = (DRFModel) Scope.track_generic(new DRF(parms).trainModel().get());
+
+        parms._replicate_training_data = true;
+        DRFModel replicated = (DRFModel) Scope.track_generic(new DRF(parms).trainModel().get());
+
+        // same seeds, same sampling and same splits - the trees only differ by the order of summation in the histograms
+        assertEquals(drf._output._ntrees, replicated._output._ntrees);
+        assertEquals(drf._output._treeStats._max_depth, replicated._output._treeStats._max_depth);
+        assertEquals(drf._output._treeStats._mean_leaves, replicated._output._treeStats._mean_leaves, 1e-6);
+        // out-of-bag training metrics
+        double mse = drf._output._training_metrics.mse();
+        assertEquals(mse, replicated._output._training_metrics.mse(), 1e-6 * mse);
+        Frame preds = Scope.track(drf.score(fr));
+        Frame predsReplicated = Scope.track(replicated.score(fr));
+        assertVecEquals(preds.vec(preds.numCols() - 1), predsReplicated.vec(predsReplicated.numCols() - 1), 1e-6);
+        float[] varimp = drf._output._varimp._varimp;
+        float[] varimpReplicated = replicated._output._varimp._varimp;
+        for (int i = 0; i < varimp.length; i++)
+          assertEquals(varimp[i], varimpReplicated[i], 1e-4 * ArrayUtils.maxValue(varimp));
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
 }
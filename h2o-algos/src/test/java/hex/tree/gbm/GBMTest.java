@@ -10,6 +10,7 @@ import hex.genmodel.easy.exception.PredictException;
 import hex.genmodel.easy.prediction.BinomialModelPrediction;
 import hex.genmodel.easy.prediction.MultinomialModelPrediction;
 import hex.genmodel.utils.DistributionFamily;
+import hex.tree.ScoreBuildHistogram;
 import hex.tree.SharedTreeModel;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -3559,6 +3560,295 @@ public class GBMTest extends TestUtil {
     }
   }
 
+  @Test
+  public void testGrowPolicyLossguide() {
+    Scope.enter();
+    try {
+      final int N = 2000;
+      double[] x = new double[N];
+      double[] y = new double[N];
+      for (int i = 0; i < N; i++) {
+        x[i] = i / (double) N;
+        y[i] = x[i] < 0.5 ? 0 : 10 * x[i]; // all the structure is in the right half
+      }
+      Frame train = new TestFrameBuilder()
+              .withName("lossguide")
+              .withColNames("x", "y")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, x)
+              .withDataForCol(1, y)
+              .withChunkLayout(500, 500, 1000)
+              .build();
+
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = train._key;
+      parms._response_column = "y";
+      parms._ntrees = 1;
+      parms._learn_rate = 1;
+      parms._min_rows = 1;
+      parms._max_depth = 3;
+      GBMModel depthwise = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+
+      parms._grow_policy = GBMModel.GBMParameters.GrowPolicy.lossguide;
+      parms._max_leaves = 8;
+      parms._max_depth = 10;
+      GBMModel lossguide = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+
+      // same leaf budget, but the lossguide tree spends it where the loss reduction is
+      assertTrue(depthwise._output._treeStats._max_leaves <= 8);
+      assertEquals(8, lossguide._output._treeStats._max_leaves);
+      assertTrue(lossguide._output._treeStats._max_depth > 3);
+      double mseDepthwise = depthwise._output._training_metrics.mse();
+      double mseLossguide = lossguide._output._training_metrics.mse();
+      assertTrue(mseLossguide + " < " + mseDepthwise, mseLossguide < mseDepthwise);
+
+      // compressed trees score the same as the trees used during training
+      Scope.track(lossguide.score(train));
+      assertEquals(mseLossguide, ModelMetricsRegression.getFromDKV(lossguide, train).mse(), 1e-6 * mseLossguide);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testGrowPolicyLossguideDepth() {
+    Scope.enter();
+    try {
+      final int N = 4000;
+      double[] x = new double[N];
+      double[] y = new double[N];
+      for (int i = 0; i < N; i++) {
+        x[i] = i / (double) N;
+        // steps of different sizes, the leaves worth splitting end up at different depths
+        y[i] = x[i] < 0.5 ? 0 : x[i] < 0.75 ? 4 * Math.floor(8 * x[i]) : x[i] < 0.9 ? 20 * Math.floor(32 * x[i]) : 100 * x[i];
+      }
+      Frame train = new TestFrameBuilder()
+              .withName("lossguide_depth")
+              .withColNames("x", "y")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, x)
+              .withDataForCol(1, y)
+              .withChunkLayout(1000, 1000, 2000)
+              .build();
+
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = train._key;
+      parms._response_column = "y";
+      parms._ntrees = 3;
+      parms._learn_rate = 0.5;
+      parms._min_rows = 1;
+      parms._nbins = 64;
+      parms._max_depth = 12;
+      parms._grow_policy = GBMModel.GBMParameters.GrowPolicy.lossguide;
+      parms._max_leaves = 16;
+      GBMModel gbm = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+
+      int maxDepth = 0;
+      for (int t = 0; t < parms._ntrees; t++) {
+        int minLeafDepth = Integer.MAX_VALUE, maxLeafDepth = 0;
+        for (SharedTreeNode node : gbm.getSharedTreeSubgraph(t, 0).nodesArray) {
+          if (node.getLeftChild() != null || node.getRightChild() != null) continue;
+          minLeafDepth = Math.min(minLeafDepth, node.getDepth());
+          maxLeafDepth = Math.max(maxLeafDepth, node.getDepth());
+        }
+        assertTrue("tree " + t + " is not balanced", minLeafDepth < maxLeafDepth);
+        maxDepth = Math.max(maxDepth, maxLeafDepth);
+      }
+      assertEquals(maxDepth, gbm._output._treeStats._max_depth);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testMaxLeavesRequiresLossguide() {
+    GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+    parms._max_leaves = 8;
+    GBM gbm = new GBM(parms);
+    assertTrue(gbm.error_count() > 0);
+    parms._grow_policy = GBMModel.GBMParameters.GrowPolicy.lossguide;
+    parms._max_leaves = 1;
+    gbm = new GBM(parms);
+    assertTrue(gbm.error_count() > 0);
+    parms._max_leaves = 0; // lossguide needs a finite leaf budget
+    gbm = new GBM(parms);
+    assertTrue(gbm.error_count() > 0);
+  }
+
+  @Test
+  public void testGoss() {
+    Scope.enter();
+    try {
+      Frame train = makeLogisticFrame("goss", 10000, 0xBEEF);
+      Frame valid = makeLogisticFrame("goss_valid", 5000, 0xCAFE);
+
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = train._key;
+      parms._valid = valid._key;
+      parms._response_column = "y";
+      parms._ntrees = 30;
+      parms._max_depth = 4;
+      parms._seed = 42;
+      GBMModel full = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+
+      parms._goss = true;
+      GBMModel goss = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+
+      // trees are built on 30% of the rows, the model should be about as good
+      ModelMetricsBinomial trainFull = (ModelMetricsBinomial) full._output._training_metrics;
+      ModelMetricsBinomial trainGoss = (ModelMetricsBinomial) goss._output._training_metrics;
+      assertEquals(trainFull.auc(), trainGoss.auc(), 0.01);
+      assertEquals(trainFull.logloss(), trainGoss.logloss(), 0.02 * trainFull.logloss());
+      ModelMetricsBinomial validFull = (ModelMetricsBinomial) full._output._validation_metrics;
+      ModelMetricsBinomial validGoss = (ModelMetricsBinomial) goss._output._validation_metrics;
+      assertEquals(validFull.auc(), validGoss.auc(), 0.01);
+      assertEquals(validFull.logloss(), validGoss.logloss(), 0.02 * validFull.logloss());
+      double loglossGoss = trainGoss.logloss();
+
+      // GOSS only affects training, scoring the training frame gives the training metrics
+      Scope.track(goss.score(train));
+      assertEquals(loglossGoss, ModelMetricsBinomial.getFromDKV(goss, train).logloss(), 1e-6);
+
+      // reproducible
+      GBMModel goss2 = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+      assertEquals(loglossGoss, ((ModelMetricsBinomial) goss2._output._training_metrics).logloss(), 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testGossSampleWeights() {
+    Scope.enter();
+    try {
+      final int N = 1000;
+      double[] work = new double[N];
+      for (int i = 0; i < N; i++)
+        work[i] = (i % 2 == 0 ? 1 : -1) * i / (double) N;
+      Frame data = Scope.track(new TestFrameBuilder()
+              .withName("goss_sample")
+              .withColNames("work", "y")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, work)
+              .withDataForCol(1, new double[N])
+              .withChunkLayout(300, 300, 400)
+              .build());
+      Vec nids = data.anyVec().makeVolatileInts(new int[]{0})[0];
+      Vec gossWeights = data.anyVec().makeVolatileDoubles(1)[0];
+      Scope.track(new Frame(nids, gossWeights));
+      Frame fr = new Frame(new String[]{"work_0", "nids_0", "response", "GOSS_weights"},
+              new Vec[]{data.vec("work"), nids, data.vec("y"), gossWeights});
+
+      GossSample.sample(fr, new boolean[]{true}, false, 0.2, 0.1, 42);
+
+      int top = 0, other = 0;
+      for (int i = 0; i < N; i++) {
+        boolean oob = nids.at8(i) == ScoreBuildHistogram.OUT_OF_BAG;
+        double w = gossWeights.at(i);
+        if (oob) {
+          assertEquals("row " + i, 1, w, 0); // skipped rows are not up-weighted
+        } else if (Math.abs(work[i]) >= 0.8) {
+          assertEquals("row " + i, 1, w, 0);
+          top++;
+        } else {
+          assertEquals("row " + i, 0.8 / 0.1, w, 1e-12);
+          other++;
+        }
+      }
+      assertEquals(200, top);
+      assertEquals(100, other, 30);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testGossInvalidParameters() {
+    GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+    parms._goss = true;
+    parms._goss_top_rate = 0.6;
+    parms._goss_other_rate = 0.5;
+    assertTrue(new GBM(parms).error_count() > 0);
+    parms._goss_top_rate = 0.2;
+    parms._goss_other_rate = 0.1;
+    parms._sample_rate = 0.5;
+    assertTrue(new GBM(parms).error_count() > 0);
+    parms._sample_rate = 1;
+    parms._distribution = DistributionFamily.laplace;
+    assertTrue(new GBM(parms).error_count() > 0);
+  }
+
+  private static Frame makeLogisticFrame(String name, int N, long seed) {
+    Random rnd = new Random(seed);
+    double[] x1 = new double[N];
+    double[] x2 = new double[N];
+    String[] y = new String[N];
+    for (int i = 0; i < N; i++) {
+      x1[i] = rnd.nextGaussian();
+      x2[i] = rnd.nextGaussian();
+      double p = 1 / (1 + Math.exp(-(2 * x1[i] - x2[i] * x2[i] + 0.5)));
+      y[i] = rnd.nextDouble() < p ? "yes" : "no";
+    }
+    return new TestFrameBuilder()
+            .withName(name)
+            .withColNames("x1", "x2", "y")
+            .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_CAT)
+            .withDataForCol(0, x1)
+            .withDataForCol(1, x2)
+            .withDataForCol(2, y)
+            .withChunkLayout(N / 4, N / 4, N / 2)
+            .build();
+  }
+
+  @Test
+  public void testScoreValidationEachTree() {
+    Scope.enter();
+    try {
+      Frame train = makeLogisticFrame("train_each_tree", 5000, 0xBEEF);
+      Frame valid = makeLogisticFrame("valid_each_tree", 3000, 0xCAFE);
+
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = train._key;
+      parms._valid = valid._key;
+      parms._response_column = "y";
+      parms._ntrees = 20;
+      parms._max_depth = 3;
+      parms._score_tree_interval = 10;
+      parms._score_validation_each_tree = true;
+      parms._seed = 42;
+      GBMModel gbm = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+
+      // validation frame scored after every tree, the training frame only every 10 trees
+      int nvalid = 0, ntrain = 0;
+      for (ScoreKeeper sk : gbm._output._scored_valid) if (!sk.isEmpty()) nvalid++;
+      for (ScoreKeeper sk : gbm._output._scored_train) if (!sk.isEmpty()) ntrain++;
+      assertEquals(21, nvalid);
+      assertEquals(3, ntrain);
+      assertEquals(21, gbm._output._scoring_history.getRowDim());
+
+      // incrementally updated predictions give the same metrics as scoring from scratch
+      double validLogloss = ((ModelMetricsBinomial) gbm._output._validation_metrics).logloss();
+      Scope.track(gbm.score(valid));
+      assertEquals(ModelMetricsBinomial.getFromDKV(gbm, valid).logloss(), validLogloss, 1e-8);
+      assertEquals(validLogloss, gbm._output._scored_valid[20]._logloss, 1e-8);
+
+      // scoring doesn't change the trees
+      parms._score_validation_each_tree = false;
+      GBMModel gbmRef = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+      assertEquals(((ModelMetricsBinomial) gbmRef._output._validation_metrics).logloss(), validLogloss, 1e-8);
+
+      // early stopping is checked after every tree, not only every 10 trees
+      parms._score_validation_each_tree = true;
+      parms._ntrees = 50;
+      parms._stopping_rounds = 2;
+      parms._stopping_tolerance = 0.5;
+      GBMModel gbmStopped = (GBMModel) Scope.track_generic(new GBM(parms).trainModel().get());
+      assertTrue(gbmStopped._output._ntrees < 10);
+    } finally {
+      Scope.exit();
+    }
+  }
+
   private static Frame makeSinFrame(final int len) {
     Vec blueprint = Scope.track(Vec.makeZero(len));
     Frame train = new MRTask() {
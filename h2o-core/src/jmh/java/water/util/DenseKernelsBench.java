@@ -0,0 +1,153 @@
+package water.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-performance of the DenseKernels compared to the naive loops they replaced.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DenseKernelsBench {
+
+  @Param({"64", "512"})
+  private int n;
+
+  private double[] x;
+  private double[] y;
+  private double[][] A;
+  private double[][] B;
+  private double[][] C;
+  private double[] res;
+
+  @Setup
+  public void setup() {
+    Random r = new Random(42);
+    x = new double[n];
+    y = new double[n];
+    res = new double[n];
+    A = new double[n][n];
+    B = new double[n][n];
+    C = new double[n][n];
+    for (int i = 0; i < n; ++i) {
+      x[i] = r.nextGaussian();
+      y[i] = r.nextGaussian();
+      for (int j = 0; j < n; ++j) {
+        A[i][j] = r.nextGaussian();
+        B[i][j] = r.nextGaussian();
+      }
+    }
+  }
+
+  @Benchmark
+  public double dotNaive() {
+    double d = 0;
+    for (int i = 0; i < n; ++i) d += x[i] * y[i];
+    return d;
+  }
+
+  @Benchmark
+  public double dot() {
+    return DenseKernels.dot(x, y, n);
+  }
+
+  @Benchmark
+  public double dotOffsetNaive() {
+    double d = 0;
+    for (int i = 0; i < n - 1; ++i) d += x[1 + i] * y[i];
+    return d;
+  }
+
+  @Benchmark
+  public double dotOffset() {
+    return DenseKernels.dot(x, 1, y, 0, n - 1);
+  }
+
+  @Benchmark
+  public double[] axpyNaive() {
+    for (int i = 0; i < n; ++i) y[i] += 1e-9 * x[i];
+    return y;
+  }
+
+  @Benchmark
+  public double[] axpy() {
+    DenseKernels.axpy(1e-9, x, y, n);
+    return y;
+  }
+
+  @Benchmark
+  public double[] scalNaive() {
+    for (int i = 0; i < n; ++i) y[i] *= 1 + 1e-9;
+    return y;
+  }
+
+  @Benchmark
+  public double[] scal() {
+    DenseKernels.scal(1 + 1e-9, y, n);
+    return y;
+  }
+
+  @Benchmark
+  public double dotAxpyNaive() {
+    double d = 0;
+    for (int i = 0; i < n; ++i) {
+      d += A[0][i] * x[i];
+      y[i] += 1e-9 * A[0][i];
+    }
+    return d;
+  }
+
+  @Benchmark
+  public double dotAxpy() {
+    return DenseKernels.dotAxpy(A[0], x, 1e-9, y, n);
+  }
+
+  @Benchmark
+  public double[] gemvNaive() {
+    for (int i = 0; i < n; ++i) {
+      double d = 0;
+      for (int j = 0; j < n; ++j) d += A[i][j] * x[j];
+      res[i] = d;
+    }
+    return res;
+  }
+
+  @Benchmark
+  public double[] gemv() {
+    return DenseKernels.gemv(A, x, res);
+  }
+
+  @Benchmark
+  public double[][] gemmNaive() {
+    for (int i = 0; i < n; ++i)
+      for (int j = 0; j < n; ++j) {
+        double d = 0;
+        for (int k = 0; k < n; ++k) d += A[i][k] * B[k][j];
+        C[i][j] = d;
+      }
+    return C;
+  }
+
+  @Benchmark
+  public double[][] gemm() {
+    return DenseKernels.gemm(A, B, C);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(DenseKernelsBench.class.getSimpleName())
+        .build();
+
+    new Runner(opt).run();
+  }
+}
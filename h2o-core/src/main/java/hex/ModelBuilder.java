@@ -25,7 +25,7 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
   public boolean shouldReorder(Vec v) { return _parms._categorical_encoding.needsResponse() && isSupervised(); }
 
   transient private IcedHashMap<Key,String> _toDelete = new IcedHashMap<>();
-  void cleanUp() { FrameUtils.cleanUp(_toDelete); }
+  protected void cleanUp() { FrameUtils.cleanUp(_toDelete); }
 
   public Job<M> _job;     // Job controlling this build
   /** Block till completion, and return the built model from the DKV.  Note the
@@ -427,6 +427,9 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
       // Step 3: Build N train & validation frames; build N ModelBuilders; error check them all
       cvModelBuilders = cv_makeFramesAndBuilders(N, weights);
 
+      // Step 3b: Compute statistics shared by the CV models (if supported by the algo)
+      cv_computeSharedStatistics(N, weights, cvModelBuilders);
+
       // Step 4: Run all the CV models
       cv_buildModels(N, cvModelBuilders);
 
@@ -774,6 +777,12 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
    */
   public void cv_computeAndSetOptimalParameters(ModelBuilder<M, P, O>[] cvModelBuilders) { }
 
+  /** Override to compute the statistics of all the cv models in a single pass over the data, before any of them is built.
+   *  For example, GLM sums up the grams of all the folds at once and gives every cv model the sum over the other folds.
+   *  @param weights the 2*N weight vectors made by cv_makeWeights (training and holdout weights of every fold)
+   */
+  public void cv_computeSharedStatistics(int N, Vec[] weights, ModelBuilder<M, P, O>[] cvModelBuilders) { }
+
   /** @return Whether n-fold cross-validation is done  */
   public boolean nFoldCV() {
     return _parms._fold_column != null || _parms._nfolds != 0;
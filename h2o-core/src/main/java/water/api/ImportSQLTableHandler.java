@@ -24,7 +24,8 @@ public class ImportSQLTableHandler extends Handler {
       }
       Job j = SQLManager.importSqlTable(importSqlTable.connection_url, importSqlTable.table, importSqlTable.select_query,
              importSqlTable.username, importSqlTable.password, importSqlTable.columns,
-             sqlFetchMode);
+             sqlFetchMode, importSqlTable.partition_column, importSqlTable.lower_bound, importSqlTable.upper_bound,
+             importSqlTable.num_partitions, importSqlTable.connections_per_node);
     return new JobV3().fillFromImpl(j);
     
   }
@@ -29,4 +29,23 @@ public class ImportSQLTableV99 extends RequestSchemaV3<Iced,ImportSQLTableV99> {
   @API(help = "Mode for data loading. All modes may not be supported by all databases.")
   public String fetch_mode;
 
+  @API(help = "Numeric or date/time column used to split the table into ranges retrieved in parallel " +
+          "(DISTRIBUTED fetch mode only). If not specified, the table is split using row offsets.")
+  public String partition_column;
+
+  @API(help = "Lower bound of the partition column used to calculate the ranges (number, or date/time in JDBC escape " +
+          "format). Rows below the bound are not filtered out. Defaults to the minimum of the column.")
+  public String lower_bound;
+
+  @API(help = "Upper bound of the partition column used to calculate the ranges (number, or date/time in JDBC escape " +
+          "format). Rows above the bound are not filtered out. Defaults to the maximum of the column.")
+  public String upper_bound;
+
+  @API(help = "Number of ranges of the partition column. Defaults to a value derived from the size of the table.")
+  public int num_partitions;
+
+  @API(help = "Number of concurrent database connections per node. Defaults to a value derived from the number of " +
+          "threads and the maximal number of connections (sys.ai.h2o.sql.connections.max).")
+  public int connections_per_node;
+
 }
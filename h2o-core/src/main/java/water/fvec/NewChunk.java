@@ -748,6 +748,111 @@ public class NewChunk extends Chunk {
     _len += n;
   }
 
+  /**
+   * Bulk append of integer values, equivalent to calling addNum(vals[i], 0) (or addNA() if isNA[i])
+   * for each i in [off, off + len). Dense numeric chunks are resized once and filled in a tight loop,
+   * other representations (sparse, doubles, strings, UUIDs) fall back to the per-value path.
+   *
+   * @param vals values to append
+   * @param isNA optional NA flags (indexed the same way as vals), null if there are no NAs
+   * @param off index of the first value
+   * @param len number of values to append
+   */
+  public void addNums(long[] vals, boolean[] isNA, int off, int len) {
+    if (len == 0) return;
+    if (_ms == null || _xs == null || _ds != null || _id != null || isString()) {
+      for (int i = off; i < off + len; i++) {
+        if (isNA != null && isNA[i]) addNA();
+        else addNum(vals[i], 0);
+      }
+      return;
+    }
+    final int sparseLen = _sparseLen + len;
+    if (_ms.len() < sparseLen) {
+      int cap = Math.max(sparseLen, _ms.len() << 1);
+      _ms.resize(cap);
+      _xs.resize(cap);
+    }
+    for (int i = 0; i < len; i++) {
+      if (isNA != null && isNA[off + i]) {
+        if (_missing == null) _missing = new BitSet();
+        _missing.set(_sparseLen + i);
+      } else {
+        _ms.set(_sparseLen + i, vals[off + i]);
+        _xs.set(_sparseLen + i, 0);
+      }
+    }
+    set_sparseLen(sparseLen);
+    _len += len;
+    assert _sparseLen <= _len;
+  }
+
+  /**
+   * Bulk append of double values, equivalent to calling addNumDecompose(vals[i]) for each i in [off, off + len),
+   * except that NaNs, infinities and values flagged in isNA are added as NAs. Values of dense numeric chunks
+   * are decomposed into mantissa/exponent in place, the per-value path is only used for the values that need
+   * to be stored as doubles (and for everything after them).
+   *
+   * @param vals values to append
+   * @param isNA optional NA flags (indexed the same way as vals), null if there are no NAs
+   * @param off index of the first value
+   * @param len number of values to append
+   */
+  public void addNumsDecompose(double[] vals, boolean[] isNA, int off, int len) {
+    if (len == 0) return;
+    final int end = off + len;
+    int i = off;
+    if (_ms != null && _xs != null && _ds == null && _id == null && !isString()) {
+      final int sparseLen = _sparseLen + len;
+      if (_ms.len() < sparseLen) {
+        int cap = Math.max(sparseLen, _ms.len() << 1);
+        _ms.resize(cap);
+        _xs.resize(cap);
+      }
+      decompose:
+      for (; i < end; i++) {
+        final double d = vals[i];
+        if ((isNA != null && isNA[i]) || Double.isNaN(d) || Double.isInfinite(d)) {
+          if (_missing == null) _missing = new BitSet();
+          _missing.set(_sparseLen);
+        } else if ((long) d == d) {
+          _ms.set(_sparseLen, (long) d);
+          _xs.set(_sparseLen, 0);
+        } else {
+          final int expIdx = Math.getExponent(d) - Double.MIN_EXPONENT;
+          if (expIdx == -1) // subnormal
+            break;
+          final int sign = d < 0 ? -1 : 1;
+          int exp = EXP10s[expIdx];
+          double val = sign * d * INV_POW10s[expIdx];
+          while ((long) val != val) {
+            double x = val * 10;
+            if (x > Long.MAX_VALUE)
+              break decompose;
+            val = x;
+            exp--;
+          }
+          long m = sign * (long) val;
+          long t;                // Remove extra scaling
+          while (exp < 0 && exp > -9999999 && (t = m / 10) * 10 == m) {
+            m = t;
+            exp++;
+          }
+          _ms.set(_sparseLen, m);
+          _xs.set(_sparseLen, m == 0 ? 0 : exp);
+        }
+        _sparseLen++;
+        _len++;
+      }
+    }
+    for (; i < end; i++) {
+      final double d = vals[i];
+      if ((isNA != null && isNA[i]) || Double.isNaN(d) || Double.isInfinite(d)) addNA();
+      else addNumDecompose(d);
+    }
+    assert _sparseLen <= _len;
+  }
+
   // Append all of 'nc' onto the current NewChunk.  Kill nc.
   public void add( NewChunk nc ) {
     assert _cidx >= 0;
@@ -909,6 +909,11 @@ public class Vec extends Keyed<Vec> {
    *  @return Checksum of the Vec's content  */
   @Override protected long checksum_impl() { return rollupStats()._checksum;}
 
+  /** Checksum of the current content of the Vec. Unlike {@link #checksum()}
+   *  it is not cached in the Vec, it changes after the Vec is written to.
+   *  @return Checksum of the Vec's current content  */
+  public long contentChecksum() { return rollupStats()._checksum;}
+
   public boolean isVolatile() {return _volatile;}
 
 
@@ -7,7 +7,9 @@ import water.parser.ParseDataset;
 import water.util.Log;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.*;
+import java.util.Arrays;
 import java.util.concurrent.ArrayBlockingQueue;
 
 public class SQLManager {
@@ -24,6 +26,7 @@ public class SQLManager {
   private static final String ORACLE_DB_TYPE = "oracle";
   private static final String SQL_SERVER_DB_TYPE = "sqlserver";
   private static final String TERADATA_DB_TYPE = "teradata";
+  private static final String DERBY_DB_TYPE = "derby";
 
   private static final String NETEZZA_JDBC_DRIVER_CLASS = "org.netezza.Driver";
   private static final String HIVE_JDBC_DRIVER_CLASS = "org.apache.hive.jdbc.HiveDriver";
@@ -42,6 +45,37 @@ public class SQLManager {
   public static Job<Frame> importSqlTable(final String connection_url, final String table, final String select_query,
                                           final String username, final String password, final String columns,
                                           final SqlFetchMode fetch_mode) {
+    return importSqlTable(connection_url, table, select_query, username, password, columns, fetch_mode,
+            null, null, null, 0, 0);
+  }
+
+  /**
+   * @param connection_url (Input)
+   * @param table (Input)
+   * @param select_query (Input)
+   * @param username (Input)
+   * @param password (Input)
+   * @param columns (Input)
+   * @param fetch_mode (Input)
+   * @param partition_column (Input) numeric or date/time column used to split the table into ranges (DISTRIBUTED mode only),
+   *                         null or empty to use row offsets instead
+   * @param lower_bound (Input) lower bound of the partition column used to calculate the ranges, null to use the minimum
+   * @param upper_bound (Input) upper bound of the partition column used to calculate the ranges, null to use the maximum
+   * @param num_partitions (Input) number of ranges, 0 to derive it from the size of the table
+   * @param connections_per_node (Input) number of concurrent database connections per node, 0 to use the default
+   */
+  public static Job<Frame> importSqlTable(final String connection_url, final String table, final String select_query,
+                                          final String username, final String password, final String columns,
+                                          final SqlFetchMode fetch_mode, final String partition_column,
+                                          final String lower_bound, final String upper_bound,
+                                          final int num_partitions, final int connections_per_node) {
+    final boolean partitioned = partition_column != null && !partition_column.isEmpty();
+    if (partitioned && !SqlFetchMode.DISTRIBUTED.equals(fetch_mode))
+      throw new IllegalArgumentException("Partition column can only be used with fetch mode " + SqlFetchMode.DISTRIBUTED);
+    if (num_partitions < 0)
+      throw new IllegalArgumentException("Number of partitions cannot be negative: " + num_partitions);
+    if (connections_per_node < 0)
+      throw new IllegalArgumentException("Number of connections per node cannot be negative: " + connections_per_node);
 
     final Key<Frame> destination_key = Key.make((table + "_sql_to_hex").replaceAll("\\W", "_"));
     final Job<Frame> j = new Job<>(destination_key, Frame.class.getName(), "Import SQL Table");
@@ -50,7 +84,8 @@ public class SQLManager {
     initializeDatabaseDriver(databaseType);
 
     SQLImportDriver importDriver = new SQLImportDriver(j, destination_key, databaseType,
-            connection_url, table, select_query, username, password, columns, fetch_mode);
+            connection_url, table, select_query, username, password, columns, fetch_mode,
+            partitioned ? partition_column : null, lower_bound, upper_bound, num_partitions, connections_per_node);
     j.start(importDriver, Job.WORK_UNKNOWN);
 
     return j;
@@ -69,10 +104,16 @@ public class SQLManager {
     final String _password;
     final String _columns;
     final SqlFetchMode _fetch_mode;
+    final String _partition_column;
+    final String _lower_bound;
+    final String _upper_bound;
+    final int _num_partitions;
+    final int _connections_per_node;
 
     SQLImportDriver(Job<Frame> job, Key<Frame> destination_key, String database_type, 
                            String connection_url, String table, String select_query, String username, String password, 
-                           String columns, SqlFetchMode fetch_mode) {
+                           String columns, SqlFetchMode fetch_mode, String partition_column,
+                           String lower_bound, String upper_bound, int num_partitions, int connections_per_node) {
       _j = job;
       _destination_key = destination_key;
       _database_type = database_type;
@@ -83,6 +124,11 @@ public class SQLManager {
       _password = password;
       _columns = columns;
       _fetch_mode = fetch_mode;
+      _partition_column = partition_column;
+      _lower_bound = lower_bound;
+      _upper_bound = upper_bound;
+      _num_partitions = num_partitions;
+      _connections_per_node = connections_per_node;
     }
 
     @Override
@@ -97,6 +143,8 @@ public class SQLManager {
       String source_table = _table;
       final String[] columnNames;
       final byte[] columnH2OTypes;
+      Long partitionMin = null, partitionMax = null;
+      int partitionSqlType = Types.NULL;
       try {
         conn = getConnectionSafe(_connection_url, _username, _password);
         stmt = conn.createStatement();
@@ -132,6 +180,18 @@ public class SQLManager {
           numRow = rs.getLong(1);
           rs.close();
         }
+        //get type and range of values of the partition column
+        if (_partition_column != null) {
+          _j.update(0L, "Getting range of the partition column");
+          rs = stmt.executeQuery("SELECT MIN(" + _partition_column + "), MAX(" + _partition_column + ") FROM " + source_table);
+          rs.next();
+          partitionSqlType = rs.getMetaData().getColumnType(1);
+          partitionMin = _lower_bound != null && !_lower_bound.isEmpty() ?
+                  RangePartitioning.parseBound(_lower_bound, partitionSqlType) : RangePartitioning.readBound(rs, 1, partitionSqlType, false);
+          partitionMax = _upper_bound != null && !_upper_bound.isEmpty() ?
+                  RangePartitioning.parseBound(_upper_bound, partitionSqlType) : RangePartitioning.readBound(rs, 2, partitionSqlType, true);
+          rs.close();
+        }
         //get H2O column names and types
         _j.update(0L, "Getting table schema");
         if (SqlFetchMode.DISTRIBUTED.equals(_fetch_mode)) {
@@ -228,16 +288,26 @@ public class SQLManager {
                       +(float)(realcols+timecols+stringcols) *numRow*8); //8 bytes for real and time (long) values
 
       final Vec vec;
+      RangePartitioning partitioning = null;
       final int chunk_size = FileVec.calcOptimalChunkSize(totSize, numCol, numCol * 4,
               H2O.ARGS.nthreads, H2O.getCloudSize(), false, false);
       final double rows_per_chunk = chunk_size; //why not numRow * chunk_size / totSize; it's supposed to be rows per chunk, not the byte size
       final int num_chunks = Vec.nChunksFor(numRow, (int) Math.ceil(Math.log1p(rows_per_chunk)), false);
 
       if (SqlFetchMode.DISTRIBUTED.equals(_fetch_mode)) {
-        final int num_retrieval_chunks = ConnectionPoolProvider.estimateConcurrentConnections(H2O.getCloudSize(), H2O.ARGS.nthreads);
-        vec = num_retrieval_chunks >= num_chunks
-                ? Vec.makeConN(numRow, num_chunks)
-                : Vec.makeConN(numRow, num_retrieval_chunks);
+        final int num_retrieval_chunks = _connections_per_node > 0 ? H2O.getCloudSize() * _connections_per_node :
+                ConnectionPoolProvider.estimateConcurrentConnections(H2O.getCloudSize(), H2O.ARGS.nthreads);
+        final int num_default_chunks = Math.min(num_chunks, num_retrieval_chunks);
+        if (_partition_column != null) {
+          // each chunk of the blueprint vec corresponds to a single partition, actual chunk sizes are given by the data
+          partitioning = new RangePartitioning(_partition_column, partitionSqlType, partitionMin, partitionMax,
+                  _num_partitions > 0 ? _num_partitions : num_default_chunks);
+          vec = Vec.makeConN(partitioning.nPartitions(), partitioning.nPartitions());
+          Log.info("Partitioning by column " + _partition_column + " into " + partitioning.nPartitions() +
+                  " ranges, inner range bounds: " + Arrays.toString(partitioning._bounds));
+        } else {
+          vec = Vec.makeConN(numRow, num_default_chunks);
+        }
       } else {
         vec = Vec.makeConN(numRow, num_chunks);
       }
@@ -248,11 +318,13 @@ public class SQLManager {
       // Finally read the data into an H2O Frame
       _j.update(0L, "Importing data");
       final String importTable = source_table;
-      final ConnectionPoolProvider provider = new ConnectionPoolProvider(_connection_url, _username, _password, vec.nChunks());
+      final ConnectionPoolProvider provider = new ConnectionPoolProvider(_connection_url, _username, _password,
+              vec.nChunks(), _connections_per_node);
       final Frame fr;
 
       if (SqlFetchMode.DISTRIBUTED.equals(_fetch_mode)) {
-        fr = new SqlTableToH2OFrame(importTable, _database_type, _columns, columnNames, numCol, _j, provider)
+        fr = new SqlTableToH2OFrame(importTable, _database_type, _columns, columnNames, numCol, _j, provider,
+                partitioning, numRow)
                 .doAll(columnH2OTypes, vec)
                 .outputFrame(_destination_key, columnNames, null);
       } else {
@@ -284,6 +356,7 @@ public class SQLManager {
         return "SELECT TOP(1) " + columns + " FROM " + table;
 
       case ORACLE_DB_TYPE:
+      case DERBY_DB_TYPE:
         return "SELECT " + columns + " FROM " + table + " FETCH NEXT 1 ROWS ONLY";
 
       case TERADATA_DB_TYPE:
@@ -298,7 +371,7 @@ public class SQLManager {
    * Builds SQL SELECT to retrieve chunk of rows from a table based on row offset and number of rows in a chunk.
    *
    * Pagination in following Databases:
-   *     SQL Server, Oracle 12c: OFFSET x ROWS FETCH NEXT y ROWS ONLY
+   *     SQL Server, Oracle 12c, Derby: OFFSET x ROWS FETCH NEXT y ROWS ONLY
    * SQL Server, Vertica may need ORDER BY
    *
    * MySQL, PostgreSQL, MariaDB: LIMIT y OFFSET x
@@ -325,6 +398,7 @@ public class SQLManager {
         break;
 
       case ORACLE_DB_TYPE:
+      case DERBY_DB_TYPE:
         sqlText += " OFFSET " + start + " ROWS FETCH NEXT " + length + " ROWS ONLY";
         break;
 
@@ -346,6 +420,7 @@ public class SQLManager {
     private String _user;
     private String _password;
     private int _nChunks;
+    private int _connectionsPerNode;
 
     /**
      * Instantiates ConnectionPoolProvider
@@ -355,10 +430,23 @@ public class SQLManager {
      * @param nChunks   Number of chunks
      */
     ConnectionPoolProvider(String url, String user, String password, int nChunks) {
+      this(url, user, password, nChunks, 0);
+    }
+
+    /**
+     * Instantiates ConnectionPoolProvider
+     * @param url       Database URL (JDBC format)
+     * @param user      Database username
+     * @param password  Username's password
+     * @param nChunks   Number of chunks
+     * @param connectionsPerNode User-requested number of connections per node, 0 to derive it from the environment
+     */
+    ConnectionPoolProvider(String url, String user, String password, int nChunks, int connectionsPerNode) {
       _url = url;
       _user = user;
       _password = password;
       _nChunks = nChunks;
+      _connectionsPerNode = connectionsPerNode;
     }
 
     public ConnectionPoolProvider() {} // Externalizable classes need no-args constructor
@@ -388,7 +476,9 @@ public class SQLManager {
     ArrayBlockingQueue<Connection> createConnectionPool(final int cloudSize, final short nThreads)
         throws RuntimeException {
 
-      final int maxConnectionsPerNode = getMaxConnectionsPerNode(cloudSize, nThreads, _nChunks);
+      final int maxConnectionsPerNode = _connectionsPerNode > 0 ?
+              getRequestedConnectionsPerNode(_connectionsPerNode, cloudSize, _nChunks) :
+              getMaxConnectionsPerNode(cloudSize, nThreads, _nChunks);
       Log.info("Database connections per node: " + maxConnectionsPerNode);
       final ArrayBlockingQueue<Connection> connectionPool = new ArrayBlockingQueue<Connection>(maxConnectionsPerNode);
 
@@ -427,6 +517,15 @@ public class SQLManager {
      return calculateLocalConnectionCount(getMaxConnectionsTotal(), cloudSize, nThreads, nChunks);
     }
 
+    /**
+     * @return Number of connections to open on a single node when the user specified the number explicitly
+     * (no more than the number of chunks a node is expected to process, but at least 1)
+     */
+    static int getRequestedConnectionsPerNode(final int connectionsPerNode, final int cloudSize, final int nChunks) {
+      int conPerNode = (int) Math.min(Math.ceil((double) nChunks / cloudSize), connectionsPerNode);
+      return Math.max(conPerNode, MIN_CONNECTIONS_PER_NODE);
+    }
+
     /**
      * Counts number of connections per node from give maximal number of connections for the whole cluster
      *
@@ -453,6 +552,158 @@ public class SQLManager {
     }
   }
 
+  /**
+   * Splits a table into ranges of values of a numeric or date/time column (similar to partitioning of JDBC sources
+   * in Spark). Lower and upper bounds are only used to calculate the boundaries of the ranges - values below
+   * the lower bound (and NULLs) belong to the first range, values above the upper bound belong to the last range.
+   * Each range is retrieved using a single query, unlike LIMIT/OFFSET queries this doesn't require the database
+   * to scan all the preceding rows.
+   */
+  static class RangePartitioning extends Iced<RangePartitioning> {
+
+    final String _column;
+    final int _sqlType;
+    final long[] _bounds; // inner bounds of the ranges (time values in milliseconds)
+
+    /**
+     * @param column   name of the partition column
+     * @param sqlType  SQL type of the partition column (see {@link Types})
+     * @param lowerBound lower bound of the column values, null if unknown (empty table or NULLs only)
+     * @param upperBound upper bound of the column values, null if unknown (empty table or NULLs only)
+     * @param nPartitions requested number of partitions
+     */
+    RangePartitioning(String column, int sqlType, Long lowerBound, Long upperBound, int nPartitions) {
+      _column = column;
+      _sqlType = sqlType;
+      if (lowerBound == null || upperBound == null || upperBound <= lowerBound) {
+        nPartitions = 1;
+      } else {
+        // don't create empty ranges for columns with only a few distinct values
+        double range = (double) upperBound - (double) lowerBound;
+        if (range < nPartitions)
+          nPartitions = (int) Math.max(range, 1);
+      }
+      _bounds = new long[nPartitions - 1];
+      if (nPartitions > 1) {
+        // split the upperBound - lowerBound + 1 values evenly, sizes of the ranges differ by at most one
+        // (BigInteger to avoid overflow of the extreme bounds)
+        final BigInteger lower = BigInteger.valueOf(lowerBound);
+        final BigInteger count = BigInteger.valueOf(upperBound).subtract(lower).add(BigInteger.ONE);
+        final BigInteger n = BigInteger.valueOf(nPartitions);
+        for (int i = 0; i < _bounds.length; i++)
+          _bounds[i] = lower.add(count.multiply(BigInteger.valueOf(i + 1)).divide(n)).longValue();
+      }
+    }
+
+    int nPartitions() {
+      return _bounds.length + 1;
+    }
+
+    /**
+     * Builds SQL SELECT to retrieve rows of a single partition, range bounds are provided as parameters
+     * of the statement (see {@link #setBounds(PreparedStatement, int)}).
+     */
+    String buildSelectPartitionSql(String table, String columns, int partition) {
+      String sqlText = "SELECT " + columns + " FROM " + table;
+      if (nPartitions() == 1)
+        return sqlText;
+      if (partition == 0)
+        return sqlText + " WHERE " + _column + " < ? OR " + _column + " IS NULL";
+      else if (partition == nPartitions() - 1)
+        return sqlText + " WHERE " + _column + " >= ?";
+      else
+        return sqlText + " WHERE " + _column + " >= ? AND " + _column + " < ?";
+    }
+
+    void setBounds(PreparedStatement stmt, int partition) throws SQLException {
+      int paramIdx = 1;
+      if (partition > 0)
+        setBound(stmt, paramIdx++, _bounds[partition - 1]);
+      if (partition < nPartitions() - 1)
+        setBound(stmt, paramIdx, _bounds[partition]);
+    }
+
+    private void setBound(PreparedStatement stmt, int paramIdx, long bound) throws SQLException {
+      switch (_sqlType) {
+        case Types.DATE:
+          stmt.setDate(paramIdx, new Date(bound));
+          break;
+        case Types.TIME:
+          stmt.setTime(paramIdx, new Time(bound));
+          break;
+        case Types.TIMESTAMP:
+          stmt.setTimestamp(paramIdx, new Timestamp(bound));
+          break;
+        default:
+          stmt.setLong(paramIdx, bound);
+      }
+    }
+
+    static boolean isTimeType(int sqlType) {
+      return sqlType == Types.DATE || sqlType == Types.TIME || sqlType == Types.TIMESTAMP;
+    }
+
+    static boolean isNumericType(int sqlType) {
+      switch (sqlType) {
+        case Types.NUMERIC:
+        case Types.REAL:
+        case Types.DOUBLE:
+        case Types.FLOAT:
+        case Types.DECIMAL:
+        case Types.INTEGER:
+        case Types.TINYINT:
+        case Types.SMALLINT:
+        case Types.BIGINT:
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    /**
+     * Reads a bound of the partition column from a result set (MIN/MAX query)
+     * @param upper true if upper bound is read (real values are rounded up), false for lower bound
+     * @return value of the bound or null if not defined
+     */
+    static Long readBound(ResultSet rs, int columnIdx, int sqlType, boolean upper) throws SQLException {
+      if (isTimeType(sqlType)) {
+        Timestamp ts = rs.getTimestamp(columnIdx);
+        return ts == null ? null : ts.getTime();
+      } else if (isNumericType(sqlType)) {
+        double d = rs.getDouble(columnIdx);
+        return rs.wasNull() ? null : (long) (upper ? Math.ceil(d) : Math.floor(d));
+      } else
+        throw new IllegalArgumentException("Partition column has to be numeric or date/time, got SQL type " + sqlType);
+    }
+
+    /**
+     * Parses a user-specified bound of the partition column. Time bounds can be given either in milliseconds
+     * since epoch or in JDBC escape format (yyyy-[m]m-[d]d hh:mm:ss[.f...], yyyy-[m]m-[d]d or hh:mm:ss).
+     */
+    static Long parseBound(String bound, int sqlType) {
+      bound = bound.trim();
+      try {
+        if (isTimeType(sqlType)) {
+          try {
+            return Long.parseLong(bound);
+          } catch (NumberFormatException e) {
+            if (bound.indexOf(' ') >= 0)
+              return Timestamp.valueOf(bound).getTime();
+            else if (bound.indexOf(':') >= 0)
+              return Time.valueOf(bound).getTime();
+            else
+              return Date.valueOf(bound).getTime();
+          }
+        } else if (isNumericType(sqlType)) {
+          return (long) Double.parseDouble(bound);
+        }
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Invalid bound of the partition column: " + bound, e);
+      }
+      throw new IllegalArgumentException("Partition column has to be numeric or date/time, got SQL type " + sqlType);
+    }
+  }
+
   private static Connection getConnectionSafe(String url, String username, String password) throws SQLException {
     try {
       return DriverManager.getConnection(url, username, password);
@@ -606,12 +857,26 @@ public class SQLManager {
     final Job _job;
     final ConnectionPoolProvider _poolProvider;
     final String[] _columnNames;
+    final RangePartitioning _partitioning;
+    final int _partitionFetchSize;
 
     transient ArrayBlockingQueue<Connection> sqlConn;
 
     public SqlTableToH2OFrame(final String table, final String databaseType,
                               final String columns, final String[] columnNames, final int numCol,
                               final Job job, final ConnectionPoolProvider poolProvider) {
+      this(table, databaseType, columns, columnNames, numCol, job, poolProvider, null, 0);
+    }
+
+    /**
+     * @param partitioning if not null, each chunk retrieves rows of a single range of the partition column
+     *                     (instead of using row offsets), the chunk index is the index of the partition
+     * @param numRow expected total number of rows (used to estimate the fetch size of partition queries)
+     */
+    SqlTableToH2OFrame(final String table, final String databaseType,
+                       final String columns, final String[] columnNames, final int numCol,
+                       final Job job, final ConnectionPoolProvider poolProvider,
+                       final RangePartitioning partitioning, final long numRow) {
       _table = table;
       _databaseType = databaseType;
       _columns = columns;
@@ -619,6 +884,9 @@ public class SQLManager {
       _numCol = numCol;
       _job = job;
       _poolProvider = poolProvider;
+      _partitioning = partitioning;
+      _partitionFetchSize = partitioning != null ?
+              (int) Math.max(1, Math.min(numRow / partitioning.nPartitions(), 100000)) : 0;
     }
 
     @Override
@@ -634,13 +902,22 @@ public class SQLManager {
       Statement stmt = null;
       ResultSet rs = null;
       Chunk c0 = cs[0];
-      String sqlText = buildSelectChunkSql(_databaseType, _table, c0.start(), c0._len , _columns, _columnNames);
       try {
         conn = sqlConn.take();
-        stmt = conn.createStatement();
-        //set fetch size for best performance
-        stmt.setFetchSize(c0._len);
-        rs = stmt.executeQuery(sqlText);
+        if (_partitioning != null) {
+          //fetch a single range of values of the partition column
+          PreparedStatement pstmt = conn.prepareStatement(_partitioning.buildSelectPartitionSql(_table, _columns, c0.cidx()));
+          stmt = pstmt;
+          _partitioning.setBounds(pstmt, c0.cidx());
+          pstmt.setFetchSize(_partitionFetchSize);
+          rs = pstmt.executeQuery();
+        } else {
+          String sqlText = buildSelectChunkSql(_databaseType, _table, c0.start(), c0._len, _columns, _columnNames);
+          stmt = conn.createStatement();
+          //set fetch size for best performance
+          stmt.setFetchSize(c0._len);
+          rs = stmt.executeQuery(sqlText);
+        }
         while (rs.next()) {
           writeRow(rs, ncs);
         }
@@ -137,6 +137,49 @@ public class FVecParseWriter extends Iced implements StreamParseWriter {
     }
   }
 
+  /**
+   * Adds a batch of integer values to a single column (columnar parsers only - the values are
+   * appended to the column directly, no line bookkeeping is done).
+   * @param colIdx column index
+   * @param values values to add, first nrows are used
+   * @param isNA optional NA flags, null if there are no missing values
+   * @param nrows number of values to add
+   */
+  @Override public void addNumCol(int colIdx, long[] values, boolean[] isNA, int nrows) {
+    if( colIdx < _nCols ) {
+      _nvs[_col = colIdx].addNums(values, isNA, 0, nrows);
+      if(_ctypes != null && _ctypes[colIdx] == Vec.T_BAD && hasValue(isNA, nrows)) _ctypes[colIdx] = Vec.T_NUM;
+    }
+  }
+
+  /**
+   * Adds a batch of double values to a single column, same semantics as calling addNumCol(colIdx, value)
+   * for each value (NaNs and infinities become NAs).
+   * @param colIdx column index
+   * @param values values to add, first nrows are used
+   * @param isNA optional NA flags, null if there are no missing values
+   * @param nrows number of values to add
+   */
+  @Override public void addNumCol(int colIdx, double[] values, boolean[] isNA, int nrows) {
+    if( colIdx < _nCols ) {
+      _nvs[_col = colIdx].addNumsDecompose(values, isNA, 0, nrows);
+      if(_ctypes != null && _ctypes[colIdx] == Vec.T_BAD && hasValue(values, isNA, nrows)) _ctypes[colIdx] = Vec.T_NUM;
+    }
+  }
+
+  private static boolean hasValue(boolean[] isNA, int nrows) {
+    if (isNA == null) return nrows > 0;
+    for (int i = 0; i < nrows; i++)
+      if (!isNA[i]) return true;
+    return false;
+  }
+
+  private static boolean hasValue(double[] values, boolean[] isNA, int nrows) {
+    for (int i = 0; i < nrows; i++)
+      if ((isNA == null || !isNA[i]) && !Double.isNaN(values[i]) && !Double.isInfinite(values[i])) return true;
+    return false;
+  }
+
   @Override public final void addInvalidCol(int colIdx) {
     if(colIdx < _nCols) _nvs[_col = colIdx].addNA();
   }
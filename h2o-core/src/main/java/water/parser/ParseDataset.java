@@ -946,6 +946,7 @@ public final class ParseDataset {
         case "ARFF":
         case "CSV":
         case "PARQUET":
+        case "ARROW":
           Categorical [] categoricals = categoricals(_cKey, _setup._number_columns);
           dout = new FVecParseWriter(_vg,_startChunkIdx + in.cidx(), categoricals, _setup._column_types,
                   _setup._chunk_size, avs, _setup._parse_columns_indices); //TODO: use _setup._domains instead of categoricals
@@ -58,6 +58,9 @@ public interface ParseWriter extends Freezable {
   // An an invalid / missing entry
   void addInvalidCol(int colIdx);
   void addNAs(int colIdx, int nrow);
+  // Columnar bulk appends (for columnar sources), add nrow values (optionally masked by isNA) to a single column
+  void addNumCol(int colIdx, long[] values, boolean[] isNA, int nrow);
+  void addNumCol(int colIdx, double[] values, boolean[] isNA, int nrow);
   // Add a String column
   void addStrCol( int colIdx, BufferedString str );
   // Final rolling back of partial line
@@ -104,6 +104,16 @@ public class PreviewParseWriter extends Iced implements StreamParseWriter {
     throw H2O.unimpl();
   }
 
+  @Override
+  public void addNumCol(int colIdx, long[] values, boolean[] isNA, int nrow) {
+    throw H2O.unimpl();
+  }
+
+  @Override
+  public void addNumCol(int colIdx, double[] values, boolean[] isNA, int nrow) {
+    throw H2O.unimpl();
+  }
+
   @Override public void addStrCol(int colIdx, BufferedString str) {
     if(colIdx < _ncols) {
       // Check for time
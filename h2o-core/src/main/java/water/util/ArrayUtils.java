@@ -57,15 +57,7 @@ public class ArrayUtils {
   }
 
   public static double [] mmul(double [][] M, double [] V) {
-    double [] res = new double[M.length];
-    for(int i = 0; i < M.length; ++i) {
-      double d = 0;
-      for (int j = 0; j < V.length; ++j) {
-        d += M[i][j] * V[j];
-      }
-      res[i] = d;
-    }
-    return res;
+    return DenseKernels.gemv(M, V, new double[M.length]);
   }
 
   public static double[][] outerProduct(double[] x, double[] y){
@@ -339,9 +331,7 @@ public class ArrayUtils {
   public static double[] multArrVec(double[][] ary, double[] nums, double[] res) {
     if(ary == null || nums == null) return null;
     assert ary[0].length == nums.length : "Inner dimensions must match: Got " + ary[0].length + " != " + nums.length;
-    for(int i = 0; i < ary.length; i++)
-      res[i] = innerProduct(ary[i], nums);
-    return res;
+    return DenseKernels.gemv(ary, nums, res);
   }
 
   public static double[] multVecArr(double[] nums, double[][] ary) {
@@ -363,16 +353,7 @@ public class ArrayUtils {
     if(ary1 == null || ary2 == null) return null;
     // Inner dimensions must match
     assert ary1[0].length == ary2.length : "Inner dimensions must match: Got " + ary1[0].length + " != " + ary2.length;
-
-    for(int i = 0; i < ary1.length; i++) {
-      for(int j = 0; j < ary2[0].length; j++) {
-        double tmp = 0;
-        for(int k = 0; k < ary1[0].length; k++)
-          tmp += ary1[i][k] * ary2[k][j];
-        res[i][j] = tmp;
-      }
-    }
-    return res;
+    return DenseKernels.gemm(ary1, ary2, res);
   }
 
   /*
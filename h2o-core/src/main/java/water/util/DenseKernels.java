@@ -0,0 +1,154 @@
+package water.util;
+
+import java.util.Arrays;
+
+/**
+ * Dense linear algebra kernels on plain java arrays.
+ *
+ * The loops are unrolled by hand (by 4 elements or by 4 rows of a matrix) so that the JIT gets several independent
+ * multiply-adds per iteration and every element of a shared operand is loaded once per block. No native BLAS is needed.
+ *
+ * Unless stated otherwise, the kernels sum in the same order as the naive loops and give bit-identical results.
+ * dot and dotAxpy keep 4 partial sums and the rounding of their results differs from the naive loop.
+ */
+public final class DenseKernels {
+  private DenseKernels() {}
+
+  /** @return x[0..n) . y[0..n), summed in 4 independent partial sums */
+  public static double dot(double [] x, double [] y, int n) {
+    double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+    int i = 0;
+    for (; i + 3 < n; i += 4) {
+      s0 += x[i] * y[i];
+      s1 += x[i + 1] * y[i + 1];
+      s2 += x[i + 2] * y[i + 2];
+      s3 += x[i + 3] * y[i + 3];
+    }
+    for (; i < n; ++i)
+      s0 += x[i] * y[i];
+    return (s0 + s1) + (s2 + s3);
+  }
+
+  /** @return x[xoff..xoff+n) . y[yoff..yoff+n), summed in 4 independent partial sums */
+  public static double dot(double [] x, int xoff, double [] y, int yoff, int n) {
+    double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+    int i = 0;
+    for (; i + 3 < n; i += 4) {
+      s0 += x[xoff + i] * y[yoff + i];
+      s1 += x[xoff + i + 1] * y[yoff + i + 1];
+      s2 += x[xoff + i + 2] * y[yoff + i + 2];
+      s3 += x[xoff + i + 3] * y[yoff + i + 3];
+    }
+    for (; i < n; ++i)
+      s0 += x[xoff + i] * y[yoff + i];
+    return (s0 + s1) + (s2 + s3);
+  }
+
+  /** y[0..n) += a*x[0..n) */
+  public static void axpy(double a, double [] x, double [] y, int n) {
+    int i = 0;
+    for (; i + 3 < n; i += 4) {
+      y[i] += a * x[i];
+      y[i + 1] += a * x[i + 1];
+      y[i + 2] += a * x[i + 2];
+      y[i + 3] += a * x[i + 3];
+    }
+    for (; i < n; ++i)
+      y[i] += a * x[i];
+  }
+
+  /** x[0..n) *= a */
+  public static void scal(double a, double [] x, int n) {
+    int i = 0;
+    for (; i + 3 < n; i += 4) {
+      x[i] *= a;
+      x[i + 1] *= a;
+      x[i + 2] *= a;
+      x[i + 3] *= a;
+    }
+    for (; i < n; ++i)
+      x[i] *= a;
+  }
+
+  /**
+   * Fused dot product and axpy over the same row, y[0..n) += a*r[0..n).
+   * Used by symmetric matrix-vector products over lower triangular storage, every row is read once.
+   *
+   * @return r[0..n) . x[0..n)
+   */
+  public static double dotAxpy(double [] r, double [] x, double a, double [] y, int n) {
+    double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+    int i = 0;
+    for (; i + 3 < n; i += 4) {
+      double r0 = r[i], r1 = r[i + 1], r2 = r[i + 2], r3 = r[i + 3];
+      s0 += r0 * x[i];
+      s1 += r1 * x[i + 1];
+      s2 += r2 * x[i + 2];
+      s3 += r3 * x[i + 3];
+      y[i] += a * r0;
+      y[i + 1] += a * r1;
+      y[i + 2] += a * r2;
+      y[i + 3] += a * r3;
+    }
+    for (; i < n; ++i) {
+      s0 += r[i] * x[i];
+      y[i] += a * r[i];
+    }
+    return (s0 + s1) + (s2 + s3);
+  }
+
+  /**
+   * Matrix-vector product res = A*x, rows are processed in blocks of 4 sharing the loads of x.
+   * Every row is summed in order, the result is the same as of the naive loop.
+   */
+  public static double [] gemv(double [][] A, double [] x, double [] res) {
+    final int m = A.length, n = x.length;
+    int i = 0;
+    for (; i + 3 < m; i += 4) {
+      final double [] a0 = A[i], a1 = A[i + 1], a2 = A[i + 2], a3 = A[i + 3];
+      double d0 = 0, d1 = 0, d2 = 0, d3 = 0;
+      for (int j = 0; j < n; ++j) {
+        double xj = x[j];
+        d0 += a0[j] * xj;
+        d1 += a1[j] * xj;
+        d2 += a2[j] * xj;
+        d3 += a3[j] * xj;
+      }
+      res[i] = d0;
+      res[i + 1] = d1;
+      res[i + 2] = d2;
+      res[i + 3] = d3;
+    }
+    for (; i < m; ++i) {
+      final double [] a = A[i];
+      double d = 0;
+      for (int j = 0; j < n; ++j)
+        d += a[j] * x[j];
+      res[i] = d;
+    }
+    return res;
+  }
+
+  /**
+   * Matrix-matrix product C = A*B. Rows of C are accumulated from rows of B (i-k-j order, no strided access to B),
+   * 4 rows of B at a time. Every element is summed in order of k, the result is the same as of the naive loop.
+   */
+  public static double [][] gemm(double [][] A, double [][] B, double [][] C) {
+    final int m = A.length, K = B.length, n = B[0].length;
+    for (int i = 0; i < m; ++i) {
+      final double [] a = A[i];
+      final double [] c = C[i];
+      Arrays.fill(c, 0, n, 0);
+      int k = 0;
+      for (; k + 3 < K; k += 4) {
+        final double a0 = a[k], a1 = a[k + 1], a2 = a[k + 2], a3 = a[k + 3];
+        final double [] b0 = B[k], b1 = B[k + 1], b2 = B[k + 2], b3 = B[k + 3];
+        for (int j = 0; j < n; ++j)
+          c[j] = (((c[j] + a0 * b0[j]) + a1 * b1[j]) + a2 * b2[j]) + a3 * b3[j];
+      }
+      for (; k < K; ++k)
+        axpy(a[k], B[k], c, n);
+    }
+    return C;
+  }
+}
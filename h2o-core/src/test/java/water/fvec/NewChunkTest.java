@@ -629,5 +629,86 @@ public class NewChunkTest extends TestUtil {
     nc.addNumDecompose(Double.MIN_VALUE);
     nc.addNumDecompose(Double.MIN_NORMAL);
   }
+
+  @Test public void testAddNums() {
+    long[] vals = new long[]{7, 0, -3, 1000, Integer.MAX_VALUE + 1L, 42, 0};
+    boolean[] isNA = new boolean[]{false, false, false, true, false, false, true};
+    NewChunk bulk = new NewChunk(null, 0);
+    bulk.addNum(5, 0);
+    bulk.addNums(vals, isNA, 1, vals.length - 1);
+    bulk.addNums(vals, null, 0, 3);
+    NewChunk single = new NewChunk(null, 0);
+    single.addNum(5, 0);
+    for (int i = 1; i < vals.length; i++) {
+      if (isNA[i]) single.addNA();
+      else single.addNum(vals[i], 0);
+    }
+    for (int i = 0; i < 3; i++)
+      single.addNum(vals[i], 0);
+    assertEquals(single._len, bulk._len);
+    Chunk cb = bulk.compress();
+    Chunk cs = single.compress();
+    assertEquals(cs.getClass(), cb.getClass());
+    for (int i = 0; i < cs._len; i++) {
+      assertEquals(cs.isNA(i), cb.isNA(i));
+      if (!cs.isNA(i))
+        assertEquals(cs.at8(i), cb.at8(i));
+    }
+  }
+
+  @Test public void testAddNumsSparse() {
+    NewChunk nc = new NewChunk(null, 0, true);
+    nc.addZeros(1000);
+    nc.addNums(new long[]{0, 1, 0, 2}, new boolean[]{false, false, true, false}, 0, 4);
+    assertTrue(nc.isSparseZero());
+    Chunk c = nc.compress();
+    assertEquals(1004, c._len);
+    for (int i = 0; i < 1001; i++)
+      assertEquals(0, c.at8(i));
+    assertEquals(1, c.at8(1001));
+    assertTrue(c.isNA(1002));
+    assertEquals(2, c.at8(1003));
+  }
+
+  @Test public void testAddNumsDecompose() {
+    double[] vals = new double[]{0.0, 1.5, -2.25, 3, 1e-7, Math.PI, Double.NaN, Double.POSITIVE_INFINITY,
+            Double.MIN_VALUE, 0.1, 12.345, -7};
+    boolean[] isNA = new boolean[vals.length];
+    isNA[3] = true;
+    NewChunk bulk = new NewChunk(null, 0);
+    bulk.addNumsDecompose(vals, isNA, 0, vals.length);
+    bulk.addNumsDecompose(vals, null, 9, 3);
+    NewChunk single = new NewChunk(null, 0);
+    for (int i = 0; i < vals.length; i++) {
+      if (isNA[i] || Double.isNaN(vals[i]) || Double.isInfinite(vals[i])) single.addNA();
+      else single.addNumDecompose(vals[i]);
+    }
+    for (int i = 9; i < 12; i++)
+      single.addNumDecompose(vals[i]);
+    assertEquals(single._len, bulk._len);
+    Chunk cb = bulk.compress();
+    Chunk cs = single.compress();
+    assertEquals(cs.getClass(), cb.getClass());
+    for (int i = 0; i < cs._len; i++) {
+      assertEquals(cs.isNA(i), cb.isNA(i));
+      if (!cs.isNA(i))
+        assertEquals(cs.atd(i), cb.atd(i), 0);
+    }
+  }
+
+  @Test public void testAddNumsDecomposeScaled() {
+    double[] vals = new double[100];
+    for (int i = 0; i < vals.length; i++)
+      vals[i] = i * 0.25;
+    NewChunk nc = new NewChunk(null, 0);
+    nc.addNumsDecompose(vals, null, 0, vals.length);
+    NewChunk single = new NewChunk(null, 0);
+    for (double d : vals)
+      single.addNumDecompose(d);
+    Chunk c = nc.compress();
+    assertEquals(single.compress().getClass(), c.getClass());
+    for (int i = 0; i < vals.length; i++)
+      assertEquals(vals[i], c.atd(i), 1e-10);
+  }
 }
 
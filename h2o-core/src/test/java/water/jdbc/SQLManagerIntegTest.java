@@ -15,9 +15,13 @@ import water.fvec.Vec;
 import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 
 public class SQLManagerIntegTest extends TestUtil {
 
@@ -26,6 +30,9 @@ public class SQLManagerIntegTest extends TestUtil {
   @Rule
   public TemporaryFolder tmp = new TemporaryFolder(BUILD_DIR);
 
+  private static final int RANGES_ROWS = 1000;
+  private static final long RANGES_START_TIME = 1546300800000L;
+
   private String connectionString;
 
   @BeforeClass
@@ -47,6 +54,20 @@ public class SQLManagerIntegTest extends TestUtil {
 
       stmt.executeUpdate("CREATE TABLE TestData (ID INT PRIMARY KEY, NAME VARCHAR(12))");
       stmt.executeUpdate("INSERT INTO TestData VALUES (1,'TOM'),(2,'BILL'),(3,'AMY'),(4,'OWEN')");
+
+      stmt.executeUpdate("CREATE TABLE TestRanges (ID INT PRIMARY KEY, VAL DOUBLE, TS TIMESTAMP)");
+      try (PreparedStatement insert = conn.prepareStatement("INSERT INTO TestRanges VALUES (?, ?, ?)")) {
+        for (int i = 0; i < RANGES_ROWS; i++) {
+          insert.setInt(1, i);
+          insert.setDouble(2, i / 2.0);
+          if (i % 10 == 0)
+            insert.setNull(3, Types.TIMESTAMP);
+          else
+            insert.setTimestamp(3, new Timestamp(RANGES_START_TIME + i * 60000L));
+          insert.addBatch();
+        }
+        insert.executeBatch();
+      }
     }
   }
 
@@ -72,4 +93,52 @@ public class SQLManagerIntegTest extends TestUtil {
     }
   }
 
+  @Test
+  public void importSqlTablePartitioned() {
+    Scope.enter();
+    try {
+      // bounds cover only a part of the table, rows outside of the bounds have to be imported as well
+      Job<Frame> j = SQLManager.importSqlTable(connectionString, "TestRanges", "", "", "", "ID, VAL", SqlFetchMode.DISTRIBUTED,
+              "ID", "100", "800", 7, 2);
+      Frame fr = Scope.track(j.get());
+
+      assertEquals(7, fr.anyVec().nChunks());
+      assertEquals(RANGES_ROWS, fr.numRows());
+      assertEquals(0, fr.vec("ID").min(), 0);
+      assertEquals(RANGES_ROWS - 1, fr.vec("ID").max(), 0);
+      assertEquals((RANGES_ROWS - 1) / 2.0, fr.vec("ID").mean(), 1e-10);
+      for (long i = 0; i < fr.numRows(); i++)
+        assertEquals(fr.vec("ID").at(i) / 2.0, fr.vec("VAL").at(i), 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void importSqlTablePartitionedByTime() {
+    Scope.enter();
+    try {
+      Job<Frame> j = SQLManager.importSqlTable(connectionString, "TestRanges", "", "", "", "*", SqlFetchMode.DISTRIBUTED,
+              "TS", null, null, 5, 0);
+      Frame fr = Scope.track(j.get());
+
+      assertEquals(5, fr.anyVec().nChunks());
+      assertEquals(RANGES_ROWS, fr.numRows());
+      assertEquals(RANGES_ROWS / 10, fr.vec("TS").naCnt());
+      assertEquals((RANGES_ROWS - 1) / 2.0, fr.vec("ID").mean(), 1e-10);
+      for (long i = 0; i < fr.numRows(); i++) {
+        if (!fr.vec("TS").isNA(i))
+          assertEquals(RANGES_START_TIME + fr.vec("ID").at8(i) * 60000L, fr.vec("TS").at8(i));
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void importSqlTablePartitionedSingleMode() {
+    SQLManager.importSqlTable(connectionString, "TestRanges", "", "", "", "*", SqlFetchMode.SINGLE,
+            "ID", null, null, 0, 0);
+  }
+
 }
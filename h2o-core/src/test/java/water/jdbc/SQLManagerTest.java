@@ -14,6 +14,7 @@ import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.concurrent.ArrayBlockingQueue;
 
 public class SQLManagerTest {
@@ -109,6 +110,10 @@ public class SQLManagerTest {
     Assert.assertEquals("SELECT * FROM mytable FETCH NEXT 1 ROWS ONLY",
             SQLManager.buildSelectSingleRowSql("oracle","mytable","*"));
 
+    // Derby
+    Assert.assertEquals("SELECT * FROM mytable FETCH NEXT 1 ROWS ONLY",
+            SQLManager.buildSelectSingleRowSql("derby","mytable","*"));
+
     // SQL Server
     Assert.assertEquals("SELECT TOP(1) * FROM mytable",
             SQLManager.buildSelectSingleRowSql("sqlserver", "mytable", "*"));
@@ -129,6 +134,10 @@ public class SQLManagerTest {
     Assert.assertEquals("SELECT * FROM mytable OFFSET 0 ROWS FETCH NEXT 1310 ROWS ONLY",
             SQLManager.buildSelectChunkSql("oracle", "mytable", 0, 1310, "*", null));
 
+    // Derby
+    Assert.assertEquals("SELECT * FROM mytable OFFSET 0 ROWS FETCH NEXT 1310 ROWS ONLY",
+            SQLManager.buildSelectChunkSql("derby", "mytable", 0, 1310, "*", null));
+
     // SQL Server
     Assert.assertEquals("SELECT * FROM mytable ORDER BY ROW_NUMBER() OVER (ORDER BY (SELECT 0)) OFFSET 0 ROWS FETCH NEXT 1310 ROWS ONLY",
             SQLManager.buildSelectChunkSql("sqlserver", "mytable", 0, 1310, "*", null));
@@ -141,4 +150,83 @@ public class SQLManagerTest {
     Assert.assertEquals("SELECT * FROM mytable LIMIT 1310 OFFSET 0",
             SQLManager.buildSelectChunkSql("", "mytable", 0, 1310, "*", null));
   }
+
+  @Test
+  public void testRangePartitioning() {
+    SQLManager.RangePartitioning p = new SQLManager.RangePartitioning("id", Types.INTEGER, 0L, 100L, 4);
+    Assert.assertEquals(4, p.nPartitions());
+    Assert.assertArrayEquals(new long[]{25, 50, 75}, p._bounds);
+
+    Assert.assertEquals("SELECT * FROM mytable WHERE id < ? OR id IS NULL",
+            p.buildSelectPartitionSql("mytable", "*", 0));
+    Assert.assertEquals("SELECT * FROM mytable WHERE id >= ? AND id < ?",
+            p.buildSelectPartitionSql("mytable", "*", 1));
+    Assert.assertEquals("SELECT * FROM mytable WHERE id >= ?",
+            p.buildSelectPartitionSql("mytable", "*", 3));
+  }
+
+  @Test
+  public void testRangePartitioningSmallRange() {
+    // not more partitions than distinct values
+    SQLManager.RangePartitioning p = new SQLManager.RangePartitioning("id", Types.BIGINT, 10L, 13L, 10);
+    Assert.assertEquals(3, p.nPartitions());
+    Assert.assertArrayEquals(new long[]{11, 12}, p._bounds);
+
+    // unknown bounds (eg. empty table)
+    p = new SQLManager.RangePartitioning("id", Types.BIGINT, null, null, 10);
+    Assert.assertEquals(1, p.nPartitions());
+    Assert.assertEquals("SELECT a, b FROM mytable", p.buildSelectPartitionSql("mytable", "a, b", 0));
+  }
+
+  @Test
+  public void testRangePartitioningNegativeRange() {
+    SQLManager.RangePartitioning p = new SQLManager.RangePartitioning("id", Types.INTEGER, -7L, 7L, 14);
+    Assert.assertEquals(14, p.nPartitions());
+    Assert.assertArrayEquals(new long[]{-6, -5, -4, -3, -2, -1, 0, 1, 2, 3, 4, 5, 6}, p._bounds);
+
+    p = new SQLManager.RangePartitioning("id", Types.INTEGER, -100L, -1L, 4);
+    Assert.assertArrayEquals(new long[]{-75, -50, -25}, p._bounds);
+  }
+
+  @Test
+  public void testRangePartitioningUneven() {
+    // 20 values in 10 partitions of 2 values each
+    SQLManager.RangePartitioning p = new SQLManager.RangePartitioning("id", Types.INTEGER, 0L, 19L, 10);
+    Assert.assertArrayEquals(new long[]{2, 4, 6, 8, 10, 12, 14, 16, 18}, p._bounds);
+
+    // 10 values in 3 partitions, the remainder is spread over the partitions
+    p = new SQLManager.RangePartitioning("id", Types.INTEGER, 0L, 9L, 3);
+    Assert.assertArrayEquals(new long[]{3, 6}, p._bounds);
+    p = new SQLManager.RangePartitioning("id", Types.INTEGER, 1L, 11L, 4);
+    long[] bounds = p._bounds;
+    long prev = 1;
+    for (int i = 0; i <= bounds.length; i++) {
+      long next = i < bounds.length ? bounds[i] : 12;
+      Assert.assertTrue(next - prev == 2 || next - prev == 3);
+      prev = next;
+    }
+  }
+
+  @Test
+  public void testRangePartitioningExtremeBounds() {
+    SQLManager.RangePartitioning p = new SQLManager.RangePartitioning("id", Types.BIGINT, Long.MIN_VALUE, Long.MAX_VALUE, 4);
+    Assert.assertEquals(4, p.nPartitions());
+    for (int i = 1; i < p._bounds.length; i++)
+      Assert.assertTrue(p._bounds[i - 1] < p._bounds[i]);
+  }
+
+  @Test
+  public void testParseBound() {
+    Assert.assertEquals(Long.valueOf(42), SQLManager.RangePartitioning.parseBound(" 42 ", Types.INTEGER));
+    Assert.assertEquals(Long.valueOf(3), SQLManager.RangePartitioning.parseBound("3.7", Types.DOUBLE));
+    Assert.assertEquals(Long.valueOf(1000), SQLManager.RangePartitioning.parseBound("1000", Types.TIMESTAMP));
+    Assert.assertEquals(Long.valueOf(java.sql.Timestamp.valueOf("2019-01-02 03:04:05").getTime()),
+            SQLManager.RangePartitioning.parseBound("2019-01-02 03:04:05", Types.TIMESTAMP));
+    Assert.assertEquals(Long.valueOf(java.sql.Date.valueOf("2019-01-02").getTime()),
+            SQLManager.RangePartitioning.parseBound("2019-01-02", Types.DATE));
+
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage("Partition column has to be numeric or date/time");
+    SQLManager.RangePartitioning.parseBound("abc", Types.VARCHAR);
+  }
 }
@@ -0,0 +1,78 @@
+package water.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test DenseKernels against the naive loops, for sizes not divisible by the unrolling.
+ */
+public class DenseKernelsTest {
+
+  private static double[] rnd(Random r, int n) {
+    double[] res = new double[n];
+    for (int i = 0; i < n; ++i) res[i] = r.nextGaussian();
+    return res;
+  }
+
+  private static double[][] rnd(Random r, int m, int n) {
+    double[][] res = new double[m][];
+    for (int i = 0; i < m; ++i) res[i] = rnd(r, n);
+    return res;
+  }
+
+  @Test
+  public void testDotAxpy() {
+    Random r = new Random(42);
+    for (int n = 0; n < 12; ++n) {
+      double[] x = rnd(r, n + 2), y = rnd(r, n + 2), z = rnd(r, n + 2);
+      double dot = 0;
+      for (int i = 0; i < n; ++i) dot += x[i] * y[i];
+      assertEquals(dot, DenseKernels.dot(x, y, n), 1e-12);
+      double dot1 = 0;
+      for (int i = 0; i < n; ++i) dot1 += x[i + 1] * y[i + 2];
+      assertEquals(dot1, DenseKernels.dot(x, 1, y, 2, n), 1e-12);
+      double[] zExp = z.clone();
+      for (int i = 0; i < n; ++i) zExp[i] += .5 * x[i];
+      double[] zAct = z.clone();
+      DenseKernels.axpy(.5, x, zAct, n);
+      assertArrayEquals(zExp, zAct, 0);
+      zAct = z.clone();
+      assertEquals(dot, DenseKernels.dotAxpy(x, y, .5, zAct, n), 1e-12);
+      assertArrayEquals(zExp, zAct, 0);
+      double[] xExp = x.clone();
+      for (int i = 0; i < n; ++i) xExp[i] *= 3;
+      DenseKernels.scal(3, x, n);
+      assertArrayEquals(xExp, x, 0);
+    }
+  }
+
+  @Test
+  public void testGemvGemm() {
+    Random r = new Random(42);
+    for (int m = 1; m < 10; ++m) {
+      for (int n = 1; n < 10; ++n) {
+        double[][] A = rnd(r, m, n);
+        double[] x = rnd(r, n);
+        double[] res = new double[m];
+        for (int i = 0; i < m; ++i)
+          for (int j = 0; j < n; ++j)
+            res[i] += A[i][j] * x[j];
+        assertArrayEquals(res, DenseKernels.gemv(A, x, new double[m]), 0);
+        double[][] B = rnd(r, n, m + 1);
+        double[][] C = new double[m][m + 1];
+        for (int i = 0; i < m; ++i)
+          for (int j = 0; j <= m; ++j)
+            for (int k = 0; k < n; ++k)
+              C[i][j] += A[i][k] * B[k][j];
+        double[][] C2 = rnd(r, m, m + 1); // result is overwritten
+        DenseKernels.gemm(A, B, C2);
+        for (int i = 0; i < m; ++i)
+          assertArrayEquals(C[i], C2[i], 0);
+      }
+    }
+  }
+}
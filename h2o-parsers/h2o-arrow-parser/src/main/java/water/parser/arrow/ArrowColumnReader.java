@@ -0,0 +1,343 @@
+package water.parser.arrow;
+
+import io.netty.buffer.ArrowBuf;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import water.exceptions.H2OUnsupportedDataFileException;
+import water.fvec.Vec;
+import water.parser.BufferedString;
+
+import java.math.BigDecimal;
+
+/**
+ * Typed access to the values of a single Arrow vector (one column of a record batch).
+ *
+ * Fixed-width values are read directly from the Arrow data buffers, strings are exposed as
+ * BufferedStrings backed by a copy of the data buffer (one copy per record batch, not one per value).
+ * Time values are converted to milliseconds since epoch, the way H2O stores them.
+ */
+abstract class ArrowColumnReader {
+
+  static final byte LONG = 0;
+  static final byte DOUBLE = 1;
+  static final byte STRING = 2;
+
+  private static final long MILLIS_PER_DAY = 86400000L;
+
+  private final ValueVector _vector;
+
+  private ArrowColumnReader(ValueVector vector) {
+    _vector = vector;
+  }
+
+  /**
+   * @return kind of the values provided by this reader (LONG, DOUBLE or STRING)
+   */
+  abstract byte kind();
+
+  boolean isNA(int row) {
+    return _vector.isNull(row);
+  }
+
+  long getLong(int row) {
+    throw new UnsupportedOperationException();
+  }
+
+  double getDouble(int row) {
+    throw new UnsupportedOperationException();
+  }
+
+  BufferedString getString(int row, BufferedString bs) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Creates a reader for a given vector.
+   * @param vector Arrow vector
+   * @param dictionary dictionary values of a dictionary-encoded vector, null otherwise
+   * @return instance of column reader
+   */
+  static ArrowColumnReader forVector(FieldVector vector, byte[][] dictionary) {
+    if (dictionary != null) {
+      return new DictionaryReader((BaseFixedWidthVector) vector, dictionary);
+    }
+    ArrowType type = vector.getField().getType();
+    switch (type.getTypeID()) {
+      case Int:
+        ArrowType.Int intType = (ArrowType.Int) type;
+        if (intType.getBitWidth() == 64 && !intType.getIsSigned())
+          return new UInt64Reader((BaseFixedWidthVector) vector);
+        return new IntReader((BaseFixedWidthVector) vector, intType.getBitWidth(), intType.getIsSigned(), 1, 1);
+      case Bool:
+        return new BoolReader((BaseFixedWidthVector) vector);
+      case FloatingPoint:
+        return new FloatReader((BaseFixedWidthVector) vector, ((ArrowType.FloatingPoint) type).getPrecision());
+      case Decimal:
+        return new DecimalReader((DecimalVector) vector);
+      case Date:
+        if (((ArrowType.Date) type).getUnit() == DateUnit.DAY)
+          return new IntReader((BaseFixedWidthVector) vector, 32, true, MILLIS_PER_DAY, 1);
+        else
+          return new IntReader((BaseFixedWidthVector) vector, 64, true, 1, 1);
+      case Time:
+        ArrowType.Time timeType = (ArrowType.Time) type;
+        return timeReader((BaseFixedWidthVector) vector, timeType.getBitWidth(), timeType.getUnit());
+      case Timestamp:
+        return timeReader((BaseFixedWidthVector) vector, 64, ((ArrowType.Timestamp) type).getUnit());
+      case Utf8:
+      case Binary:
+        return new BytesReader((BaseVariableWidthVector) vector);
+      default:
+        throw unsupportedField(vector.getField());
+    }
+  }
+
+  /**
+   * Maps Arrow field to the H2O column type.
+   * @param field Arrow field
+   * @return H2O type, T_BAD if the type cannot be decided based on the schema only (strings)
+   */
+  static byte columnType(Field field) {
+    if (field.getDictionary() != null)
+      return Vec.T_CAT;
+    switch (field.getType().getTypeID()) {
+      case Int:
+      case Bool:
+      case FloatingPoint:
+      case Decimal:
+      case Time:
+        return Vec.T_NUM;
+      case Date:
+      case Timestamp:
+        return Vec.T_TIME;
+      case Utf8:
+      case Binary:
+        return Vec.T_BAD;
+      default:
+        throw unsupportedField(field);
+    }
+  }
+
+  private static H2OUnsupportedDataFileException unsupportedField(Field field) {
+    return new H2OUnsupportedDataFileException("Arrow files with nested or complex types are not supported.",
+            "Detected a column '" + field.getName() + "' of unsupported type " + field.getType());
+  }
+
+  private static ArrowColumnReader timeReader(BaseFixedWidthVector vector, int bitWidth, TimeUnit unit) {
+    switch (unit) {
+      case SECOND:
+        return new IntReader(vector, bitWidth, true, 1000, 1);
+      case MILLISECOND:
+        return new IntReader(vector, bitWidth, true, 1, 1);
+      case MICROSECOND:
+        return new IntReader(vector, bitWidth, true, 1, 1000);
+      case NANOSECOND:
+        return new IntReader(vector, bitWidth, true, 1, 1000000);
+      default:
+        throw new IllegalArgumentException("Unsupported time unit: " + unit);
+    }
+  }
+
+  /**
+   * Integer values of 8/16/32/64 bits, optionally scaled (used for dates and times).
+   */
+  private static class IntReader extends ArrowColumnReader {
+    private final ArrowBuf _data;
+    private final int _bitWidth;
+    private final boolean _signed;
+    private final long _mul;
+    private final long _div;
+
+    IntReader(BaseFixedWidthVector vector, int bitWidth, boolean signed, long mul, long div) {
+      super(vector);
+      _data = vector.getDataBuffer();
+      _bitWidth = bitWidth;
+      _signed = signed;
+      _mul = mul;
+      _div = div;
+    }
+
+    @Override
+    byte kind() {
+      return LONG;
+    }
+
+    @Override
+    long getLong(int row) {
+      long v = raw(row);
+      if (_mul != 1) v *= _mul;
+      if (_div != 1) v = Math.floorDiv(v, _div);
+      return v;
+    }
+
+    long raw(int row) {
+      switch (_bitWidth) {
+        case 8:
+          byte b = _data.getByte(row);
+          return _signed ? b : b & 0xFFL;
+        case 16:
+          short s = _data.getShort(row << 1);
+          return _signed ? s : s & 0xFFFFL;
+        case 32:
+          int i = _data.getInt(row << 2);
+          return _signed ? i : i & 0xFFFFFFFFL;
+        case 64:
+          return _data.getLong(row << 3);
+        default:
+          throw new IllegalStateException("Unsupported bit width: " + _bitWidth);
+      }
+    }
+  }
+
+  /**
+   * Unsigned 64-bit integers, values above Long.MAX_VALUE do not fit a long and are read as doubles.
+   */
+  private static class UInt64Reader extends ArrowColumnReader {
+    private final ArrowBuf _data;
+
+    UInt64Reader(BaseFixedWidthVector vector) {
+      super(vector);
+      _data = vector.getDataBuffer();
+    }
+
+    @Override
+    byte kind() {
+      return DOUBLE;
+    }
+
+    @Override
+    double getDouble(int row) {
+      long v = _data.getLong(row << 3);
+      return v >= 0 ? v : ((v >>> 1) | (v & 1)) * 2.0; // keep the lowest bit for correct rounding
+    }
+  }
+
+  private static class BoolReader extends ArrowColumnReader {
+    private final ArrowBuf _data;
+
+    BoolReader(BaseFixedWidthVector vector) {
+      super(vector);
+      _data = vector.getDataBuffer();
+    }
+
+    @Override
+    byte kind() {
+      return LONG;
+    }
+
+    @Override
+    long getLong(int row) {
+      return (_data.getByte(row >> 3) >> (row & 7)) & 1;
+    }
+  }
+
+  private static class FloatReader extends ArrowColumnReader {
+    private final ArrowBuf _data;
+    private final boolean _single;
+
+    FloatReader(BaseFixedWidthVector vector, FloatingPointPrecision precision) {
+      super(vector);
+      if (precision == FloatingPointPrecision.HALF)
+        throw new H2OUnsupportedDataFileException("Arrow half-precision floats are not supported.",
+                "Detected a column '" + vector.getField().getName() + "' of type " + vector.getField().getType());
+      _data = vector.getDataBuffer();
+      _single = precision == FloatingPointPrecision.SINGLE;
+    }
+
+    @Override
+    byte kind() {
+      return DOUBLE;
+    }
+
+    @Override
+    double getDouble(int row) {
+      return _single ? _data.getFloat(row << 2) : _data.getDouble(row << 3);
+    }
+  }
+
+  private static class DecimalReader extends ArrowColumnReader {
+    private final DecimalVector _decimals;
+
+    DecimalReader(DecimalVector vector) {
+      super(vector);
+      _decimals = vector;
+    }
+
+    @Override
+    byte kind() {
+      return DOUBLE;
+    }
+
+    @Override
+    double getDouble(int row) {
+      BigDecimal d = _decimals.getObject(row);
+      return d.doubleValue();
+    }
+  }
+
+  private static class BytesReader extends ArrowColumnReader {
+    private final ArrowBuf _offsets;
+    private final byte[] _data;
+
+    BytesReader(BaseVariableWidthVector vector) {
+      super(vector);
+      _offsets = vector.getOffsetBuffer();
+      int valueCount = vector.getValueCount();
+      int dataLen = valueCount == 0 ? 0 : _offsets.getInt(valueCount * BaseVariableWidthVector.OFFSET_WIDTH);
+      _data = new byte[dataLen];
+      vector.getDataBuffer().getBytes(0, _data, 0, dataLen);
+    }
+
+    @Override
+    byte kind() {
+      return STRING;
+    }
+
+    @Override
+    BufferedString getString(int row, BufferedString bs) {
+      int start = _offsets.getInt(row * BaseVariableWidthVector.OFFSET_WIDTH);
+      int end = _offsets.getInt((row + 1) * BaseVariableWidthVector.OFFSET_WIDTH);
+      return bs.set(_data, start, end - start);
+    }
+  }
+
+  /**
+   * Dictionary-encoded column, indices are read from the vector, values are looked up
+   * in (pre-encoded) dictionary values.
+   */
+  private static class DictionaryReader extends ArrowColumnReader {
+    private final IntReader _indices;
+    private final byte[][] _dictionary;
+
+    DictionaryReader(BaseFixedWidthVector indices, byte[][] dictionary) {
+      super(indices);
+      ArrowType.Int indexType = (ArrowType.Int) indices.getField().getType();
+      _indices = new IntReader(indices, indexType.getBitWidth(), indexType.getIsSigned(), 1, 1);
+      _dictionary = dictionary;
+    }
+
+    @Override
+    byte kind() {
+      return STRING;
+    }
+
+    @Override
+    boolean isNA(int row) {
+      return super.isNA(row) || _dictionary[(int) _indices.raw(row)] == null;
+    }
+
+    @Override
+    BufferedString getString(int row, BufferedString bs) {
+      return bs.set(_dictionary[(int) _indices.raw(row)]);
+    }
+  }
+
+}
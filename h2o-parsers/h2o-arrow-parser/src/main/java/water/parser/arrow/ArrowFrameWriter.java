@@ -0,0 +1,177 @@
+package water.parser.arrow;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.parser.BufferedString;
+import water.util.PrettyPrint;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes H2O Frames as Arrow IPC files (Feather V2).
+ *
+ * Each Chunk of the Frame is written as a single record batch. Column types are mapped as follows:
+ * <ul>
+ *   <li>integer numeric columns - 64-bit integers</li>
+ *   <li>real numeric columns - doubles</li>
+ *   <li>categorical columns - dictionary-encoded strings (the domain of the column is the dictionary)</li>
+ *   <li>time columns - timestamps with millisecond precision</li>
+ *   <li>string and UUID columns - UTF-8 strings</li>
+ * </ul>
+ * Files written by this class can be parsed back by {@link ArrowParser}.
+ */
+public class ArrowFrameWriter {
+
+  private static final ArrowType.Int DICTIONARY_INDEX_TYPE = new ArrowType.Int(32, true);
+
+  private final Frame _frame;
+
+  public ArrowFrameWriter(Frame frame) {
+    _frame = frame;
+  }
+
+  /**
+   * Writes the Frame to a given output stream, the stream is closed when the Frame is written.
+   * @param os target stream
+   * @throws IOException if writing to the stream fails
+   */
+  public void write(OutputStream os) throws IOException {
+    write(Channels.newChannel(os));
+  }
+
+  /**
+   * Writes the Frame to a given channel, the channel is closed when the Frame is written.
+   * @param channel target channel
+   * @throws IOException if writing to the channel fails
+   */
+  public void write(WritableByteChannel channel) throws IOException {
+    final Vec[] vecs = _frame.vecs();
+    final String[] names = _frame.names();
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE)) {
+      DictionaryProvider.MapDictionaryProvider dictionaries = new DictionaryProvider.MapDictionaryProvider();
+      List<Field> fields = new ArrayList<>(vecs.length);
+      List<FieldVector> vectors = new ArrayList<>(vecs.length);
+      try {
+        for (int c = 0; c < vecs.length; c++) {
+          DictionaryEncoding encoding = null;
+          if (vecs[c].isCategorical()) {
+            encoding = new DictionaryEncoding(c, false, DICTIONARY_INDEX_TYPE);
+            dictionaries.put(new Dictionary(makeDictionary(names[c], vecs[c].domain(), allocator), encoding));
+          }
+          Field field = new Field(names[c], new FieldType(true, arrowType(vecs[c]), encoding), null);
+          fields.add(field);
+          vectors.add(field.createVector(allocator));
+        }
+        try (VectorSchemaRoot root = new VectorSchemaRoot(fields, vectors, 0);
+             ArrowFileWriter writer = new ArrowFileWriter(root, dictionaries, channel)) {
+          writer.start();
+          for (int cidx = 0; cidx < _frame.anyVec().nChunks(); cidx++) {
+            int len = _frame.anyVec().chunkLen(cidx);
+            for (int c = 0; c < vecs.length; c++)
+              writeChunk(vecs[c].chunkForChunkIdx(cidx), vectors.get(c), len);
+            root.setRowCount(len);
+            writer.writeBatch();
+          }
+          writer.end();
+        }
+      } finally {
+        for (FieldVector v : vectors)
+          v.close();
+        for (long id : dictionaries.getDictionaryIds())
+          dictionaries.lookup(id).getVector().close();
+      }
+    }
+  }
+
+  private static ArrowType arrowType(Vec vec) {
+    switch (vec.get_type()) {
+      case Vec.T_NUM:
+        return vec.isInt() ? new ArrowType.Int(64, true) : new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+      case Vec.T_CAT:
+        return DICTIONARY_INDEX_TYPE;
+      case Vec.T_TIME:
+        return new ArrowType.Timestamp(TimeUnit.MILLISECOND, null);
+      case Vec.T_STR:
+      case Vec.T_UUID:
+        return new ArrowType.Utf8();
+      default: // T_BAD: all values are NAs
+        return new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+    }
+  }
+
+  private static FieldVector makeDictionary(String name, String[] domain, BufferAllocator allocator) {
+    VarCharVector dictionary = new VarCharVector(name, allocator);
+    dictionary.allocateNew();
+    for (int i = 0; i < domain.length; i++) {
+      byte[] bytes = domain[i].getBytes(StandardCharsets.UTF_8);
+      dictionary.setSafe(i, bytes, 0, bytes.length);
+    }
+    dictionary.setValueCount(domain.length);
+    return dictionary;
+  }
+
+  private static void writeChunk(Chunk chk, FieldVector vector, int len) {
+    vector.reset();
+    final Vec vec = chk.vec();
+    if (vector instanceof BigIntVector) {
+      BigIntVector v = (BigIntVector) vector;
+      for (int i = 0; i < len; i++)
+        if (chk.isNA(i)) v.setNull(i); else v.setSafe(i, chk.at8(i));
+    } else if (vector instanceof Float8Vector) {
+      Float8Vector v = (Float8Vector) vector;
+      for (int i = 0; i < len; i++)
+        if (chk.isNA(i)) v.setNull(i); else v.setSafe(i, chk.atd(i));
+    } else if (vector instanceof IntVector) {
+      IntVector v = (IntVector) vector;
+      for (int i = 0; i < len; i++)
+        if (chk.isNA(i)) v.setNull(i); else v.setSafe(i, (int) chk.at8(i));
+    } else if (vector instanceof TimeStampMilliVector) {
+      TimeStampMilliVector v = (TimeStampMilliVector) vector;
+      for (int i = 0; i < len; i++)
+        if (chk.isNA(i)) v.setNull(i); else v.setSafe(i, chk.at8(i));
+    } else if (vector instanceof VarCharVector) {
+      VarCharVector v = (VarCharVector) vector;
+      BufferedString bs = new BufferedString();
+      for (int i = 0; i < len; i++) {
+        if (chk.isNA(i)) {
+          v.setNull(i);
+        } else if (vec.isUUID()) {
+          byte[] bytes = PrettyPrint.UUID(chk.at16l(i), chk.at16h(i)).getBytes(StandardCharsets.UTF_8);
+          v.setSafe(i, bytes, 0, bytes.length);
+        } else {
+          chk.atStr(bs, i);
+          v.setSafe(i, bs.getBuffer(), bs.getOffset(), bs.length());
+        }
+      }
+    } else {
+      throw new IllegalStateException("Unexpected vector type: " + vector.getClass());
+    }
+    vector.setValueCount(len);
+  }
+
+}
@@ -0,0 +1,344 @@
+package water.parser.arrow;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.message.ArrowBlock;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import water.Job;
+import water.Key;
+import water.fvec.ByteVec;
+import water.fvec.Chunk;
+import water.fvec.Vec;
+import water.parser.*;
+import water.util.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Arrow parser for H2O distributed parsing subsystem.
+ *
+ * Supports Arrow IPC files (the random access format, Feather V2). Each record batch of the file is parsed by the
+ * parse task processing the Chunk containing the beginning of the record batch. Values of numeric columns are copied
+ * from Arrow buffers directly to the output chunks, without an intermediate text representation.
+ */
+public class ArrowParser extends Parser {
+
+  private static final int MAX_PREVIEW_RECORDS = 1000;
+
+  /** Arrow IPC file magic bytes: "ARROW1" */
+  static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+
+  // Parser instance is only used by a single thread, buffers can be shared between columns and record batches
+  private transient long[] _longBuffer;
+  private transient double[] _doubleBuffer;
+  private transient boolean[] _naBuffer;
+
+  ArrowParser(ParseSetup setup, Key<Job> jobKey) {
+    super(setup, jobKey);
+  }
+
+  @Override
+  protected final ParseWriter parseChunk(int cidx, ParseReader din, ParseWriter dout) {
+    if (! (din instanceof FVecParseReader)) {
+      throw new IllegalStateException("We only accept parser readers backed by a Vec (no streaming support!).");
+    }
+    Chunk chunk = ((FVecParseReader) din).getChunk();
+    final long start = chunk.start();
+    final long end = start + chunk.len();
+    try (ArrowFile file = new ArrowFile(chunk.vec())) {
+      byte[][][] dictionaries = null;
+      int cnt = 0;
+      // read only the record batches starting in this chunk
+      for (ArrowBlock block : file.reader.getRecordBlocks()) {
+        if (block.getOffset() < start || block.getOffset() >= end)
+          continue;
+        file.reader.loadRecordBatch(block);
+        VectorSchemaRoot root = file.reader.getVectorSchemaRoot();
+        if (dictionaries == null)
+          dictionaries = readDictionaries(root.getSchema(), file.reader);
+        writeBatch(root, dictionaries, dout);
+        cnt++;
+      }
+      Log.trace("Arrow: ChunkIdx: ", cidx, " read ", cnt, " record batches.");
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to parse Arrow record batches", e);
+    }
+    return dout;
+  }
+
+  private void writeBatch(VectorSchemaRoot root, byte[][][] dictionaries, ParseWriter dout) {
+    final int nrows = root.getRowCount();
+    final List<FieldVector> vectors = root.getFieldVectors();
+    int outCol = 0;
+    for (int c = 0; c < vectors.size(); c++) {
+      if (_keepColumns != null && ! _keepColumns[c])
+        continue;
+      ArrowColumnReader reader = ArrowColumnReader.forVector(vectors.get(c), dictionaries[c]);
+      writeColumn(outCol++, reader, nrows, dout);
+    }
+  }
+
+  private void writeColumn(int colIdx, ArrowColumnReader reader, int nrows, ParseWriter dout) {
+    switch (reader.kind()) {
+      case ArrowColumnReader.LONG: {
+        long[] values = longBuffer(nrows);
+        boolean[] isNA = naBuffer(nrows);
+        boolean hasNA = false;
+        for (int i = 0; i < nrows; i++) {
+          if (isNA[i] = reader.isNA(i))
+            hasNA = true;
+          else
+            values[i] = reader.getLong(i);
+        }
+        dout.addNumCol(colIdx, values, hasNA ? isNA : null, nrows);
+        break;
+      }
+      case ArrowColumnReader.DOUBLE: {
+        double[] values = doubleBuffer(nrows);
+        boolean[] isNA = naBuffer(nrows);
+        boolean hasNA = false;
+        for (int i = 0; i < nrows; i++) {
+          if (isNA[i] = reader.isNA(i))
+            hasNA = true;
+          else
+            values[i] = reader.getDouble(i);
+        }
+        dout.addNumCol(colIdx, values, hasNA ? isNA : null, nrows);
+        break;
+      }
+      default: {
+        BufferedString bs = new BufferedString();
+        for (int i = 0; i < nrows; i++) {
+          if (reader.isNA(i))
+            dout.addInvalidCol(colIdx);
+          else
+            dout.addStrCol(colIdx, reader.getString(i, bs));
+        }
+      }
+    }
+  }
+
+  private long[] longBuffer(int len) {
+    if (_longBuffer == null || _longBuffer.length < len)
+      _longBuffer = new long[len];
+    return _longBuffer;
+  }
+
+  private double[] doubleBuffer(int len) {
+    if (_doubleBuffer == null || _doubleBuffer.length < len)
+      _doubleBuffer = new double[len];
+    return _doubleBuffer;
+  }
+
+  private boolean[] naBuffer(int len) {
+    if (_naBuffer == null || _naBuffer.length < len)
+      _naBuffer = new boolean[len];
+    return _naBuffer;
+  }
+
+  /**
+   * Reads values of all dictionaries used by the columns of the file (dictionary-encoded columns are
+   * decoded to strings and parsed as categoricals).
+   */
+  private static byte[][][] readDictionaries(Schema schema, DictionaryProvider provider) {
+    List<Field> fields = schema.getFields();
+    byte[][][] dictionaries = new byte[fields.size()][][];
+    for (int c = 0; c < fields.size(); c++) {
+      DictionaryEncoding encoding = fields.get(c).getDictionary();
+      if (encoding == null)
+        continue;
+      Dictionary dictionary = provider.lookup(encoding.getId());
+      if (dictionary == null)
+        throw new IllegalStateException("Dictionary #" + encoding.getId() + " not found for column " + fields.get(c).getName());
+      FieldVector values = dictionary.getVector();
+      dictionaries[c] = new byte[values.getValueCount()][];
+      for (int i = 0; i < dictionaries[c].length; i++) {
+        Object value = values.getObject(i);
+        if (value != null)
+          dictionaries[c][i] = value instanceof byte[] ? (byte[]) value : value.toString().getBytes(StandardCharsets.UTF_8);
+      }
+    }
+    return dictionaries;
+  }
+
+  public static ParseSetup guessFormatSetup(ByteVec vec, byte[] bits) {
+    if (bits.length < MAGIC.length) {
+      return null;
+    }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (bits[i] != MAGIC[i]) return null;
+    }
+    // seems like we have an Arrow file
+    Schema schema = readSchema(vec);
+    return new ParseSetup(ArrowParserProvider.ARROW_INFO, (byte) '|', true, ParseSetup.HAS_HEADER,
+            schema.getFields().size(), columnNames(schema), roughGuessTypes(schema),
+            new String[schema.getFields().size()][] /* domains */, null /* NA strings */, null);
+  }
+
+  public static ParseSetup guessDataSetup(ByteVec vec, ParseSetup ps) {
+    ArrowPreviewParseWriter ppWriter = readFirstRecords(ps, vec, MAX_PREVIEW_RECORDS);
+    return ppWriter.toParseSetup();
+  }
+
+  /**
+   * Overrides unsupported type conversions/mappings specified by the user.
+   * @param vec byte vec holding binary Arrow data
+   * @param requestedTypes user-specified target types
+   * @return corrected types
+   */
+  public static byte[] correctTypeConversions(ByteVec vec, byte[] requestedTypes) {
+    return correctTypeConversions(roughGuessTypes(readSchema(vec)), requestedTypes);
+  }
+
+  private static byte[] correctTypeConversions(byte[] roughTypes, byte[] requestedTypes) {
+    if (requestedTypes.length != roughTypes.length)
+      throw new IllegalArgumentException("Invalid column type specification: number of columns and number of types differ!");
+    byte[] resultTypes = new byte[requestedTypes.length];
+    for (int i = 0; i < requestedTypes.length; i++) {
+      if ((roughTypes[i] == Vec.T_NUM) || (roughTypes[i] == Vec.T_TIME)) {
+        // don't convert Arrow numeric/time type to non-numeric type in H2O
+        resultTypes[i] = roughTypes[i];
+      } else if (requestedTypes[i] == Vec.T_NUM) {
+        // don't convert Arrow non-numeric type to a numeric type in H2O
+        resultTypes[i] = roughTypes[i] == Vec.T_CAT ? Vec.T_CAT : Vec.T_STR;
+      } else
+        // satisfy the request
+        resultTypes[i] = requestedTypes[i];
+    }
+    return resultTypes;
+  }
+
+  private static byte[] roughGuessTypes(Schema schema) {
+    List<Field> fields = schema.getFields();
+    byte[] types = new byte[fields.size()];
+    for (int i = 0; i < types.length; i++)
+      types[i] = ArrowColumnReader.columnType(fields.get(i));
+    return types;
+  }
+
+  private static String[] columnNames(Schema schema) {
+    List<Field> fields = schema.getFields();
+    String[] colNames = new String[fields.size()];
+    for (int i = 0; i < colNames.length; i++)
+      colNames[i] = fields.get(i).getName();
+    return colNames;
+  }
+
+  private static Schema readSchema(ByteVec vec) {
+    try (ArrowFile file = new ArrowFile(vec)) {
+      return file.reader.getVectorSchemaRoot().getSchema();
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read Arrow schema", e);
+    }
+  }
+
+  private static ArrowPreviewParseWriter readFirstRecords(ParseSetup initSetup, ByteVec vec, int cnt) {
+    ArrowPreviewParseWriter ppWriter = new ArrowPreviewParseWriter(initSetup);
+    try (ArrowFile file = new ArrowFile(vec)) {
+      List<ArrowBlock> blocks = file.reader.getRecordBlocks();
+      if (blocks.isEmpty())
+        return ppWriter;
+      file.reader.loadRecordBatch(blocks.get(0));
+      VectorSchemaRoot root = file.reader.getVectorSchemaRoot();
+      byte[][][] dictionaries = readDictionaries(root.getSchema(), file.reader);
+      List<FieldVector> vectors = root.getFieldVectors();
+      ArrowColumnReader[] readers = new ArrowColumnReader[vectors.size()];
+      for (int c = 0; c < readers.length; c++)
+        readers[c] = ArrowColumnReader.forVector(vectors.get(c), dictionaries[c]);
+      BufferedString bs = new BufferedString();
+      int nrows = Math.min(root.getRowCount(), cnt);
+      for (int i = 0; i < nrows; i++) {
+        for (int c = 0; c < readers.length; c++) {
+          if (readers[c].isNA(i)) {
+            ppWriter.addInvalidCol(c);
+            continue;
+          }
+          switch (readers[c].kind()) {
+            case ArrowColumnReader.LONG:
+              ppWriter.addNumCol(c, readers[c].getLong(i), 0);
+              break;
+            case ArrowColumnReader.DOUBLE:
+              ppWriter.addNumCol(c, readers[c].getDouble(i));
+              break;
+            default:
+              ppWriter.addStrCol(c, readers[c].getString(i, bs));
+          }
+        }
+        ppWriter.newLine();
+      }
+      return ppWriter;
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read the first few records", e);
+    }
+  }
+
+  private static class ArrowPreviewParseWriter extends PreviewParseWriter {
+
+    private String[] _colNames;
+    private byte[] _roughTypes;
+
+    public ArrowPreviewParseWriter() {
+      // externalizable class should have a public constructor
+      super();
+    }
+
+    ArrowPreviewParseWriter(ParseSetup setup) {
+      super(setup.getColumnNames().length);
+      _colNames = setup.getColumnNames();
+      _roughTypes = setup.getColumnTypes();
+      setColumnNames(_colNames);
+      _nlines = 0;
+      _data[0] = new String[_colNames.length];
+    }
+
+    @Override
+    public byte[] guessTypes() {
+      byte[] types = correctTypeConversions(_roughTypes, super.guessTypes());
+      // dictionary-encoded columns are categoricals by definition
+      for (int i = 0; i < types.length; i++)
+        if (_roughTypes[i] == Vec.T_CAT)
+          types[i] = Vec.T_CAT;
+      return types;
+    }
+
+    ParseSetup toParseSetup() {
+      byte[] types = guessTypes();
+      return new ParseSetup(ArrowParserProvider.ARROW_INFO, (byte) '|', true, ParseSetup.HAS_HEADER,
+              _colNames.length, _colNames, types, new String[_colNames.length][] /* domains */, null /* NA strings */, _data);
+    }
+
+  }
+
+  /**
+   * Arrow file reader together with the allocator backing its buffers.
+   */
+  private static class ArrowFile implements Closeable {
+    private final BufferAllocator allocator;
+    private final ArrowFileReader reader;
+
+    ArrowFile(Vec vec) {
+      allocator = new RootAllocator(Long.MAX_VALUE);
+      reader = new ArrowFileReader(new VecSeekableByteChannel(vec), allocator);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        reader.close();
+      } finally {
+        allocator.close();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,53 @@
+package water.parser.arrow;
+
+import water.DKV;
+import water.Job;
+import water.Key;
+import water.fvec.ByteVec;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.parser.*;
+
+/**
+ * Arrow parser provider (Arrow IPC file format, also known as Feather V2).
+ */
+public class ArrowParserProvider extends BinaryParserProvider {
+
+  /* Setup for this parser */
+  static ParserInfo ARROW_INFO = new ParserInfo("ARROW", DefaultParserProviders.MAX_CORE_PRIO + 40, true, false, false, false);
+
+  @Override
+  public ParserInfo info() {
+    return ARROW_INFO;
+  }
+
+  @Override
+  public Parser createParser(ParseSetup setup, Key<Job> jobKey) {
+    return new ArrowParser(setup, jobKey);
+  }
+
+  @Override
+  public ParseSetup guessInitSetup(ByteVec v, byte[] bits, ParseSetup userSetup) {
+    return ArrowParser.guessFormatSetup(v, bits);
+  }
+
+  @Override
+  public ParseSetup guessFinalSetup(ByteVec v, byte[] bits, ParseSetup ps) {
+    return ArrowParser.guessDataSetup(v, ps);
+  }
+
+  @Override
+  public ParseSetup createParserSetup(Key[] inputs, ParseSetup requestedSetup) {
+    // override incorrect type mappings (using the schema of the first file)
+    Object frameOrVec = DKV.getGet(inputs[0]);
+    ByteVec vec = (ByteVec) (frameOrVec instanceof Frame ? ((Frame) frameOrVec).vec(0) : frameOrVec);
+    byte[] requestedTypes = requestedSetup.getColumnTypes();
+    byte[] types = ArrowParser.correctTypeConversions(vec, requestedTypes);
+    requestedSetup.setColumnTypes(types);
+    for (int i = 0; i < types.length; i++)
+      if (types[i] != requestedTypes[i])
+        requestedSetup.addErrs(new ParseWriter.UnsupportedTypeOverride(inputs[0].toString(), Vec.TYPE_STR[types[i]], Vec.TYPE_STR[requestedTypes[i]], requestedSetup.getColumnNames()[i]));
+    return requestedSetup;
+  }
+
+}
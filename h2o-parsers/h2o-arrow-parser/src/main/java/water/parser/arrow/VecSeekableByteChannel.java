@@ -0,0 +1,104 @@
+package water.parser.arrow;
+
+import water.fvec.Chunk;
+import water.fvec.Vec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Read-only seekable channel over the bytes of a Vec holding a raw file (eg. NFSFileVec).
+ *
+ * Bytes are served directly from the Chunks of the Vec (remote Chunks are fetched on demand and cached
+ * by the DKV), the channel doesn't copy the data into an intermediate buffer.
+ *
+ * Warning: This is not designed to be accessed by multiple threads!
+ */
+class VecSeekableByteChannel implements SeekableByteChannel {
+
+  private final Vec _vec;
+  private final long _size;
+  private long _pos;
+  private boolean _open = true;
+
+  // last accessed chunk
+  private Chunk _chk;
+  private byte[] _mem;
+
+  VecSeekableByteChannel(Vec vec) {
+    _vec = vec;
+    _size = vec.length();
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    ensureOpen();
+    if (_pos >= _size)
+      return -1;
+    int read = 0;
+    while (dst.hasRemaining() && _pos < _size) {
+      if (_chk == null || _pos < _chk.start() || _pos >= _chk.start() + _mem.length) {
+        _chk = _vec.chunkForRow(_pos);
+        _mem = _chk.getBytes();
+      }
+      int off = (int) (_pos - _chk.start());
+      int len = Math.min(dst.remaining(), _mem.length - off);
+      dst.put(_mem, off, len);
+      _pos += len;
+      read += len;
+    }
+    return read;
+  }
+
+  @Override
+  public int write(ByteBuffer src) throws IOException {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public long position() throws IOException {
+    ensureOpen();
+    return _pos;
+  }
+
+  @Override
+  public SeekableByteChannel position(long newPosition) throws IOException {
+    ensureOpen();
+    if (newPosition < 0)
+      throw new IllegalArgumentException("Negative position: " + newPosition);
+    _pos = newPosition;
+    return this;
+  }
+
+  @Override
+  public long size() throws IOException {
+    ensureOpen();
+    return _size;
+  }
+
+  @Override
+  public SeekableByteChannel truncate(long size) throws IOException {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return _open;
+  }
+
+  @Override
+  public void close() {
+    _open = false;
+    _chk = null;
+    _mem = null;
+  }
+
+  private void ensureOpen() throws IOException {
+    if (! _open)
+      throw new ClosedChannelException();
+  }
+
+}
@@ -0,0 +1,234 @@
+package water.parser.arrow;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampSecVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.UInt1Vector;
+import org.apache.arrow.vector.UInt8Vector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+import water.parser.ParseSetup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test suite for Arrow parser and Arrow export.
+ */
+public class ParseTestArrow extends TestUtil {
+
+  @BeforeClass
+  static public void setup() { TestUtil.stall_till_cloudsize(1); }
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testExportAndParse() throws IOException {
+    Scope.enter();
+    try {
+      Frame expected = new TestFrameBuilder()
+              .withName("arrowExport")
+              .withColNames("num", "int", "cat", "str", "time")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, Vec.T_STR, Vec.T_TIME)
+              .withDataForCol(0, ard(1.5, Double.NaN, -0.25, 1e10, 3.14159, 0))
+              .withDataForCol(1, ard(1, 2, 3, Double.NaN, -5, 6))
+              .withDataForCol(2, ar("b", "a", null, "c", "a", "b"))
+              .withDataForCol(3, ar("x", null, "hello", "world", "", "ěščř"))
+              .withDataForCol(4, ard(1546300800000L, 1546387200000L, Double.NaN, 0, 1546473600123L, 1L))
+              .withChunkLayout(2, 1, 3)
+              .build();
+      File f = export(expected);
+
+      // plain string columns are subject to type guessing, short columns would be parsed as categoricals
+      Frame actual = Scope.track(parse_test_file(f.getCanonicalPath(), new ParseSetupTransformer() {
+        @Override
+        public ParseSetup transformSetup(ParseSetup guessedSetup) {
+          byte[] types = guessedSetup.getColumnTypes();
+          types[3] = Vec.T_STR;
+          return guessedSetup.setColumnTypes(types);
+        }
+      }));
+      assertArrayEquals(expected.names(), actual.names());
+      assertArrayEquals(expected.types(), actual.types());
+      assertVecEquals(expected.vec("num"), actual.vec("num"), 0);
+      assertVecEquals(expected.vec("int"), actual.vec("int"), 0);
+      assertCatVecEquals(expected.vec("cat"), actual.vec("cat"));
+      assertStringVecEquals(expected.vec("str"), actual.vec("str"));
+      assertVecEquals(expected.vec("time"), actual.vec("time"), 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testParseManyBatches() throws IOException {
+    Scope.enter();
+    try {
+      final int N = 100000;
+      double[] nums = new double[N];
+      double[] ints = new double[N];
+      for (int i = 0; i < N; i++) {
+        nums[i] = i % 97 == 0 ? Double.NaN : i / 7.0;
+        ints[i] = i % 89 == 0 ? Double.NaN : i - N / 2;
+      }
+      long[] layout = new long[100];
+      Arrays.fill(layout, N / layout.length);
+      Frame expected = new TestFrameBuilder()
+              .withName("arrowBatches")
+              .withColNames("num", "int")
+              .withDataForCol(0, nums)
+              .withDataForCol(1, ints)
+              .withChunkLayout(layout)
+              .build();
+      File f = export(expected);
+
+      Frame actual = Scope.track(parse_test_file(f.getCanonicalPath()));
+      assertEquals(N, actual.numRows());
+      assertVecEquals(expected.vec("num"), actual.vec("num"), 1e-10);
+      assertVecEquals(expected.vec("int"), actual.vec("int"), 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testParseWithSkippedColumns() throws IOException {
+    Scope.enter();
+    try {
+      Frame expected = new TestFrameBuilder()
+              .withName("arrowSkipped")
+              .withColNames("a", "b", "c")
+              .withVecTypes(Vec.T_NUM, Vec.T_CAT, Vec.T_NUM)
+              .withDataForCol(0, ard(1, 2, 3, 4))
+              .withDataForCol(1, ar("x", "y", "x", null))
+              .withDataForCol(2, ard(0.5, Double.NaN, 1.5, 2.5))
+              .withChunkLayout(2, 2)
+              .build();
+      File f = export(expected);
+
+      Frame actual = Scope.track(parse_test_file(f.getCanonicalPath(), new int[]{0}));
+      assertArrayEquals(ar("b", "c"), actual.names());
+      assertCatVecEquals(expected.vec("b"), actual.vec("b"));
+      assertVecEquals(expected.vec("c"), actual.vec("c"), 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testParseArrowTypes() throws IOException {
+    File f = tmp.newFile("types.arrow");
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE)) {
+      DictionaryEncoding encoding = new DictionaryEncoding(1L, false, new ArrowType.Int(32, true));
+      VarCharVector dictVector = new VarCharVector("dict", allocator);
+      dictVector.allocateNew();
+      for (int i = 0; i < 3; i++)
+        dictVector.setSafe(i, ("level" + i).getBytes(StandardCharsets.UTF_8));
+      dictVector.setValueCount(3);
+      DictionaryProvider.MapDictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider(new Dictionary(dictVector, encoding));
+
+      TinyIntVector tinyInt = new TinyIntVector("tinyint", allocator);
+      UInt1Vector uint1 = new UInt1Vector("uint1", allocator);
+      UInt8Vector uint8 = new UInt8Vector("uint8", allocator);
+      BitVector bool = new BitVector("bool", allocator);
+      Float4Vector float4 = new Float4Vector("float4", allocator);
+      DateDayVector date = new DateDayVector("date", allocator);
+      TimeStampSecVector timestamp = new TimeStampSecVector("timestamp", allocator);
+      IntVector cat = new IntVector("cat", new FieldType(true, new ArrowType.Int(32, true), encoding), allocator);
+      List<FieldVector> vectors = Arrays.<FieldVector>asList(tinyInt, uint1, uint8, bool, float4, date, timestamp, cat);
+      List<Field> fields = Arrays.asList(tinyInt.getField(), uint1.getField(), uint8.getField(), bool.getField(), float4.getField(),
+              date.getField(), timestamp.getField(), cat.getField());
+      try (VectorSchemaRoot root = new VectorSchemaRoot(fields, vectors, 0);
+           ArrowFileWriter writer = new ArrowFileWriter(root, provider, new FileOutputStream(f).getChannel())) {
+        writer.start();
+        for (int batch = 0; batch < 2; batch++) {
+          for (FieldVector v : vectors)
+            v.reset();
+          for (int i = 0; i < 3; i++) {
+            int row = batch * 3 + i;
+            tinyInt.setSafe(i, -row);
+            uint1.setSafe(i, 250 + row);
+            uint8.setSafe(i, row == 5 ? -1L : row); // 2^64 - 1 does not fit a signed long
+            bool.setSafe(i, row % 2);
+            float4.setSafe(i, row + 0.5f);
+            date.setSafe(i, row);
+            timestamp.setSafe(i, row * 60L);
+            if (row == 4) cat.setNull(i); else cat.setSafe(i, row % 3);
+          }
+          for (FieldVector v : vectors)
+            v.setValueCount(3);
+          root.setRowCount(3);
+          writer.writeBatch();
+        }
+        writer.end();
+      } finally {
+        dictVector.close();
+      }
+    }
+
+    Scope.enter();
+    try {
+      Frame fr = Scope.track(parse_test_file(f.getCanonicalPath()));
+      assertArrayEquals(ar("tinyint", "uint1", "uint8", "bool", "float4", "date", "timestamp", "cat"), fr.names());
+      assertArrayEquals(new byte[]{Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_TIME, Vec.T_TIME, Vec.T_CAT}, fr.types());
+      assertArrayEquals(ar("level0", "level1", "level2"), fr.vec("cat").domain());
+      for (int row = 0; row < 6; row++) {
+        assertEquals(-row, fr.vec("tinyint").at8(row));
+        assertEquals(250 + row, fr.vec("uint1").at8(row));
+        assertEquals(row == 5 ? 18446744073709551615.0 : row, fr.vec("uint8").at(row), row == 5 ? 1e4 : 0); // parsed doubles keep ~19 digits
+        assertEquals(row % 2, fr.vec("bool").at8(row));
+        assertEquals(row + 0.5, fr.vec("float4").at(row), 0);
+        assertEquals(row * 86400000L, fr.vec("date").at8(row));
+        assertEquals(row * 60000L, fr.vec("timestamp").at8(row));
+        if (row == 4)
+          assertTrue(fr.vec("cat").isNA(row));
+        else
+          assertEquals(row % 3, fr.vec("cat").at8(row));
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testGuessFormatSetupRejectsNonArrowData() {
+    assertNull(ArrowParser.guessFormatSetup(null, "a,b,c\n1,2,3\n".getBytes(StandardCharsets.US_ASCII)));
+    assertNull(ArrowParser.guessFormatSetup(null, "ARR".getBytes(StandardCharsets.US_ASCII)));
+  }
+
+  private File export(Frame fr) throws IOException {
+    File f = tmp.newFile(fr._key.toString() + ".arrow");
+    new ArrowFrameWriter(fr).write(new FileOutputStream(f));
+    return f;
+  }
+
+}
@@ -68,6 +68,10 @@ public class OrcParser extends Parser {
 
   private transient HashMap<Integer,HashMap<Number,byte[]>> _toStringMaps = new HashMap<>();
 
+  private transient long[] _longBuffer; // re-used for converted batches of long values
+  private transient double[] _doubleBuffer;
+
+
 
   @Override protected ParseWriter streamParse(final InputStream is, final StreamParseWriter dout) throws IOException {
     List<StripeInformation> stripesInfo = ((OrcParseSetup) this._setup).getStripes();
@@ -237,27 +241,22 @@ public class OrcParser extends Parser {
                                int rowNumber, ParseWriter dout) {
     boolean timestamp = columnType.equals("timestamp");
     long [] oneColumn = col.vector;
+    long [] values = longBuffer(rowNumber); // convert the whole batch first and then write it at once
+    boolean [] isNull = col.noNulls || col.isRepeating ? null : col.isNull;
     if(col.isRepeating) {
-      long val = timestamp ? oneColumn[0] / 1000000 : correctTimeStamp(oneColumn[0]);
-      for (int rowIndex = 0; rowIndex < rowNumber; rowIndex++)
-        dout.addNumCol(cIdx, val, 0);
-    } else if(col.noNulls) {
-      for (int rowIndex = 0; rowIndex < rowNumber; rowIndex++)
-        dout.addNumCol(cIdx, timestamp ? oneColumn[rowIndex] / 1000000 : correctTimeStamp(oneColumn[rowIndex]), 0);
+      Arrays.fill(values, 0, rowNumber, timestamp ? oneColumn[0] / 1000000 : correctTimeStamp(oneColumn[0]));
     } else {
-      boolean[] isNull = col.isNull;
-      for (int rowIndex = 0; rowIndex < rowNumber; rowIndex++) {
-        if (isNull[rowIndex])
-          dout.addInvalidCol(cIdx);
-        else
-          dout.addNumCol(cIdx, timestamp ? oneColumn[rowIndex] / 1000000 : correctTimeStamp(oneColumn[rowIndex]), 0);
-      }
+      for (int rowIndex = 0; rowIndex < rowNumber; rowIndex++)
+        if (isNull == null || !isNull[rowIndex])
+          values[rowIndex] = timestamp ? oneColumn[rowIndex] / 1000000 : correctTimeStamp(oneColumn[rowIndex]);
     }
+    dout.addNumCol(cIdx, values, isNull, rowNumber);
   }
 
   /**
    * This method writes a column to H2O frame for column type Decimal.  It is just written as some
    * integer without using the scale field.  Need to make sure this is what the customer wants.
+   * Values are appended one at a time, unlike the long and double columns, as every value has its own scale.
    *
    * @param col
    * @param cIdx
@@ -291,7 +290,8 @@ public class OrcParser extends Parser {
 
   /**
    * This method writes a column of H2O frame for Orc File column types of string, varchar, char and
-   * binary at some point.
+   * binary at some point.  Values are appended one at a time, ParseWriter has no bulk append for strings
+   * (every value goes through the categorical/string handling of the writer).
    *
    * @param col
    * @param cIdx
@@ -372,18 +372,11 @@ public class OrcParser extends Parser {
         break;
       default:
         if(vec.isRepeating) {
-          for (int i = 0; i < rowNumber; ++i)
-            dout.addNumCol(colId, oneColumn[0]);
-        } else  if (vec.noNulls) {
-          for (int rowIndex = 0; rowIndex < rowNumber; rowIndex++)
-            dout.addNumCol(colId, oneColumn[rowIndex]);
-        } else {
-          boolean [] isNull = vec.isNull;
-          for (int rowIndex = 0; rowIndex < rowNumber; rowIndex++) {
-            if (isNull[rowIndex]) dout.addInvalidCol(colId);
-            else dout.addNumCol(colId, oneColumn[rowIndex]);
-          }
-        }
+          double[] values = doubleBuffer(rowNumber);
+          Arrays.fill(values, 0, rowNumber, oneColumn[0]);
+          dout.addNumCol(colId, values, null, rowNumber);
+        } else
+          dout.addNumCol(colId, oneColumn, vec.noNulls ? null : vec.isNull, rowNumber);
         break;
     }
   }
@@ -433,28 +426,32 @@ public class OrcParser extends Parser {
         break;
       default:
         if(vec.isRepeating) {
-          for (int i = 0; i < rowNumber; ++i)
-            dout.addNumCol(colId, oneColumn[0], 0);
-        } else  if (vec.noNulls) {
-          for (int rowIndex = 0; rowIndex < rowNumber; rowIndex++) {
-            check_Min_Value(oneColumn[rowIndex], colId, rowNumber, dout);
-            dout.addNumCol(colId, oneColumn[rowIndex], 0);
-          }
-        } else {
-          for (int rowIndex = 0; rowIndex < rowNumber; rowIndex++) {
-            boolean [] isNull = vec.isNull;
-            if (isNull[rowIndex])
-              dout.addInvalidCol(colId);
-            else {
+          long[] values = longBuffer(rowNumber);
+          Arrays.fill(values, 0, rowNumber, oneColumn[0]);
+          dout.addNumCol(colId, values, null, rowNumber);
+        } else { // ORC vector can be appended as is
+          boolean[] isNull = vec.noNulls ? null : vec.isNull;
+          for (int rowIndex = 0; rowIndex < rowNumber; rowIndex++)
+            if (isNull == null || !isNull[rowIndex])
               check_Min_Value(oneColumn[rowIndex], colId, rowNumber, dout);
-              dout.addNumCol(colId, oneColumn[rowIndex], 0);
-            }
-          }
+          dout.addNumCol(colId, oneColumn, isNull, rowNumber);
         }
         break;
     }
   }
 
+  private long[] longBuffer(int len) {
+    if (_longBuffer == null || _longBuffer.length < len)
+      _longBuffer = new long[len];
+    return _longBuffer;
+  }
+
+  private double[] doubleBuffer(int len) {
+    if (_doubleBuffer == null || _doubleBuffer.length < len)
+      _doubleBuffer = new double[len];
+    return _doubleBuffer;
+  }
+
   /**
    * This method is written to check and make sure any value written to a column of type long
    * is more than Long.MIN_VALUE.  If this is not true, a warning will be passed to the user.
@@ -31,24 +31,28 @@ class ChunkConverter extends GroupConverter {
 
   private long _currentRecordIdx = -1;
 
-  ChunkConverter(MessageType parquetSchema, byte[] chunkSchema, WriterDelegate writer, boolean[] keepcolumns) {
+  ChunkConverter(MessageType parquetSchema, MessageType requestedSchema, byte[] chunkSchema, WriterDelegate writer,
+                 boolean[] keepcolumns) {
     _writer = writer;
     _keepColumns = keepcolumns;
 
     int colIdx = 0; // index to columns actually parsed
-    _converters = new Converter[chunkSchema.length];
+    int fieldIdx = 0; // index to fields of the requested (projected) schema
+    _converters = new Converter[requestedSchema.getFieldCount()];
     int trueColumnIndex = 0;  // count all columns including the skipped ones
     for (Type parquetField : parquetSchema.getFields()) {
       assert parquetField.isPrimitive();
-      if (_keepColumns[trueColumnIndex]) {
-        _converters[trueColumnIndex] = newConverter(colIdx, chunkSchema[trueColumnIndex], parquetField.asPrimitiveType());
+      if (_keepColumns == null || _keepColumns[trueColumnIndex]) {
+        _converters[fieldIdx++] = newConverter(colIdx, chunkSchema[trueColumnIndex], parquetField.asPrimitiveType());
         colIdx++;
-      } else {
-        _converters[trueColumnIndex] = nullConverter(chunkSchema[trueColumnIndex], parquetField.asPrimitiveType());
+      } else if (requestedSchema.containsField(parquetField.getName())) {
+        // skipped column wasn't projected out of the schema, we still need to consume its values
+        _converters[fieldIdx++] = nullConverter(chunkSchema[trueColumnIndex], parquetField.asPrimitiveType());
       }
 
       trueColumnIndex++;
     }
+    assert fieldIdx == _converters.length;
   }
 
   @Override
@@ -5,7 +5,10 @@ import org.apache.parquet.hadoop.api.InitContext;
 import org.apache.parquet.hadoop.api.ReadSupport;
 import org.apache.parquet.io.api.RecordMaterializer;
 import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class ChunkReadSupport extends ReadSupport<Long> {
@@ -22,13 +25,34 @@ public class ChunkReadSupport extends ReadSupport<Long> {
 
   @Override
   public ReadContext init(InitContext context) {
-    return new ReadContext(context.getFileSchema());
+    return new ReadContext(projectSchema(context.getFileSchema(), _keepColumns));
   }
 
   @Override
   public RecordMaterializer<Long> prepareForRead(Configuration configuration, Map<String, String> keyValueMetaData,
                                                     MessageType fileSchema, ReadContext readContext) {
-    return new ChunkRecordMaterializer(fileSchema, _chunkSchema, _writer, _keepColumns);
+    return new ChunkRecordMaterializer(fileSchema, readContext.getRequestedSchema(), _chunkSchema, _writer, _keepColumns);
+  }
+
+  /**
+   * Restricts the file schema to the columns that are actually going to be parsed. Parquet only reads
+   * (and decompresses) the column chunks of the requested schema, skipped columns are never touched.
+   *
+   * @param fileSchema schema of the Parquet file
+   * @param keepColumns flags of the columns to parse (null means all columns)
+   * @return projected schema, or the full file schema if there is nothing to project
+   */
+  static MessageType projectSchema(MessageType fileSchema, boolean[] keepColumns) {
+    if (keepColumns == null)
+      return fileSchema;
+    List<Type> fields = new ArrayList<>(fileSchema.getFieldCount());
+    for (int i = 0; i < fileSchema.getFieldCount(); i++) {
+      if (keepColumns[i])
+        fields.add(fileSchema.getType(i));
+    }
+    if (fields.isEmpty() || fields.size() == fileSchema.getFieldCount()) // Parquet cannot read an empty projection
+      return fileSchema;
+    return new MessageType(fileSchema.getName(), fields);
   }
 
 }
@@ -15,8 +15,9 @@ class ChunkRecordMaterializer extends RecordMaterializer<Long> {
 
   private ChunkConverter _converter;
 
-  ChunkRecordMaterializer(MessageType parquetSchema, byte[] chunkSchema, WriterDelegate writer, boolean[] keepColumns) {
-    _converter = new ChunkConverter(parquetSchema, chunkSchema, writer, keepColumns);
+  ChunkRecordMaterializer(MessageType parquetSchema, MessageType requestedSchema, byte[] chunkSchema,
+                          WriterDelegate writer, boolean[] keepColumns) {
+    _converter = new ChunkConverter(parquetSchema, requestedSchema, chunkSchema, writer, keepColumns);
   }
 
   @Override
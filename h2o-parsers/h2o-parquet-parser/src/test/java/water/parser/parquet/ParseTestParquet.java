@@ -340,6 +340,49 @@ public class ParseTestParquet extends TestUtil {
     assertFrameAssertion(assertion);
   }
 
+  @Test
+  public void testParseSparseColumnsWithSkippedColumns() {
+    final ParseSetupTransformer skipTransformer = new ParseSetupTransformer() {
+      @Override
+      public ParseSetup transformSetup(ParseSetup guessedSetup) {
+        int[] skippedColumns = ari(1, 2);
+        guessedSetup.setSkippedColumns(skippedColumns);
+        guessedSetup.setParseColumnIndices(guessedSetup.getNumberColumns(), skippedColumns);
+        return psTransformer.transformSetup(guessedSetup);
+      }
+    };
+    FrameAssertion assertion = new GenFrameAssertion("sparseColumns.parquet", TestUtil.ari(2, 100), skipTransformer) {
+      @Override protected File prepareFile() throws IOException { return ParquetFileGenerator.generateSparseParquetFile(Files.createTempDir(), file, nrows()); }
+      @Override public void check(Frame f) {
+        assertArrayEquals("Column names need to match!", ar("int32_field", "int32_field2"), f.names());
+        assertArrayEquals("Column types need to match!", ar(Vec.T_NUM, Vec.T_NUM), f.types());
+        for (int row = 0; row < nrows(); row++) {
+          if (row % 10 == 0) {
+            assertEquals("Value in column int32_field", row, f.vec(0).at8(row));
+            assertEquals("Value in column int32_field2", row, f.vec(1).at8(row));
+          } else {
+            assertTrue(f.vec(0).isNA(row));
+            assertTrue(f.vec(1).isNA(row));
+          }
+        }
+      }
+    };
+    assertFrameAssertion(assertion);
+  }
+
+  @Test
+  public void testProjectSchema() {
+    MessageType schema = parseMessageType(
+            "message test { optional int32 a; optional binary b (UTF8); optional double c; } ");
+    assertSame(schema, ChunkReadSupport.projectSchema(schema, null));
+    assertSame(schema, ChunkReadSupport.projectSchema(schema, new boolean[]{true, true, true}));
+    assertSame(schema, ChunkReadSupport.projectSchema(schema, new boolean[]{false, false, false}));
+    MessageType projected = ChunkReadSupport.projectSchema(schema, new boolean[]{true, false, true});
+    assertEquals(2, projected.getFieldCount());
+    assertEquals("a", projected.getType(0).getName());
+    assertEquals("c", projected.getType(1).getName());
+  }
+
   @Test
   public void testParseCategoricalsWithZeroCharacters() {
     FrameAssertion assertion = new GenFrameAssertion("nullCharacters.parquet", TestUtil.ari(1, 100), psTransformer) {